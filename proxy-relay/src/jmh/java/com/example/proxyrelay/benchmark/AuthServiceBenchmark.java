@@ -0,0 +1,47 @@
+package com.example.proxyrelay.benchmark;
+
+import com.example.proxyrelay.service.AuthService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthService.extractToken 벤치마크
+ * 연결 URL의 query 형태별로 토큰 추출 비용을 측정합니다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.includes=AuthServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthServiceBenchmark {
+
+    /**
+     * TOKEN_ONLY: token만 있는 query, TOKEN_LAST: 다른 연결 옵션 뒤에 token이 있는 query
+     */
+    @Param({"TOKEN_ONLY", "TOKEN_LAST"})
+    private String queryShape;
+
+    private final AuthService authService = new AuthService();
+    private String query;
+
+    @Setup
+    public void setUp() {
+        String token = "token=3f2504e0-4f89-11d3-9a0c-0305e82c3301";
+        query = "TOKEN_ONLY".equals(queryShape)
+            ? token
+            : "type=A&proto=bin&compress=gzip&header-table=4096&" + token;
+    }
+
+    @Benchmark
+    public String extractToken() {
+        return authService.extractToken(query);
+    }
+}
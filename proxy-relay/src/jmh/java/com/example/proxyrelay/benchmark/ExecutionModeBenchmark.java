@@ -0,0 +1,81 @@
+package com.example.proxyrelay.benchmark;
+
+import com.example.proxyrelay.execution.ExecutionMode;
+import com.example.proxyrelay.execution.StageExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 실행 모드 벤치마크
+ * 연결 64개가 각각 프레임 16개를 받을 때 처리 단계에 블로킹 작업(LDAP 인증 확인, 감사 로그 기록 등의 대역)이 있으면
+ * 이벤트 루프에서 바로 처리하는 방식과 boundedElastic, 가상 스레드로 넘기는 방식의 전체 처리 시간을 비교합니다.
+ * 이벤트 루프는 CPU 코어 수만큼의 스레드로 흉내 내며, 연결의 프레임은 해당 연결의 루프에서 도착합니다.
+ * blockingMicros=0은 스레드 전환 비용만 측정합니다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.includes=ExecutionModeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutionModeBenchmark {
+
+    private static final int CONNECTIONS = 64;
+    private static final int FRAMES_PER_CONNECTION = 16;
+
+    @Param({"EVENT_LOOP", "BOUNDED_ELASTIC", "VIRTUAL_THREADS"})
+    private ExecutionMode mode;
+
+    /**
+     * 처리 단계마다 블로킹하는 시간 (마이크로초)
+     */
+    @Param({"0", "500"})
+    private int blockingMicros;
+
+    private Scheduler eventLoops;
+    private StageExecutor executor;
+    private Function<Integer, Mono<Void>> stage;
+
+    @Setup
+    public void setUp() {
+        eventLoops = Schedulers.newParallel("event-loop", Runtime.getRuntime().availableProcessors());
+        executor = new StageExecutor(mode);
+        long blockingNanos = TimeUnit.MICROSECONDS.toNanos(blockingMicros);
+        stage = executor.wrap(frame -> {
+            if (blockingNanos > 0) {
+                LockSupport.parkNanos(blockingNanos);
+            }
+            return Mono.empty();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.dispose();
+        eventLoops.dispose();
+    }
+
+    @Benchmark
+    public Void handleFrames() {
+        return Flux.range(0, CONNECTIONS)
+            .flatMap(connection -> Flux.range(0, FRAMES_PER_CONNECTION)
+                .subscribeOn(eventLoops)
+                .concatMap(stage), CONNECTIONS)
+            .then()
+            .block();
+    }
+}
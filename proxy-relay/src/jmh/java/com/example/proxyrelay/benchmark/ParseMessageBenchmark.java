@@ -0,0 +1,91 @@
+package com.example.proxyrelay.benchmark;
+
+import com.example.proxyrelay.config.JacksonConfig;
+import com.example.proxyrelay.dto.RelayMessage;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.service.MessageRoutingService;
+import com.example.proxyrelay.service.SessionService;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parseMessage 벤치마크
+ * 기존 2단계 파싱(Map → RelayMessage)과 단일 패스 파싱을 본문 크기별로 비교합니다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.includes=ParseMessageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseMessageBenchmark {
+
+    /**
+     * 본문 크기 (bytes): small, 64 KB, 1 MB
+     */
+    @Param({"128", "65536", "1048576"})
+    private int bodySize;
+
+    // RelayMessage의 @JsonDeserialize(단일 패스 역직렬화기)를 무시하고 기존처럼 bean 역직렬화
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .addMixIn(RelayMessage.class, LegacyRelayMessage.class);
+    private MessageRoutingService messageRoutingService;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        SessionService sessionService = new SessionService();
+        messageRoutingService = new MessageRoutingService(sessionService, new RelayMetrics(new SimpleMeterRegistry(), sessionService), 
+            JacksonConfig.createObjectMapper());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "text/html; charset=utf-8");
+        headers.put("Cache-Control", "no-cache");
+
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.RESPONSE);
+        message.setSessionId("3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+        message.setStatusCode(200);
+        message.setHeaders(headers);
+        message.setBody("<p>" + "x".repeat(Math.max(0, bodySize - 7)) + "</p>");
+        json = objectMapper.writeValueAsString(message);
+    }
+
+    /**
+     * 기존 방식: Map으로 파싱해 type을 확인한 뒤 RelayMessage로 다시 파싱
+     */
+    @Benchmark
+    public RelayMessage legacyTwoPass() throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> rawMessage = objectMapper.readValue(json, Map.class);
+        if ("CONNECT".equalsIgnoreCase((String) rawMessage.get("type"))) {
+            return null;
+        }
+        return objectMapper.readValue(json, RelayMessage.class);
+    }
+
+    /**
+     * 현재 방식: 단일 패스 파싱
+     */
+    @Benchmark
+    public RelayMessage singlePass() {
+        return messageRoutingService.parseMessage(json);
+    }
+
+    @JsonDeserialize(using = JsonDeserializer.None.class)
+    private abstract static class LegacyRelayMessage {
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.proxyrelay.benchmark;
+
+import com.example.proxyrelay.config.JacksonConfig;
+import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.RelayMessage;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.service.MessageRoutingService;
+import com.example.proxyrelay.service.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 라우팅 벤치마크
+ * routeRequestToAgent로 요청을 Client B에 보내고 routeResponseToClient로 응답을 Client A에 돌려주는 한 번의 왕복을
+ * 프레이밍 방식(JSON/BINARY)과 응답 본문 크기별로 측정합니다. (처리 중인 요청 등록/해제와 인코딩 포함)
+ * 세션은 전송한 프레임을 바로 해제하므로 네트워크 쓰기 비용은 포함하지 않습니다.
+ *
+ * 실행: ./gradlew jmh -Pjmh.includes=RoutingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoutingBenchmark {
+
+    private static final String CLIENT_A_SESSION_ID = "a-0";
+    private static final String CLIENT_B_SESSION_ID = "b-0";
+
+    @Param({"JSON", "BINARY"})
+    private FrameProtocol protocol;
+
+    /**
+     * 응답 본문 크기 (bytes)
+     */
+    @Param({"128", "65536"})
+    private int bodySize;
+
+    private MessageRoutingService messageRoutingService;
+    private RelayMessage request;
+    private RelayMessage response;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        SessionService sessionService = new SessionService();
+        messageRoutingService = new MessageRoutingService(sessionService, new RelayMetrics(new SimpleMeterRegistry(), sessionService),
+            JacksonConfig.createObjectMapper());
+        sessionService.registerSession(new StubWebSocketSession(CLIENT_A_SESSION_ID), ClientType.CLIENT_A, "token", protocol);
+        sessionService.registerSession(new StubWebSocketSession(CLIENT_B_SESSION_ID), ClientType.CLIENT_B, "token", protocol);
+        sessionService.mapSessions(CLIENT_A_SESSION_ID, CLIENT_B_SESSION_ID);
+
+        Map<String, String> requestHeaders = new LinkedHashMap<>();
+        requestHeaders.put("Accept", "application/json");
+        requestHeaders.put("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64)");
+
+        request = new RelayMessage();
+        request.setType(RelayMessage.MessageType.REQUEST);
+        request.setMethod("POST");
+        request.setUrl("http://internal-api.company.com/api/orders");
+        request.setHeaders(requestHeaders);
+        request.setBody("{\"orderId\":12345,\"quantity\":1}");
+
+        Map<String, String> responseHeaders = new LinkedHashMap<>();
+        responseHeaders.put("Content-Type", "text/html; charset=utf-8");
+        responseHeaders.put("Cache-Control", "no-cache");
+
+        response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setStatusCode(200);
+        response.setHeaders(responseHeaders);
+        response.setBody("<p>" + "x".repeat(Math.max(0, bodySize - 7)) + "</p>");
+    }
+
+    /**
+     * 요청 전달과 응답 전달 (요청마다 새 sessionId)
+     */
+    @Benchmark
+    public Void requestResponseRoundTrip() {
+        String requestSessionId = "req-" + sequence++;
+        request.setSessionId(requestSessionId);
+        response.setSessionId(requestSessionId);
+        messageRoutingService.routeRequestToAgent(CLIENT_A_SESSION_ID, request).block();
+        return messageRoutingService.routeResponseToClient(CLIENT_B_SESSION_ID, response).block();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.proxyrelay.benchmark;
+
+import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.SessionInfo;
+import com.example.proxyrelay.service.SessionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.reactive.socket.WebSocketSession;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionService 벤치마크
+ * 기존 스트림 스캔 방식과 양방향 인덱스 방식을 세션 수별로 비교합니다.
+ * (Client B 하나당 Client A 100개 매핑, 재연결은 removeSession 포함)
+ *
+ * 실행: ./gradlew jmh -Pjmh.includes=SessionServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionServiceBenchmark {
+
+    private static final int CLIENT_A_PER_AGENT = 100;
+
+    /**
+     * Client A 세션 수
+     */
+    @Param({"10", "1000", "100000"})
+    private int sessionCount;
+
+    private SessionService sessionService;
+    private LegacySessionIndex legacyIndex;
+    private WebSocketSession[] clientASessions;
+    private String[] clientBSessionIds;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        sessionService = new SessionService();
+        legacyIndex = new LegacySessionIndex();
+
+        int agentCount = Math.max(1, sessionCount / CLIENT_A_PER_AGENT);
+        clientBSessionIds = new String[agentCount];
+        for (int i = 0; i < agentCount; i++) {
+            WebSocketSession session = new StubWebSocketSession("b-" + i);
+            clientBSessionIds[i] = session.getId();
+            sessionService.registerSession(session, ClientType.CLIENT_B, "token");
+            legacyIndex.register(session, ClientType.CLIENT_B);
+        }
+
+        clientASessions = new WebSocketSession[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            WebSocketSession session = new StubWebSocketSession("a-" + i);
+            clientASessions[i] = session;
+            sessionService.registerSession(session, ClientType.CLIENT_A, "token");
+            sessionService.mapSessions(session.getId(), clientBSessionIds[i % agentCount]);
+            legacyIndex.register(session, ClientType.CLIENT_A);
+            legacyIndex.map(session.getId(), clientBSessionIds[i % agentCount]);
+        }
+    }
+
+    private int next(int bound) {
+        cursor = (cursor + 1) % bound;
+        return cursor;
+    }
+
+    /**
+     * 응답 라우팅 시 Client B → Client A 조회 (기존: sessionMapping 전체 스트림 스캔)
+     */
+    @Benchmark
+    public SessionInfo legacyGetMappedClientA() {
+        return legacyIndex.getMappedClientA(clientBSessionIds[next(clientBSessionIds.length)]);
+    }
+
+    @Benchmark
+    public SessionInfo indexedGetMappedClientA() {
+        return sessionService.getMappedClientA(clientBSessionIds[next(clientBSessionIds.length)]);
+    }
+
+    /**
+     * Client A 연결 시 Client B 선택 (기존: Client B마다 sessionMapping 전체 스캔, O(A×B))
+     */
+    @Benchmark
+    public SessionInfo legacyFindAvailableClientB() {
+        return legacyIndex.findAvailableClientB();
+    }
+
+    @Benchmark
+    public SessionInfo indexedFindAvailableClientB() {
+        return sessionService.findAvailableClientB();
+    }
+
+    /**
+     * Client A 재연결 (연결 종료 → 등록 → 매핑)
+     */
+    @Benchmark
+    public SessionInfo legacyReconnectClientA() {
+        WebSocketSession session = clientASessions[next(clientASessions.length)];
+        legacyIndex.remove(session.getId());
+        legacyIndex.register(session, ClientType.CLIENT_A);
+        String clientBSessionId = clientBSessionIds[cursor % clientBSessionIds.length];
+        legacyIndex.map(session.getId(), clientBSessionId);
+        return legacyIndex.clientBSessions.get(clientBSessionId);
+    }
+
+    @Benchmark
+    public SessionInfo indexedReconnectClientA() {
+        WebSocketSession session = clientASessions[next(clientASessions.length)];
+        sessionService.removeSession(session.getId());
+        sessionService.registerSession(session, ClientType.CLIENT_A, "token");
+        return sessionService.assignClientB(session.getId());
+    }
+
+    /**
+     * 기존 SessionService의 매핑 관리 방식 (비교용)
+     */
+    static class LegacySessionIndex {
+
+        final ConcurrentMap<String, SessionInfo> clientASessions = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, SessionInfo> clientBSessions = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, String> sessionMapping = new ConcurrentHashMap<>();
+
+        void register(WebSocketSession session, ClientType clientType) {
+            SessionInfo sessionInfo = new SessionInfo(session, clientType, "token");
+            if (clientType == ClientType.CLIENT_A) {
+                clientASessions.put(session.getId(), sessionInfo);
+            } else {
+                clientBSessions.put(session.getId(), sessionInfo);
+            }
+        }
+
+        void map(String clientASessionId, String clientBSessionId) {
+            sessionMapping.put(clientASessionId, clientBSessionId);
+        }
+
+        void remove(String sessionId) {
+            if (clientASessions.remove(sessionId) == null) {
+                clientBSessions.remove(sessionId);
+            }
+            sessionMapping.entrySet().removeIf(entry ->
+                entry.getKey().equals(sessionId) || entry.getValue().equals(sessionId)
+            );
+        }
+
+        SessionInfo getMappedClientA(String clientBSessionId) {
+            return sessionMapping.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(clientBSessionId))
+                .map(entry -> clientASessions.get(entry.getKey()))
+                .findFirst()
+                .orElse(null);
+        }
+
+        SessionInfo findAvailableClientB() {
+            return clientBSessions.values().stream()
+                .filter(SessionInfo::isActive)
+                .filter(session -> {
+                    String sessionId = session.getSession().getId();
+                    return sessionMapping.values().stream()
+                        .noneMatch(mappedBId -> mappedBId.equals(sessionId));
+                })
+                .findFirst()
+                .orElse(null);
+        }
+    }
+}
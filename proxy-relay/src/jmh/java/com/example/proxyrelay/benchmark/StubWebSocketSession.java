@@ -0,0 +1,98 @@
+package com.example.proxyrelay.benchmark;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.HandshakeInfo;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 항상 열려 있는 최소 WebSocketSession 구현 (벤치마크용)
+ * 전송한 메시지는 네트워크에 쓰는 대신 바로 해제합니다.
+ */
+class StubWebSocketSession implements WebSocketSession {
+
+    private final String id;
+
+    StubWebSocketSession(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public HandshakeInfo getHandshakeInfo() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DataBufferFactory bufferFactory() {
+        return DefaultDataBufferFactory.sharedInstance;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return Map.of();
+    }
+
+    @Override
+    public Flux<WebSocketMessage> receive() {
+        return Flux.never();
+    }
+
+    @Override
+    public Mono<Void> send(Publisher<WebSocketMessage> messages) {
+        return Flux.from(messages)
+            .doOnNext(message -> DataBufferUtils.release(message.getPayload()))
+            .then();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public Mono<Void> close(CloseStatus status) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<CloseStatus> closeStatus() {
+        return Mono.never();
+    }
+
+    @Override
+    public WebSocketMessage textMessage(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return new WebSocketMessage(WebSocketMessage.Type.TEXT, bufferFactory().wrap(bytes));
+    }
+
+    @Override
+    public WebSocketMessage binaryMessage(Function<DataBufferFactory, DataBuffer> payloadFactory) {
+        return new WebSocketMessage(WebSocketMessage.Type.BINARY, payloadFactory.apply(bufferFactory()));
+    }
+
+    @Override
+    public WebSocketMessage pingMessage(Function<DataBufferFactory, DataBuffer> payloadFactory) {
+        return new WebSocketMessage(WebSocketMessage.Type.PING, payloadFactory.apply(bufferFactory()));
+    }
+
+    @Override
+    public WebSocketMessage pongMessage(Function<DataBufferFactory, DataBuffer> payloadFactory) {
+        return new WebSocketMessage(WebSocketMessage.Type.PONG, payloadFactory.apply(bufferFactory()));
+    }
+}
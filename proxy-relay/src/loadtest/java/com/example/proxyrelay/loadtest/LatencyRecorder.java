@@ -0,0 +1,82 @@
+package com.example.proxyrelay.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 왕복 시간과 요청 결과 집계
+ * 측정 구간의 왕복 시간을 모두 보관했다가 끝난 뒤 정렬하여 백분위수를 계산합니다.
+ */
+class LatencyRecorder {
+    
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private long[] latencies = new long[1 << 16];
+    private int count;
+    
+    void recordSent() {
+        sent.increment();
+    }
+    
+    void recordError() {
+        errors.increment();
+    }
+    
+    synchronized void recordSuccess(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+    
+    /**
+     * 예열 구간의 기록을 버림
+     */
+    synchronized void reset() {
+        sent.reset();
+        errors.reset();
+        count = 0;
+    }
+    
+    long getSent() {
+        return sent.sum();
+    }
+    
+    long getErrors() {
+        return errors.sum();
+    }
+    
+    synchronized long getCompleted() {
+        return count;
+    }
+    
+    /**
+     * 왕복 시간 요약 (밀리초)
+     */
+    synchronized LoadTestReport.Latency summarize() {
+        if (count == 0) {
+            return new LoadTestReport.Latency(0, 0, 0, 0, 0);
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long latency : sorted) {
+            total += latency;
+        }
+        return new LoadTestReport.Latency(
+            millis(percentile(sorted, 0.50)),
+            millis(percentile(sorted, 0.99)),
+            millis(percentile(sorted, 0.999)),
+            millis(sorted[sorted.length - 1]),
+            millis(total / sorted.length));
+    }
+    
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+    
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.proxyrelay.loadtest;
+
+import com.example.proxyrelay.config.JacksonConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * relay 부하 테스트
+ * 실행 중인 relay에 시뮬레이션 Client B N개와 Client A M개를 연결하고, 정해진 초당 요청 수로 요청을 보내
+ * 왕복 시간 백분위수(p50/p99/p999), 처리량, relay CPU/힙 사용량을 JSON으로 저장합니다.
+ *
+ * 요청은 응답을 기다리지 않고 일정한 간격으로 보내며(open-loop), 왕복 시간은 예정 전송 시각부터 측정하므로
+ * relay가 밀려 전송이 늦어진 시간도 지연 시간에 포함됩니다.
+ *
+ * 실행: ./gradlew loadTest --args="--agents 4 --clients 16 --rate 2000 --duration 60"
+ */
+public final class LoadTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+    
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    // 측정이 끝난 뒤 남은 응답을 기다리는 시간 (넘으면 timeouts로 집계)
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final long TICK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = JacksonConfig.createObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<SimulatedAgent> agents = new ArrayList<>();
+    private final List<SimulatedClient> clients = new ArrayList<>();
+    private long cursor;
+    
+    LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && "--help".equals(args[0])) {
+            System.out.print(LoadTestOptions.USAGE);
+            return;
+        }
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        
+        LoadTestReport report = new LoadTest(options).run();
+        
+        Files.createDirectories(options.output.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(options.output.toFile(), report);
+        LoadTestReport.Results results = report.results();
+        LoadTestReport.Latency latency = report.latencyMillis();
+        System.out.printf("sent=%d completed=%d errors=%d timeouts=%d throughput=%.1f/s%n",
+            results.sent(), results.completed(), results.errors(), results.timeouts(), results.throughputPerSecond());
+        System.out.printf("latency ms: p50=%.3f p99=%.3f p999=%.3f max=%.3f%n",
+            latency.p50(), latency.p99(), latency.p999(), latency.max());
+        if (report.relay() != null) {
+            System.out.printf("relay: cpu mean=%.1f%% max=%.1f%%, heap mean=%.1f MiB max=%.1f MiB%n",
+                report.relay().cpuUsage().mean() * 100, report.relay().cpuUsage().max() * 100,
+                report.relay().heapUsedBytes().mean() / (1 << 20), report.relay().heapUsedBytes().max() / (1 << 20));
+        }
+        System.out.println("Report written to " + options.output);
+        // Reactor Netty 이벤트 루프 스레드가 남아 있으므로 명시적으로 종료
+        System.exit(0);
+    }
+    
+    LoadTestReport run() throws InterruptedException {
+        WebSocketClient client = new ReactorNettyWebSocketClient(HttpClient.create(),
+            () -> WebsocketClientSpec.builder().maxFramePayloadLength(MAX_FRAME_BYTES));
+        try {
+            connect(client);
+            
+            logger.info("Warming up for {}s at {} req/s", options.warmup.toSeconds(), options.rate);
+            drive(options.warmup);
+            awaitDrained(DRAIN_TIMEOUT);
+            recorder.reset();
+            
+            RelayStatsSampler sampler = options.metricsUrl != null ? new RelayStatsSampler(options.metricsUrl) : null;
+            if (sampler != null) {
+                sampler.start();
+            }
+            logger.info("Measuring for {}s at {} req/s", options.duration.toSeconds(), options.rate);
+            long start = System.nanoTime();
+            drive(options.duration);
+            awaitDrained(DRAIN_TIMEOUT);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            LoadTestReport.RelayStats relayStats = sampler != null ? sampler.stop() : null;
+            
+            long completed = recorder.getCompleted();
+            return new LoadTestReport(
+                new LoadTestReport.Settings(options.url.toString(), options.protocol.name(), options.agents,
+                    options.clients, options.rate, options.duration.toSeconds(), options.warmup.toSeconds(),
+                    options.requestBodyBytes, options.responseBodyBytes),
+                new LoadTestReport.Results(recorder.getSent(), completed, recorder.getErrors(), pendingCount(),
+                    Math.round(completed / elapsedSeconds * 10) / 10.0),
+                recorder.summarize(),
+                relayStats);
+        } finally {
+            clients.forEach(SimulatedConnection::close);
+            agents.forEach(SimulatedConnection::close);
+        }
+    }
+    
+    /**
+     * Client B를 모두 연결한 뒤 Client A 연결 (Client A가 연결 시 Client B에 매핑되도록)
+     */
+    private void connect(WebSocketClient client) {
+        for (int i = 0; i < options.agents; i++) {
+            agents.add(new SimulatedAgent(objectMapper, options.protocol, options.responseBodyBytes));
+        }
+        Flux.fromIterable(agents)
+            .flatMap(agent -> agent.connect(client, options.connectUrl("B")))
+            .then()
+            .block(CONNECT_TIMEOUT);
+        
+        for (int i = 0; i < options.clients; i++) {
+            clients.add(new SimulatedClient(objectMapper, options.protocol, "lt-" + i, options.requestBodyBytes, recorder));
+        }
+        Flux.fromIterable(clients)
+            .flatMap(simulatedClient -> simulatedClient.connect(client, options.connectUrl("A")))
+            .then()
+            .block(CONNECT_TIMEOUT);
+        logger.info("Connected {} Client B and {} Client A to {}", options.agents, options.clients, options.url);
+    }
+    
+    /**
+     * phase 동안 초당 rate개의 요청을 Client A에 번갈아 배분하여 전송
+     */
+    private void drive(Duration phase) {
+        long total = options.rate * phase.toSeconds();
+        double intervalNanos = 1e9 / options.rate;
+        long start = System.nanoTime();
+        long issued = 0;
+        while (issued < total) {
+            long now = System.nanoTime();
+            long scheduled;
+            while (issued < total && (scheduled = start + (long) (issued * intervalNanos)) <= now) {
+                clients.get((int) (cursor++ % clients.size())).request(scheduled);
+                issued++;
+            }
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+    
+    private void awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private long pendingCount() {
+        long pending = 0;
+        for (SimulatedClient simulatedClient : clients) {
+            pending += simulatedClient.getPendingCount();
+        }
+        return pending;
+    }
+}
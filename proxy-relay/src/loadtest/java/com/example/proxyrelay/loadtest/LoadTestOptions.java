@@ -0,0 +1,101 @@
+package com.example.proxyrelay.loadtest;
+
+import com.example.proxyrelay.dto.FrameProtocol;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 부하 테스트 설정 (명령행 인자 --이름 값)
+ */
+class LoadTestOptions {
+    
+    static final String USAGE = """
+        Usage: LoadTest [options]
+          --url <ws-url>              relay 엔드포인트 (기본: ws://localhost:8080/relay)
+          --metrics-url <http-url>    relay Prometheus 엔드포인트 (기본: url의 /actuator/prometheus, none이면 수집 안 함)
+          --token <token>             액세스 토큰 (기본: default-token-change-in-production)
+          --agents <n>                Client B 수 (기본: 4)
+          --clients <n>               Client A 수 (기본: 16)
+          --rate <n>                  초당 요청 수, 모든 Client A 합계 (기본: 1000)
+          --duration <seconds>        측정 시간 (기본: 30)
+          --warmup <seconds>          측정 전 예열 시간 (기본: 5)
+          --request-body <bytes>      요청 body 크기 (기본: 256)
+          --response-body <bytes>     응답 body 크기 (기본: 1024)
+          --proto <json|bin>          프레이밍 방식 (기본: json)
+          --output <file>             결과 JSON 파일 (기본: build/results/loadtest/report.json)
+        """;
+    
+    URI url = URI.create("ws://localhost:8080/relay");
+    URI metricsUrl;
+    String token = "default-token-change-in-production";
+    int agents = 4;
+    int clients = 16;
+    int rate = 1000;
+    Duration duration = Duration.ofSeconds(30);
+    Duration warmup = Duration.ofSeconds(5);
+    int requestBodyBytes = 256;
+    int responseBodyBytes = 1024;
+    FrameProtocol protocol = FrameProtocol.JSON;
+    Path output = Path.of("build", "results", "loadtest", "report.json");
+    
+    /**
+     * @throws IllegalArgumentException 알 수 없는 옵션이거나 값이 잘못된 경우
+     */
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        boolean metricsUrlSet = false;
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[i + 1];
+            switch (name) {
+                case "--url" -> options.url = URI.create(value);
+                case "--metrics-url" -> {
+                    options.metricsUrl = "none".equals(value) ? null : URI.create(value);
+                    metricsUrlSet = true;
+                }
+                case "--token" -> options.token = value;
+                case "--agents" -> options.agents = positive(name, value);
+                case "--clients" -> options.clients = positive(name, value);
+                case "--rate" -> options.rate = positive(name, value);
+                case "--duration" -> options.duration = Duration.ofSeconds(positive(name, value));
+                case "--warmup" -> options.warmup = Duration.ofSeconds(Integer.parseInt(value));
+                case "--request-body" -> options.requestBodyBytes = Integer.parseInt(value);
+                case "--response-body" -> options.responseBodyBytes = Integer.parseInt(value);
+                case "--proto" -> options.protocol = switch (value) {
+                    case "json" -> FrameProtocol.JSON;
+                    case "bin" -> FrameProtocol.BINARY;
+                    default -> throw new IllegalArgumentException("Unknown protocol: " + value);
+                };
+                case "--output" -> options.output = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+        if (!metricsUrlSet) {
+            String scheme = "wss".equals(options.url.getScheme()) ? "https" : "http";
+            options.metricsUrl = URI.create(scheme + "://" + options.url.getAuthority() + "/actuator/prometheus");
+        }
+        return options;
+    }
+    
+    /**
+     * 클라이언트 타입별 연결 URL (type, token, proto 쿼리 추가)
+     */
+    URI connectUrl(String clientType) {
+        String query = "type=" + clientType + "&token=" + token
+            + (protocol == FrameProtocol.BINARY ? "&proto=bin" : "");
+        return URI.create(url + (url.getQuery() == null ? "?" : "&") + query);
+    }
+    
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.proxyrelay.loadtest;
+
+/**
+ * 부하 테스트 결과 (JSON으로 저장하여 빌드 간 비교)
+ * 실행 시각 등 매번 달라지는 값은 넣지 않으므로 같은 설정의 결과 파일은 측정값만 다릅니다.
+ *
+ * @param relay relay 프로세스 자원 사용량, 메트릭을 수집하지 않으면 null
+ */
+record LoadTestReport(Settings settings, Results results, Latency latencyMillis, RelayStats relay) {
+    
+    record Settings(String url, String protocol, int agents, int clients, int requestRate,
+                    long durationSeconds, long warmupSeconds, int requestBodyBytes, int responseBodyBytes) {
+    }
+    
+    /**
+     * @param timeouts 측정이 끝난 뒤 대기 시간 안에 응답이 오지 않은 요청 수
+     */
+    record Results(long sent, long completed, long errors, long timeouts, double throughputPerSecond) {
+    }
+    
+    record Latency(double p50, double p99, double p999, double max, double mean) {
+    }
+    
+    /**
+     * @param cpuUsage 측정 구간 process_cpu_usage 평균/최대 (0~1, 전체 코어 기준)
+     * @param heapUsedBytes 측정 구간 jvm_memory_used_bytes{area="heap"} 합계의 평균/최대
+     */
+    record RelayStats(int samples, Gauge cpuUsage, Gauge heapUsedBytes) {
+    }
+    
+    record Gauge(double mean, double max) {
+    }
+}
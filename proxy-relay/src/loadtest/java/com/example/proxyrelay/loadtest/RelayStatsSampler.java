@@ -0,0 +1,102 @@
+package com.example.proxyrelay.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * relay 자원 사용량 수집
+ * 측정 구간 동안 relay의 Prometheus 엔드포인트를 1초마다 조회하여 CPU 사용률과 힙 사용량을 기록합니다.
+ */
+class RelayStatsSampler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RelayStatsSampler.class);
+    
+    private final URI metricsUrl;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "relay-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<double[]> samples = new ArrayList<>();
+    
+    RelayStatsSampler(URI metricsUrl) {
+        this.metricsUrl = metricsUrl;
+    }
+    
+    void start() {
+        scheduler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 수집 중지
+     *
+     * @return 수집 결과, 한 번도 조회하지 못했으면 null
+     */
+    LoadTestReport.RelayStats stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        synchronized (samples) {
+            if (samples.isEmpty()) {
+                return null;
+            }
+            return new LoadTestReport.RelayStats(samples.size(), gauge(0), gauge(1));
+        }
+    }
+    
+    private void sample() {
+        try {
+            HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(metricsUrl).timeout(Duration.ofSeconds(2)).build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                logger.warn("Metrics request to {} returned {}", metricsUrl, response.statusCode());
+                return;
+            }
+            double cpu = Double.NaN;
+            double heap = 0;
+            for (String line : response.body().split("\n")) {
+                if (line.startsWith("process_cpu_usage")) {
+                    cpu = value(line);
+                } else if (line.startsWith("jvm_memory_used_bytes") && line.contains("area=\"heap\"")) {
+                    heap += value(line);
+                }
+            }
+            if (!Double.isNaN(cpu)) {
+                synchronized (samples) {
+                    samples.add(new double[]{cpu, heap});
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read relay metrics from {}: {}", metricsUrl, e.toString());
+        }
+    }
+    
+    private LoadTestReport.Gauge gauge(int column) {
+        double sum = 0;
+        double max = 0;
+        for (double[] sample : samples) {
+            sum += sample[column];
+            max = Math.max(max, sample[column]);
+        }
+        return new LoadTestReport.Gauge(sum / samples.size(), max);
+    }
+    
+    /**
+     * Prometheus 텍스트 형식 한 줄의 값 (이름{레이블} 값)
+     */
+    private static double value(String line) {
+        return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.proxyrelay.loadtest;
+
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.RelayMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+/**
+ * 시뮬레이션 Client B (내부 에이전트)
+ * 내부망 요청을 수행하는 대신 받은 REQUEST마다 고정 크기 body의 200 응답을 바로 보냅니다.
+ */
+class SimulatedAgent extends SimulatedConnection {
+    
+    private static final Map<String, String> RESPONSE_HEADERS = Map.of("Content-Type", "text/plain; charset=utf-8");
+    
+    private final String responseBody;
+    
+    SimulatedAgent(ObjectMapper objectMapper, FrameProtocol protocol, int responseBodyBytes) {
+        super(objectMapper, protocol);
+        this.responseBody = "x".repeat(responseBodyBytes);
+    }
+    
+    @Override
+    protected void onMessage(RelayMessage message) {
+        if (message.getType() != RelayMessage.MessageType.REQUEST) {
+            return;
+        }
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId(message.getSessionId());
+        response.setStatusCode(200);
+        response.setHeaders(RESPONSE_HEADERS);
+        response.setBody(responseBody);
+        send(response);
+    }
+}
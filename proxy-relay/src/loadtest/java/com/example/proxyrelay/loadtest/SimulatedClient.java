@@ -0,0 +1,82 @@
+package com.example.proxyrelay.loadtest;
+
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.RelayMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 시뮬레이션 Client A (외부 프록시)
+ * 요청마다 고유한 sessionId로 REQUEST를 보내고, 같은 sessionId의 응답이 오면 왕복 시간을 기록합니다.
+ */
+class SimulatedClient extends SimulatedConnection {
+    
+    private static final Map<String, String> REQUEST_HEADERS = Map.of(
+        "Content-Type", "application/json",
+        "User-Agent", "proxy-relay-loadtest");
+    
+    private final String id;
+    private final String requestBody;
+    private final LatencyRecorder recorder;
+    
+    // 응답을 기다리는 요청 sessionId → 예정 전송 시각 (System.nanoTime)
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private long sequence;
+    
+    SimulatedClient(ObjectMapper objectMapper, FrameProtocol protocol, String id, int requestBodyBytes,
+                    LatencyRecorder recorder) {
+        super(objectMapper, protocol);
+        this.id = id;
+        this.requestBody = "{\"data\":\"" + "x".repeat(Math.max(0, requestBodyBytes - 11)) + "\"}";
+        this.recorder = recorder;
+    }
+    
+    /**
+     * 요청 전송 (전송 스케줄러 스레드에서만 호출)
+     *
+     * @param scheduledNanos 이 요청을 보내기로 예정된 시각, 왕복 시간의 시작점
+     */
+    void request(long scheduledNanos) {
+        String sessionId = id + "-" + sequence++;
+        RelayMessage request = new RelayMessage();
+        request.setType(RelayMessage.MessageType.REQUEST);
+        request.setSessionId(sessionId);
+        request.setMethod("POST");
+        request.setUrl("http://loadtest.internal/echo");
+        request.setHeaders(REQUEST_HEADERS);
+        request.setBody(requestBody);
+        
+        pending.put(sessionId, scheduledNanos);
+        recorder.recordSent();
+        if (!send(request)) {
+            pending.remove(sessionId);
+            recorder.recordError();
+        }
+    }
+    
+    /**
+     * 응답을 기다리는 요청 수
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+    
+    @Override
+    protected void onMessage(RelayMessage message) {
+        if (message.getType() != RelayMessage.MessageType.RESPONSE) {
+            return;
+        }
+        Long scheduledNanos = pending.remove(message.getSessionId());
+        if (scheduledNanos == null) {
+            return;
+        }
+        Integer statusCode = message.getStatusCode();
+        if (statusCode != null && statusCode < 400) {
+            recorder.recordSuccess(System.nanoTime() - scheduledNanos);
+        } else {
+            recorder.recordError();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.proxyrelay.loadtest;
+
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.RelayMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+
+/**
+ * 부하 테스트용 relay 연결 (Client A/B 공통)
+ * 보낼 메시지를 연결별 큐에 넣으면 하나의 send 스트림으로 전송하고, 받은 메시지는 onMessage로 전달합니다.
+ * 프레이밍 방식은 relay와 같은 JSON 직렬화와 BinaryFrameCodec을 사용합니다.
+ */
+abstract class SimulatedConnection {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedConnection.class);
+    
+    private final ObjectMapper objectMapper;
+    private final FrameProtocol protocol;
+    private final Sinks.Many<RelayMessage> outgoing = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.Empty<Void> connected = Sinks.empty();
+    private volatile Disposable connection;
+    
+    SimulatedConnection(ObjectMapper objectMapper, FrameProtocol protocol) {
+        this.objectMapper = objectMapper;
+        this.protocol = protocol;
+    }
+    
+    /**
+     * relay에 연결
+     *
+     * @return 연결되면 완료, 연결에 실패하면 에러
+     */
+    Mono<Void> connect(WebSocketClient client, URI uri) {
+        connection = client.execute(uri, session -> {
+                connected.tryEmitEmpty();
+                Mono<Void> send = session.send(outgoing.asFlux().map(message -> encode(session, message)));
+                Mono<Void> receive = session.receive()
+                    .doOnNext(frame -> {
+                        RelayMessage message = decode(frame);
+                        if (message != null) {
+                            onMessage(message);
+                        }
+                    })
+                    .then();
+                return Mono.when(send, receive);
+            })
+            .subscribe(null, e -> {
+                if (connected.tryEmitError(e).isFailure()) {
+                    logger.warn("Connection to {} closed: {}", uri, e.toString());
+                }
+            });
+        return connected.asMono();
+    }
+    
+    /**
+     * 메시지 전송 예약 (한 번에 한 스레드에서만 호출)
+     *
+     * @return 전송 큐에 들어갔으면 true
+     */
+    boolean send(RelayMessage message) {
+        return outgoing.tryEmitNext(message).isSuccess();
+    }
+    
+    void close() {
+        outgoing.tryEmitComplete();
+        Disposable current = connection;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+    
+    /**
+     * 받은 메시지 처리 (연결의 수신 스레드에서 호출)
+     */
+    protected abstract void onMessage(RelayMessage message);
+    
+    private WebSocketMessage encode(WebSocketSession session, RelayMessage message) {
+        if (protocol == FrameProtocol.BINARY) {
+            return session.binaryMessage(factory -> BinaryFrameCodec.encode(message, factory));
+        }
+        try {
+            return session.textMessage(objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private RelayMessage decode(WebSocketMessage frame) {
+        try {
+            if (frame.getType() == WebSocketMessage.Type.BINARY) {
+                return BinaryFrameCodec.decode(frame.getPayload());
+            }
+            if (frame.getType() == WebSocketMessage.Type.TEXT) {
+                return objectMapper.readValue(frame.getPayloadAsText(), RelayMessage.class);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to decode frame: {}", e.toString());
+        }
+        return null;
+    }
+}
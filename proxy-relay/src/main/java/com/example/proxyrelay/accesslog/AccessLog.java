@@ -0,0 +1,172 @@
+package com.example.proxyrelay.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 샘플링 비동기 접근 로그
+ * 요청 중 sample-rate 비율만 선택하여, 응답 시점에 기록을 고정 크기 링 버퍼에 넣고 전용 스레드가 한 줄 JSON으로 씁니다.
+ * 라우팅 경로(이벤트 루프)에서는 샘플 여부 판단과 버퍼 추가만 하므로 로그 출력 비용이 요청 처리 시간에 포함되지 않으며,
+ * 버퍼가 가득 차면 기록을 버리고 개수만 셉니다 (로그 때문에 라우팅이 멈추지 않도록).
+ *
+ * 출력 대상은 file 설정이 있으면 해당 파일(추가 쓰기), 없으면 relay.access 로거(INFO)입니다.
+ * 쓰기 스레드는 처음 기록할 때 시작합니다.
+ */
+public class AccessLog {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+    
+    // file 설정이 없을 때 출력할 로거
+    public static final String LOGGER_NAME = "relay.access";
+    private static final Logger accessLogger = LoggerFactory.getLogger(LOGGER_NAME);
+    
+    // 쓰기 스레드가 한 번에 꺼내는 최대 기록 수
+    private static final int BATCH_SIZE = 256;
+    
+    private final DoubleSupplier sampleRate;
+    private final IntSupplier bufferSize;
+    private final Supplier<String> file;
+    private final LongAdder dropped = new LongAdder();
+    
+    private volatile ArrayBlockingQueue<AccessRecord> ring;
+    private Thread writer;
+    private volatile boolean closed;
+    
+    /**
+     * @param sampleRate 기록할 요청 비율 (0이면 기록 안 함, 1이면 모든 요청, 설정 변경을 반영하도록 요청마다 읽음)
+     * @param bufferSize 링 버퍼 크기 (쓰기 스레드 시작 시 한 번 읽음)
+     * @param file 출력 파일 경로, 비어 있으면 relay.access 로거 (쓰기 스레드 시작 시 한 번 읽음)
+     */
+    public AccessLog(DoubleSupplier sampleRate, IntSupplier bufferSize, Supplier<String> file) {
+        this.sampleRate = sampleRate;
+        this.bufferSize = bufferSize;
+        this.file = file;
+    }
+    
+    /**
+     * 요청을 샘플로 선택할지 결정 (새 요청마다 호출)
+     */
+    public boolean sample() {
+        double rate = sampleRate.getAsDouble();
+        return rate >= 1.0 || rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+    
+    /**
+     * 기록 추가 (버퍼가 가득 찼거나 종료된 경우 버림)
+     */
+    public void record(AccessRecord record) {
+        ArrayBlockingQueue<AccessRecord> queue = ring != null ? ring : start();
+        if (closed || queue == null || !queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * 버퍼가 가득 찼거나 종료된 뒤라서 버린 기록 수
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+    
+    /**
+     * 남은 기록을 모두 쓴 뒤 쓰기 스레드 종료
+     */
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            closed = true;
+            current = writer;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * @return 링 버퍼, 이미 종료되었으면 null
+     */
+    private synchronized ArrayBlockingQueue<AccessRecord> start() {
+        if (ring == null && !closed) {
+            ArrayBlockingQueue<AccessRecord> queue = new ArrayBlockingQueue<>(Math.max(1, bufferSize.getAsInt()));
+            String path = file.get();
+            writer = Thread.ofPlatform().name("relay-access-log").daemon().unstarted(() -> drain(queue, path));
+            writer.start();
+            ring = queue;
+        }
+        return ring;
+    }
+    
+    private void drain(ArrayBlockingQueue<AccessRecord> queue, String path) {
+        BufferedWriter out = null;
+        if (path != null && !path.isBlank()) {
+            try {
+                Path target = Path.of(path);
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+                out = Files.newBufferedWriter(target, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.error("Cannot open access log file {}, writing to logger {} instead", path, LOGGER_NAME, e);
+            }
+        }
+        
+        List<AccessRecord> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                AccessRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (AccessRecord record : batch) {
+                    record.appendJson(line);
+                    if (out != null) {
+                        out.append(line).append('\n');
+                    } else {
+                        accessLogger.info(line.toString());
+                    }
+                }
+                batch.clear();
+                if (out != null && queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Failed to write access log, stopping", e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close access log file: {}", e.toString());
+                }
+            }
+        }
+    }
+}
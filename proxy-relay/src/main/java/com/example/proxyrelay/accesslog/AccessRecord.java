@@ -0,0 +1,58 @@
+package com.example.proxyrelay.accesslog;
+
+import java.time.Instant;
+
+/**
+ * 접근 로그 한 건 (샘플로 선택된 요청의 응답 시점에 생성)
+ *
+ * @param epochMillis 응답 시각
+ * @param url 요청 URL, 읽지 못했으면 null
+ * @param statusCode 응답 상태 코드, 알 수 없으면 0
+ * @param latencyNanos 요청 등록부터 응답까지의 시간
+ */
+public record AccessRecord(long epochMillis, String requestSessionId, String clientASessionId, String clientBSessionId,
+                           String url, int statusCode, long latencyNanos) {
+    
+    /**
+     * 한 줄 JSON으로 변환 (buffer를 비우고 다시 사용)
+     */
+    void appendJson(StringBuilder buffer) {
+        buffer.setLength(0);
+        buffer.append("{\"time\":");
+        appendString(buffer, Instant.ofEpochMilli(epochMillis).toString());
+        buffer.append(",\"sessionId\":");
+        appendString(buffer, requestSessionId);
+        buffer.append(",\"clientA\":");
+        appendString(buffer, clientASessionId);
+        buffer.append(",\"clientB\":");
+        appendString(buffer, clientBSessionId);
+        buffer.append(",\"url\":");
+        appendString(buffer, url);
+        buffer.append(",\"status\":").append(statusCode);
+        buffer.append(",\"latencyMs\":").append(latencyNanos / 1_000_000).append('.');
+        long micros = latencyNanos / 1_000 % 1_000;
+        if (micros < 100) {
+            buffer.append(micros < 10 ? "00" : "0");
+        }
+        buffer.append(micros).append('}');
+    }
+    
+    private static void appendString(StringBuilder buffer, String value) {
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.append('\\').append(c);
+            } else if (c < 0x20) {
+                buffer.append(String.format("\\u%04x", (int) c));
+            } else {
+                buffer.append(c);
+            }
+        }
+        buffer.append('"');
+    }
+}
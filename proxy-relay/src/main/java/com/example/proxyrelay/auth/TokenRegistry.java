@@ -0,0 +1,201 @@
+package com.example.proxyrelay.auth;
+
+import com.example.proxyrelay.dto.SessionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Access Token → 테넌트 레지스트리
+ * 토큰 원문은 보관하지 않고 SHA-256 해시만 보관하며, 받은 토큰의 해시를 저장된 해시와 상수 시간(MessageDigest.isEqual)으로 비교합니다.
+ * 조회는 연결을 맺을 때만 하므로 확인된 토큰을 따로 캐시하지 않습니다 (받은 토큰 원문도 조회가 끝나면 보관하지 않음).
+ * 토큰 파일은 한 줄에 "테넌트 SHA-256(토큰)의 16진수" 형식이며(# 이후는 주석), 한 테넌트가 여러 토큰을 가질 수 있습니다.
+ * relay.access-token은 항상 기본 테넌트(SessionInfo.DEFAULT_TENANT)의 토큰으로 등록됩니다.
+ *
+ * 파일은 처음 조회할 때 읽고, 이후에는 1초에 한 번까지만 수정 시각을 확인하여 바뀌었으면 다시 읽습니다
+ * (재시작 없이 토큰 추가/폐기).
+ */
+public class TokenRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenRegistry.class);
+    
+    private static final long RELOAD_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int SHA256_HEX_LENGTH = 64;
+    
+    private final Supplier<String> defaultToken;
+    private final Supplier<String> file;
+    private final LongSupplier clock;
+    
+    private volatile Snapshot snapshot;
+    private volatile long checkedAt;
+    
+    /**
+     * @param defaultToken 기본 테넌트의 토큰 원문 (relay.access-token, 비어 있으면 등록하지 않음)
+     * @param file 토큰 파일 경로 (비어 있으면 기본 테넌트만 사용)
+     */
+    public TokenRegistry(Supplier<String> defaultToken, Supplier<String> file) {
+        this(defaultToken, file, System::nanoTime);
+    }
+    
+    TokenRegistry(Supplier<String> defaultToken, Supplier<String> file, LongSupplier clock) {
+        this.defaultToken = defaultToken;
+        this.file = file;
+        this.clock = clock;
+    }
+    
+    /**
+     * 토큰의 테넌트 조회
+     *
+     * @return 테넌트, 등록되지 않은 토큰이면 null
+     */
+    public String lookup(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        byte[] hash = sha256(token.getBytes(StandardCharsets.UTF_8));
+        // 해시로 후보를 찾은 뒤(공격자가 해시 값을 고를 수 없으므로 조회 시간으로 토큰을 알아낼 수 없음) 상수 시간 비교
+        Entry entry = current().entries().get(HexFormat.of().formatHex(hash));
+        if (entry == null || !MessageDigest.isEqual(entry.hash(), hash)) {
+            return null;
+        }
+        return entry.tenant();
+    }
+    
+    /**
+     * 현재 토큰 목록 (설정이나 파일이 바뀌었으면 다시 읽음)
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        String token = defaultToken.get();
+        String path = file.get();
+        boolean fileConfigured = path != null && !path.isBlank();
+        if (current != null && Objects.equals(current.defaultToken(), token) && Objects.equals(current.file(), path)
+                && (!fileConfigured || clock.getAsLong() - checkedAt < RELOAD_CHECK_NANOS)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            checkedAt = clock.getAsLong();
+            long modified = fileConfigured ? lastModified(Path.of(path)) : 0;
+            if (current == null || !Objects.equals(current.defaultToken(), token) || !Objects.equals(current.file(), path)
+                    || current.fileModified() != modified) {
+                current = load(token, path, modified, current);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+    
+    private static Snapshot load(String token, String path, long modified, Snapshot previous) {
+        Map<String, Entry> fileEntries = Map.of();
+        if (path != null && !path.isBlank()) {
+            try {
+                fileEntries = readFile(Path.of(path));
+            } catch (IOException e) {
+                // 읽지 못하면 이전에 읽은 토큰 유지 (파일을 교체하는 중이거나 일시적인 오류)
+                fileEntries = previous != null && path.equals(previous.file()) ? previous.fileEntries() : Map.of();
+                logger.error("Cannot read access token file {}, keeping {} previously loaded token(s): {}",
+                    path, fileEntries.size(), e.toString());
+            }
+        }
+        
+        Map<String, Entry> entries = new HashMap<>(fileEntries);
+        if (token != null && !token.isEmpty()) {
+            byte[] hash = sha256(token.getBytes(StandardCharsets.UTF_8));
+            entries.put(HexFormat.of().formatHex(hash), new Entry(hash, SessionInfo.DEFAULT_TENANT));
+        }
+        if (path != null && !path.isBlank()) {
+            logger.info("Loaded {} access token(s) for {} tenant(s) from {}", entries.size(), 
+                entries.values().stream().map(Entry::tenant).distinct().count(), path);
+        }
+        return new Snapshot(token, path, modified, fileEntries, Map.copyOf(entries));
+    }
+    
+    private static Map<String, Entry> readFile(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        Map<String, Entry> entries = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            String hex = fields.length == 2 ? fields[1].toLowerCase(Locale.ROOT) : "";
+            if (hex.startsWith("sha256:")) {
+                hex = hex.substring(7);
+            }
+            if (hex.length() != SHA256_HEX_LENGTH || !isHex(hex)) {
+                logger.warn("Ignoring invalid line {} in access token file {} (expected: <tenant> <sha256 hex>)",
+                    i + 1, path);
+                continue;
+            }
+            Entry previous = entries.putIfAbsent(hex, new Entry(HexFormat.of().parseHex(hex), fields[0]));
+            if (previous != null && !previous.tenant().equals(fields[0])) {
+                logger.warn("Ignoring duplicate token hash on line {} in access token file {} (already assigned to tenant {})",
+                    i + 1, path, previous.tenant());
+            }
+        }
+        return entries;
+    }
+    
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!HexFormat.isHexDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 파일 수정 시각 (밀리초, 읽을 수 없으면 -1)
+     */
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    public static byte[] sha256(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private record Entry(byte[] hash, String tenant) {
+    }
+    
+    /**
+     * 읽은 토큰 목록 (파일이나 설정이 바뀌면 새 목록으로 교체)
+     *
+     * @param fileEntries 파일에서 읽은 토큰 (파일을 읽지 못했을 때 유지하기 위해 보관)
+     * @param entries SHA-256 16진수 → 토큰 (파일 + relay.access-token)
+     */
+    private record Snapshot(String defaultToken, String file, long fileModified, Map<String, Entry> fileEntries,
+                            Map<String, Entry> entries) {
+    }
+}
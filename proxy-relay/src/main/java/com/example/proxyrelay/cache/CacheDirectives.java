@@ -0,0 +1,62 @@
+package com.example.proxyrelay.cache;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache-Control 헤더 지시어 (이름은 소문자, 값이 없는 지시어는 빈 문자열)
+ */
+class CacheDirectives {
+    
+    private static final CacheDirectives NONE = new CacheDirectives(Map.of());
+    
+    private final Map<String, String> directives;
+    
+    private CacheDirectives(Map<String, String> directives) {
+        this.directives = directives;
+    }
+    
+    /**
+     * Cache-Control 헤더 파싱 (헤더가 없으면 지시어 없음)
+     */
+    static CacheDirectives parse(String cacheControl) {
+        if (cacheControl == null || cacheControl.isBlank()) {
+            return NONE;
+        }
+        Map<String, String> directives = new HashMap<>();
+        for (String token : cacheControl.split(",")) {
+            int eq = token.indexOf('=');
+            String name = (eq < 0 ? token : token.substring(0, eq)).trim().toLowerCase(Locale.ROOT);
+            String value = eq < 0 ? "" : token.substring(eq + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (!name.isEmpty()) {
+                directives.putIfAbsent(name, value);
+            }
+        }
+        return new CacheDirectives(directives);
+    }
+    
+    boolean has(String name) {
+        return directives.containsKey(name);
+    }
+    
+    /**
+     * 초 단위 지시어 값 (max-age, s-maxage)
+     *
+     * @return 값, 없거나 숫자가 아니면 -1
+     */
+    long seconds(String name) {
+        String value = directives.get(name);
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
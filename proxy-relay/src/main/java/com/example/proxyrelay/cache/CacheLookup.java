@@ -0,0 +1,97 @@
+package com.example.proxyrelay.cache;
+
+import com.example.proxyrelay.codec.HeaderTable;
+import com.example.proxyrelay.dto.RelayMessage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 캐시할 수 있는 GET 요청의 캐시 조회 결과
+ * 캐시 적중이면 Client B를 거치지 않고 응답하고, 아니면 처리 중인 요청에 함께 보관했다가
+ * Client B의 응답이 오면 ResponseCache.complete로 저장(또는 재검증)합니다.
+ */
+public class CacheLookup {
+    
+    private final String url;
+    private final Map<String, String> requestHeaders;
+    private final boolean authorized;
+    // 신선한 캐시 응답 (적중)
+    private final CachedResponse hit;
+    // Client A의 If-None-Match와 일치하여 304로 응답하는 경우
+    private final boolean notModified;
+    // 기한이 지나 ETag로 재검증할 캐시 응답
+    private final CachedResponse stale;
+    
+    CacheLookup(String url, Map<String, String> requestHeaders, boolean authorized,
+                CachedResponse hit, boolean notModified, CachedResponse stale) {
+        this.url = url;
+        this.requestHeaders = requestHeaders;
+        this.authorized = authorized;
+        this.hit = hit;
+        this.notModified = notModified;
+        this.stale = stale;
+    }
+    
+    /**
+     * Client B를 거치지 않고 캐시로 응답할 수 있는지 여부
+     */
+    public boolean isHit() {
+        return hit != null;
+    }
+    
+    /**
+     * ETag 재검증 요청을 보내야 하는지 여부 (요청 원문 대신 revalidationRequest를 전송)
+     */
+    public boolean isRevalidation() {
+        return stale != null;
+    }
+    
+    /**
+     * 캐시 적중 응답 (isHit인 경우)
+     */
+    public RelayMessage response(String requestSessionId) {
+        return hit.toMessage(requestSessionId, notModified);
+    }
+    
+    /**
+     * 캐시 적중 응답을 바이너리 프레임으로 인코딩 (isHit인 경우, body를 힙 문자열로 변환하지 않음)
+     *
+     * @param headerTable 대상 연결의 송신 헤더 테이블, 사용하지 않으면 null
+     */
+    public DataBuffer encodeResponse(String requestSessionId, DataBufferFactory bufferFactory, HeaderTable headerTable) {
+        return hit.encode(requestSessionId, notModified, bufferFactory, headerTable);
+    }
+    
+    /**
+     * Client B로 보낼 요청 (재검증이면 If-None-Match를 추가한 복사본, 아니면 원래 요청)
+     */
+    public RelayMessage revalidationRequest(RelayMessage request) {
+        if (stale == null) {
+            return request;
+        }
+        RelayMessage conditional = request.copy();
+        Map<String, String> headers = request.getHeaders() != null ? new LinkedHashMap<>(request.getHeaders()) : new LinkedHashMap<>();
+        headers.put("If-None-Match", stale.getEtag());
+        conditional.setHeaders(headers);
+        return conditional;
+    }
+    
+    String getUrl() {
+        return url;
+    }
+    
+    Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+    
+    boolean isAuthorized() {
+        return authorized;
+    }
+    
+    CachedResponse getStale() {
+        return stale;
+    }
+}
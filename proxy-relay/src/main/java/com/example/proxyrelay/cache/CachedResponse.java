@@ -0,0 +1,169 @@
+package com.example.proxyrelay.cache;
+
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.codec.HeaderTable;
+import com.example.proxyrelay.dto.RelayMessage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 캐시된 GET 응답
+ * body는 힙 밖(direct ByteBuffer)에 원본 바이트(base64/gzip이면 디코딩한 바이트)로 저장하여 캐시 크기가 커져도
+ * GC 대상 힙이 늘지 않게 하고, 바이너리 프레임은 이 버퍼에서 바로 만들어 적중마다 body를 힙으로 복사하지 않습니다.
+ * 버퍼는 읽기 전용 복제본으로만 읽으므로, 제거된 뒤에도 이미 조회한 요청은 안전하게 응답할 수 있습니다.
+ */
+public class CachedResponse {
+    
+    private final String key;
+    private final String url;
+    private final List<String> vary;
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final ByteBuffer body;
+    private final String bodyEncoding;
+    private final String etag;
+    private final long weight;
+    
+    // 저장(또는 재검증) 시각 (System.nanoTime)과 그때부터 신선한 기간
+    private volatile long storedAtNanos;
+    private volatile long freshForNanos;
+    
+    CachedResponse(String key, String url, List<String> vary, RelayMessage response, String etag, long freshForNanos) {
+        this.key = key;
+        this.url = url;
+        this.vary = vary;
+        this.statusCode = response.getStatusCode();
+        this.headers = response.getHeaders() != null
+            ? Collections.unmodifiableMap(withoutNullValues(response.getHeaders())) : Map.of();
+        this.bodyEncoding = response.getBodyEncoding();
+        this.etag = etag;
+        
+        byte[] bytes = response.getBody() != null ? BinaryFrameCodec.bodyBytes(response) : new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        this.body = buffer.asReadOnlyBuffer();
+        
+        long headerChars = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            headerChars += header.getKey().length() + header.getValue().length();
+        }
+        // body + 힙에 남는 키/헤더 (대략 문자당 2바이트) + 객체 오버헤드
+        this.weight = bytes.length + 2 * (key.length() + headerChars) + 128;
+        
+        refresh(freshForNanos);
+    }
+    
+    /**
+     * 저장 시각부터 freshForNanos 동안 신선한 것으로 갱신 (저장 또는 304 재검증 시)
+     */
+    void refresh(long freshForNanos) {
+        this.storedAtNanos = System.nanoTime();
+        this.freshForNanos = freshForNanos;
+    }
+    
+    boolean isFresh(long nowNanos) {
+        return nowNanos - storedAtNanos < freshForNanos;
+    }
+    
+    /**
+     * 캐시된 응답으로 Client A에게 보낼 RESPONSE 메시지 생성 (Age 헤더 포함)
+     *
+     * @param notModified true면 body 없이 304 응답 (Client A의 If-None-Match가 일치한 경우)
+     */
+    RelayMessage toMessage(String requestSessionId, boolean notModified) {
+        RelayMessage message = head(requestSessionId, notModified);
+        if (!notModified) {
+            message.setBody(bodyText());
+        }
+        return message;
+    }
+    
+    /**
+     * 캐시된 응답을 바이너리 프레임으로 인코딩 (body는 direct 버퍼에서 프레임으로 바로 씀)
+     *
+     * @param headerTable 대상 연결의 송신 헤더 테이블, 사용하지 않으면 null
+     */
+    DataBuffer encode(String requestSessionId, boolean notModified, DataBufferFactory bufferFactory, 
+                      HeaderTable headerTable) {
+        return BinaryFrameCodec.encode(head(requestSessionId, notModified), notModified ? null : body, 
+            bufferFactory, headerTable);
+    }
+    
+    /**
+     * body를 제외한 RESPONSE 메시지
+     */
+    private RelayMessage head(String requestSessionId, boolean notModified) {
+        Map<String, String> responseHeaders = new LinkedHashMap<>(headers);
+        responseHeaders.keySet().removeIf(name -> name.equalsIgnoreCase("Age"));
+        responseHeaders.put("Age", Long.toString(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - storedAtNanos)));
+        
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.RESPONSE);
+        message.setSessionId(requestSessionId);
+        message.setHeaders(responseHeaders);
+        if (notModified) {
+            message.setStatusCode(304);
+        } else {
+            message.setStatusCode(statusCode);
+            message.setBodyEncoding(bodyEncoding);
+        }
+        return message;
+    }
+    
+    /**
+     * RelayMessage의 body 문자열 (base64/gzip이면 base64, 아니면 UTF-8)
+     */
+    private String bodyText() {
+        ByteBuffer bytes = body.duplicate();
+        if (RelayMessage.BODY_ENCODING_BASE64.equals(bodyEncoding) || RelayMessage.BODY_ENCODING_GZIP.equals(bodyEncoding)) {
+            return StandardCharsets.ISO_8859_1.decode(Base64.getEncoder().encode(bytes)).toString();
+        }
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+    
+    String getKey() {
+        return key;
+    }
+    
+    String getUrl() {
+        return url;
+    }
+    
+    List<String> getVary() {
+        return vary;
+    }
+    
+    String getEtag() {
+        return etag;
+    }
+    
+    long getFreshForNanos() {
+        return freshForNanos;
+    }
+    
+    /**
+     * 캐시 크기 계산에 사용하는 크기 (바이트)
+     */
+    public long getWeight() {
+        return weight;
+    }
+    
+    private static Map<String, String> withoutNullValues(Map<String, String> headers) {
+        Map<String, String> copy = new LinkedHashMap<>();
+        headers.forEach((name, value) -> {
+            if (name != null && value != null) {
+                copy.put(name, value);
+            }
+        });
+        return copy;
+    }
+}
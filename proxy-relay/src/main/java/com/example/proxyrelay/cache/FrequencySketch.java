@@ -0,0 +1,84 @@
+package com.example.proxyrelay.cache;
+
+/**
+ * 캐시 키 접근 빈도 추정 (4비트 Count-Min Sketch, TinyLFU)
+ * 키마다 행 4개의 카운터를 올리고 그중 최솟값을 빈도로 사용합니다.
+ * 기록 수가 샘플 크기에 도달하면 모든 카운터를 절반으로 줄여 오래된 빈도가 점점 사라지게 합니다.
+ *
+ * 스레드 안전하지 않으므로 ResponseCache의 잠금 안에서만 사용합니다.
+ */
+class FrequencySketch {
+    
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    // 절반으로 줄일 때 각 4비트 카운터로 옆 카운터의 비트가 넘어오지 않도록 최상위 비트 제거
+    private static final long RESET_MASK = 0x7777777777777777L;
+    
+    private final int width;
+    private final int sampleSize;
+    // 행 DEPTH개 × width개의 4비트 카운터, long 하나에 카운터 16개
+    private final long[] table;
+    private int additions;
+    
+    /**
+     * @param width 행당 카운터 수 (2의 거듭제곱으로 올림, 최소 16)
+     */
+    FrequencySketch(int width) {
+        this.width = Math.max(16, Integer.highestOneBit(Math.max(1, width - 1)) << 1);
+        this.sampleSize = 10 * this.width;
+        this.table = new long[DEPTH * this.width / 16];
+    }
+    
+    /**
+     * 추정 빈도 (0~15)
+     */
+    int frequency(long hash) {
+        int frequency = 15;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counter(index(hash, row)));
+        }
+        return frequency;
+    }
+    
+    /**
+     * 접근 기록
+     */
+    void increment(long hash) {
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            added |= incrementAt(index(hash, row));
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+    
+    private int index(long hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * width + ((int) h & (width - 1));
+    }
+    
+    private int counter(int index) {
+        return (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 0xF);
+    }
+    
+    private boolean incrementAt(int index) {
+        int shift = (index & 15) << 2;
+        long word = table[index >>> 4];
+        if (((word >>> shift) & 0xF) == 0xF) {
+            return false;
+        }
+        table[index >>> 4] = word + (1L << shift);
+        return true;
+    }
+    
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,405 @@
+package com.example.proxyrelay.cache;
+
+import com.example.proxyrelay.dto.RelayMessage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * GET 응답 캐시 (HTTP 캐시 규칙을 따르는 공유 캐시)
+ * 키는 method + url + 응답의 Vary 헤더에 나열된 요청 헤더 값이며, 응답의 Cache-Control(no-store, private,
+ * no-cache, max-age, s-maxage)과 ETag를 따릅니다. Set-Cookie가 있는 응답은 저장하지 않습니다.
+ * 기한이 지난 응답은 If-None-Match로 재검증하고,
+ * GET/HEAD 외의 요청은 같은 URL의 캐시를 무효화합니다.
+ *
+ * 크기는 응답 크기(바이트) 합으로 제한하며, 제거 정책은 W-TinyLFU입니다.
+ * 새 응답은 작은 window(LRU, 전체의 1%)에 들어가고, window에서 밀려난 응답은 main(SLRU: probation/protected)에서
+ * 밀려날 응답보다 접근 빈도(FrequencySketch)가 높을 때만 main에 들어갑니다.
+ * 한 번만 요청되는 응답이 자주 요청되는 응답을 밀어내지 않게 하기 위함입니다.
+ *
+ * 조회와 저장은 짧은 맵 연산이므로 하나의 잠금으로 직렬화합니다.
+ */
+public class ResponseCache {
+    
+    private static final long WINDOW_PERCENT = 1;
+    private static final long PROTECTED_PERCENT = 80;
+    private static final int SKETCH_WIDTH = 1 << 16;
+    
+    private final LongSupplier maxBytes;
+    private final LongSupplier maxEntryBytes;
+    
+    // 접근 순서 LRU (맨 앞이 가장 오래 전에 사용된 응답)
+    private final LinkedHashMap<String, CachedResponse> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, CachedResponse> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, CachedResponse> protectedRegion = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowBytes;
+    private long probationBytes;
+    private long protectedBytes;
+    
+    // Vary 헤더가 있는 URL → Vary 헤더 이름(소문자)과 저장된 변형 수
+    private final Map<String, VaryIndex> varyByUrl = new LinkedHashMap<>();
+    
+    // 캐시를 처음 사용할 때 생성 (캐시를 사용하지 않으면 메모리를 쓰지 않음)
+    private FrequencySketch sketch;
+    
+    /**
+     * @param maxBytes 캐시 최대 크기 (0 이하면 캐시 사용 안 함, 설정 변경을 반영하도록 조회 시마다 읽음)
+     * @param maxEntryBytes 저장할 응답 하나의 최대 크기
+     */
+    public ResponseCache(LongSupplier maxBytes, LongSupplier maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+    
+    public boolean isEnabled() {
+        return maxBytes.getAsLong() > 0;
+    }
+    
+    /**
+     * 요청에 대한 캐시 조회
+     *
+     * @return 조회 결과, 캐시할 수 없는 요청(GET 외, body 있음, no-store, 캐시 비활성)이면 null
+     */
+    public CacheLookup lookup(RelayMessage request) {
+        if (!isEnabled() || request.getUrl() == null || request.getMethod() == null) {
+            return null;
+        }
+        String method = request.getMethod().toUpperCase(Locale.ROOT);
+        if (!method.equals("GET")) {
+            if (!method.equals("HEAD")) {
+                // 상태를 바꾸는 요청은 같은 URL의 캐시 무효화
+                invalidate(request.getUrl());
+            }
+            return null;
+        }
+        if (request.getBody() != null && !request.getBody().isEmpty()) {
+            return null;
+        }
+        
+        Map<String, String> headers = request.getHeaders() != null ? request.getHeaders() : Map.of();
+        CacheDirectives requestDirectives = CacheDirectives.parse(header(headers, "Cache-Control"));
+        if (requestDirectives.has("no-store")) {
+            return null;
+        }
+        boolean authorized = header(headers, "Authorization") != null;
+        String ifNoneMatch = header(headers, "If-None-Match");
+        boolean conditional = ifNoneMatch != null || header(headers, "If-Modified-Since") != null;
+        
+        CachedResponse cached;
+        synchronized (this) {
+            VaryIndex vary = varyByUrl.get(request.getUrl());
+            String key = key(request.getUrl(), vary != null ? vary.names : List.of(), headers);
+            sketch().increment(hash(key));
+            cached = get(key);
+        }
+        
+        boolean fresh = cached != null && cached.isFresh(System.nanoTime()) && !requestDirectives.has("no-cache");
+        if (conditional) {
+            // Client A의 조건부 요청은 신선한 응답의 ETag와 일치할 때만 캐시로 응답 (304)
+            if (fresh && ifNoneMatch != null && etagMatches(ifNoneMatch, cached.getEtag())) {
+                return new CacheLookup(request.getUrl(), headers, authorized, cached, true, null);
+            }
+            return null;
+        }
+        if (fresh) {
+            return new CacheLookup(request.getUrl(), headers, authorized, cached, false, null);
+        }
+        CachedResponse stale = cached != null && cached.getEtag() != null ? cached : null;
+        return new CacheLookup(request.getUrl(), headers, authorized, null, false, stale);
+    }
+    
+    /**
+     * Client B의 응답으로 캐시 저장 또는 재검증 처리
+     *
+     * @return 재검증 결과(304)로 캐시된 응답을 사용하는 경우 Client A에게 보낼 응답, 아니면 null (받은 응답을 그대로 전달)
+     */
+    public RelayMessage complete(CacheLookup lookup, RelayMessage response) {
+        Integer statusCode = response.getStatusCode();
+        Map<String, String> headers = response.getHeaders() != null ? response.getHeaders() : Map.of();
+        CacheDirectives directives = CacheDirectives.parse(header(headers, "Cache-Control"));
+        
+        CachedResponse stale = lookup.getStale();
+        if (stale != null && statusCode != null && statusCode == 304) {
+            // 304에 Cache-Control이 있으면 그 기한으로, 없으면 이전 기한으로 갱신
+            long freshFor = freshnessNanos(directives);
+            stale.refresh(freshFor >= 0 ? freshFor : stale.getFreshForNanos());
+            return stale.toMessage(response.getSessionId(), false);
+        }
+        
+        if (statusCode == null || statusCode != 200 || response.getError() != null || !isEnabled()) {
+            return null;
+        }
+        if (directives.has("no-store") || directives.has("private")) {
+            return null;
+        }
+        if (header(headers, "Set-Cookie") != null) {
+            // 요청한 클라이언트의 쿠키를 다른 클라이언트에게 재사용하지 않도록 저장하지 않음
+            return null;
+        }
+        if (lookup.isAuthorized() && !directives.has("public") && directives.seconds("s-maxage") < 0) {
+            // 인증된 요청의 응답은 공유 캐시에 명시적으로 허용된 경우만 저장
+            return null;
+        }
+        String varyHeader = header(headers, "Vary");
+        List<String> vary = varyNames(varyHeader);
+        if (vary == null) {
+            return null;
+        }
+        String etag = header(headers, "ETag");
+        long freshFor = directives.has("no-cache") ? 0 : Math.max(0, freshnessNanos(directives));
+        if (freshFor == 0 && etag == null) {
+            return null;
+        }
+        
+        if (response.getBody() != null && response.getBody().length() > maxEntryBytes.getAsLong()) {
+            return null;
+        }
+        String key = key(lookup.getUrl(), vary, lookup.getRequestHeaders());
+        CachedResponse entry = new CachedResponse(key, lookup.getUrl(), vary, response, etag, freshFor);
+        if (entry.getWeight() > maxEntryBytes.getAsLong()) {
+            return null;
+        }
+        synchronized (this) {
+            put(entry);
+        }
+        return null;
+    }
+    
+    /**
+     * URL의 캐시된 응답 제거 (모든 Vary 변형 포함)
+     */
+    public synchronized void invalidate(String url) {
+        remove(key(url, List.of(), Map.of()));
+        if (!varyByUrl.containsKey(url)) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (Map<String, CachedResponse> region : List.of(window, probation, protectedRegion)) {
+            for (CachedResponse entry : region.values()) {
+                if (entry.getUrl().equals(url)) {
+                    keys.add(entry.getKey());
+                }
+            }
+        }
+        keys.forEach(this::remove);
+    }
+    
+    /**
+     * 캐시된 응답 크기 합 (바이트)
+     */
+    public synchronized long getWeightedSize() {
+        return windowBytes + probationBytes + protectedBytes;
+    }
+    
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedRegion.size();
+    }
+    
+    private CachedResponse get(String key) {
+        CachedResponse entry = window.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        entry = protectedRegion.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        entry = probation.remove(key);
+        if (entry != null) {
+            // probation에서 다시 사용되면 protected로 승격
+            probationBytes -= entry.getWeight();
+            protectedRegion.put(key, entry);
+            protectedBytes += entry.getWeight();
+            demoteProtected();
+        }
+        return entry;
+    }
+    
+    private void put(CachedResponse entry) {
+        remove(entry.getKey());
+        window.put(entry.getKey(), entry);
+        windowBytes += entry.getWeight();
+        indexVary(entry, 1);
+        
+        long max = maxBytes.getAsLong();
+        long windowMax = max * WINDOW_PERCENT / 100;
+        while (windowBytes > windowMax && !window.isEmpty()) {
+            CachedResponse candidate = window.pollFirstEntry().getValue();
+            windowBytes -= candidate.getWeight();
+            if (!admit(candidate, max - windowMax)) {
+                indexVary(candidate, -1);
+            }
+        }
+    }
+    
+    /**
+     * window에서 밀려난 응답을 main에 넣을지 결정 (TinyLFU)
+     * 공간을 만들기 위해 밀려날 main 응답들(probation, protected 순으로 오래된 것부터) 중 하나라도
+     * candidate보다 자주 사용되었으면 candidate를 버립니다.
+     */
+    private boolean admit(CachedResponse candidate, long mainMax) {
+        long needed = probationBytes + protectedBytes + candidate.getWeight() - mainMax;
+        if (candidate.getWeight() > mainMax) {
+            return false;
+        }
+        List<CachedResponse> victims = new ArrayList<>();
+        if (needed > 0) {
+            int candidateFrequency = sketch().frequency(hash(candidate.getKey()));
+            Iterator<CachedResponse> probationOrder = probation.values().iterator();
+            Iterator<CachedResponse> protectedOrder = protectedRegion.values().iterator();
+            while (needed > 0) {
+                CachedResponse victim = probationOrder.hasNext() ? probationOrder.next() : protectedOrder.next();
+                if (sketch().frequency(hash(victim.getKey())) >= candidateFrequency) {
+                    return false;
+                }
+                victims.add(victim);
+                needed -= victim.getWeight();
+            }
+        }
+        victims.forEach(victim -> remove(victim.getKey()));
+        probation.put(candidate.getKey(), candidate);
+        probationBytes += candidate.getWeight();
+        return true;
+    }
+    
+    /**
+     * protected가 main의 80%를 넘으면 오래된 응답을 probation으로 내림
+     */
+    private void demoteProtected() {
+        long max = maxBytes.getAsLong();
+        long protectedMax = (max - max * WINDOW_PERCENT / 100) * PROTECTED_PERCENT / 100;
+        while (protectedBytes > protectedMax && !protectedRegion.isEmpty()) {
+            CachedResponse entry = protectedRegion.pollFirstEntry().getValue();
+            protectedBytes -= entry.getWeight();
+            probation.put(entry.getKey(), entry);
+            probationBytes += entry.getWeight();
+        }
+    }
+    
+    private void remove(String key) {
+        CachedResponse entry = window.remove(key);
+        if (entry != null) {
+            windowBytes -= entry.getWeight();
+        } else if ((entry = probation.remove(key)) != null) {
+            probationBytes -= entry.getWeight();
+        } else if ((entry = protectedRegion.remove(key)) != null) {
+            protectedBytes -= entry.getWeight();
+        }
+        if (entry != null) {
+            indexVary(entry, -1);
+        }
+    }
+    
+    private void indexVary(CachedResponse entry, int delta) {
+        if (entry.getVary().isEmpty()) {
+            return;
+        }
+        VaryIndex index = varyByUrl.computeIfAbsent(entry.getUrl(), url -> new VaryIndex(entry.getVary()));
+        index.variants += delta;
+        if (index.variants <= 0) {
+            varyByUrl.remove(entry.getUrl());
+        } else if (delta > 0) {
+            index.names = entry.getVary();
+        }
+    }
+    
+    private FrequencySketch sketch() {
+        if (sketch == null) {
+            sketch = new FrequencySketch(SKETCH_WIDTH);
+        }
+        return sketch;
+    }
+    
+    /**
+     * 응답이 신선한 기간 (공유 캐시이므로 s-maxage 우선)
+     *
+     * @return 나노초, 지시어가 없으면 -1
+     */
+    private static long freshnessNanos(CacheDirectives directives) {
+        long seconds = directives.seconds("s-maxage");
+        if (seconds < 0) {
+            seconds = directives.seconds("max-age");
+        }
+        return seconds < 0 ? -1 : TimeUnit.SECONDS.toNanos(seconds);
+    }
+    
+    /**
+     * Vary 헤더의 요청 헤더 이름 (소문자, 정렬)
+     *
+     * @return 이름 목록, Vary: * 이면 null (저장 불가)
+     */
+    private static List<String> varyNames(String varyHeader) {
+        if (varyHeader == null || varyHeader.isBlank()) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : varyHeader.split(",")) {
+            String trimmed = name.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.equals("*")) {
+                return null;
+            }
+            if (!trimmed.isEmpty() && !names.contains(trimmed)) {
+                names.add(trimmed);
+            }
+        }
+        names.sort(null);
+        return List.copyOf(names);
+    }
+    
+    private static String key(String url, List<String> vary, Map<String, String> requestHeaders) {
+        if (vary.isEmpty()) {
+            return "GET " + url;
+        }
+        StringBuilder key = new StringBuilder("GET ").append(url);
+        for (String name : vary) {
+            String value = header(requestHeaders, name);
+            key.append('\n').append(name).append(':').append(value != null ? value.trim() : "");
+        }
+        return key.toString();
+    }
+    
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        String weakless = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(weakless)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 헤더 값 조회 (이름 대소문자 무시)
+     */
+    private static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+    
+    private static long hash(String key) {
+        return key.hashCode() * 0x9E3779B97F4A7C15L;
+    }
+    
+    private static class VaryIndex {
+        List<String> names;
+        int variants;
+        
+        VaryIndex(List<String> names) {
+            this.names = names;
+        }
+    }
+}
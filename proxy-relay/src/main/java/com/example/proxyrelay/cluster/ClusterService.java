@@ -0,0 +1,136 @@
+package com.example.proxyrelay.cluster;
+
+import com.example.proxyrelay.codec.HeaderTable;
+import com.example.proxyrelay.dto.SessionInfo;
+import com.example.proxyrelay.handler.RelayWebSocketHandler;
+import com.example.proxyrelay.service.AuthService;
+import com.example.proxyrelay.service.MessageRoutingService;
+import com.example.proxyrelay.service.SessionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 클러스터 모드 (여러 relay 노드를 로드 밸런서 뒤에서 함께 운영)
+ * 각 노드는 relay.cluster.peers의 다른 노드 /relay 엔드포인트에 바이너리 WebSocket 링크를 하나씩 유지합니다.
+ *
+ * 링크는 연결한 노드에서 Client B로, 받은 노드에서 Client A로 등록되므로 요청/응답 전달, 스트리밍, 응답 기한,
+ * 연결 종료 시 502 응답은 일반 클라이언트와 같은 경로로 처리됩니다.
+ * 각 노드는 자신에게 연결된 Client B 수를 AGENTS 메시지로 링크를 통해 알리고(세션 디렉터리),
+ * 노드에 활성 Client B가 없으면 Client B가 있는 노드로의 링크로 요청을 전달합니다.
+ * 링크로 받은 요청은 그 노드의 Client B로만 전달하므로 노드 간 순환은 없습니다.
+ */
+@Service
+public class ClusterService implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterService.class);
+    
+    private final SessionService sessionService;
+    private final MessageRoutingService messageRoutingService;
+    private final RelayWebSocketHandler relayWebSocketHandler;
+    // 링크는 permessage-deflate를 요청하고 body도 gzip으로, 헤더는 헤더 테이블로 주고받음 (compress=gzip, header-table)
+    private final ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient(
+        HttpClient.create(), () -> WebsocketClientSpec.builder().compress(true));
+    private final Disposable.Composite links = Disposables.composite();
+    
+    @Value("${relay.cluster.enabled:false}")
+    private boolean enabled = false;
+    
+    // 이 노드의 ID (비어 있으면 시작 시 생성)
+    @Value("${relay.cluster.node-id:}")
+    private String nodeId = "";
+    
+    // 다른 relay 노드의 /relay 엔드포인트 (예: ws://relay-2:8080/relay, 자기 자신은 제외)
+    @Value("${relay.cluster.peers:}")
+    private String[] peers = new String[0];
+    
+    // 링크가 끊기면 다시 연결하기까지의 대기 시간
+    @Value("${relay.cluster.reconnect-delay-ms:1000}")
+    private long reconnectDelayMillis = 1000;
+    
+    @Value("${relay.access-token:default-token-change-in-production}")
+    private String accessToken;
+    
+    // 링크 인증용 비밀 값 (받는 노드의 relay.cluster.secret과 같아야 함)
+    @Value("${relay.cluster.secret:}")
+    private String clusterSecret = "";
+    
+    public ClusterService(SessionService sessionService, MessageRoutingService messageRoutingService,
+                          RelayWebSocketHandler relayWebSocketHandler) {
+        this.sessionService = sessionService;
+        this.messageRoutingService = messageRoutingService;
+        this.relayWebSocketHandler = relayWebSocketHandler;
+        sessionService.addTopologyListener(this::announceAgents);
+    }
+    
+    /**
+     * 서버가 요청을 받을 수 있게 된 뒤 다른 노드로의 링크 연결 시작
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        if (clusterSecret == null || clusterSecret.isEmpty()) {
+            logger.warn("relay.cluster.secret is not set, peer relay nodes will reject cluster links");
+        }
+        
+        for (String peer : peers) {
+            if (!peer.isBlank()) {
+                links.add(connect(peer.trim()));
+            }
+        }
+        logger.info("Cluster mode enabled: node {} with {} peer(s)", nodeId, links.size());
+    }
+    
+    /**
+     * 다른 노드로의 링크 유지 (끊기면 reconnect-delay-ms 후 다시 연결)
+     */
+    private Disposable connect(String peer) {
+        URI uri = URI.create(peer + (peer.contains("?") ? "&" : "?") + "type=A&proto=bin&compress=gzip&header-table=" + HeaderTable.DEFAULT_SIZE + "&peer=" + nodeId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        headers.set(AuthService.CLUSTER_SECRET_HEADER, clusterSecret);
+        
+        return Mono.defer(() -> client.execute(uri, headers, session -> relayWebSocketHandler.handlePeerLink(session, peer)))
+            .doOnError(e -> logger.warn("Cluster link to {} failed: {}", peer, e.toString()))
+            .onErrorResume(e -> Mono.empty())
+            .then(Mono.delay(Duration.ofMillis(reconnectDelayMillis)))
+            .repeat(() -> !links.isDisposed())
+            .subscribe();
+    }
+    
+    /**
+     * 이 노드에 연결된 기본 테넌트 Client B 수를 링크로 연결된 모든 노드에 알림 (Client B 또는 링크가 등록/제거될 때)
+     * 여러 스레드에서 동시에 호출되어도 나중에 센 값이 나중에 전송되도록 직렬화 (송신 큐에는 구독 시점에 들어감)
+     */
+    private synchronized void announceAgents() {
+        int agents = sessionService.getClientBs(SessionInfo.DEFAULT_TENANT).size();
+        for (SessionInfo peerClient : sessionService.getPeerClients()) {
+            messageRoutingService.sendAgentCount(peerClient, agents).subscribe(null, e -> { });
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        links.dispose();
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.proxyrelay.codec;
+
+import com.example.proxyrelay.dto.RelayEnvelope;
+import com.example.proxyrelay.dto.RelayMessage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 바이너리 프레임 인코더/디코더 (?proto=bin)
+ *
+ * 프레임 구조 (big-endian):
+ * <pre>
+ * u8      magic (0x52 'R')
+ * u8      version (1)
+ * u8      type (1=REQUEST, 2=RESPONSE, 3=PING, 4=PONG,
+ *               5=REQUEST_START, 6=RESPONSE_START, 7=BODY_CHUNK, 8=END, 9=AGENTS)
+ * u8      flags (0x01 statusCode, 0x02 headers, 0x04 body, 0x08 gzip body, 0x10 indexed headers)
+ * str     sessionId
+ * str     method
+ * str     url
+ * str     error
+ * u16     statusCode                     (flags & 0x01)
+ * u16     header count, (str, str) * n   (flags & 0x02, 0x10이 아닌 경우)
+ * u16     header count, field * n        (flags & 0x02, 0x10인 경우 - 헤더 테이블 참조)
+ * bytes   body - 프레임 끝까지 원본 바이트 (flags & 0x04)
+ * </pre>
+ * str = u16 길이 + UTF-8 바이트, 길이 0xFFFF는 null
+ *
+ * field (연결별 HeaderTable 사용 시):
+ * <pre>
+ * u8 0x01, u16 index             테이블 항목 (이름, 값)
+ * u8 0x02, u16 index, str value  테이블 항목의 이름 + 새 값, 테이블에 추가
+ * u8 0x03, str name, str value   새 이름과 값, 테이블에 추가
+ * u8 0x04, str name, str value   새 이름과 값, 테이블에 추가하지 않음
+ * </pre>
+ * index는 프레임 시작 시점의 테이블 기준이며, 프레임에서 추가한 항목은 프레임이 끝난 뒤 순서대로 반영됩니다.
+ *
+ * JSON 클라이언트와의 변환 시 UTF-8로 해석할 수 없는 body는 base64 문자열로 전달하고
+ * RelayMessage.bodyEncoding을 "base64"로 표시합니다.
+ * bodyEncoding이 "gzip"인 body는 압축된 바이트 그대로 전송하고 0x08 flag로 표시합니다.
+ */
+public final class BinaryFrameCodec {
+    
+    public static final byte MAGIC = 0x52;
+    public static final byte VERSION = 1;
+    
+    private static final int FLAG_STATUS_CODE = 0x01;
+    private static final int FLAG_HEADERS = 0x02;
+    private static final int FLAG_BODY = 0x04;
+    private static final int FLAG_BODY_GZIP = 0x08;
+    private static final int FLAG_HEADER_TABLE = 0x10;
+    
+    private static final int FIELD_INDEXED = 0x01;
+    private static final int FIELD_INDEXED_NAME = 0x02;
+    private static final int FIELD_LITERAL = 0x03;
+    private static final int FIELD_LITERAL_NOT_INDEXED = 0x04;
+    
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int HEADER_SIZE = 4;
+    
+    private BinaryFrameCodec() {
+    }
+    
+    /**
+     * RelayMessage를 바이너리 프레임으로 인코딩
+     */
+    public static DataBuffer encode(RelayMessage message, DataBufferFactory bufferFactory) {
+        return encode(message, bufferFactory, null);
+    }
+    
+    /**
+     * RelayMessage를 바이너리 프레임으로 인코딩 (헤더는 대상 연결의 송신 헤더 테이블 참조)
+     * 테이블에 추가할 항목은 예약만 하며, 프레임을 송신 큐에 넣은 뒤 호출자가 commit(실패 시 rollback)합니다.
+     *
+     * @param headerTable 대상 연결의 송신 헤더 테이블, 사용하지 않으면 null
+     */
+    public static DataBuffer encode(RelayMessage message, DataBufferFactory bufferFactory, HeaderTable headerTable) {
+        byte[] body = bodyBytes(message);
+        return encode(message, body != null ? ByteBuffer.wrap(body) : null, bufferFactory, headerTable);
+    }
+    
+    /**
+     * message의 body 대신 원본 body 바이트로 바이너리 프레임 인코딩 (캐시된 응답처럼 body가 이미 바이트로 있는 경우)
+     * message.bodyEncoding은 gzip flag 표시에만 사용하며, body의 position은 변경하지 않습니다.
+     *
+     * @param body 프레임에 쓸 원본 body 바이트, body가 없으면 null
+     * @param headerTable 대상 연결의 송신 헤더 테이블, 사용하지 않으면 null
+     */
+    public static DataBuffer encode(RelayMessage message, ByteBuffer body, DataBufferFactory bufferFactory, 
+                                    HeaderTable headerTable) {
+        boolean indexed = headerTable != null && message.getHeaders() != null;
+        int flags = (message.getStatusCode() != null ? FLAG_STATUS_CODE : 0)
+            | (message.getHeaders() != null ? FLAG_HEADERS : 0)
+            | (indexed ? FLAG_HEADER_TABLE : 0)
+            | (body != null ? FLAG_BODY : 0)
+            | (body != null && RelayMessage.BODY_ENCODING_GZIP.equals(message.getBodyEncoding()) ? FLAG_BODY_GZIP : 0);
+        
+        DataBuffer buffer = bufferFactory.allocateBuffer(64 + (body != null ? body.remaining() : 0));
+        try {
+            buffer.write(MAGIC);
+            buffer.write(VERSION);
+            buffer.write(typeCode(message.getType()));
+            buffer.write((byte) flags);
+            writeString(buffer, message.getSessionId());
+            writeString(buffer, message.getMethod());
+            writeString(buffer, message.getUrl());
+            writeString(buffer, message.getError());
+            if (message.getStatusCode() != null) {
+                writeShort(buffer, message.getStatusCode());
+            }
+            if (indexed) {
+                writeIndexedHeaders(buffer, message.getHeaders(), headerTable);
+            } else if (message.getHeaders() != null) {
+                writeShort(buffer, message.getHeaders().size());
+                for (Map.Entry<String, String> header : message.getHeaders().entrySet()) {
+                    writeString(buffer, header.getKey());
+                    writeString(buffer, header.getValue());
+                }
+            }
+            if (body != null) {
+                buffer.write(body.duplicate());
+            }
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+    
+    /**
+     * 바이너리 프레임을 RelayMessage로 디코딩 (buffer의 read position이 프레임 끝으로 이동)
+     *
+     * @throws IllegalArgumentException 프레임 형식이 잘못된 경우
+     */
+    public static RelayMessage decode(DataBuffer buffer) {
+        return decode(buffer, null);
+    }
+    
+    /**
+     * 바이너리 프레임을 RelayMessage로 디코딩 (헤더 테이블을 참조하는 헤더는 보낸 연결의 수신 헤더 테이블로 복원)
+     * 프레임은 수신 순서대로 디코딩해야 하며, 프레임에서 추가한 항목은 디코딩이 끝나면 테이블에 반영됩니다.
+     *
+     * @param headerTable 보낸 연결의 수신 헤더 테이블, 사용하지 않으면 null
+     * @throws IllegalArgumentException 프레임 형식이 잘못되었거나 테이블에 없는 항목을 참조하는 경우
+     */
+    public static RelayMessage decode(DataBuffer buffer, HeaderTable headerTable) {
+        if (buffer.readableByteCount() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Frame too short");
+        }
+        if (buffer.read() != MAGIC || buffer.read() != VERSION) {
+            throw new IllegalArgumentException("Not a relay binary frame");
+        }
+        RelayMessage.MessageType type = typeOf(buffer.read());
+        int flags = buffer.read() & 0xFF;
+        
+        RelayMessage message = new RelayMessage();
+        message.setType(type);
+        message.setSessionId(readString(buffer));
+        message.setMethod(readString(buffer));
+        message.setUrl(readString(buffer));
+        message.setError(readString(buffer));
+        if ((flags & FLAG_STATUS_CODE) != 0) {
+            message.setStatusCode(readShort(buffer));
+        }
+        if ((flags & FLAG_HEADERS) != 0 && (flags & FLAG_HEADER_TABLE) != 0) {
+            if (headerTable == null) {
+                throw new IllegalArgumentException("Indexed headers without a header table");
+            }
+            message.setHeaders(readIndexedHeaders(buffer, headerTable));
+        } else if ((flags & FLAG_HEADERS) != 0) {
+            int count = readShort(buffer);
+            Map<String, String> headers = new LinkedHashMap<>(Math.max(4, count * 2));
+            for (int i = 0; i < count; i++) {
+                headers.put(readString(buffer), readString(buffer));
+            }
+            message.setHeaders(headers);
+        }
+        if ((flags & FLAG_BODY) != 0) {
+            byte[] body = new byte[buffer.readableByteCount()];
+            buffer.read(body);
+            if ((flags & FLAG_BODY_GZIP) != 0) {
+                message.setBody(Base64.getEncoder().encodeToString(body));
+                message.setBodyEncoding(RelayMessage.BODY_ENCODING_GZIP);
+            } else {
+                setBody(message, body);
+            }
+        }
+        return message;
+    }
+    
+    /**
+     * 라우팅용 envelope(type, sessionId)만 읽기 (buffer의 read position은 변경하지 않음)
+     *
+     * @throws IllegalArgumentException 프레임 형식이 잘못된 경우
+     */
+    public static RelayEnvelope readEnvelope(DataBuffer buffer) {
+        int start = buffer.readPosition();
+        if (buffer.readableByteCount() < HEADER_SIZE + 2
+                || buffer.getByte(start) != MAGIC || buffer.getByte(start + 1) != VERSION) {
+            throw new IllegalArgumentException("Not a relay binary frame");
+        }
+        RelayMessage.MessageType type = typeOf(buffer.getByte(start + 2));
+        
+        int index = start + HEADER_SIZE;
+        int length = ((buffer.getByte(index) & 0xFF) << 8) | (buffer.getByte(index + 1) & 0xFF);
+        if (length == NULL_LENGTH) {
+            return new RelayEnvelope(type, null);
+        }
+        if (buffer.readableByteCount() < HEADER_SIZE + 2 + length) {
+            throw new IllegalArgumentException("Truncated sessionId");
+        }
+        return new RelayEnvelope(type, buffer.toString(index + 2, length, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 요청 대상 URL만 읽기 (buffer의 read position은 변경하지 않음, 에이전트 선택용)
+     *
+     * @return url 필드, 없으면 null
+     * @throws IllegalArgumentException 프레임 형식이 잘못된 경우
+     */
+    public static String readUrl(DataBuffer buffer) {
+        int start = buffer.readPosition();
+        int end = start + buffer.readableByteCount();
+        if (buffer.readableByteCount() < HEADER_SIZE
+                || buffer.getByte(start) != MAGIC || buffer.getByte(start + 1) != VERSION) {
+            throw new IllegalArgumentException("Not a relay binary frame");
+        }
+        
+        // sessionId, method를 건너뛰고 url 읽기
+        int index = start + HEADER_SIZE;
+        for (int field = 0; field < 3; field++) {
+            if (index + 2 > end) {
+                throw new IllegalArgumentException("Truncated frame");
+            }
+            int length = ((buffer.getByte(index) & 0xFF) << 8) | (buffer.getByte(index + 1) & 0xFF);
+            index += 2;
+            if (length == NULL_LENGTH) {
+                if (field == 2) {
+                    return null;
+                }
+                continue;
+            }
+            if (index + length > end) {
+                throw new IllegalArgumentException("Truncated frame");
+            }
+            if (field == 2) {
+                return buffer.toString(index, length, StandardCharsets.UTF_8);
+            }
+            index += length;
+        }
+        return null;
+    }
+    
+    private static void writeIndexedHeaders(DataBuffer buffer, Map<String, String> headers, HeaderTable headerTable) {
+        writeShort(buffer, headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            String name = header.getKey();
+            String value = header.getValue();
+            if (!headerTable.fits(name, value)) {
+                buffer.write((byte) FIELD_LITERAL_NOT_INDEXED);
+                writeString(buffer, name);
+                writeString(buffer, value);
+                continue;
+            }
+            int index = headerTable.indexOf(name, value);
+            if (index >= 0) {
+                buffer.write((byte) FIELD_INDEXED);
+                writeShort(buffer, index);
+                continue;
+            }
+            int nameIndex = headerTable.indexOfName(name);
+            if (nameIndex >= 0) {
+                buffer.write((byte) FIELD_INDEXED_NAME);
+                writeShort(buffer, nameIndex);
+            } else {
+                buffer.write((byte) FIELD_LITERAL);
+                writeString(buffer, name);
+            }
+            writeString(buffer, value);
+            headerTable.stage(name, value);
+        }
+    }
+    
+    private static Map<String, String> readIndexedHeaders(DataBuffer buffer, HeaderTable headerTable) {
+        try {
+            int count = readShort(buffer);
+            Map<String, String> headers = new LinkedHashMap<>(Math.max(4, count * 2));
+            for (int i = 0; i < count; i++) {
+                if (buffer.readableByteCount() < 1) {
+                    throw new IllegalArgumentException("Truncated frame");
+                }
+                int field = buffer.read() & 0xFF;
+                switch (field) {
+                    case FIELD_INDEXED -> {
+                        HeaderTable.Entry entry = headerTable.get(readShort(buffer));
+                        headers.put(entry.name(), entry.value());
+                    }
+                    case FIELD_INDEXED_NAME -> {
+                        String name = headerTable.get(readShort(buffer)).name();
+                        String value = readString(buffer);
+                        if (value == null) {
+                            throw new IllegalArgumentException("Null header in indexed field");
+                        }
+                        headers.put(name, value);
+                        headerTable.stage(name, value);
+                    }
+                    case FIELD_LITERAL, FIELD_LITERAL_NOT_INDEXED -> {
+                        String name = readString(buffer);
+                        String value = readString(buffer);
+                        headers.put(name, value);
+                        if (field == FIELD_LITERAL) {
+                            if (name == null || value == null) {
+                                throw new IllegalArgumentException("Null header in indexed field");
+                            }
+                            headerTable.stage(name, value);
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown header field type: " + field);
+                }
+            }
+            headerTable.commit();
+            return headers;
+        } finally {
+            headerTable.rollback();
+        }
+    }
+    
+    /**
+     * 바이너리 body를 RelayMessage에 설정
+     * UTF-8 텍스트면 그대로, 아니면 base64로 인코딩하고 bodyEncoding을 표시
+     */
+    private static void setBody(RelayMessage message, byte[] body) {
+        try {
+            message.setBody(StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(body))
+                .toString());
+        } catch (CharacterCodingException e) {
+            message.setBody(Base64.getEncoder().encodeToString(body));
+            message.setBodyEncoding(RelayMessage.BODY_ENCODING_BASE64);
+        }
+    }
+    
+    /**
+     * RelayMessage의 body를 원본 바이트로 변환 (bodyEncoding=base64/gzip이면 base64 디코딩)
+     */
+    public static byte[] bodyBytes(RelayMessage message) {
+        if (message.getBody() == null) {
+            return null;
+        }
+        if (RelayMessage.BODY_ENCODING_BASE64.equals(message.getBodyEncoding())
+                || RelayMessage.BODY_ENCODING_GZIP.equals(message.getBodyEncoding())) {
+            return Base64.getDecoder().decode(message.getBody());
+        }
+        return message.getBody().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte typeCode(RelayMessage.MessageType type) {
+        if (type == null) {
+            return 0;
+        }
+        return switch (type) {
+            case REQUEST -> 1;
+            case RESPONSE -> 2;
+            case PING -> 3;
+            case PONG -> 4;
+            case REQUEST_START -> 5;
+            case RESPONSE_START -> 6;
+            case BODY_CHUNK -> 7;
+            case END -> 8;
+            case AGENTS -> 9;
+        };
+    }
+    
+    private static RelayMessage.MessageType typeOf(byte code) {
+        return switch (code) {
+            case 0 -> null;
+            case 1 -> RelayMessage.MessageType.REQUEST;
+            case 2 -> RelayMessage.MessageType.RESPONSE;
+            case 3 -> RelayMessage.MessageType.PING;
+            case 4 -> RelayMessage.MessageType.PONG;
+            case 5 -> RelayMessage.MessageType.REQUEST_START;
+            case 6 -> RelayMessage.MessageType.RESPONSE_START;
+            case 7 -> RelayMessage.MessageType.BODY_CHUNK;
+            case 8 -> RelayMessage.MessageType.END;
+            case 9 -> RelayMessage.MessageType.AGENTS;
+            default -> throw new IllegalArgumentException("Unknown message type code: " + code);
+        };
+    }
+    
+    private static void writeShort(DataBuffer buffer, int value) {
+        if (value < 0 || value > 0xFFFF) {
+            throw new IllegalArgumentException("Value out of range for u16: " + value);
+        }
+        buffer.write((byte) (value >>> 8));
+        buffer.write((byte) value);
+    }
+    
+    private static int readShort(DataBuffer buffer) {
+        if (buffer.readableByteCount() < 2) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        return ((buffer.read() & 0xFF) << 8) | (buffer.read() & 0xFF);
+    }
+    
+    private static void writeString(DataBuffer buffer, String value) {
+        if (value == null) {
+            writeShort(buffer, NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IllegalArgumentException("String field too long: " + bytes.length + " bytes");
+        }
+        writeShort(buffer, bytes.length);
+        buffer.write(bytes);
+    }
+    
+    private static String readString(DataBuffer buffer) {
+        int length = readShort(buffer);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (buffer.readableByteCount() < length) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        String value = buffer.toString(buffer.readPosition(), length, StandardCharsets.UTF_8);
+        buffer.readPosition(buffer.readPosition() + length);
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.proxyrelay.codec;
+
+import com.example.proxyrelay.dto.RelayMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 메시지 body gzip 압축/해제 (bodyEncoding "gzip")
+ *
+ * 압축된 body는 RelayMessage에서 gzip 바이트의 base64 문자열로 표현하며, 바이너리 프레임에서는 원본 바이트로 전송합니다.
+ * 메시지는 여러 세션에 함께 전송될 수 있으므로 원본을 수정하지 않고 복사본을 반환합니다.
+ */
+public final class BodyCompressor {
+    
+    // 압축 해제 후 body 최대 크기 (압축 폭탄 방지)
+    public static final int MAX_INFLATED_BYTES = 16 * 1024 * 1024;
+    
+    private BodyCompressor() {
+    }
+    
+    /**
+     * body가 minBytes 이상이면 gzip으로 압축
+     *
+     * @param level Deflater 압축 레벨 (1~9)
+     * @return 압축한 복사본, 압축하지 않으면(body 없음, 기준 미만, 이미 압축됨, 크기가 줄지 않음) 원본 메시지
+     */
+    public static RelayMessage compress(RelayMessage message, int minBytes, int level) {
+        String body = message.getBody();
+        if (body == null || body.length() < minBytes / 4 || message.getBodyEncoding() != null
+                && !RelayMessage.BODY_ENCODING_BASE64.equals(message.getBodyEncoding())) {
+            return message;
+        }
+        byte[] raw = RelayMessage.BODY_ENCODING_BASE64.equals(message.getBodyEncoding())
+            ? Base64.getDecoder().decode(body) : body.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < minBytes) {
+            return message;
+        }
+        
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (OutputStream gzip = new LeveledGzipOutputStream(compressed, level)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            // 메모리 스트림이므로 발생하지 않음
+            throw new IllegalStateException(e);
+        }
+        if (compressed.size() >= raw.length) {
+            return message;
+        }
+        
+        RelayMessage copy = message.copy();
+        copy.setBody(Base64.getEncoder().encodeToString(compressed.toByteArray()));
+        copy.setBodyEncoding(RelayMessage.BODY_ENCODING_GZIP);
+        return copy;
+    }
+    
+    /**
+     * gzip body 압축 해제 (UTF-8 텍스트면 그대로, 아니면 base64로 표시)
+     *
+     * @return 압축 해제한 복사본, gzip body가 아니면 원본 메시지
+     * @throws IllegalArgumentException gzip 형식이 잘못되었거나 MAX_INFLATED_BYTES를 넘는 경우
+     */
+    public static RelayMessage decompress(RelayMessage message) {
+        if (!RelayMessage.BODY_ENCODING_GZIP.equals(message.getBodyEncoding()) || message.getBody() == null) {
+            return message;
+        }
+        byte[] raw;
+        try (InputStream gzip = new GZIPInputStream(Base64.getDecoder().wrap(
+                new ByteArrayInputStream(message.getBody().getBytes(StandardCharsets.ISO_8859_1))))) {
+            raw = gzip.readNBytes(MAX_INFLATED_BYTES + 1);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid gzip body: " + e.getMessage(), e);
+        }
+        if (raw.length > MAX_INFLATED_BYTES) {
+            throw new IllegalArgumentException("Inflated body exceeds " + MAX_INFLATED_BYTES + " bytes");
+        }
+        
+        RelayMessage copy = message.copy();
+        try {
+            copy.setBody(StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(raw))
+                .toString());
+            copy.setBodyEncoding(null);
+        } catch (CharacterCodingException e) {
+            copy.setBody(Base64.getEncoder().encodeToString(raw));
+            copy.setBodyEncoding(RelayMessage.BODY_ENCODING_BASE64);
+        }
+        return copy;
+    }
+    
+    /**
+     * 압축 레벨을 지정하는 GZIPOutputStream
+     */
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+        
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.proxyrelay.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 연결별 헤더 테이블 (HPACK 방식의 동적 테이블, ?header-table=크기)
+ * 한 번 보낸 헤더(이름, 값)를 테이블에 추가하고, 이후 같은 헤더는 테이블 인덱스로만 전송합니다.
+ * 송신 측과 수신 측이 같은 순서로 같은 항목을 추가하므로 연결의 방향마다 테이블이 하나씩 필요합니다.
+ *
+ * 인덱스는 프레임 시작 시점의 테이블 기준으로 가장 최근 항목이 0이며, 프레임에서 추가한 항목은 프레임이 끝난 뒤
+ * commit 시점에 반영됩니다. 항목 크기는 이름 + 값 길이 + 32이며, 최대 크기를 넘으면 오래된 항목부터 제거합니다.
+ *
+ * 스레드 안전하지 않습니다. 송신 테이블은 송신 큐의 인코딩 순서로, 수신 테이블은 수신 순서로 한 번에 하나씩 사용합니다.
+ */
+public class HeaderTable {
+    
+    // 클러스터 링크 등 relay가 요청하는 기본 테이블 크기 (바이트, HTTP/2 기본값과 같음)
+    public static final int DEFAULT_SIZE = 4096;
+    
+    // 최대 테이블 크기 (항목 수가 u16 인덱스 범위를 넘지 않도록)
+    public static final int MAX_SIZE = 1 << 20;
+    
+    // 항목당 추가 크기 (HPACK과 같음)
+    public static final int ENTRY_OVERHEAD = 32;
+    
+    private final int maxSize;
+    private final Entry[] ring;
+    private final int mask;
+    
+    // 지금까지 추가된 항목 수와 제거된 항목 수 (항목의 절대 번호 = 추가된 순서)
+    private long inserted;
+    private long evicted;
+    private int size;
+    
+    // 송신 측 조회용: "이름\0값" → 절대 번호, 이름 → 가장 최근 절대 번호
+    private final Map<String, Long> byField = new HashMap<>();
+    private final Map<String, Long> byName = new HashMap<>();
+    
+    // 현재 프레임에서 추가할 항목 (commit 시 반영, rollback 시 버림)
+    private final List<Entry> staged = new ArrayList<>();
+    
+    public HeaderTable(int maxSize) {
+        if (maxSize < ENTRY_OVERHEAD || maxSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid header table size: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int capacity = Integer.highestOneBit(maxSize / ENTRY_OVERHEAD) << 1;
+        this.ring = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * 현재 항목 크기 합계 (바이트)
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    public int getEntryCount() {
+        return (int) (inserted - evicted);
+    }
+    
+    /**
+     * 테이블에 추가할 수 있는 항목인지 여부 (null이거나 최대 크기를 넘는 항목은 추가하지 않고 그대로 전송)
+     */
+    public boolean fits(String name, String value) {
+        return name != null && value != null && entrySize(name, value) <= maxSize;
+    }
+    
+    /**
+     * 이름과 값이 같은 항목의 인덱스
+     *
+     * @return 인덱스, 없으면 -1
+     */
+    public int indexOf(String name, String value) {
+        return relative(byField.get(fieldKey(name, value)));
+    }
+    
+    /**
+     * 이름이 같은 가장 최근 항목의 인덱스
+     *
+     * @return 인덱스, 없으면 -1
+     */
+    public int indexOfName(String name) {
+        return relative(byName.get(name));
+    }
+    
+    /**
+     * 인덱스의 항목
+     *
+     * @throws IllegalArgumentException 테이블에 없는 인덱스인 경우
+     */
+    public Entry get(int index) {
+        if (index < 0 || index >= getEntryCount()) {
+            throw new IllegalArgumentException("Header table index out of range: " + index + " (entries: " + getEntryCount() + ")");
+        }
+        return ring[(int) ((inserted - 1 - index) & mask)];
+    }
+    
+    /**
+     * 현재 프레임이 끝나면 추가할 항목 예약
+     */
+    public void stage(String name, String value) {
+        staged.add(new Entry(name, value));
+    }
+    
+    /**
+     * 예약한 항목을 순서대로 추가 (프레임을 보냈거나 받은 뒤)
+     */
+    public void commit() {
+        for (Entry entry : staged) {
+            add(entry);
+        }
+        staged.clear();
+    }
+    
+    /**
+     * 예약한 항목을 버림 (프레임을 보내지 못했거나 잘못된 프레임인 경우)
+     */
+    public void rollback() {
+        staged.clear();
+    }
+    
+    private void add(Entry entry) {
+        int entrySize = entrySize(entry.name(), entry.value());
+        if (entrySize > maxSize) {
+            return;
+        }
+        while (size + entrySize > maxSize) {
+            evictOldest();
+        }
+        long number = inserted++;
+        ring[(int) (number & mask)] = entry;
+        size += entrySize;
+        byField.put(fieldKey(entry.name(), entry.value()), number);
+        byName.put(entry.name(), number);
+    }
+    
+    private void evictOldest() {
+        long number = evicted++;
+        int slot = (int) (number & mask);
+        Entry entry = ring[slot];
+        ring[slot] = null;
+        size -= entrySize(entry.name(), entry.value());
+        byField.remove(fieldKey(entry.name(), entry.value()), number);
+        byName.remove(entry.name(), number);
+    }
+    
+    private int relative(Long number) {
+        if (number == null || number < evicted) {
+            return -1;
+        }
+        return (int) (inserted - 1 - number);
+    }
+    
+    private static String fieldKey(String name, String value) {
+        return name + '\0' + value;
+    }
+    
+    private static int entrySize(String name, String value) {
+        return name.length() + value.length() + ENTRY_OVERHEAD;
+    }
+    
+    /**
+     * 테이블 항목 (헤더 이름, 값)
+     */
+    public record Entry(String name, String value) {
+    }
+}
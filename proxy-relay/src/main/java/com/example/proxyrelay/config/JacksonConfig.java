@@ -0,0 +1,29 @@
+package com.example.proxyrelay.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson 설정
+ * 메시지 직렬화/역직렬화에 사용하는 ObjectMapper를 하나만 생성하여 공유합니다.
+ * (ObjectMapper는 생성 비용이 크고, 설정 후에는 스레드 안전)
+ */
+@Configuration
+public class JacksonConfig {
+    
+    @Bean
+    public ObjectMapper relayObjectMapper() {
+        return createObjectMapper();
+    }
+    
+    /**
+     * Relay 메시지용 ObjectMapper 생성
+     * Blackbird 모듈로 getter/setter 호출을 리플렉션 대신 LambdaMetafactory로 생성한 호출로 대체
+     */
+    public static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
+            .registerModule(new BlackbirdModule());
+    }
+}
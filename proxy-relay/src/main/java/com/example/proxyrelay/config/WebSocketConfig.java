@@ -1,12 +1,16 @@
 package com.example.proxyrelay.config;
 
 import com.example.proxyrelay.handler.RelayWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
 import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.netty.http.server.WebsocketServerSpec;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,6 +24,15 @@ public class WebSocketConfig {
     
     private final RelayWebSocketHandler relayWebSocketHandler;
     
+    // permessage-deflate 확장 (RFC 7692) 사용 여부 (클라이언트가 요청한 경우에만 적용)
+    @Value("${relay.websocket.compression.enabled:true}")
+    private boolean compressionEnabled = true;
+    
+    // 메시지 간 압축 사전(context takeover) 유지 여부
+    // 유지하면 반복되는 헤더/URL이 이전 메시지를 참조하여 작게 압축되지만, 연결마다 압축 상태 메모리를 사용
+    @Value("${relay.websocket.compression.context-takeover:true}")
+    private boolean compressionContextTakeover = true;
+    
     public WebSocketConfig(RelayWebSocketHandler relayWebSocketHandler) {
         this.relayWebSocketHandler = relayWebSocketHandler;
     }
@@ -37,7 +50,12 @@ public class WebSocketConfig {
     
     @Bean
     public WebSocketHandlerAdapter handlerAdapter() {
-        return new WebSocketHandlerAdapter();
+        ReactorNettyRequestUpgradeStrategy upgradeStrategy = new ReactorNettyRequestUpgradeStrategy(
+            () -> WebsocketServerSpec.builder()
+                .compress(compressionEnabled)
+                .compressionAllowServerNoContext(!compressionContextTakeover)
+                .compressionPreferredClientNoContext(!compressionContextTakeover));
+        return new WebSocketHandlerAdapter(new HandshakeWebSocketService(upgradeStrategy));
     }
 }
 
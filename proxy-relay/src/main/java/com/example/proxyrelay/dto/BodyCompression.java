@@ -0,0 +1,26 @@
+package com.example.proxyrelay.dto;
+
+/**
+ * 메시지 body 압축 방식
+ * 연결 시 ?compress=gzip 으로 GZIP을 선택하면 relay가 해당 클라이언트로 보내는 메시지의 body를
+ * 기준 크기 이상일 때 gzip으로 압축 (bodyEncoding "gzip", JSON에서는 base64 문자열, 바이너리 프레임에서는 원본 바이트)
+ */
+public enum BodyCompression {
+    NONE,  // 압축하지 않음 (기본값, 압축된 body를 받으면 relay가 풀어서 전달)
+    GZIP;  // gzip 압축 body 수신 가능
+    
+    /**
+     * 연결 Query Parameter의 compress 값으로 압축 방식 판별 (알 수 없는 값은 NONE)
+     */
+    public static BodyCompression fromQuery(String query) {
+        if (query == null) {
+            return NONE;
+        }
+        for (String param : query.split("&")) {
+            if (param.equalsIgnoreCase("compress=gzip")) {
+                return GZIP;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.proxyrelay.dto;
+
+import org.springframework.web.reactive.socket.WebSocketMessage;
+
+/**
+ * 메시지 프레이밍 방식
+ * 연결 시 ?proto=bin 으로 BINARY를 선택하면 relay가 해당 클라이언트로 보내는 메시지를 바이너리 프레임으로 인코딩
+ */
+public enum FrameProtocol {
+    JSON,    // JSON TEXT 프레임 (기본값)
+    BINARY;  // 압축 헤더 + 원본 body 바이트 BINARY 프레임
+    
+    /**
+     * 수신 프레임 타입으로 프레이밍 방식 판별 (TEXT → JSON, BINARY → BINARY)
+     */
+    public static FrameProtocol of(WebSocketMessage.Type type) {
+        return type == WebSocketMessage.Type.BINARY ? BINARY : JSON;
+    }
+    
+    /**
+     * 이 프레이밍 방식으로 전송할 WebSocket 프레임 타입
+     */
+    public WebSocketMessage.Type frameType() {
+        return this == BINARY ? WebSocketMessage.Type.BINARY : WebSocketMessage.Type.TEXT;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.proxyrelay.dto;
+
+import com.example.proxyrelay.cache.CacheLookup;
+
+/**
+ * 처리 중인 요청 정보
+ * 요청 sessionId별로 요청을 보낸 Client A와 처리 중인 Client B를 기록하여,
+ * 여러 Client A가 하나의 Client B를 공유할 때 응답을 올바른 Client A로 돌려보냅니다.
+ * 요청 sessionId는 Client A가 정하므로 요청은 테넌트와 sessionId로 구분합니다.
+ */
+public class PendingRequest {
+    
+    private final String tenant;
+    private final String requestSessionId;
+    private final String clientASessionId;
+    private final String clientBSessionId;
+    
+    // 응답을 캐시에 저장(또는 재검증)할 GET 요청이면 캐시 조회 결과, 아니면 null
+    private final CacheLookup cacheLookup;
+    
+    // 요청 등록 시각 (System.nanoTime, 응답 지연 시간 측정용)
+    private final long startNanos = System.nanoTime();
+    
+    // 접근 로그 샘플로 선택된 요청이면 true (등록 전에 설정)
+    private boolean accessLogSample;
+    private String url;
+    
+    public PendingRequest(String requestSessionId, String clientASessionId, String clientBSessionId) {
+        this(SessionInfo.DEFAULT_TENANT, requestSessionId, clientASessionId, clientBSessionId, null);
+    }
+    
+    public PendingRequest(String tenant, String requestSessionId, String clientASessionId, String clientBSessionId, 
+                          CacheLookup cacheLookup) {
+        this.tenant = tenant;
+        this.requestSessionId = requestSessionId;
+        this.clientASessionId = clientASessionId;
+        this.clientBSessionId = clientBSessionId;
+        this.cacheLookup = cacheLookup;
+    }
+    
+    /**
+     * 요청을 보낸 Client A의 테넌트
+     */
+    public String getTenant() {
+        return tenant;
+    }
+    
+    public String getRequestSessionId() {
+        return requestSessionId;
+    }
+    
+    public String getClientASessionId() {
+        return clientASessionId;
+    }
+    
+    public String getClientBSessionId() {
+        return clientBSessionId;
+    }
+    
+    public long getStartNanos() {
+        return startNanos;
+    }
+    
+    public CacheLookup getCacheLookup() {
+        return cacheLookup;
+    }
+    
+    /**
+     * 접근 로그 샘플로 선택 (응답 시 기록할 요청 URL 보관)
+     */
+    public void markAccessLogSample(String url) {
+        this.accessLogSample = true;
+        this.url = url;
+    }
+    
+    public boolean isAccessLogSample() {
+        return accessLogSample;
+    }
+    
+    /**
+     * 요청 URL (접근 로그 샘플인 경우만)
+     */
+    public String getUrl() {
+        return url;
+    }
+}
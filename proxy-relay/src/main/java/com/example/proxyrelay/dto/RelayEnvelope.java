@@ -0,0 +1,28 @@
+package com.example.proxyrelay.dto;
+
+/**
+ * 라우팅에 필요한 메시지 헤더 정보 (type, sessionId)
+ * Pass-through 라우팅 시 본문을 역직렬화하지 않고 이 두 필드만 읽어 전달 대상을 결정합니다.
+ */
+public class RelayEnvelope {
+    
+    private final RelayMessage.MessageType type;
+    private final String sessionId;
+    
+    public RelayEnvelope(RelayMessage.MessageType type, String sessionId) {
+        this.type = type;
+        this.sessionId = sessionId;
+    }
+    
+    public RelayMessage.MessageType getType() {
+        return type;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public boolean hasSessionId() {
+        return sessionId != null && !sessionId.isEmpty();
+    }
+}
@@ -1,12 +1,26 @@
 package com.example.proxyrelay.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Relay Server를 통과하는 메시지 포맷
+ * 역직렬화는 RelayMessageDeserializer가 단일 패스로 수행
  */
+@JsonDeserialize(using = RelayMessageDeserializer.class)
 public class RelayMessage {
     
+    /**
+     * bodyEncoding 값: body가 base64로 인코딩된 바이너리임을 표시
+     */
+    public static final String BODY_ENCODING_BASE64 = "base64";
+    
+    /**
+     * bodyEncoding 값: body가 gzip으로 압축된 바이트임을 표시 (JSON에서는 base64 문자열)
+     */
+    public static final String BODY_ENCODING_GZIP = "gzip";
+    
     @JsonProperty("type")
     private MessageType type;
     
@@ -31,11 +45,38 @@ public class RelayMessage {
     @JsonProperty("error")
     private String error;
     
+    // 바이너리 프레임 클라이언트와 변환 시에만 사용 (null이면 body는 일반 텍스트)
+    @JsonProperty("bodyEncoding")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String bodyEncoding;
+    
     public enum MessageType {
-        REQUEST,    // 요청 메시지
-        RESPONSE,   // 응답 메시지
-        PING,       // 연결 유지
-        PONG        // 연결 유지 응답
+        REQUEST,        // 요청 메시지
+        RESPONSE,       // 응답 메시지
+        PING,           // 연결 유지
+        PONG,           // 연결 유지 응답
+        REQUEST_START,  // 스트리밍 요청 시작 (method, url, headers)
+        RESPONSE_START, // 스트리밍 응답 시작 (statusCode, headers)
+        BODY_CHUNK,     // 스트리밍 body 조각
+        END,            // 스트리밍 종료 (error가 있으면 비정상 종료)
+        AGENTS          // 클러스터 링크 상태: 보낸 relay 노드에 연결된 Client B 수 (body, relay 노드 간에만 사용)
+    }
+    
+    /**
+     * 얕은 복사 (headers 맵은 공유하므로 수정하려면 새 맵을 설정)
+     */
+    public RelayMessage copy() {
+        RelayMessage copy = new RelayMessage();
+        copy.type = type;
+        copy.sessionId = sessionId;
+        copy.method = method;
+        copy.url = url;
+        copy.headers = headers;
+        copy.body = body;
+        copy.statusCode = statusCode;
+        copy.error = error;
+        copy.bodyEncoding = bodyEncoding;
+        return copy;
     }
     
     // Getters and Setters
@@ -102,5 +143,12 @@ public class RelayMessage {
     public void setError(String error) {
         this.error = error;
     }
+    
+    public String getBodyEncoding() {
+        return bodyEncoding;
+    }
+    
+    public void setBodyEncoding(String bodyEncoding) {
+        this.bodyEncoding = bodyEncoding;
+    }
 }
-
@@ -0,0 +1,118 @@
+package com.example.proxyrelay.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RelayMessage 스트리밍 역직렬화
+ * JSON을 한 번만 읽으면서 필드를 채우고, type 필드에서 CONNECT나 알 수 없는 타입을 즉시 거부합니다.
+ * (기존에는 Map으로 한 번 파싱해 type을 확인한 뒤 RelayMessage로 다시 파싱했음)
+ */
+public class RelayMessageDeserializer extends StdDeserializer<RelayMessage> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public RelayMessageDeserializer() {
+        super(RelayMessage.class);
+    }
+    
+    @Override
+    public RelayMessage deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (RelayMessage) ctxt.handleUnexpectedToken(RelayMessage.class, p);
+        }
+        
+        RelayMessage message = new RelayMessage();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "type" -> message.setType(readType(p, ctxt));
+                case "sessionId" -> message.setSessionId(readString(p, ctxt));
+                case "method" -> message.setMethod(readString(p, ctxt));
+                case "url" -> message.setUrl(readString(p, ctxt));
+                case "headers" -> message.setHeaders(readHeaders(p, ctxt));
+                case "body" -> message.setBody(readString(p, ctxt));
+                case "statusCode" -> message.setStatusCode(_parseInteger(p, ctxt, Integer.class));
+                case "error" -> message.setError(readString(p, ctxt));
+                case "bodyEncoding" -> message.setBodyEncoding(readString(p, ctxt));
+                default -> handleUnknownProperty(p, ctxt, message, field);
+            }
+        }
+        return message;
+    }
+    
+    /**
+     * type 필드 파싱
+     * CONNECT 및 정의되지 않은 타입은 나머지 본문을 읽기 전에 InvalidFormatException으로 거부
+     */
+    private RelayMessage.MessageType readType(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            return (RelayMessage.MessageType) ctxt.handleUnexpectedToken(RelayMessage.MessageType.class, p);
+        }
+        
+        String text = p.getText();
+        if ("CONNECT".equalsIgnoreCase(text)) {
+            throw ctxt.weirdStringException(text, RelayMessage.MessageType.class,
+                "CONNECT message type is not supported");
+        }
+        for (RelayMessage.MessageType type : RelayMessage.MessageType.values()) {
+            if (type.name().equals(text)) {
+                return type;
+            }
+        }
+        throw ctxt.weirdStringException(text, RelayMessage.MessageType.class,
+            "not one of the values accepted for Enum class MessageType");
+    }
+    
+    /**
+     * 문자열 필드 파싱 (null 허용, 숫자 등 스칼라 값은 문자열로 변환)
+     */
+    private String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return p.getValueAsString();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+    
+    /**
+     * headers 필드 파싱 (Map<String, String>)
+     */
+    private Map<String, String> readHeaders(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> coerced = (Map<String, String>) ctxt.handleUnexpectedToken(Map.class, p);
+            return coerced;
+        }
+        
+        Map<String, String> headers = new LinkedHashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            headers.put(name, readString(p, ctxt));
+        }
+        return headers;
+    }
+}
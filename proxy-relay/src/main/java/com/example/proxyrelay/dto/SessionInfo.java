@@ -1,20 +1,61 @@
 package com.example.proxyrelay.dto;
 
+import com.example.proxyrelay.codec.HeaderTable;
+import com.example.proxyrelay.ratelimit.SessionRateLimit;
 import org.springframework.web.reactive.socket.WebSocketSession;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * 세션 정보를 담는 클래스
  */
 public class SessionInfo {
+    
+    // relay.access-token으로 연결한 세션의 테넌트 (클러스터 링크도 이 테넌트의 요청만 처리)
+    public static final String DEFAULT_TENANT = "default";
+    
     private WebSocketSession session;
     private ClientType clientType;
     private String accessToken;
+    private FrameProtocol protocol;
     private long connectedAt;
     
+    // 처리 중인 요청 수 (Client B에서만 사용)
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    
+    // 요청 → 응답 시작 지연 시간의 지수 이동 평균 (나노초, Client B에서만 사용, 0이면 기록 없음)
+    private volatile long latencyEwmaNanos;
+    
+    // 세션이 속한 테넌트 (Access Token으로 결정, 같은 테넌트의 Client A와 Client B끼리만 요청을 주고받음)
+    private volatile String tenant = DEFAULT_TENANT;
+    
+    // 클러스터 링크인 경우 상대 relay 노드 (일반 클라이언트는 null)
+    // 상대 노드로 요청을 보내는 링크는 Client B, 상대 노드에서 요청을 받는 링크는 Client A로 등록됨
+    private volatile String peer;
+    
+    // 상대 노드에 연결된 Client B 수 (Client B로 등록된 클러스터 링크에서만 사용, 상대 노드가 AGENTS로 알려줌)
+    private volatile int remoteAgents;
+    
+    // 이 클라이언트로 보내는 메시지의 body 압축 방식 (연결 시 ?compress=gzip 으로 선택)
+    private volatile BodyCompression bodyCompression = BodyCompression.NONE;
+    
+    // 헤더 테이블 (연결 시 ?header-table=크기로 선택한 바이너리 클라이언트만, 사용하지 않으면 null)
+    // 수신 테이블은 이 클라이언트가 보낸 프레임의 헤더를, 송신 테이블은 이 클라이언트로 보내는 프레임의 헤더를 인덱싱
+    private volatile HeaderTable inboundHeaderTable;
+    private volatile HeaderTable outboundHeaderTable;
+    
+    // 요청 속도 제한 (클러스터 링크가 아닌 Client A만, 제한하지 않으면 null)
+    private volatile SessionRateLimit rateLimit;
+    
     public SessionInfo(WebSocketSession session, ClientType clientType, String accessToken) {
+        this(session, clientType, accessToken, FrameProtocol.JSON);
+    }
+    
+    public SessionInfo(WebSocketSession session, ClientType clientType, String accessToken, FrameProtocol protocol) {
         this.session = session;
         this.clientType = clientType;
         this.accessToken = accessToken;
+        this.protocol = protocol;
         this.connectedAt = System.currentTimeMillis();
     }
     
@@ -30,10 +71,129 @@ public class SessionInfo {
         return accessToken;
     }
     
+    /**
+     * 이 클라이언트에게 메시지를 보낼 때 사용할 프레이밍 방식
+     */
+    public FrameProtocol getProtocol() {
+        return protocol;
+    }
+    
     public long getConnectedAt() {
         return connectedAt;
     }
     
+    /**
+     * 처리 중인 요청 수가 한도 미만이면 1 증가
+     * 
+     * @return 증가했으면 true, 이미 한도에 도달했으면 false
+     */
+    public boolean tryAcquireInFlight(int maxInFlight) {
+        int current;
+        do {
+            current = inFlightRequests.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlightRequests.compareAndSet(current, current + 1));
+        return true;
+    }
+    
+    public void releaseInFlight() {
+        inFlightRequests.decrementAndGet();
+    }
+    
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+    
+    /**
+     * 응답 지연 시간 기록 (가중치 1/8의 지수 이동 평균)
+     * 에이전트 선택용 추정치이므로 동시에 기록될 때 일부 표본이 누락되는 것은 허용
+     */
+    public void recordLatency(long nanos) {
+        long current = latencyEwmaNanos;
+        latencyEwmaNanos = current == 0 ? nanos : current + (nanos - current) / 8;
+    }
+    
+    public long getLatencyEwmaNanos() {
+        return latencyEwmaNanos;
+    }
+    
+    public String getTenant() {
+        return tenant;
+    }
+    
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+    
+    public String getPeer() {
+        return peer;
+    }
+    
+    public void setPeer(String peer) {
+        this.peer = peer;
+    }
+    
+    /**
+     * 다른 relay 노드와의 클러스터 링크 여부
+     */
+    public boolean isPeer() {
+        return peer != null;
+    }
+    
+    public int getRemoteAgents() {
+        return remoteAgents;
+    }
+    
+    public void setRemoteAgents(int remoteAgents) {
+        this.remoteAgents = remoteAgents;
+    }
+    
+    /**
+     * 이 클라이언트에게 메시지를 보낼 때 사용할 body 압축 방식
+     */
+    public BodyCompression getBodyCompression() {
+        return bodyCompression;
+    }
+    
+    public void setBodyCompression(BodyCompression bodyCompression) {
+        this.bodyCompression = bodyCompression;
+    }
+    
+    /**
+     * 헤더 테이블 사용 (방향마다 maxSize 크기의 테이블 생성)
+     */
+    public void enableHeaderTable(int maxSize) {
+        this.inboundHeaderTable = new HeaderTable(maxSize);
+        this.outboundHeaderTable = new HeaderTable(maxSize);
+    }
+    
+    /**
+     * 이 클라이언트가 보낸 프레임을 디코딩할 때 사용할 헤더 테이블 (사용하지 않으면 null)
+     */
+    public HeaderTable getInboundHeaderTable() {
+        return inboundHeaderTable;
+    }
+    
+    /**
+     * 이 클라이언트에게 보낼 프레임을 인코딩할 때 사용할 헤더 테이블 (사용하지 않으면 null)
+     */
+    public HeaderTable getOutboundHeaderTable() {
+        return outboundHeaderTable;
+    }
+    
+    /**
+     * 이 클라이언트가 보낸 요청에 적용할 속도 제한 (제한하지 않으면 null)
+     */
+    public SessionRateLimit getRateLimit() {
+        return rateLimit;
+    }
+    
+    public void setRateLimit(SessionRateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+    
     public boolean isActive() {
         return session != null && session.isOpen();
     }
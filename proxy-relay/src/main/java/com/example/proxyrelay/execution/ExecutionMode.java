@@ -0,0 +1,22 @@
+package com.example.proxyrelay.execution;
+
+/**
+ * 수신 메시지 처리 단계(handleMessage)를 실행할 스레드 (relay.execution.mode)
+ */
+public enum ExecutionMode {
+    
+    /**
+     * 프레임을 받은 Netty 이벤트 루프에서 바로 처리 (기본값, 처리 단계에서 블로킹하면 같은 루프의 모든 연결이 멈춤)
+     */
+    EVENT_LOOP,
+    
+    /**
+     * Reactor boundedElastic 스레드 풀로 넘겨서 처리 (스레드 수 상한: CPU 코어 수 * 10)
+     */
+    BOUNDED_ELASTIC,
+    
+    /**
+     * 처리 단계마다 가상 스레드(Java 21)를 만들어 처리 (블로킹 중에는 캐리어 스레드를 점유하지 않음)
+     */
+    VIRTUAL_THREADS
+}
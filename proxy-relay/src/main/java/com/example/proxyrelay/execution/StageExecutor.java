@@ -0,0 +1,86 @@
+package com.example.proxyrelay.execution;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 메시지 처리 단계를 ExecutionMode의 스레드에서 실행
+ * 인증 확인, 감사 로그 기록, 디스크 캐시 조회처럼 블로킹하는 확장 로직이 Netty 이벤트 루프를 멈추지 않도록
+ * 처리 단계(Function&lt;프레임, Mono&gt;)의 호출 자체를 전용 Reactor 스케줄러로 넘깁니다.
+ *
+ * 처리 단계가 실행되기 전에 취소되면(연결 종료) 프레임을 구독 Context의 discard hook(doOnDiscard)으로 넘겨 해제합니다.
+ */
+public final class StageExecutor implements Disposable {
+    
+    private final ExecutionMode mode;
+    // EVENT_LOOP이면 null
+    private final Scheduler scheduler;
+    // 이 실행기가 만든 스케줄러인지 여부 (공유 스케줄러는 dispose하지 않음)
+    private final boolean ownsScheduler;
+    
+    public StageExecutor(ExecutionMode mode) {
+        this(mode, switch (mode) {
+            case EVENT_LOOP -> null;
+            case BOUNDED_ELASTIC -> Schedulers.boundedElastic();
+            case VIRTUAL_THREADS -> Schedulers.fromExecutorService(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("relay-vt-", 0).factory()), "relay-vt");
+        }, mode == ExecutionMode.VIRTUAL_THREADS);
+    }
+    
+    StageExecutor(ExecutionMode mode, Scheduler scheduler, boolean ownsScheduler) {
+        this.mode = mode;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+    
+    public ExecutionMode getMode() {
+        return mode;
+    }
+    
+    /**
+     * 처리 단계를 이벤트 루프 밖으로 넘기는지 여부
+     */
+    public boolean isOffloading() {
+        return scheduler != null;
+    }
+    
+    /**
+     * 처리 단계를 이 실행기의 스레드에서 호출하도록 감싸기 (EVENT_LOOP이면 그대로 반환)
+     * 반환한 Mono는 처리 단계의 Mono가 완료되면 완료되며, 이후 신호는 처리 단계가 완료한 스레드에서 전달됩니다.
+     */
+    public <T> Function<T, Mono<Void>> wrap(Function<T, Mono<Void>> stage) {
+        if (scheduler == null) {
+            return stage;
+        }
+        return frame -> Mono.deferContextual(context -> {
+            AtomicBoolean claimed = new AtomicBoolean();
+            return Mono.defer(() -> claimed.compareAndSet(false, true) ? stage.apply(frame) : Mono.<Void>empty())
+                .subscribeOn(scheduler)
+                .doOnCancel(() -> {
+                    if (claimed.compareAndSet(false, true)) {
+                        Operators.onDiscard(frame, Context.of(context));
+                    }
+                });
+        });
+    }
+    
+    @Override
+    public void dispose() {
+        if (ownsScheduler) {
+            scheduler.dispose();
+        }
+    }
+    
+    @Override
+    public boolean isDisposed() {
+        return scheduler == null || scheduler.isDisposed();
+    }
+}
@@ -1,42 +1,109 @@
 package com.example.proxyrelay.handler;
 
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.codec.HeaderTable;
+import com.example.proxyrelay.dto.BodyCompression;
 import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.RelayEnvelope;
 import com.example.proxyrelay.dto.RelayMessage;
 import com.example.proxyrelay.dto.SessionInfo;
+import com.example.proxyrelay.execution.ExecutionMode;
+import com.example.proxyrelay.execution.StageExecutor;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.ratelimit.RateLimiter;
+import com.example.proxyrelay.ratelimit.SessionRateLimit;
+import com.example.proxyrelay.ratelimit.SessionRateLimit;
 import com.example.proxyrelay.service.AuthService;
 import com.example.proxyrelay.service.MessageRoutingService;
 import com.example.proxyrelay.service.SessionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.util.function.Function;
 
 /**
  * Relay Server의 핵심 WebSocket 핸들러
  * Client A (외부 프록시)와 Client B (내부 에이전트) 간의 메시지 중계
  */
 @Component
-public class RelayWebSocketHandler implements WebSocketHandler {
+public class RelayWebSocketHandler implements WebSocketHandler, DisposableBean {
     
     private static final Logger logger = LoggerFactory.getLogger(RelayWebSocketHandler.class);
     
     private final SessionService sessionService;
     private final AuthService authService;
     private final MessageRoutingService messageRoutingService;
+    private final RelayMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final RateLimiter rateLimiter;
+    
+    // 미리 직렬화한 PONG 프레임 payload (PING마다 직렬화하지 않고 그대로 감싸서 전송, 내용은 변경하지 않음)
+    private final byte[] pongJson;
+    private final byte[] pongBinary;
+    
+    // Pass-through 라우팅: type/sessionId만 읽고 수신 프레임 버퍼를 그대로 상대 세션에 전달
+    @Value("${relay.routing.pass-through:true}")
+    private boolean passThrough = true;
+    
+    // 연결당 동시에 처리하는 수신 프레임 수 (상대 세션 송신 큐가 가져가기를 기다리는 프레임 수, 1이면 하나씩 순서대로)
+    @Value("${relay.receive.concurrency:1}")
+    private int receiveConcurrency = 1;
+    
+    // 연결당 처리 중인 프레임 외에 미리 읽어 두는 수신 프레임 수 (스트리밍 시 relay에 쌓이는 body 조각 상한)
+    @Value("${relay.receive.prefetch:1}")
+    private int receivePrefetch = 1;
+    
+    // 클라이언트가 ?header-table=크기로 요청할 수 있는 헤더 테이블 최대 크기 (바이트, 0이면 헤더 테이블 사용 안 함)
+    @Value("${relay.header-table.max-size:65536}")
+    private int maxHeaderTableSize = 65536;
+    
+    // 수신 메시지 처리 단계를 실행할 스레드 (블로킹하는 확장 로직을 넣으면 bounded-elastic 또는 virtual-threads)
+    @Value("${relay.execution.mode:event-loop}")
+    private ExecutionMode executionMode = ExecutionMode.EVENT_LOOP;
+    
+    // executionMode로 처음 사용할 때 생성 (설정 주입 이후)
+    private volatile StageExecutor stageExecutor;
     
     public RelayWebSocketHandler(
             SessionService sessionService,
             AuthService authService,
-            MessageRoutingService messageRoutingService) {
+            MessageRoutingService messageRoutingService,
+            RelayMetrics metrics,
+            ObjectMapper objectMapper,
+            RateLimiter rateLimiter) {
         this.sessionService = sessionService;
         this.authService = authService;
         this.messageRoutingService = messageRoutingService;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
+        
+        RelayMessage pong = new RelayMessage();
+        pong.setType(RelayMessage.MessageType.PONG);
+        try {
+            this.pongJson = objectMapper.writeValueAsBytes(pong);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize PONG message", e);
+        }
+        DataBuffer pongBuffer = BinaryFrameCodec.encode(pong, DefaultDataBufferFactory.sharedInstance);
+        this.pongBinary = new byte[pongBuffer.readableByteCount()];
+        pongBuffer.read(this.pongBinary);
     }
     
     @Override
@@ -45,53 +112,228 @@ public class RelayWebSocketHandler implements WebSocketHandler {
         
         // 1. 인증 및 클라이언트 타입 식별
         ClientType clientType = identifyClientType(session);
+        FrameProtocol protocol = identifyFrameProtocol(session);
         String accessToken = extractAccessToken(session);
+        String peer = clientType == ClientType.CLIENT_A ? extractPeer(session) : null;
         
-        if (clientType == null || !authService.validateToken(accessToken)) {
+        // Access Token으로 테넌트 결정 (같은 테넌트의 Client A와 Client B끼리만 매핑)
+        String tenant = clientType != null ? authService.resolveTenant(accessToken) : null;
+        if (tenant == null) {
             logger.warn("Invalid connection attempt from session: {}", session.getId());
             return session.close(CloseStatus.POLICY_VIOLATION.withReason("Invalid token"));
         }
         
+        // 클러스터 링크는 연결 수/속도 제한을 받지 않으므로 relay.cluster.secret을 확인한 뒤에만 링크로 인정
+        if (peer != null && !authService.validateClusterSecret(
+                session.getHandshakeInfo().getHeaders().getFirst(AuthService.CLUSTER_SECRET_HEADER))) {
+            logger.warn("Cluster link {} from peer relay node {} without a valid cluster secret, rejecting", 
+                session.getId(), peer);
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason("Invalid cluster secret"));
+        }
+        
+        // 클러스터 링크는 기본 테넌트의 Client B만 공유하므로 relay.access-token으로만 연결 가능
+        if (peer != null && !SessionInfo.DEFAULT_TENANT.equals(tenant)) {
+            logger.warn("Cluster link {} from peer relay node {} used a tenant token, rejecting", session.getId(), peer);
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason("Cluster links must use the cluster token"));
+        }
+        
+        // 헤더 테이블은 양쪽 크기가 같아야 하므로 허용할 수 없는 크기를 요청하면 연결 거부
+        int headerTableSize = identifyHeaderTableSize(session, protocol);
+        if (headerTableSize < 0) {
+            logger.warn("Unsupported header table size requested by session: {}", session.getId());
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason(
+                "Unsupported header-table size (" + HeaderTable.ENTRY_OVERHEAD + " to " + maxHeaderTableSize + ")"));
+        }
+        
+        // 전체 연결 수 상한 (클러스터 링크는 세지 않음, 초과 시 1013으로 바로 종료하여 클라이언트가 나중에 다시 연결)
+        if (peer == null && !rateLimiter.tryAcquireConnection()) {
+            metrics.connectionRejected();
+            logger.debug("Max connections reached, rejecting session: {}", session.getId());
+            return session.close(CloseStatus.SERVICE_OVERLOAD.withReason("Too many connections"));
+        }
+        
         // 2. Client A인 경우 Client B 확인 및 매핑 (Client B가 먼저 연결되어 있어야 함)
-        // Client B는 먼저 연결되어 대기하고, Client A가 나중에 연결되면 매핑됨
-        SessionInfo availableClientB = null;
-        if (clientType == ClientType.CLIENT_A) {
-            availableClientB = sessionService.findAvailableClientB();
-            if (availableClientB == null) {
+        // Client B는 먼저 연결되어 대기하고, Client A가 나중에 연결되면 매핑된 Client A가 가장 적은 Client B에 매핑됨
+        // (Client B 하나가 여러 Client A의 요청을 요청 sessionId 기준으로 함께 처리)
+        // 클러스터 모드에서는 다른 relay 노드에 Client B가 있으면 연결을 허용하고 요청을 그 노드로 전달
+        // (다른 노드에서 요청을 받는 클러스터 링크는 Client B와 관계없이 유지, 기본 테넌트만 해당)
+        if (clientType == ClientType.CLIENT_A && peer == null) {
+            SessionInfo assignedClientB = sessionService.assignClientB(session.getId(), tenant);
+            if (assignedClientB != null) {
+                logger.info("Mapped Client A {} to Client B {}", 
+                    session.getId(), assignedClientB.getSession().getId());
+            } else if (SessionInfo.DEFAULT_TENANT.equals(tenant) && sessionService.findPeerLink() != null) {
+                logger.info("No local Client B for Client A {}, requests will be forwarded to peer relay nodes", 
+                    session.getId());
+            } else {
                 logger.warn("No available Client B found for Client A {}. Connection rejected.", session.getId());
+                rateLimiter.releaseConnection();
                 // 에러 메시지 전송 후 연결 종료
-                return sendErrorAndClose(session, "No active agent available. Please ensure Client B is connected first.");
+                return sendErrorAndClose(session, protocol, "No active agent available. Please ensure Client B is connected first.");
             }
         }
         
         // 3. 세션 등록
-        sessionService.registerSession(session, clientType, accessToken);
-        logger.info("Session registered: {} as {}", session.getId(), clientType);
+        SessionInfo sessionInfo = sessionService.registerSession(session, clientType, accessToken, protocol, peer, tenant);
+        sessionInfo.setBodyCompression(BodyCompression.fromQuery(session.getHandshakeInfo().getUri().getQuery()));
+        if (headerTableSize > 0) {
+            sessionInfo.enableHeaderTable(headerTableSize);
+        }
+        if (peer != null) {
+            logger.info("Cluster link registered: {} from peer relay node {} ({})", session.getId(), peer, protocol);
+            return relay(session, sessionInfo);
+        }
+        SessionRateLimit rateLimit = clientType == ClientType.CLIENT_A ? rateLimiter.newSession(accessToken) : null;
+        sessionInfo.setRateLimit(rateLimit);
+        logger.info("Session registered: {} as {} of tenant {} ({})", session.getId(), clientType, tenant, protocol);
         
-        // 4. 세션 매핑 (Client A와 Client B 연결)
-        if (clientType == ClientType.CLIENT_A && availableClientB != null) {
-            sessionService.mapSessions(session.getId(), availableClientB.getSession().getId());
-            logger.info("Mapped Client A {} to Client B {}", 
-                session.getId(), availableClientB.getSession().getId());
+        return relay(session, sessionInfo)
+            .doFinally(signalType -> {
+                rateLimiter.releaseConnection();
+                if (rateLimit != null) {
+                    rateLimit.close();
+                }
+            });
+    }
+    
+    /**
+     * 다른 relay 노드로의 클러스터 링크 처리 (이 노드가 연결한 WebSocket 클라이언트 세션)
+     * 링크는 이 노드에서 Client B로 등록되어, 이 노드에 Client B가 없을 때 요청을 상대 노드로 전달하고
+     * 상대 노드가 돌려주는 응답과 AGENTS 상태를 수신합니다. 상대 노드에서는 같은 링크가 Client A로 등록됩니다.
+     *
+     * @param peer 상대 relay 노드 (로그/메트릭 표시용)
+     */
+    public Mono<Void> handlePeerLink(WebSocketSession session, String peer) {
+        SessionInfo sessionInfo = sessionService.registerSession(session, ClientType.CLIENT_B, null, FrameProtocol.BINARY, peer);
+        sessionInfo.setBodyCompression(BodyCompression.GZIP);
+        sessionInfo.enableHeaderTable(HeaderTable.DEFAULT_SIZE);
+        logger.info("Cluster link registered: {} to peer relay node {}", session.getId(), peer);
+        return relay(session, sessionInfo);
+    }
+    
+    /**
+     * 등록된 세션의 메시지 수신 처리 (수신이 끝나면 송신 큐에 남은 메시지를 보낸 뒤 세션 정리)
+     */
+    private Mono<Void> relay(WebSocketSession session, SessionInfo sessionInfo) {
+        return receiveMessages(session, sessionInfo)
+            .then(Mono.defer(() -> sessionService.getOutbound(session.getId()).close()))
+            .doFinally(signalType -> {
+                logger.info("Connection closed: {} - {}", session.getId(), signalType);
+                messageRoutingService.releaseRequests(session.getId());
+                sessionService.removeSession(session.getId());
+            });
+    }
+    
+    /**
+     * 수신 파이프라인 구성
+     */
+    private Mono<Void> receiveMessages(WebSocketSession session, SessionInfo sessionInfo) {
+        ClientType clientType = sessionInfo.getClientType();
+        // 수신 바이트는 속도 제한에 기록만 하고, 한도를 넘으면 다음 새 요청부터 거부 (MessageRoutingService)
+        SessionRateLimit rateLimit = sessionInfo.getRateLimit();
+        // 헤더 테이블을 사용하는 연결의 프레임은 테이블 인덱스를 포함하므로 그대로 전달할 수 없고,
+        // 수신 순서대로 디코딩해야 테이블이 송신 측과 같게 유지됨
+        if (passThrough && sessionInfo.getInboundHeaderTable() == null) {
+            // Zero-copy: 프레임 버퍼를 String으로 디코딩하지 않고 그대로 상대 세션에 전달
+            // Reactor Netty는 onNext 이후 수신 버퍼를 해제하므로, 비동기 처리를 위해 참조를 하나 유지(retain)하고
+            // handleMessagePassThrough가 전달하거나 해제함. 처리되지 못하고 버려지는 프레임은 doOnDiscard에서 해제
+            // 처리 중인 프레임의 전송이 끝나야 다음 프레임을 요청하므로, 상대 세션의 전송이 느리면
+            // 수신 demand가 멈춰 Netty가 읽기를 중단함 (relay에 버퍼링하지 않음, dispatch 참고)
+            return session.receive()
+                .map(WebSocketMessage::retain)
+                .filter(message -> {
+                    // 빈 메시지 필터링 (버려진 메시지는 doOnDiscard에서 해제)
+                    int bytes = message.getPayload().readableByteCount();
+                    if (bytes == 0) {
+                        logger.debug("Empty message received from session: {}, ignoring", session.getId());
+                        return false;
+                    }
+                    metrics.frameReceived(clientType, bytes);
+                    if (rateLimit != null) {
+                        rateLimit.recordBytes(bytes);
+                    }
+                    return true;
+                })
+                .transform(frames -> dispatch(frames, message -> handleMessagePassThrough(session, message)))
+                .doOnDiscard(WebSocketMessage.class, message -> DataBufferUtils.release(message.getPayload()))
+                .then();
         }
         
-        // 4. 메시지 수신 처리
+        // 수신 버퍼는 onNext 이후 해제되므로 map에서 동기적으로 디코딩 (순서/흐름 제어는 pass-through와 동일)
         return session.receive()
-            .map(WebSocketMessage::getPayloadAsText)
-            .filter(messageText -> {
+            .filter(message -> {
                 // 빈 메시지 필터링
-                if (messageText == null || messageText.trim().isEmpty()) {
+                int bytes = message.getPayload().readableByteCount();
+                if (bytes == 0) {
                     logger.debug("Empty message received from session: {}, ignoring", session.getId());
                     return false;
                 }
+                metrics.frameReceived(clientType, bytes);
+                if (rateLimit != null) {
+                    rateLimit.recordBytes(bytes);
+                }
                 return true;
             })
-            .flatMap(message -> handleMessage(session, message))
-            .then()
-            .doFinally(signalType -> {
-                logger.info("Connection closed: {} - {}", session.getId(), signalType);
-                sessionService.removeSession(session.getId());
-            });
+            .mapNotNull(message -> {
+                RelayMessage relayMessage = messageRoutingService.decodeMessage(
+                    message.getPayload(), FrameProtocol.of(message.getType()), sessionInfo.getInboundHeaderTable());
+                if (relayMessage == null) {
+                    metrics.parseFailure();
+                    logger.warn("Invalid message format from session: {}", session.getId());
+                }
+                return relayMessage;
+            })
+            .transform(frames -> dispatch(frames, message -> handleMessage(session, message)))
+            .then();
+    }
+    
+    /**
+     * 수신 프레임 처리 (연결당 동시 처리 수와 prefetch 제한)
+     * Client A의 요청은 Client B의 송신 큐가 프레임을 가져가면 완료되므로, Client B가 느리거나 송신 큐가 차 있으면
+     * 새 프레임을 요청하지 않고 Netty가 소켓 읽기를 멈춥니다. 이때 relay에 머무는 수신 프레임은
+     * receiveConcurrency + receivePrefetch개를 넘지 않습니다.
+     * 여러 요청을 함께 나르는 연결(Client B의 응답, 클러스터 링크의 요청)은 상대 송신 큐에 쌓인 payload가
+     * relay.outbound.high-watermark-bytes 이하이면 큐에 넣을 때 완료되어 잠시 느린 상대 하나가 다른 요청을 멈추지 않고,
+     * 넘으면 상대 송신 큐가 가져갈 때까지 기다려 이 연결의 소켓 읽기도 멈춥니다 (느린 Client A가 Client B의 전송 속도를 조절).
+     *
+     * 프레임은 수신 순서대로 구독되고 구독 시점에 송신 큐에 들어가므로, 동시 처리 수가 1보다 커도 스트리밍 조각의 순서는 유지됩니다.
+     * 처리 단계를 다른 스레드로 넘기는 실행 모드(relay.execution.mode)에서는 연결당 동시 처리 수가 1로 고정됩니다.
+     */
+    private <T> Flux<Void> dispatch(Flux<T> frames, Function<T, Mono<Void>> handler) {
+        StageExecutor executor = stageExecutor();
+        if (executor.isOffloading()) {
+            // 처리 단계가 이벤트 루프 밖에서 실행되면 구독 순서가 송신 큐에 들어가는 순서를 보장하지 않으므로
+            // 스트리밍 조각 순서를 지키기 위해 연결당 하나씩 처리 (연결 간에는 동시에 처리)
+            return frames.concatMap(executor.wrap(handler), receivePrefetch);
+        }
+        if (receiveConcurrency <= 1) {
+            return frames.concatMap(handler, receivePrefetch);
+        }
+        Flux<T> prefetched = receivePrefetch > 0 ? frames.limitRate(receivePrefetch) : frames;
+        return prefetched.flatMap(handler, receiveConcurrency);
+    }
+    
+    private StageExecutor stageExecutor() {
+        StageExecutor executor = stageExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = stageExecutor;
+                if (executor == null) {
+                    executor = new StageExecutor(executionMode);
+                    stageExecutor = executor;
+                    logger.info("Message handling execution mode: {}", executionMode);
+                }
+            }
+        }
+        return executor;
+    }
+    
+    @Override
+    public void destroy() {
+        StageExecutor executor = stageExecutor;
+        if (executor != null) {
+            executor.dispose();
+        }
     }
     
     /**
@@ -119,6 +361,65 @@ public class RelayWebSocketHandler implements WebSocketHandler {
         return ClientType.CLIENT_A; // 기본값
     }
     
+    /**
+     * 프레이밍 방식 식별
+     * Query Parameter proto=bin이면 바이너리 프레임, 그 외에는 JSON TEXT 프레임
+     */
+    private FrameProtocol identifyFrameProtocol(WebSocketSession session) {
+        String query = session.getHandshakeInfo().getUri().getQuery();
+        
+        if (query != null && query.contains("proto=bin")) {
+            return FrameProtocol.BINARY;
+        }
+        
+        return FrameProtocol.JSON;
+    }
+    
+    /**
+     * 헤더 테이블 크기 식별 (Query Parameter header-table=크기, 바이너리 프레임 연결만, 0 또는 생략 시 사용 안 함)
+     * 
+     * @return 테이블 크기, 사용하지 않으면 0, 허용하지 않는 크기(relay.header-table.max-size 초과 등)면 -1
+     */
+    private int identifyHeaderTableSize(WebSocketSession session, FrameProtocol protocol) {
+        String query = session.getHandshakeInfo().getUri().getQuery();
+        if (query == null) {
+            return 0;
+        }
+        for (String param : query.split("&")) {
+            if (param.startsWith("header-table=")) {
+                int size;
+                try {
+                    size = Integer.parseInt(param.substring(13));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+                if (size == 0) {
+                    return 0;
+                }
+                boolean supported = protocol == FrameProtocol.BINARY && size >= HeaderTable.ENTRY_OVERHEAD
+                    && size <= Math.min(maxHeaderTableSize, HeaderTable.MAX_SIZE);
+                return supported ? size : -1;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * 클러스터 링크의 상대 노드 추출 (Query Parameter peer=노드 ID, 일반 클라이언트는 null)
+     */
+    private String extractPeer(WebSocketSession session) {
+        String query = session.getHandshakeInfo().getUri().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String param : query.split("&")) {
+            if (param.startsWith("peer=") && param.length() > 5) {
+                return param.substring(5);
+            }
+        }
+        return null;
+    }
+    
     /**
      * Access Token 추출
      */
@@ -154,19 +455,9 @@ public class RelayWebSocketHandler implements WebSocketHandler {
     /**
      * 메시지 처리
      */
-    private Mono<Void> handleMessage(WebSocketSession session, String messageText) {
+    private Mono<Void> handleMessage(WebSocketSession session, RelayMessage message) {
         try {
-            RelayMessage message = messageRoutingService.parseMessage(messageText);
-            if (message == null) {
-                logger.warn("Invalid message format from session: {}", session.getId());
-                return Mono.empty();
-            }
-            
-            SessionInfo sessionInfo = sessionService.getClientA(session.getId());
-            if (sessionInfo == null) {
-                sessionInfo = sessionService.getClientB(session.getId());
-            }
-            
+            SessionInfo sessionInfo = findSessionInfo(session);
             if (sessionInfo == null) {
                 logger.warn("Session not found: {}", session.getId());
                 return Mono.empty();
@@ -174,18 +465,23 @@ public class RelayWebSocketHandler implements WebSocketHandler {
             
             // PING/PONG 처리
             if (message.getType() == RelayMessage.MessageType.PING) {
-                return handlePing(session);
+                return handlePing(sessionInfo);
+            }
+            
+            if (message.getType() == RelayMessage.MessageType.AGENTS) {
+                handleAgents(sessionInfo, message);
+                return Mono.empty();
             }
             
             // 요청/응답 라우팅
             if (sessionInfo.getClientType() == ClientType.CLIENT_A) {
                 // Client A로부터 요청 → Client B로 전달
-                if (message.getType() == RelayMessage.MessageType.REQUEST) {
+                if (isRequestFlow(message.getType())) {
                     return messageRoutingService.routeRequestToAgent(session.getId(), message);
                 }
             } else {
                 // Client B로부터 응답 → Client A로 전달
-                if (message.getType() == RelayMessage.MessageType.RESPONSE) {
+                if (isResponseFlow(message.getType())) {
                     return messageRoutingService.routeResponseToClient(session.getId(), message);
                 }
             }
@@ -198,35 +494,152 @@ public class RelayWebSocketHandler implements WebSocketHandler {
     }
     
     /**
-     * PING 처리
+     * 메시지 처리 (pass-through)
+     * envelope(type, sessionId)만 스캔하여 라우팅하고, 프레임 버퍼는 디코딩/복사 없이 그대로 전달
+     * sessionId가 없는 REQUEST는 relay가 sessionId를 부여해야 하므로 전체 파싱 경로로 처리
+     * 
+     * message의 payload는 retain된 상태로 전달되며, 상대 세션으로 넘기지 않은 경우 여기서 해제합니다.
      */
-    private Mono<Void> handlePing(WebSocketSession session) {
+    private Mono<Void> handleMessagePassThrough(WebSocketSession session, WebSocketMessage message) {
+        DataBuffer payload = message.getPayload();
+        FrameProtocol framing = FrameProtocol.of(message.getType());
+        boolean forwarded = false;
         try {
-            RelayMessage pong = new RelayMessage();
-            pong.setType(RelayMessage.MessageType.PONG);
-            String json = new com.fasterxml.jackson.databind.ObjectMapper()
-                .writeValueAsString(pong);
-            WebSocketMessage wsMessage = session.textMessage(json);
-            return session.send(Mono.just(wsMessage));
+            RelayEnvelope envelope = messageRoutingService.parseEnvelope(payload, framing);
+            if (envelope == null) {
+                metrics.parseFailure();
+                logger.warn("Invalid message format from session: {}", session.getId());
+                return Mono.empty();
+            }
+            
+            SessionInfo sessionInfo = findSessionInfo(session);
+            if (sessionInfo == null) {
+                logger.warn("Session not found: {}", session.getId());
+                return Mono.empty();
+            }
+            
+            // PING/PONG 처리
+            if (envelope.getType() == RelayMessage.MessageType.PING) {
+                return handlePing(sessionInfo);
+            }
+            
+            if (envelope.getType() == RelayMessage.MessageType.AGENTS) {
+                RelayMessage relayMessage = messageRoutingService.decodeMessage(payload, framing);
+                if (relayMessage != null) {
+                    handleAgents(sessionInfo, relayMessage);
+                }
+                return Mono.empty();
+            }
+            
+            // 요청/응답 라우팅
+            if (sessionInfo.getClientType() == ClientType.CLIENT_A) {
+                // Client A로부터 요청 → Client B로 전달
+                if (isRequestFlow(envelope.getType())) {
+                    if (!envelope.hasSessionId()) {
+                        RelayMessage relayMessage = messageRoutingService.decodeMessage(payload, framing);
+                        if (relayMessage == null) {
+                            metrics.parseFailure();
+                            return Mono.empty();
+                        }
+                        return messageRoutingService.routeRequestToAgent(session.getId(), relayMessage);
+                    }
+                    forwarded = true;
+                    return messageRoutingService.forwardRequestToAgent(
+                        session.getId(), envelope, payload, framing);
+                }
+            } else {
+                // Client B로부터 응답 → Client A로 전달
+                if (isResponseFlow(envelope.getType())) {
+                    forwarded = true;
+                    return messageRoutingService.forwardResponseToClient(
+                        session.getId(), envelope, payload, framing);
+                }
+            }
+            
+            return Mono.empty();
         } catch (Exception e) {
-            logger.error("Error sending PONG", e);
+            logger.error("Error handling message from session: {}", session.getId(), e);
             return Mono.empty();
+        } finally {
+            if (!forwarded) {
+                DataBufferUtils.release(payload);
+            }
+        }
+    }
+    
+    /**
+     * Client A → Client B 방향 메시지 여부 (단일 요청 또는 스트리밍 요청 조각)
+     */
+    private static boolean isRequestFlow(RelayMessage.MessageType type) {
+        return type == RelayMessage.MessageType.REQUEST
+            || type == RelayMessage.MessageType.REQUEST_START
+            || type == RelayMessage.MessageType.BODY_CHUNK
+            || type == RelayMessage.MessageType.END;
+    }
+    
+    /**
+     * Client B → Client A 방향 메시지 여부 (단일 응답 또는 스트리밍 응답 조각)
+     */
+    private static boolean isResponseFlow(RelayMessage.MessageType type) {
+        return type == RelayMessage.MessageType.RESPONSE
+            || type == RelayMessage.MessageType.RESPONSE_START
+            || type == RelayMessage.MessageType.BODY_CHUNK
+            || type == RelayMessage.MessageType.END;
+    }
+    
+    /**
+     * 세션 정보 조회 (Client A → Client B 순서)
+     */
+    private SessionInfo findSessionInfo(WebSocketSession session) {
+        SessionInfo sessionInfo = sessionService.getClientA(session.getId());
+        if (sessionInfo == null) {
+            sessionInfo = sessionService.getClientB(session.getId());
+        }
+        return sessionInfo;
+    }
+    
+    /**
+     * 클러스터 링크 상태 처리: 상대 노드에 연결된 Client B 수 갱신 (0이면 그 노드로 요청을 보내지 않음)
+     */
+    private void handleAgents(SessionInfo sessionInfo, RelayMessage message) {
+        if (!sessionInfo.isPeer() || sessionInfo.getClientType() != ClientType.CLIENT_B) {
+            logger.warn("Ignoring AGENTS message from non-cluster session: {}", sessionInfo.getSession().getId());
+            return;
+        }
+        try {
+            int agents = Integer.parseInt(message.getBody());
+            sessionInfo.setRemoteAgents(agents);
+            logger.info("Peer relay node {} has {} active agent(s)", sessionInfo.getPeer(), agents);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid AGENTS message from peer relay node {}: {}", sessionInfo.getPeer(), message.getBody());
         }
     }
     
+    /**
+     * PING 처리 (세션의 프레이밍 방식으로 미리 직렬화한 PONG 응답)
+     * payload 배열을 복사 없이 감싸서 전송하므로 PING마다 직렬화나 payload 할당이 없음
+     */
+    private Mono<Void> handlePing(SessionInfo sessionInfo) {
+        WebSocketSession session = sessionInfo.getSession();
+        FrameProtocol protocol = sessionInfo.getProtocol();
+        byte[] pong = protocol == FrameProtocol.BINARY ? pongBinary : pongJson;
+        WebSocketMessage wsMessage = new WebSocketMessage(protocol.frameType(), session.bufferFactory().wrap(pong));
+        return sessionService.getOutbound(session.getId()).send(wsMessage)
+            .doOnSuccess(v -> metrics.frameSent(sessionInfo.getClientType(), pong.length))
+            .doOnError(e -> logger.error("Error sending PONG to session: {}", session.getId(), e));
+    }
+    
     /**
      * 에러 메시지 전송 후 연결 종료
      */
-    private Mono<Void> sendErrorAndClose(WebSocketSession session, String errorMessage) {
+    private Mono<Void> sendErrorAndClose(WebSocketSession session, FrameProtocol protocol, String errorMessage) {
         try {
             RelayMessage errorResponse = new RelayMessage();
             errorResponse.setType(RelayMessage.MessageType.RESPONSE);
             errorResponse.setStatusCode(503);
             errorResponse.setError(errorMessage);
             
-            String json = new com.fasterxml.jackson.databind.ObjectMapper()
-                .writeValueAsString(errorResponse);
-            WebSocketMessage wsMessage = session.textMessage(json);
+            WebSocketMessage wsMessage = encodeMessage(session, protocol, errorResponse);
             
             // 에러 메시지 전송 후 연결 종료
             return session.send(Mono.just(wsMessage))
@@ -236,5 +649,15 @@ public class RelayWebSocketHandler implements WebSocketHandler {
             return session.close(CloseStatus.SERVER_ERROR.withReason(errorMessage));
         }
     }
+    
+    /**
+     * 프레이밍 방식에 맞춰 메시지 인코딩
+     */
+    private WebSocketMessage encodeMessage(WebSocketSession session, FrameProtocol protocol, RelayMessage message) 
+            throws JsonProcessingException {
+        if (protocol == FrameProtocol.BINARY) {
+            return session.binaryMessage(factory -> BinaryFrameCodec.encode(message, factory));
+        }
+        return session.textMessage(objectMapper.writeValueAsString(message));
+    }
 }
-
@@ -0,0 +1,225 @@
+package com.example.proxyrelay.metrics;
+
+import com.example.proxyrelay.accesslog.AccessLog;
+import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.service.SessionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Relay 메트릭 (Micrometer)
+ * 프레임 수신/송신 수와 바이트 수, 파싱 실패, 전송 에러/취소, 에이전트별 요청 → 응답 지연 시간,
+ * 활성 세션 수, 처리 중인 요청 수, 응답 캐시 적중 여부와 크기, 속도 제한이나 에이전트 부족으로 거부한 요청/연결 수를 기록합니다. Prometheus 형식으로 /actuator/prometheus에서 조회할 수 있습니다.
+ *
+ * 프레임마다 호출되므로 Counter는 미리 생성해 두고, 지연 시간 Timer만 에이전트(Client B 세션)별로 생성하여
+ * 에이전트 연결 종료 시 제거합니다.
+ */
+@Component
+public class RelayMetrics {
+    
+    private static final String CLIENT_TYPE_TAG = "client_type";
+    
+    private final MeterRegistry registry;
+    
+    private final Map<ClientType, Counter> framesReceived = new EnumMap<>(ClientType.class);
+    private final Map<ClientType, Counter> framesSent = new EnumMap<>(ClientType.class);
+    private final Map<ClientType, Counter> bytesReceived = new EnumMap<>(ClientType.class);
+    private final Map<ClientType, Counter> bytesSent = new EnumMap<>(ClientType.class);
+    private final Map<ClientType, Counter> sendErrors = new EnumMap<>(ClientType.class);
+    private final Map<ClientType, Counter> sendCancels = new EnumMap<>(ClientType.class);
+    private final Counter parseFailures;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter coalescedRequests;
+    private final Counter rateLimitedRequests;
+    private final Counter rejectedConnections;
+    
+    // 거부 사유 → 거부한 요청 수 (사유는 코드에 고정된 몇 가지뿐이므로 처음 쓰일 때 생성)
+    private final ConcurrentMap<String, Counter> rejectedRequests = new ConcurrentHashMap<>();
+    
+    // Client B 세션 ID → 요청 → 응답 시작 지연 시간
+    private final ConcurrentMap<String, Timer> requestLatencies = new ConcurrentHashMap<>();
+    
+    public RelayMetrics(MeterRegistry registry, SessionService sessionService) {
+        this.registry = registry;
+        
+        for (ClientType clientType : ClientType.values()) {
+            framesReceived.put(clientType, Counter.builder("relay.frames.received")
+                .description("Frames received from clients")
+                .tag(CLIENT_TYPE_TAG, clientType.name())
+                .register(registry));
+            framesSent.put(clientType, Counter.builder("relay.frames.sent")
+                .description("Frames sent to clients")
+                .tag(CLIENT_TYPE_TAG, clientType.name())
+                .register(registry));
+            bytesReceived.put(clientType, Counter.builder("relay.bytes.received")
+                .description("Frame payload bytes received from clients")
+                .baseUnit("bytes")
+                .tag(CLIENT_TYPE_TAG, clientType.name())
+                .register(registry));
+            bytesSent.put(clientType, Counter.builder("relay.bytes.sent")
+                .description("Frame payload bytes sent to clients")
+                .baseUnit("bytes")
+                .tag(CLIENT_TYPE_TAG, clientType.name())
+                .register(registry));
+            sendErrors.put(clientType, Counter.builder("relay.send.errors")
+                .description("Failed sends to clients")
+                .tag(CLIENT_TYPE_TAG, clientType.name())
+                .register(registry));
+            sendCancels.put(clientType, Counter.builder("relay.send.cancels")
+                .description("Cancelled sends to clients")
+                .tag(CLIENT_TYPE_TAG, clientType.name())
+                .register(registry));
+        }
+        
+        parseFailures = Counter.builder("relay.parse.failures")
+            .description("Frames dropped because they could not be parsed")
+            .register(registry);
+        cacheHits = Counter.builder("relay.cache.requests")
+            .description("Cacheable GET requests by cache result")
+            .tag("result", "hit")
+            .register(registry);
+        cacheMisses = Counter.builder("relay.cache.requests")
+            .description("Cacheable GET requests by cache result")
+            .tag("result", "miss")
+            .register(registry);
+        coalescedRequests = Counter.builder("relay.requests.coalesced")
+            .description("Requests answered with the response of an identical in-flight request")
+            .register(registry);
+        rateLimitedRequests = Counter.builder("relay.requests.rate_limited")
+            .description("Requests rejected with 429 because a session or access token rate limit was exceeded")
+            .register(registry);
+        rejectedConnections = Counter.builder("relay.connections.rejected")
+            .description("Connections closed because the max connections limit was reached")
+            .register(registry);
+        
+        Gauge.builder("relay.sessions.active", sessionService::getActiveClientACount)
+            .description("Connected client sessions")
+            .tag(CLIENT_TYPE_TAG, ClientType.CLIENT_A.name())
+            .register(registry);
+        Gauge.builder("relay.sessions.active", sessionService::getActiveClientBCount)
+            .description("Connected client sessions")
+            .tag(CLIENT_TYPE_TAG, ClientType.CLIENT_B.name())
+            .register(registry);
+    }
+    
+    /**
+     * 처리 중인 요청 수 게이지 등록 (스크레이프 시점에 조회)
+     */
+    public void registerInFlightRequests(Supplier<Number> inFlightRequests) {
+        Gauge.builder("relay.requests.in_flight", inFlightRequests)
+            .description("Requests waiting for an agent response")
+            .register(registry);
+    }
+    
+    /**
+     * 응답 캐시 크기 게이지 등록 (바이트)
+     */
+    public void registerCacheSize(Supplier<Number> cacheBytes) {
+        Gauge.builder("relay.cache.size", cacheBytes)
+            .description("Bytes of cached GET responses")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+    
+    /**
+     * 접근 로그에서 버린 기록 수 등록 (accessLog는 MessageRoutingService가 소유하며 Micrometer는 약한 참조로 보관)
+     */
+    public void registerAccessLogDropped(AccessLog accessLog) {
+        FunctionCounter.builder("relay.access_log.dropped", accessLog, AccessLog::getDropped)
+            .description("Sampled access log records dropped because the buffer was full")
+            .register(registry);
+    }
+    
+    /**
+     * 프레임 수신 기록
+     */
+    public void frameReceived(ClientType source, int bytes) {
+        framesReceived.get(source).increment();
+        bytesReceived.get(source).increment(bytes);
+    }
+    
+    /**
+     * 프레임 송신 기록
+     */
+    public void frameSent(ClientType target, int bytes) {
+        framesSent.get(target).increment();
+        bytesSent.get(target).increment(bytes);
+    }
+    
+    public void parseFailure() {
+        parseFailures.increment();
+    }
+    
+    /**
+     * 캐시할 수 있는 GET 요청의 캐시 조회 결과 기록 (재검증이 필요한 경우는 miss)
+     */
+    public void cacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+    
+    public void requestCoalesced() {
+        coalescedRequests.increment();
+    }
+    
+    public void requestRateLimited() {
+        rateLimitedRequests.increment();
+    }
+    
+    public void connectionRejected() {
+        rejectedConnections.increment();
+    }
+    
+    /**
+     * Client B에 전달하지 않고 에러 응답으로 거부한 요청 기록 (속도 제한은 requestRateLimited)
+     *
+     * @param reason 거부 사유 (no_agent, agent_busy, duplicate)
+     */
+    public void requestRejected(String reason) {
+        rejectedRequests.computeIfAbsent(reason, r -> Counter.builder("relay.requests.rejected")
+            .description("Requests answered with an error response without being forwarded to Client B")
+            .tag("reason", r)
+            .register(registry)).increment();
+    }
+    
+    public void sendError(ClientType target) {
+        sendErrors.get(target).increment();
+    }
+    
+    public void sendCancel(ClientType target) {
+        sendCancels.get(target).increment();
+    }
+    
+    /**
+     * 요청 등록부터 Client B의 응답이 시작되기까지의 지연 시간 기록
+     */
+    public void recordRequestLatency(String clientBSessionId, long startNanos) {
+        requestLatencies.computeIfAbsent(clientBSessionId, id -> Timer.builder("relay.request.latency")
+                .description("Time from request dispatch to the first response frame from the agent")
+                .tag("agent", id)
+                .publishPercentileHistogram()
+                .register(registry))
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 연결 종료된 Client B의 지연 시간 Timer 제거 (세션 ID 태그가 계속 늘어나지 않도록)
+     */
+    public void removeAgent(String clientBSessionId) {
+        Timer timer = requestLatencies.remove(clientBSessionId);
+        if (timer != null) {
+            registry.remove(timer);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.proxyrelay.ratelimit;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 연결 수/요청 속도 한도 조회 및 변경 (GET/POST /actuator/ratelimit)
+ * POST body에 넣은 항목만 바꾸며, 바꾼 한도는 재시작 없이 기존 연결에도 바로 적용됩니다 (재시작하면 설정 파일 값으로 돌아감).
+ * 노출하려면 management.endpoints.web.exposure.include에 ratelimit을 추가합니다.
+ */
+@Component
+@Endpoint(id = "ratelimit")
+public class RateLimitEndpoint {
+    
+    private final RateLimiter rateLimiter;
+    
+    public RateLimitEndpoint(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+    
+    @ReadOperation
+    public Limits limits() {
+        return new Limits(rateLimiter.getConnections(), rateLimiter.getMaxConnections(), rateLimiter.getBurstSeconds(),
+            rateLimiter.getSessionRequestsPerSecond(), rateLimiter.getSessionBytesPerSecond(),
+            rateLimiter.getTokenRequestsPerSecond(), rateLimiter.getTokenBytesPerSecond());
+    }
+    
+    @WriteOperation
+    public Limits update(@Nullable Integer maxConnections, @Nullable Double burstSeconds,
+                         @Nullable Double sessionRequestsPerSecond, @Nullable Double sessionBytesPerSecond,
+                         @Nullable Double tokenRequestsPerSecond, @Nullable Double tokenBytesPerSecond) {
+        // 일부만 바뀐 상태가 되지 않도록 모두 확인한 뒤 변경
+        requireNonNegative("maxConnections", maxConnections);
+        requireNonNegative("sessionRequestsPerSecond", sessionRequestsPerSecond);
+        requireNonNegative("sessionBytesPerSecond", sessionBytesPerSecond);
+        requireNonNegative("tokenRequestsPerSecond", tokenRequestsPerSecond);
+        requireNonNegative("tokenBytesPerSecond", tokenBytesPerSecond);
+        if (burstSeconds != null && !(burstSeconds > 0)) {
+            throw new InvalidEndpointRequestException("burstSeconds must be positive", "Invalid burstSeconds");
+        }
+        
+        if (maxConnections != null) {
+            rateLimiter.setMaxConnections(maxConnections);
+        }
+        if (burstSeconds != null) {
+            rateLimiter.setBurstSeconds(burstSeconds);
+        }
+        if (sessionRequestsPerSecond != null) {
+            rateLimiter.setSessionRequestsPerSecond(sessionRequestsPerSecond);
+        }
+        if (sessionBytesPerSecond != null) {
+            rateLimiter.setSessionBytesPerSecond(sessionBytesPerSecond);
+        }
+        if (tokenRequestsPerSecond != null) {
+            rateLimiter.setTokenRequestsPerSecond(tokenRequestsPerSecond);
+        }
+        if (tokenBytesPerSecond != null) {
+            rateLimiter.setTokenBytesPerSecond(tokenBytesPerSecond);
+        }
+        return limits();
+    }
+    
+    private static void requireNonNegative(String name, Number value) {
+        if (value != null && !(value.doubleValue() >= 0)) {
+            throw new InvalidEndpointRequestException(name + " must not be negative (0 means unlimited)",
+                "Invalid " + name);
+        }
+    }
+    
+    /**
+     * 현재 연결 수와 한도 (0이면 제한 없음)
+     */
+    public record Limits(int connections, int maxConnections, double burstSeconds,
+                         double sessionRequestsPerSecond, double sessionBytesPerSecond,
+                         double tokenRequestsPerSecond, double tokenBytesPerSecond) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.proxyrelay.ratelimit;
+
+import com.example.proxyrelay.auth.TokenRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 연결 수 제한과 Client A 요청 속도 제한
+ * 전체 클라이언트 연결 수 상한과, 세션별/Access Token별 초당 요청 수와 초당 수신 바이트 수를 토큰 버킷으로 제한합니다.
+ * 한도를 넘은 연결과 요청은 기다리게 하지 않고 바로 거부합니다. 클러스터 링크는 제한하지 않습니다.
+ *
+ * 한도는 요청마다 읽으므로 실행 중에 바꾸면(ratelimit 엔드포인트) 기존 연결에도 바로 적용됩니다.
+ * 모든 한도는 0이면 제한하지 않습니다.
+ */
+@Component
+public class RateLimiter {
+    
+    // 전체 클라이언트 연결 수 상한 (Client A + Client B, 클러스터 링크 제외)
+    @Value("${relay.connections.max:0}")
+    private volatile int maxConnections = 0;
+    
+    // 버킷 크기 (초당 한도의 몇 초 분량까지 몰아서 보낼 수 있는지)
+    @Value("${relay.rate-limit.burst-seconds:1}")
+    private volatile double burstSeconds = 1;
+    
+    // Client A 세션별 초당 요청 수 / 초당 수신 바이트 수
+    @Value("${relay.rate-limit.session.requests-per-second:0}")
+    private volatile double sessionRequestsPerSecond = 0;
+    
+    @Value("${relay.rate-limit.session.bytes-per-second:0}")
+    private volatile double sessionBytesPerSecond = 0;
+    
+    // Access Token별 초당 요청 수 / 초당 수신 바이트 수 (같은 토큰으로 연결한 Client A 세션 합계)
+    @Value("${relay.rate-limit.token.requests-per-second:0}")
+    private volatile double tokenRequestsPerSecond = 0;
+    
+    @Value("${relay.rate-limit.token.bytes-per-second:0}")
+    private volatile double tokenBytesPerSecond = 0;
+    
+    private final AtomicInteger connections = new AtomicInteger();
+    
+    // Access Token의 SHA-256 hex → 토큰별 버킷 (원본 토큰은 보관하지 않고, 그 토큰의 마지막 세션이 닫히면 제거)
+    private final ConcurrentMap<String, TokenBuckets> tokenBuckets = new ConcurrentHashMap<>();
+    
+    /**
+     * 연결 수 한도 확인 후 연결 수 증가 (연결이 끝나면 releaseConnection)
+     *
+     * @return 한도를 넘지 않았으면 true
+     */
+    public boolean tryAcquireConnection() {
+        while (true) {
+            int current = connections.get();
+            int max = maxConnections;
+            if (max > 0 && current >= max) {
+                return false;
+            }
+            if (connections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    public void releaseConnection() {
+        connections.decrementAndGet();
+    }
+    
+    public int getConnections() {
+        return connections.get();
+    }
+    
+    /**
+     * 새 Client A 세션의 속도 제한 생성 (세션별 버킷은 새로 만들고 토큰별 버킷은 같은 토큰의 세션과 공유)
+     * 세션이 끝나면 반환한 속도 제한의 close를 호출해야 토큰별 버킷이 정리됩니다.
+     */
+    public SessionRateLimit newSession(String accessToken) {
+        String key = HexFormat.of().formatHex(TokenRegistry.sha256(accessToken.getBytes(StandardCharsets.UTF_8)));
+        TokenBuckets shared = tokenBuckets.compute(key, (k, buckets) -> {
+            if (buckets == null) {
+                buckets = new TokenBuckets(
+                    new TokenBucket(() -> tokenRequestsPerSecond, () -> burstSeconds),
+                    new TokenBucket(() -> tokenBytesPerSecond, () -> burstSeconds));
+            }
+            buckets.sessions++;
+            return buckets;
+        });
+        return new SessionRateLimit(
+            new TokenBucket(() -> sessionRequestsPerSecond, () -> burstSeconds),
+            new TokenBucket(() -> sessionBytesPerSecond, () -> burstSeconds),
+            shared.requests, shared.bytes, () -> releaseSession(key));
+    }
+    
+    /**
+     * 토큰별 버킷을 쓰는 세션 수 감소 (마지막 세션이면 버킷 제거)
+     */
+    private void releaseSession(String key) {
+        tokenBuckets.computeIfPresent(key, (k, buckets) -> --buckets.sessions > 0 ? buckets : null);
+    }
+    
+    /**
+     * 토큰별 버킷을 보관 중인 Access Token 수 (현재 연결된 Client A 세션이 쓰는 토큰 수)
+     */
+    public int getTrackedTokens() {
+        return tokenBuckets.size();
+    }
+    
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+    
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+    
+    public double getBurstSeconds() {
+        return burstSeconds;
+    }
+    
+    public void setBurstSeconds(double burstSeconds) {
+        this.burstSeconds = burstSeconds;
+    }
+    
+    public double getSessionRequestsPerSecond() {
+        return sessionRequestsPerSecond;
+    }
+    
+    public void setSessionRequestsPerSecond(double sessionRequestsPerSecond) {
+        this.sessionRequestsPerSecond = sessionRequestsPerSecond;
+    }
+    
+    public double getSessionBytesPerSecond() {
+        return sessionBytesPerSecond;
+    }
+    
+    public void setSessionBytesPerSecond(double sessionBytesPerSecond) {
+        this.sessionBytesPerSecond = sessionBytesPerSecond;
+    }
+    
+    public double getTokenRequestsPerSecond() {
+        return tokenRequestsPerSecond;
+    }
+    
+    public void setTokenRequestsPerSecond(double tokenRequestsPerSecond) {
+        this.tokenRequestsPerSecond = tokenRequestsPerSecond;
+    }
+    
+    public double getTokenBytesPerSecond() {
+        return tokenBytesPerSecond;
+    }
+    
+    public void setTokenBytesPerSecond(double tokenBytesPerSecond) {
+        this.tokenBytesPerSecond = tokenBytesPerSecond;
+    }
+    
+    // 토큰별 버킷과 이를 쓰는 세션 수 (sessions는 tokenBuckets의 compute 안에서만 변경)
+    private static final class TokenBuckets {
+        
+        private final TokenBucket requests;
+        private final TokenBucket bytes;
+        private int sessions;
+        
+        TokenBuckets(TokenBucket requests, TokenBucket bytes) {
+            this.requests = requests;
+            this.bytes = bytes;
+        }
+    }
+}
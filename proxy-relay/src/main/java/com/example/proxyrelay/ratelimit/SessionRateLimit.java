@@ -0,0 +1,57 @@
+package com.example.proxyrelay.ratelimit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Client A 세션 하나에 적용하는 속도 제한 (세션별 버킷과 같은 Access Token을 쓰는 세션들이 공유하는 버킷)
+ * 수신 바이트는 프레임을 받을 때마다 기록하고, 새 요청은 요청 수 버킷에서 토큰을 꺼낼 수 있고
+ * 바이트 버킷에 부족분이 없을 때만 받아들입니다. 이미 받아들인 스트리밍 요청의 body 조각은 거부하지 않습니다.
+ */
+public class SessionRateLimit {
+    
+    private final TokenBucket sessionRequests;
+    private final TokenBucket sessionBytes;
+    private final TokenBucket tokenRequests;
+    private final TokenBucket tokenBytes;
+    private final Runnable onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    
+    SessionRateLimit(TokenBucket sessionRequests, TokenBucket sessionBytes,
+                     TokenBucket tokenRequests, TokenBucket tokenBytes, Runnable onClose) {
+        this.sessionRequests = sessionRequests;
+        this.sessionBytes = sessionBytes;
+        this.tokenRequests = tokenRequests;
+        this.tokenBytes = tokenBytes;
+        this.onClose = onClose;
+    }
+    
+    /**
+     * 수신 프레임 바이트 기록
+     */
+    public void recordBytes(int bytes) {
+        sessionBytes.consume(bytes);
+        tokenBytes.consume(bytes);
+    }
+    
+    /**
+     * 새 요청(REQUEST/REQUEST_START)을 받아들일지 결정
+     * 세션 버킷에서 꺼낸 뒤 Access Token 버킷이 부족하면 세션 버킷의 토큰은 돌려주지 않습니다.
+     *
+     * @return 제한을 넘지 않았으면 true
+     */
+    public boolean tryAcquireRequest() {
+        if (!sessionBytes.isAvailable() || !tokenBytes.isAvailable()) {
+            return false;
+        }
+        return sessionRequests.tryAcquire(1) && tokenRequests.tryAcquire(1);
+    }
+    
+    /**
+     * 세션 종료 시 호출 (같은 Access Token의 마지막 세션이면 토큰별 버킷 제거, 여러 번 호출해도 한 번만 반영)
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.proxyrelay.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 토큰 버킷 (lock-free)
+ * 초당 rate개씩 채워지고 최대 rate × burstSeconds개까지 쌓이는 버킷입니다.
+ * 남은 토큰 수와 마지막 충전 시각을 따로 두지 않고, 지금까지 꺼낸 토큰이 모두 다시 채워지는 시각 하나만
+ * AtomicLong으로 보관하여 CAS로 갱신합니다 (GCRA와 같은 방식). 따라서 충전을 위한 타이머나 락이 없습니다.
+ *
+ * rate와 burstSeconds는 설정 변경을 반영하도록 호출마다 읽으며, rate가 0 이하면 제한하지 않습니다.
+ */
+public class TokenBucket {
+    
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    
+    private final DoubleSupplier rate;
+    private final DoubleSupplier burstSeconds;
+    private final LongSupplier clock;
+    
+    // 꺼낸 토큰이 모두 다시 채워지는 시각 (System.nanoTime 기준, 현재보다 이전이면 버킷이 가득 참)
+    private final AtomicLong fullAt;
+    
+    /**
+     * @param rate 초당 채워지는 토큰 수 (0 이하면 제한 없음)
+     * @param burstSeconds 버킷 크기 (rate의 몇 초 분량까지 쌓을지)
+     */
+    public TokenBucket(DoubleSupplier rate, DoubleSupplier burstSeconds) {
+        this(rate, burstSeconds, System::nanoTime);
+    }
+    
+    TokenBucket(DoubleSupplier rate, DoubleSupplier burstSeconds, LongSupplier clock) {
+        this.rate = rate;
+        this.burstSeconds = burstSeconds;
+        this.clock = clock;
+        this.fullAt = new AtomicLong(clock.getAsLong());
+    }
+    
+    /**
+     * 토큰 permits개를 꺼냄 (부족하면 기다리지 않고 꺼내지도 않음)
+     * 버킷 크기보다 큰 permits도 버킷이 가득 차 있으면 꺼낼 수 있습니다.
+     *
+     * @return 꺼냈으면 true
+     */
+    public boolean tryAcquire(long permits) {
+        double perSecond = rate.getAsDouble();
+        if (perSecond <= 0) {
+            return true;
+        }
+        long cost = costNanos(permits, perSecond);
+        long capacity = Math.max(capacityNanos(), cost);
+        long now = clock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now < 0 ? now : current) + cost;
+            if (next - now > capacity) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * 토큰이 부족해도 permits개를 꺼냄 (이미 받은 데이터를 기록할 때 사용)
+     * 부족한 만큼은 이후에 채워질 토큰에서 차감되어, 그동안 isAvailable은 false가 됩니다.
+     */
+    public void consume(long permits) {
+        double perSecond = rate.getAsDouble();
+        if (perSecond <= 0) {
+            return;
+        }
+        long cost = costNanos(permits, perSecond);
+        long now = clock.getAsLong();
+        fullAt.getAndUpdate(current -> (current - now < 0 ? now : current) + cost);
+    }
+    
+    /**
+     * 남은 토큰이 있는지 여부 (consume으로 부족분이 생겼으면 다시 채워질 때까지 false)
+     */
+    public boolean isAvailable() {
+        if (rate.getAsDouble() <= 0) {
+            return true;
+        }
+        return fullAt.get() - clock.getAsLong() < capacityNanos();
+    }
+    
+    private long capacityNanos() {
+        return (long) (burstSeconds.getAsDouble() * NANOS_PER_SECOND);
+    }
+    
+    private static long costNanos(long permits, double perSecond) {
+        return (long) (permits * NANOS_PER_SECOND / perSecond);
+    }
+}
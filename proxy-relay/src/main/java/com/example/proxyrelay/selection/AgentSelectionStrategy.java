@@ -0,0 +1,45 @@
+package com.example.proxyrelay.selection;
+
+/**
+ * Client B 선택 전략 (relay.agent.selection)
+ */
+public enum AgentSelectionStrategy {
+    
+    /**
+     * Client A 연결 시 매핑된 Client A가 가장 적은 Client B에 고정하고, 모든 요청을 그 Client B로 전달 (기본값)
+     */
+    MAPPED,
+    
+    /**
+     * 요청마다 Client B를 순서대로 선택
+     */
+    ROUND_ROBIN,
+    
+    /**
+     * 요청마다 처리 중인 요청이 가장 적은 Client B 선택
+     */
+    LEAST_IN_FLIGHT,
+    
+    /**
+     * 요청마다 임의의 Client B 두 개 중 응답 지연 시간(EWMA)과 처리 중인 요청 수로 계산한 비용이 낮은 쪽 선택
+     */
+    EWMA,
+    
+    /**
+     * 요청 대상 호스트를 해싱하여 같은 호스트의 요청은 같은 Client B로 전달
+     */
+    HOST_HASH;
+    
+    /**
+     * 요청마다 사용할 선택기 생성 (MAPPED는 요청마다 선택하지 않으므로 null)
+     */
+    public AgentSelector newSelector() {
+        return switch (this) {
+            case MAPPED -> null;
+            case ROUND_ROBIN -> new RoundRobinSelector();
+            case LEAST_IN_FLIGHT -> new LeastInFlightSelector();
+            case EWMA -> new EwmaLatencySelector();
+            case HOST_HASH -> new HostHashSelector();
+        };
+    }
+}
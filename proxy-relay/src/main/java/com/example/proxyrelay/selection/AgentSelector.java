@@ -0,0 +1,21 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.SessionInfo;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 새 요청을 처리할 Client B 선택 전략
+ * 요청(REQUEST/REQUEST_START)마다 호출되므로 세션 수에 비례하는 할당이나 잠금 없이 선택해야 합니다.
+ */
+public interface AgentSelector {
+    
+    /**
+     * @param agents 등록된 Client B 목록 (연결 종료 중인 세션이 포함될 수 있음)
+     * @param ring agents의 consistent-hash 링 (SessionService.getHashRing, 링을 쓰는 전략만 조회)
+     * @param targetUrl 요청 대상 URL (필요한 전략만 조회, 없으면 null 반환)
+     * @return 선택된 활성 Client B, 활성 세션이 없으면 null
+     */
+    SessionInfo select(List<SessionInfo> agents, HashRing ring, Supplier<String> targetUrl);
+}
@@ -0,0 +1,53 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.SessionInfo;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * EWMA 지연 시간 기반 선택 ("power of two choices")
+ * 임의의 Client B 두 개를 골라 비용(응답 지연 시간 EWMA × (처리 중인 요청 수 + 1))이 낮은 쪽을 선택합니다.
+ * 모든 세션을 비교하지 않으므로 선택 비용이 일정하고, 느린 백엔드 근처의 Client B에는 요청이 덜 몰립니다.
+ * 아직 응답 기록이 없는 Client B는 지연 시간을 0으로 보아 먼저 선택됩니다.
+ */
+public class EwmaLatencySelector implements AgentSelector {
+    
+    @Override
+    public SessionInfo select(List<SessionInfo> agents, HashRing ring, Supplier<String> targetUrl) {
+        int size = agents.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            SessionInfo agent = agents.get(0);
+            return agent.isActive() ? agent : null;
+        }
+        
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        SessionInfo a = agents.get(first);
+        SessionInfo b = agents.get(second);
+        
+        if (!a.isActive() || !b.isActive()) {
+            if (a.isActive()) {
+                return a;
+            }
+            if (b.isActive()) {
+                return b;
+            }
+            // 둘 다 연결 종료 중이면 전체에서 선택
+            return LeastInFlightSelector.leastInFlight(agents);
+        }
+        return cost(a) <= cost(b) ? a : b;
+    }
+    
+    private static double cost(SessionInfo agent) {
+        return (agent.getLatencyEwmaNanos() + 1.0) * (agent.getInFlightRequests() + 1);
+    }
+}
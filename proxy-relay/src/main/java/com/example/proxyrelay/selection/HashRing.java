@@ -0,0 +1,113 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.SessionInfo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Client B 목록과 그 목록의 consistent-hash 링 (수정 불가)
+ * Client B마다 세션 ID로 정한 가상 노드 VIRTUAL_NODES개를 링에 두고, 호스트의 해시에서 시계 방향으로
+ * 처음 만나는 가상 노드의 Client B를 선택합니다. 가상 노드 위치는 세션 ID로만 정해지므로
+ * Client B가 연결되면 새 Client B의 가상 노드 앞 구간의 호스트만, 종료되면 그 Client B의 호스트만 다른 Client B로 옮겨집니다.
+ *
+ * SessionService가 Client B 등록/제거 시 새 목록으로 교체하여 getHashRing으로 제공하며,
+ * 링은 호스트 해싱 선택에서 처음 조회할 때 만듭니다 (다른 선택 전략에서는 만들지 않음).
+ */
+public final class HashRing {
+    
+    // Client B 하나의 가상 노드 수 (많을수록 호스트가 고르게 나뉘지만 링 생성 비용과 메모리가 늘어남)
+    static final int VIRTUAL_NODES = 128;
+    
+    private static final HashRing EMPTY = new HashRing(new SessionInfo[0]);
+    
+    private final SessionInfo[] agents;
+    private final List<SessionInfo> agentList;
+    
+    // 처음 조회할 때 생성 (여러 스레드가 동시에 만들어도 같은 결과)
+    private volatile Ring ring;
+    
+    private HashRing(SessionInfo[] agents) {
+        this.agents = agents;
+        this.agentList = List.of(agents);
+    }
+    
+    public static HashRing of(List<SessionInfo> agents) {
+        return agents.isEmpty() ? EMPTY : new HashRing(agents.toArray(new SessionInfo[0]));
+    }
+    
+    /**
+     * 링에 배치된 Client B 목록 (등록 순서, 수정 불가)
+     */
+    public List<SessionInfo> agents() {
+        return agentList;
+    }
+    
+    /**
+     * 호스트를 담당하는 활성 Client B (담당 Client B가 연결 종료 중이면 링에서 다음 활성 Client B)
+     *
+     * @return 활성 Client B가 없으면 null
+     */
+    public SessionInfo locate(String host) {
+        if (agents.length == 0) {
+            return null;
+        }
+        Ring current = ring;
+        if (current == null) {
+            current = Ring.build(agents);
+            ring = current;
+        }
+        
+        long[] points = current.points();
+        int index = Arrays.binarySearch(points, mix(host.hashCode()));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (int i = 0; i < points.length; i++) {
+            SessionInfo agent = agents[current.owners()[(index + i) % points.length]];
+            if (agent.isActive()) {
+                return agent;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 64비트 해시 혼합 (MurmurHash3 fmix64)
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * 정렬된 가상 노드 위치와 각 위치의 Client B 인덱스
+     */
+    private record Ring(long[] points, int[] owners) {
+        
+        static Ring build(SessionInfo[] agents) {
+            // 위치의 하위 비트를 슬롯 번호(Client B × VIRTUAL_NODES + 가상 노드)로 바꾸어, 위치만 정렬해도 각 위치의
+            // Client B를 알 수 있게 함 (boxing 없는 기본형 정렬, 위치 해상도는 하위 비트만큼 줄어듦)
+            int slots = agents.length * VIRTUAL_NODES;
+            long slotMask = (1L << (Integer.SIZE - Integer.numberOfLeadingZeros(slots - 1))) - 1;
+            long[] points = new long[slots];
+            for (int a = 0; a < agents.length; a++) {
+                long seed = mix(agents[a].getSession().getId().hashCode());
+                for (int v = 0; v < VIRTUAL_NODES; v++) {
+                    int slot = a * VIRTUAL_NODES + v;
+                    points[slot] = (mix(seed + (v + 1) * 0x9e3779b97f4a7c15L) & ~slotMask) | slot;
+                }
+            }
+            Arrays.sort(points);
+            int[] owners = new int[slots];
+            for (int i = 0; i < slots; i++) {
+                owners[i] = (int) (points[i] & slotMask) / VIRTUAL_NODES;
+            }
+            return new Ring(points, owners);
+        }
+    }
+}
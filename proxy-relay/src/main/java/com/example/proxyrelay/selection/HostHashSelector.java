@@ -0,0 +1,54 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.SessionInfo;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * 요청 대상 호스트 기반 선택 (consistent hashing)
+ * 호스트를 Client B 목록의 consistent-hash 링(HashRing)에 배치하여 같은 호스트의 요청은 같은 Client B로 보내므로,
+ * Client B가 백엔드 호스트별로 유지하는 연결(TLS 세션 포함)을 다시 사용할 수 있습니다.
+ * Client B가 연결/종료되어도 그 Client B로 가던(또는 가게 될) 호스트만 다른 Client B로 옮겨집니다.
+ * URL이 없거나 호스트를 알 수 없으면 처리 중인 요청이 가장 적은 Client B를 선택합니다.
+ *
+ * 링은 SessionService가 Client B 등록/제거 시 만드는 HashRing을 선택 시 함께 전달받아 사용합니다.
+ */
+public class HostHashSelector implements AgentSelector {
+    
+    @Override
+    public SessionInfo select(List<SessionInfo> agents, HashRing ring, Supplier<String> targetUrl) {
+        String host = hostOf(targetUrl.get());
+        if (host == null) {
+            return LeastInFlightSelector.leastInFlight(agents);
+        }
+        return ring.locate(host);
+    }
+    
+    /**
+     * URL의 호스트(포트 포함) 추출 (소문자, 사용자 정보 제외)
+     *
+     * @return 호스트, URL이 없거나 호스트가 비어 있으면 null
+     */
+    static String hostOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        int scheme = url.indexOf("://");
+        int start = scheme < 0 ? 0 : scheme + 3;
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        int userInfo = url.lastIndexOf('@', end - 1);
+        if (userInfo >= start) {
+            start = userInfo + 1;
+        }
+        return end > start ? url.substring(start, end).toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.SessionInfo;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 처리 중인 요청이 가장 적은 Client B 선택 (같으면 목록에서 앞선 세션)
+ */
+public class LeastInFlightSelector implements AgentSelector {
+    
+    @Override
+    public SessionInfo select(List<SessionInfo> agents, HashRing ring, Supplier<String> targetUrl) {
+        return leastInFlight(agents);
+    }
+    
+    static SessionInfo leastInFlight(List<SessionInfo> agents) {
+        SessionInfo least = null;
+        int leastInFlight = Integer.MAX_VALUE;
+        for (SessionInfo agent : agents) {
+            int inFlight = agent.getInFlightRequests();
+            if (inFlight < leastInFlight && agent.isActive()) {
+                least = agent;
+                leastInFlight = inFlight;
+            }
+        }
+        return least;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.SessionInfo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 라운드로빈 선택 (비활성 세션은 건너뜀)
+ */
+public class RoundRobinSelector implements AgentSelector {
+    
+    private final AtomicInteger next = new AtomicInteger();
+    
+    @Override
+    public SessionInfo select(List<SessionInfo> agents, HashRing ring, Supplier<String> targetUrl) {
+        int size = agents.size();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < size; i++) {
+            SessionInfo agent = agents.get(Math.floorMod(start + i, size));
+            if (agent.isActive()) {
+                return agent;
+            }
+        }
+        return null;
+    }
+}
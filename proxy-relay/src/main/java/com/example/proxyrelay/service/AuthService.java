@@ -1,26 +1,62 @@
 package com.example.proxyrelay.service;
 
+import com.example.proxyrelay.auth.TokenRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 /**
  * 인증 서비스
- * Access Token 검증
+ * Access Token 검증 및 테넌트 식별 (relay.access-token은 기본 테넌트, relay.auth.tokens-file의 토큰은 파일에 지정된 테넌트)
  */
 @Service
 public class AuthService {
     
+    // 클러스터 링크가 보내는 비밀 값 헤더 (peer= 로 연결하는 세션만 확인)
+    public static final String CLUSTER_SECRET_HEADER = "X-Relay-Cluster-Secret";
+    
     @Value("${relay.access-token:default-token-change-in-production}")
     private String validAccessToken;
     
+    // 테넌트별 토큰 파일 (한 줄에 "테넌트 SHA-256(토큰)", 비어 있으면 relay.access-token만 사용)
+    @Value("${relay.auth.tokens-file:}")
+    private String tokensFile = "";
+    
+    // 클러스터 링크 인증용 비밀 값 (모든 노드가 같은 값 사용, 비어 있으면 클러스터 링크 연결 거부)
+    @Value("${relay.cluster.secret:}")
+    private String clusterSecret = "";
+    
+    private final TokenRegistry tokenRegistry = new TokenRegistry(() -> validAccessToken, () -> tokensFile);
+    
     /**
      * Access Token 검증
      */
     public boolean validateToken(String token) {
-        if (token == null || token.isEmpty()) {
+        return resolveTenant(token) != null;
+    }
+    
+    /**
+     * Access Token의 테넌트 조회
+     *
+     * @return 테넌트, 유효하지 않은 토큰이면 null
+     */
+    public String resolveTenant(String token) {
+        return tokenRegistry.lookup(token);
+    }
+    
+    /**
+     * 클러스터 링크 비밀 값 검증 (상수 시간 비교)
+     *
+     * @return relay.cluster.secret이 설정되어 있고 같으면 true
+     */
+    public boolean validateClusterSecret(String secret) {
+        String expected = clusterSecret;
+        if (expected == null || expected.isEmpty() || secret == null) {
             return false;
         }
-        return validAccessToken.equals(token);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
     }
     
     /**
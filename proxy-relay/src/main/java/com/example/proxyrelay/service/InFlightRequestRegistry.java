@@ -0,0 +1,164 @@
+package com.example.proxyrelay.service;
+
+import com.example.proxyrelay.dto.PendingRequest;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 처리 중인 요청 테이블
+ * 요청(테넌트, sessionId)별로 요청한 Client A와 처리 중인 Client B, 응답 기한을 관리합니다.
+ * sessionId는 Client A가 정하므로 다른 테넌트의 같은 sessionId와 섞이지 않도록 테넌트를 함께 키로 사용합니다.
+ *
+ * 기한은 타이머 휠(HashedWheelTimer)로 관리하므로 요청 수와 무관하게 등록/취소 비용이 일정하고,
+ * 세션별 인덱스로 연결 종료 시 해당 세션의 요청만 바로 찾을 수 있습니다.
+ */
+public class InFlightRequestRegistry {
+    
+    // 모든 레지스트리가 공유하는 타이머 (스레드 1개, 100ms 단위)
+    private static final Timer TIMER = new HashedWheelTimer(
+        new DefaultThreadFactory("relay-request-timeout", true), 100, TimeUnit.MILLISECONDS);
+    
+    // 요청 (테넌트, sessionId) → 처리 중인 요청
+    private final ConcurrentMap<RequestKey, Entry> requests = new ConcurrentHashMap<>();
+    
+    // 세션 ID(Client A 또는 Client B) → 해당 세션의 요청 집합
+    private final ConcurrentMap<String, Set<RequestKey>> requestsBySession = new ConcurrentHashMap<>();
+    
+    /**
+     * 요청 등록 및 응답 기한 설정
+     *
+     * @param timeoutMillis 응답 기한 (0 이하면 기한 없음)
+     * @param onTimeout 기한 내에 응답이 시작되지 않으면 타이머 스레드에서 호출 (이미 테이블에서 제거된 상태)
+     * @return 등록했으면 true, 같은 테넌트에 같은 sessionId의 요청이 이미 있으면 false
+     */
+    public boolean register(PendingRequest pending, long timeoutMillis, Consumer<PendingRequest> onTimeout) {
+        RequestKey key = new RequestKey(pending.getTenant(), pending.getRequestSessionId());
+        Entry entry = new Entry(pending);
+        if (requests.putIfAbsent(key, entry) != null) {
+            return false;
+        }
+        
+        index(pending.getClientASessionId(), key);
+        index(pending.getClientBSessionId(), key);
+        
+        if (timeoutMillis > 0) {
+            entry.timeout = TIMER.newTimeout(timeout -> {
+                PendingRequest expired = complete(key);
+                if (expired != null) {
+                    onTimeout.accept(expired);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+    
+    /**
+     * 처리 중인 요청 조회
+     */
+    public PendingRequest get(String tenant, String requestSessionId) {
+        Entry entry = requests.get(new RequestKey(tenant, requestSessionId));
+        return entry != null ? entry.pending : null;
+    }
+    
+    /**
+     * 응답이 시작된 요청의 기한 해제 (스트리밍 응답은 전송 시간과 무관하게 유지)
+     */
+    public void responseStarted(String tenant, String requestSessionId) {
+        Entry entry = requests.get(new RequestKey(tenant, requestSessionId));
+        if (entry != null) {
+            entry.cancelTimeout();
+        }
+    }
+    
+    /**
+     * 요청 완료 처리 (테이블에서 제거하고 기한 해제)
+     *
+     * @return 제거된 요청, 이미 완료된 경우 null
+     */
+    public PendingRequest complete(String tenant, String requestSessionId) {
+        return complete(new RequestKey(tenant, requestSessionId));
+    }
+    
+    private PendingRequest complete(RequestKey key) {
+        Entry entry = requests.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        
+        entry.cancelTimeout();
+        unindex(entry.pending.getClientASessionId(), key);
+        unindex(entry.pending.getClientBSessionId(), key);
+        return entry.pending;
+    }
+    
+    /**
+     * 세션(Client A 또는 Client B)의 처리 중인 요청을 모두 완료 처리
+     *
+     * @return 제거된 요청 목록
+     */
+    public List<PendingRequest> completeAll(String sessionId) {
+        Set<RequestKey> keys = requestsBySession.remove(sessionId);
+        if (keys == null) {
+            return Collections.emptyList();
+        }
+        
+        List<PendingRequest> completed = new ArrayList<>(keys.size());
+        for (RequestKey key : keys) {
+            PendingRequest pending = complete(key);
+            if (pending != null) {
+                completed.add(pending);
+            }
+        }
+        return completed;
+    }
+    
+    /**
+     * 처리 중인 요청 수
+     */
+    public int size() {
+        return requests.size();
+    }
+    
+    private void index(String sessionId, RequestKey key) {
+        requestsBySession.compute(sessionId, (id, keys) -> {
+            Set<RequestKey> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            indexed.add(key);
+            return indexed;
+        });
+    }
+    
+    private void unindex(String sessionId, RequestKey key) {
+        requestsBySession.computeIfPresent(sessionId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+    
+    private static class Entry {
+        
+        private final PendingRequest pending;
+        private volatile Timeout timeout;
+        
+        Entry(PendingRequest pending) {
+            this.pending = pending;
+        }
+        
+        void cancelTimeout() {
+            Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -1,116 +1,608 @@
 package com.example.proxyrelay.service;
 
+import com.example.proxyrelay.accesslog.AccessLog;
+import com.example.proxyrelay.accesslog.AccessRecord;
+import com.example.proxyrelay.cache.CacheLookup;
+import com.example.proxyrelay.cache.ResponseCache;
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.codec.BodyCompressor;
+import com.example.proxyrelay.codec.HeaderTable;
+import com.example.proxyrelay.dto.BodyCompression;
+import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.PendingRequest;
+import com.example.proxyrelay.dto.RelayEnvelope;
 import com.example.proxyrelay.dto.RelayMessage;
 import com.example.proxyrelay.dto.SessionInfo;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.ratelimit.SessionRateLimit;
+import com.example.proxyrelay.selection.AgentSelectionStrategy;
+import com.example.proxyrelay.selection.AgentSelector;
+import com.example.proxyrelay.selection.HashRing;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketMessage;
-import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 /**
  * 메시지 라우팅 서비스
  * Client A와 Client B 간의 메시지 전달
  */
 @Service
-public class MessageRoutingService {
+public class MessageRoutingService implements DisposableBean {
     
     private static final Logger logger = LoggerFactory.getLogger(MessageRoutingService.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper;
     private final SessionService sessionService;
+    private final RelayMetrics metrics;
+    
+    // 처리 중인 요청 (요청 sessionId → Client A/B, 응답 기한), 응답을 요청한 Client A로 돌려보내는 데 사용
+    private final InFlightRequestRegistry inFlightRequests = new InFlightRequestRegistry();
+    
+    // Client B 하나가 동시에 처리할 수 있는 최대 요청 수 (초과 시 503 응답)
+    @Value("${relay.agent.max-in-flight:256}")
+    private int maxInFlightPerAgent = 256;
+    
+    // 요청 후 응답이 시작되기까지의 기한 (초과 시 Client A에게 504 응답, 0이면 기한 없음)
+    @Value("${relay.request.timeout-ms:30000}")
+    private long requestTimeoutMillis = 30000;
+    
+    // 새 요청을 처리할 Client B 선택 전략 (MAPPED: Client A에 매핑된 Client B 사용)
+    @Value("${relay.agent.selection:mapped}")
+    private AgentSelectionStrategy agentSelection = AgentSelectionStrategy.MAPPED;
+    
+    // 전략별 선택기 (요청마다 선택하는 전략만, 설정이 바뀌어도 상태를 유지하도록 미리 생성)
+    private final Map<AgentSelectionStrategy, AgentSelector> agentSelectors = new EnumMap<>(AgentSelectionStrategy.class);
+    
+    // GET 응답 캐시 최대 크기 (바이트, 0이면 캐시 사용 안 함)
+    @Value("${relay.cache.max-bytes:0}")
+    private long cacheMaxBytes = 0;
+    
+    // 캐시에 저장할 응답 하나의 최대 크기 (바이트)
+    @Value("${relay.cache.max-entry-bytes:1048576}")
+    private long cacheMaxEntryBytes = 1048576;
+    
+    // 테넌트 → 응답 캐시 (캐시 적중 시 Client B를 거치지 않고 응답, 다른 테넌트의 응답은 공유하지 않음)
+    // relay.cache.max-bytes는 테넌트별 최대 크기
+    private final ConcurrentMap<String, ResponseCache> responseCaches = new ConcurrentHashMap<>();
+    
+    // 처리 중인 요청과 같은 GET 요청은 Client B로 보내지 않고 그 응답을 함께 받음 (single-flight)
+    @Value("${relay.coalescing.enabled:false}")
+    private boolean coalesceRequests = false;
+    
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    
+    // ?compress=gzip 클라이언트로 보내는 body를 압축하는 최소 크기 (바이트)
+    @Value("${relay.body-compression.min-bytes:1024}")
+    private int compressionMinBytes = 1024;
+    
+    // body gzip 압축 레벨 (1: 빠름 ~ 9: 작음)
+    @Value("${relay.body-compression.level:6}")
+    private int compressionLevel = 6;
     
-    public MessageRoutingService(SessionService sessionService) {
+    // 접근 로그에 기록할 요청 비율 (0~1, 0이면 기록 안 함)
+    @Value("${relay.access-log.sample-rate:0.01}")
+    private double accessLogSampleRate = 0.01;
+    
+    // 접근 로그 링 버퍼 크기 (쓰기 스레드가 밀려 가득 차면 기록을 버림)
+    @Value("${relay.access-log.buffer-size:8192}")
+    private int accessLogBufferSize = 8192;
+    
+    // 접근 로그 파일 (비어 있으면 relay.access 로거로 출력)
+    @Value("${relay.access-log.file:}")
+    private String accessLogFile = "";
+    
+    // 요청마다 INFO 로그를 남기는 대신 샘플로 선택된 요청만 쓰기 스레드에서 기록
+    private final AccessLog accessLog = new AccessLog(() -> accessLogSampleRate, () -> accessLogBufferSize, 
+        () -> accessLogFile);
+    
+    public MessageRoutingService(SessionService sessionService, RelayMetrics metrics, ObjectMapper objectMapper) {
         this.sessionService = sessionService;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        metrics.registerInFlightRequests(inFlightRequests::size);
+        metrics.registerCacheSize(() -> responseCaches.values().stream().mapToLong(ResponseCache::getWeightedSize).sum());
+        metrics.registerAccessLogDropped(accessLog);
+        for (AgentSelectionStrategy strategy : AgentSelectionStrategy.values()) {
+            AgentSelector selector = strategy.newSelector();
+            if (selector != null) {
+                agentSelectors.put(strategy, selector);
+            }
+        }
     }
     
     /**
      * Client A로부터 받은 요청을 Client B로 전달
+     * Client B의 프레이밍 방식(JSON/BINARY)으로 인코딩하여 전송
+     * 스트리밍 메시지(REQUEST_START/BODY_CHUNK/END)도 조각 단위로 그대로 전달하며 body를 재조립하지 않습니다.
      */
     public Mono<Void> routeRequestToAgent(String clientASessionId, RelayMessage message) {
-        SessionInfo clientB = sessionService.getMappedClientB(clientASessionId);
-        
-        if (clientB == null || !clientB.isActive()) {
-            logger.warn("No active Client B found for session: {}", clientASessionId);
-            return sendErrorResponse(clientASessionId, message.getSessionId(), "No active agent available");
+        if (message.getSessionId() == null || message.getSessionId().isEmpty()) {
+            if (message.getType() != RelayMessage.MessageType.REQUEST) {
+                // 스트리밍 조각은 같은 sessionId로 이어져야 하므로 relay가 생성할 수 없음
+                logger.warn("Streaming message without sessionId from Client A {} (type: {}), ignoring", 
+                    clientASessionId, message.getType());
+                return Mono.empty();
+            }
+            // 요청 메시지에 sessionId가 없으면 생성 (요청-응답 매칭용)
+            message.setSessionId(java.util.UUID.randomUUID().toString());
+        }
+        if (!admitRequest(clientASessionId, message.getType())) {
+            return sendErrorResponse(clientASessionId, message.getSessionId(), 429, "Rate limit exceeded");
         }
         
-        try {
-            // 요청 메시지에 sessionId가 없으면 생성 (요청-응답 매칭용)
-            if (message.getSessionId() == null || message.getSessionId().isEmpty()) {
-                message.setSessionId(java.util.UUID.randomUUID().toString());
+        return routeRequestMessage(clientASessionId, message, lookupCache(clientASessionId, message));
+    }
+    
+    /**
+     * 요청 메시지 전달 (캐시 적중이면 Client B를 거치지 않고 응답, 재검증이면 If-None-Match를 추가하여 전달)
+     * 
+     * @param cacheLookup 캐시 조회 결과 (캐시할 수 없는 요청이면 null)
+     */
+    private Mono<Void> routeRequestMessage(String clientASessionId, RelayMessage message, CacheLookup cacheLookup) {
+        if (cacheLookup != null && cacheLookup.isHit()) {
+            return sendCachedResponse(clientASessionId, message.getSessionId(), cacheLookup);
+        }
+        String coalesceKey = coalesceRequests ? coalesceKeyOf(clientASessionId, message) : null;
+        if (coalesceKey != null && joinInFlight(coalesceKey, clientASessionId, message)) {
+            return Mono.empty();
+        }
+        RelayMessage request = cacheLookup != null ? cacheLookup.revalidationRequest(message) : message;
+        return dispatchRequest(clientASessionId, request.getType(), request.getSessionId(), cacheLookup, coalesceKey, 
+            request::getUrl, clientB -> sendRequestMessage(clientASessionId, clientB, request), () -> { });
+    }
+    
+    /**
+     * Client A의 요청 프레임을 역직렬화 없이 Client B로 전달 (zero-copy pass-through)
+     * 프레임의 프레이밍 방식이 Client B와 같으면 수신 버퍼를 그대로 전달하고,
+     * 다르면(JSON ↔ BINARY) RelayMessage로 디코딩한 뒤 Client B의 방식으로 다시 인코딩합니다.
+     * 
+     * payload의 참조 1개는 이 메서드로 넘어오며, Client B 세션에 전달되면 Netty가 쓰기 후 해제하고
+     * 전달하지 못한 경우(대상 없음, 변환, 에러, 취소)에는 여기서 해제합니다.
+     * 
+     * @param envelope 요청 프레임의 type과 sessionId (sessionId 필수)
+     * @param payload Client A로부터 수신한 프레임 버퍼 (retain된 상태)
+     * @param framing 수신 프레임의 프레이밍 방식
+     */
+    public Mono<Void> forwardRequestToAgent(String clientASessionId, RelayEnvelope envelope, 
+                                            DataBuffer payload, FrameProtocol framing) {
+        String requestSessionId = envelope.getSessionId();
+        if (!admitRequest(clientASessionId, envelope.getType())) {
+            DataBufferUtils.release(payload);
+            return sendErrorResponse(clientASessionId, requestSessionId, 429, "Rate limit exceeded");
+        }
+        CacheLookup cacheLookup = null;
+        String coalesceKey = null;
+        if (envelope.getType() == RelayMessage.MessageType.REQUEST && (cacheMaxBytes > 0 || coalesceRequests)) {
+            // 캐시 또는 요청 병합 사용 시에만 요청을 디코딩하여 method/url/headers 확인
+            RelayMessage message = decodeMessage(payload, framing);
+            if (message != null) {
+                cacheLookup = lookupCache(clientASessionId, message);
+                if (cacheLookup != null && (cacheLookup.isHit() || cacheLookup.isRevalidation())) {
+                    // 캐시 응답 또는 재검증 요청은 수신 프레임을 그대로 전달하지 않음
+                    DataBufferUtils.release(payload);
+                    return routeRequestMessage(clientASessionId, message, cacheLookup);
+                }
+                coalesceKey = coalesceRequests ? coalesceKeyOf(clientASessionId, message) : null;
+                if (coalesceKey != null && joinInFlight(coalesceKey, clientASessionId, message)) {
+                    DataBufferUtils.release(payload);
+                    return Mono.empty();
+                }
+            }
+        }
+        Supplier<String> targetUrl = () -> parseTargetUrl(payload, framing);
+        return dispatchRequest(clientASessionId, envelope.getType(), requestSessionId, cacheLookup, coalesceKey, 
+                               targetUrl, clientB -> {
+            if (needsConversion(sessionService.getClientA(clientASessionId), clientB, envelope.getType(), payload, framing)) {
+                // 프레이밍 방식, body 압축 방식이 다르거나 헤더 테이블을 사용하는 경우 변환
+                RelayMessage message = decodeAndRelease(payload, framing);
+                if (message == null) {
+                    metrics.parseFailure();
+                    completeRequest(tenantOf(clientASessionId), requestSessionId);
+                    return sendErrorResponse(clientASessionId, requestSessionId, 400, "Invalid message format");
+                }
+                return sendRequestMessage(clientASessionId, clientB, message);
+            }
+            return sendRequest(clientASessionId, clientB, requestSessionId, sendRetained(clientB, payload, framing, awaitsHandOff(clientASessionId)));
+        }, () -> DataBufferUtils.release(payload));
+    }
+    
+    /**
+     * Client A 세션/Access Token의 요청 속도 제한 확인 (새 요청만, 이미 시작한 요청의 body 조각은 확인하지 않음)
+     * 한도를 넘은 요청은 대기열에 넣지 않고 바로 거부합니다 (호출자가 429 응답).
+     * 
+     * @return 처리할 요청이면 true
+     */
+    private boolean admitRequest(String clientASessionId, RelayMessage.MessageType type) {
+        if (type != RelayMessage.MessageType.REQUEST && type != RelayMessage.MessageType.REQUEST_START) {
+            return true;
+        }
+        SessionInfo clientA = sessionService.getClientA(clientASessionId);
+        SessionRateLimit rateLimit = clientA != null ? clientA.getRateLimit() : null;
+        if (rateLimit == null || rateLimit.tryAcquireRequest()) {
+            return true;
+        }
+        metrics.requestRateLimited();
+        logger.debug("Rate limit exceeded for Client A {}, rejecting request", clientASessionId);
+        return false;
+    }
+    
+    /**
+     * 요청을 처리할 Client B를 결정하여 전달
+     * 새 요청(REQUEST/REQUEST_START)은 Client A에 매핑된 Client B의 in-flight 한도를 확인한 뒤 처리 중인 요청으로 등록하고,
+     * 요청 body 조각(BODY_CHUNK/END)은 등록된 요청을 처리 중인 Client B로 전달합니다.
+     * 거부는 과부하 시 요청마다 생기므로 로그는 DEBUG로만 남기고 relay.requests.rejected 메트릭으로 집계합니다.
+     * 
+     * @param cacheLookup 응답을 캐시에 저장(또는 재검증)할 요청이면 캐시 조회 결과, 아니면 null
+     * @param coalesceKey 같은 요청을 병합할 수 있으면 요청 키 (등록되면 leader가 됨), 아니면 null
+     * @param targetUrl 요청 대상 URL (선택 전략이 필요로 할 때만 조회)
+     * @param sender 대상 Client B로 전송
+     * @param onRejected 전달하지 않는 경우 실행 (수신 버퍼 해제 등)
+     */
+    private Mono<Void> dispatchRequest(String clientASessionId, RelayMessage.MessageType type, String requestSessionId, 
+                                       CacheLookup cacheLookup, String coalesceKey, Supplier<String> targetUrl, Function<SessionInfo, Mono<Void>> sender, 
+                                       Runnable onRejected) {
+        if (type == RelayMessage.MessageType.REQUEST || type == RelayMessage.MessageType.REQUEST_START) {
+            SessionInfo clientB = acquireAgent(clientASessionId, targetUrl);
+            if (clientB == null) {
+                onRejected.run();
+                metrics.requestRejected("no_agent");
+                logger.debug("No active Client B found for session: {}", clientASessionId);
+                return sendErrorResponse(clientASessionId, requestSessionId, 503, "No active agent available");
             }
             
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            WebSocketMessage wsMessage = clientB.getSession().textMessage(jsonMessage);
+            if (!clientB.tryAcquireInFlight(maxInFlightPerAgent)) {
+                onRejected.run();
+                metrics.requestRejected("agent_busy");
+                logger.debug("Client B {} reached max in-flight requests ({}), rejecting request {} from Client A {}", 
+                    clientB.getSession().getId(), maxInFlightPerAgent, requestSessionId, clientASessionId);
+                return sendErrorResponse(clientASessionId, requestSessionId, 503, "Agent busy");
+            }
             
-            if (wsMessage == null) {
-                logger.error("Failed to create WebSocket message for Client B {}", clientB.getSession().getId());
-                return sendErrorResponse(clientASessionId, message.getSessionId(), "Failed to create message");
+            PendingRequest pending = new PendingRequest(tenantOf(clientASessionId), requestSessionId, clientASessionId, 
+                clientB.getSession().getId(), cacheLookup);
+            if (accessLog.sample()) {
+                pending.markAccessLogSample(targetUrl.get());
+            }
+            if (!inFlightRequests.register(pending, requestTimeoutMillis, this::onRequestTimeout)) {
+                clientB.releaseInFlight();
+                onRejected.run();
+                metrics.requestRejected("duplicate");
+                logger.debug("Duplicate request sessionId {} from Client A {}", requestSessionId, clientASessionId);
+                return sendErrorResponse(clientASessionId, requestSessionId, 409, "Duplicate request sessionId");
             }
+            if (coalesceKey != null) {
+                coalescer.lead(coalesceKey, pending.getTenant(), requestSessionId);
+            }
+            
+            return sender.apply(clientB);
+        }
+        
+        // 요청 body 조각: 같은 Client A가 시작한 요청이어야 함
+        PendingRequest pending = inFlightRequests.get(tenantOf(clientASessionId), requestSessionId);
+        if (pending == null || !pending.getClientASessionId().equals(clientASessionId)) {
+            onRejected.run();
+            logger.warn("No pending request {} for Client A {} (type: {}), ignoring", 
+                requestSessionId, clientASessionId, type);
+            return Mono.empty();
+        }
+        
+        SessionInfo clientB = sessionService.getClientB(pending.getClientBSessionId());
+        if (clientB == null || !clientB.isActive()) {
+            onRejected.run();
+            completeRequest(pending.getTenant(), requestSessionId);
+            logger.warn("Client B {} for request {} is no longer active", pending.getClientBSessionId(), requestSessionId);
+            return sendErrorResponse(clientASessionId, requestSessionId, 502, "Agent disconnected");
+        }
+        
+        return sender.apply(clientB);
+    }
+    
+    /**
+     * 새 요청을 처리할 Client B 결정
+     * MAPPED 전략이면 Client A에 매핑된 Client B를 사용하고(연결 종료된 경우 다른 Client B로 다시 매핑),
+     * 그 외에는 요청마다 선택 전략으로 Client B를 선택
+     * 
+     * Client B는 Client A와 같은 테넌트에서만 선택합니다.
+     * 이 노드에 활성 Client B가 없으면 Client B가 연결된 다른 relay 노드로의 클러스터 링크를 선택합니다 (기본 테넌트만).
+     * 다른 노드에서 클러스터 링크로 받은 요청은 다시 다른 노드로 보내지 않습니다 (노드 간 순환 방지).
+     */
+    private SessionInfo acquireAgent(String clientASessionId, Supplier<String> targetUrl) {
+        SessionInfo clientA = sessionService.getClientA(clientASessionId);
+        String tenant = clientA != null ? clientA.getTenant() : SessionInfo.DEFAULT_TENANT;
+        SessionInfo clientB = selectLocalAgent(clientASessionId, tenant, targetUrl);
+        if (clientB != null) {
+            return clientB;
+        }
+        
+        if ((clientA != null && clientA.isPeer()) || !SessionInfo.DEFAULT_TENANT.equals(tenant)) {
+            return null;
+        }
+        return sessionService.findPeerLink();
+    }
+    
+    private SessionInfo selectLocalAgent(String clientASessionId, String tenant, Supplier<String> targetUrl) {
+        AgentSelector selector = agentSelectors.get(agentSelection);
+        if (selector != null) {
+            HashRing ring = sessionService.getHashRing(tenant);
+            return selector.select(ring.agents(), ring, targetUrl);
+        }
+        
+        SessionInfo clientB = sessionService.getMappedClientB(clientASessionId);
+        if (clientB != null && clientB.isActive()) {
+            return clientB;
+        }
+        
+        clientB = sessionService.assignClientB(clientASessionId, tenant);
+        if (clientB != null) {
+            logger.info("Re-mapped Client A {} to Client B {}", clientASessionId, clientB.getSession().getId());
+        }
+        return clientB;
+    }
+    
+    /**
+     * 요청 메시지를 Client B의 프레이밍 방식으로 인코딩하여 전송
+     */
+    private Mono<Void> sendRequestMessage(String clientASessionId, SessionInfo clientB, RelayMessage message) {
+        try {
+            Mono<Integer> send = sendMessage(clientB, message, awaitsHandOff(clientASessionId));
             
-            logger.info("Routing request from Client A {} to Client B {} (sessionId: {}, method: {}, url: {})", 
-                clientASessionId, clientB.getSession().getId(), 
-                message.getSessionId(), message.getMethod(), message.getUrl());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Encoded request for Client B {} (sessionId: {}, method: {}, url: {}, protocol: {})", 
+                    clientB.getSession().getId(), message.getSessionId(), 
+                    message.getMethod(), message.getUrl(), clientB.getProtocol());
+            }
             
-            return clientB.getSession().send(Mono.just(wsMessage))
-                .doOnSuccess(v -> logger.debug("Successfully routed request to Client B {} (sessionId: {})", 
-                    clientB.getSession().getId(), message.getSessionId()))
-                .doOnError(e -> {
-                    logger.error("Error sending message to Client B {} (sessionId: {})", 
-                        clientB.getSession().getId(), message.getSessionId(), e);
-                    // 전송 실패 시 에러 응답 전송
-                    sendErrorResponse(clientASessionId, message.getSessionId(), 
-                        "Failed to send request to agent: " + e.getMessage()).subscribe();
-                })
-                .doOnCancel(() -> {
-                    logger.warn("Request routing cancelled for Client A {} (sessionId: {})", 
-                        clientASessionId, message.getSessionId());
-                    sendErrorResponse(clientASessionId, message.getSessionId(), 
-                        "Request cancelled").subscribe();
-                });
+            return sendRequest(clientASessionId, clientB, message.getSessionId(), send);
         } catch (Exception e) {
             logger.error("Error routing message to Client B (sessionId: {})", 
                 message.getSessionId(), e);
-            return sendErrorResponse(clientASessionId, message.getSessionId(), 
+            completeRequest(tenantOf(clientASessionId), message.getSessionId());
+            return sendErrorResponse(clientASessionId, message.getSessionId(), 500, 
                 "Routing error: " + e.getMessage());
         }
     }
     
+    /**
+     * Client B로의 요청 전송 (전송 실패/취소 시 Client A에게 에러 응답)
+     * 
+     * @param send 전송 (송신 큐가 가져가면 프레임 크기로 완료, 메트릭 기록용)
+     */
+    private Mono<Void> sendRequest(String clientASessionId, SessionInfo clientB, String requestSessionId, 
+                                   Mono<Integer> send) {
+        return send
+            .doOnSuccess(bytes -> {
+                metrics.frameSent(ClientType.CLIENT_B, bytes);
+                logger.debug("Successfully routed request to Client B {} (sessionId: {})", 
+                    clientB.getSession().getId(), requestSessionId);
+            })
+            .doOnError(e -> {
+                metrics.sendError(ClientType.CLIENT_B);
+                logger.error("Error sending message to Client B {} (sessionId: {})", 
+                    clientB.getSession().getId(), requestSessionId, e);
+                // 전송 실패 시 에러 응답 전송
+                completeRequest(tenantOf(clientASessionId), requestSessionId);
+                sendErrorResponse(clientASessionId, requestSessionId, 502, 
+                    "Failed to send request to agent: " + e.getMessage()).subscribe();
+            })
+            // 실패는 이 요청에만 응답하고 Client A의 수신은 계속 (클러스터 링크는 다른 요청도 함께 나름)
+            .onErrorResume(e -> Mono.empty())
+            .doOnCancel(() -> {
+                metrics.sendCancel(ClientType.CLIENT_B);
+                logger.warn("Request routing cancelled for Client A {} (sessionId: {})", 
+                    clientASessionId, requestSessionId);
+                completeRequest(tenantOf(clientASessionId), requestSessionId);
+                sendErrorResponse(clientASessionId, requestSessionId, 500, 
+                    "Request cancelled").subscribe();
+            })
+            .then();
+    }
+    
     /**
      * Client B로부터 받은 응답을 Client A로 전달
+     * 요청 sessionId로 요청을 보낸 Client A를 찾아 Client A의 프레이밍 방식(JSON/BINARY)으로 인코딩하여 전송
      */
     public Mono<Void> routeResponseToClient(String clientBSessionId, RelayMessage message) {
-        SessionInfo clientA = sessionService.getMappedClientA(clientBSessionId);
+        return dispatchResponse(clientBSessionId, message.getType(), message.getSessionId(), () -> message, 
+            clientA -> sendResponseMessage(clientBSessionId, clientA, message), () -> { });
+    }
+    
+    /**
+     * Client B의 응답 프레임을 역직렬화 없이 Client A로 전달 (zero-copy pass-through)
+     * 프레이밍 변환 및 payload 소유권 규칙은 forwardRequestToAgent와 동일합니다.
+     * 
+     * @param envelope 응답 프레임의 type과 원래 요청의 sessionId
+     * @param payload Client B로부터 수신한 프레임 버퍼 (retain된 상태)
+     * @param framing 수신 프레임의 프레이밍 방식
+     */
+    public Mono<Void> forwardResponseToClient(String clientBSessionId, RelayEnvelope envelope, 
+                                              DataBuffer payload, FrameProtocol framing) {
+        String responseSessionId = envelope.getSessionId();
+        return dispatchResponse(clientBSessionId, envelope.getType(), responseSessionId, 
+                                () -> decodeMessage(payload, framing), clientA -> {
+            if (needsConversion(sessionService.getClientB(clientBSessionId), clientA, envelope.getType(), payload, framing)) {
+                // 프레이밍 방식, body 압축 방식이 다르거나 헤더 테이블을 사용하는 경우 변환
+                RelayMessage message = decodeAndRelease(payload, framing);
+                if (message == null) {
+                    metrics.parseFailure();
+                    return Mono.empty();
+                }
+                return sendResponseMessage(clientBSessionId, clientA, message);
+            }
+            return sendResponse(clientBSessionId, clientA, responseSessionId, sendRetained(clientA, payload, framing, false));
+        }, () -> DataBufferUtils.release(payload));
+    }
+    
+    /**
+     * 응답을 받을 Client A를 요청 sessionId로 결정하여 전달
+     * 완료 응답(RESPONSE 또는 스트리밍 END)이면 처리 중인 요청에서 제거하여 Client B의 in-flight 수를 반환합니다.
+     * 캐시할 수 있는 GET 요청의 응답이면 캐시에 저장하고, 재검증 결과가 304이면 캐시된 응답을 대신 전달합니다.
+     * 
+     * @param decoded 응답 메시지 (캐시 처리에 필요할 때만 디코딩, 버퍼는 해제하지 않음)
+     * @param sender 대상 Client A로 전송
+     * @param onRejected 전달하지 않는 경우 실행 (수신 버퍼 해제 등)
+     */
+    private Mono<Void> dispatchResponse(String clientBSessionId, RelayMessage.MessageType type, String responseSessionId, 
+                                        Supplier<RelayMessage> decoded, Function<SessionInfo, Mono<Void>> sender, 
+                                        Runnable onRejected) {
+        // 요청을 처리한 Client B는 Client A와 같은 테넌트이므로 Client B의 테넌트에서 조회
+        SessionInfo clientB = sessionService.getClientB(clientBSessionId);
+        String tenant = clientB != null ? clientB.getTenant() : SessionInfo.DEFAULT_TENANT;
+        PendingRequest pending = responseSessionId != null ? inFlightRequests.get(tenant, responseSessionId) : null;
+        if (pending == null || !pending.getClientBSessionId().equals(clientBSessionId)) {
+            // 중단되거나 기한이 지난 요청의 나머지 응답 조각은 조각마다 도착하므로 DEBUG로만 기록
+            onRejected.run();
+            logger.debug("No pending request for response from Client B {} (response sessionId: {})", 
+                clientBSessionId, responseSessionId);
+            return Mono.empty();
+        }
+        
+        if (type == RelayMessage.MessageType.RESPONSE || type == RelayMessage.MessageType.RESPONSE_START) {
+            metrics.recordRequestLatency(clientBSessionId, pending.getStartNanos());
+            if (clientB != null) {
+                clientB.recordLatency(System.nanoTime() - pending.getStartNanos());
+            }
+        }
+        
+        RelayMessage response = null;
+        if (pending.getCacheLookup() != null && type == RelayMessage.MessageType.RESPONSE) {
+            response = decoded.get();
+            RelayMessage cached = response != null ? cacheOf(tenant).complete(pending.getCacheLookup(), response) : null;
+            if (cached != null) {
+                // 재검증 성공 (304): 받은 응답 대신 캐시된 응답 전달
+                logger.debug("Revalidated cached response for request {}", responseSessionId);
+                onRejected.run();
+                onRejected = () -> { };
+                sender = clientA -> sendResponseMessage(clientBSessionId, clientA, cached);
+                response = cached;
+            }
+        }
+        
+        if (pending.isAccessLogSample() 
+                && (type == RelayMessage.MessageType.RESPONSE || type == RelayMessage.MessageType.RESPONSE_START)) {
+            // 샘플로 선택된 요청만 상태 코드를 읽기 위해 디코딩
+            if (response == null) {
+                response = decoded.get();
+            }
+            logAccess(pending, response != null && response.getStatusCode() != null ? response.getStatusCode() : 0);
+        }
+        
+        Mono<Void> fanOut = Mono.empty();
+        if (type == RelayMessage.MessageType.RESPONSE) {
+            List<RequestCoalescer.Follower> followers = coalescer.complete(tenant, responseSessionId);
+            if (!followers.isEmpty()) {
+                fanOut = fanOut(clientBSessionId, response != null ? response : decoded.get(), followers);
+            }
+        } else if (type == RelayMessage.MessageType.RESPONSE_START) {
+            // 스트리밍 응답은 함께 받을 수 없으므로 기다리던 요청은 각자 전달
+            redispatchFollowers(tenant, responseSessionId);
+        }
+        
+        if (type == RelayMessage.MessageType.RESPONSE || type == RelayMessage.MessageType.END) {
+            completeRequest(tenant, responseSessionId);
+        } else if (type == RelayMessage.MessageType.RESPONSE_START) {
+            // 스트리밍 응답은 전송 시간이 길 수 있으므로 응답이 시작되면 기한 해제
+            inFlightRequests.responseStarted(tenant, responseSessionId);
+        }
         
+        SessionInfo clientA = sessionService.getClientA(pending.getClientASessionId());
         if (clientA == null || !clientA.isActive()) {
+            onRejected.run();
             logger.warn("No active Client A found for session: {} (response sessionId: {})", 
-                clientBSessionId, message.getSessionId());
-            return Mono.empty();
+                pending.getClientASessionId(), responseSessionId);
+            return fanOut;
         }
         
+        return sender.apply(clientA).and(fanOut);
+    }
+    
+    /**
+     * 처리 중인 같은 요청이 있으면 그 응답을 기다리는 요청으로 추가
+     * 
+     * @return 추가되었으면 true (Client B로 보내지 않음)
+     */
+    private boolean joinInFlight(String coalesceKey, String clientASessionId, RelayMessage message) {
+        if (!coalescer.join(coalesceKey, clientASessionId, message)) {
+            return false;
+        }
+        metrics.requestCoalesced();
+        logger.debug("Coalesced request {} from Client A {} with an identical in-flight request ({} {})", 
+            message.getSessionId(), clientASessionId, message.getMethod(), message.getUrl());
+        return true;
+    }
+    
+    /**
+     * leader의 응답을 기다리던 요청들에 각자의 sessionId로 전달
+     */
+    private Mono<Void> fanOut(String clientBSessionId, RelayMessage response, List<RequestCoalescer.Follower> followers) {
+        if (response == null) {
+            metrics.parseFailure();
+            return Flux.fromIterable(followers)
+                .flatMap(follower -> sendErrorResponse(follower.clientASessionId(), follower.request().getSessionId(), 
+                    502, "Invalid agent response"))
+                .then();
+        }
+        return Flux.fromIterable(followers)
+            .flatMap(follower -> {
+                SessionInfo clientA = sessionService.getClientA(follower.clientASessionId());
+                if (clientA == null || !clientA.isActive()) {
+                    return Mono.empty();
+                }
+                return sendResponseMessage(clientBSessionId, clientA, 
+                    RequestCoalescer.withSessionId(response, follower.request().getSessionId()));
+            })
+            .then();
+    }
+    
+    /**
+     * leader가 응답 없이 끝나거나 스트리밍으로 응답하는 경우 기다리던 요청을 각자 Client B로 전달
+     */
+    private void redispatchFollowers(String tenant, String requestSessionId) {
+        for (RequestCoalescer.Follower follower : coalescer.complete(tenant, requestSessionId)) {
+            routeRequestToAgent(follower.clientASessionId(), follower.request()).subscribe();
+        }
+    }
+    
+    /**
+     * 응답 메시지를 Client A의 프레이밍 방식으로 인코딩하여 전송
+     */
+    private Mono<Void> sendResponseMessage(String clientBSessionId, SessionInfo clientA, RelayMessage message) {
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            WebSocketMessage wsMessage = clientA.getSession().textMessage(jsonMessage);
+            Mono<Integer> send = sendMessage(clientA, message, false);
             
-            if (wsMessage == null) {
-                logger.error("Failed to create WebSocket message for Client A {} (response sessionId: {})", 
-                    clientA.getSession().getId(), message.getSessionId());
-                return Mono.empty();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Encoded response for Client A {} (sessionId: {}, statusCode: {}, protocol: {})", 
+                    clientA.getSession().getId(), message.getSessionId(), 
+                    message.getStatusCode(), clientA.getProtocol());
             }
             
-            logger.info("Routing response from Client B {} to Client A {} (sessionId: {}, statusCode: {})", 
-                clientBSessionId, clientA.getSession().getId(), 
-                message.getSessionId(), message.getStatusCode());
-            
-            return clientA.getSession().send(Mono.just(wsMessage))
-                .doOnSuccess(v -> logger.debug("Successfully routed response to Client A {} (sessionId: {})", 
-                    clientA.getSession().getId(), message.getSessionId()))
-                .doOnError(e -> logger.error("Error sending response to Client A {} (sessionId: {})", 
-                    clientA.getSession().getId(), message.getSessionId(), e))
-                .doOnCancel(() -> logger.warn("Response routing cancelled for Client A {} (sessionId: {})", 
-                    clientA.getSession().getId(), message.getSessionId()));
+            return sendResponse(clientBSessionId, clientA, message.getSessionId(), send);
         } catch (Exception e) {
             logger.error("Error routing response to Client A (sessionId: {})", 
                 message.getSessionId(), e);
@@ -118,10 +610,353 @@ public class MessageRoutingService {
         }
     }
     
+    /**
+     * Client A로의 응답 전송
+     * 응답은 Client A의 송신 큐에 쌓인 payload가 high-watermark 이하이면 큐에 넣을 때 완료되어 Client A 하나가 잠시 느려도
+     * Client B의 다른 응답을 계속 읽고, 넘으면 Client A가 가져갈 때 완료되어 Client B 연결의 읽기를 멈춥니다
+     * (느린 Client A가 Client B의 전송 속도를 조절하며 relay에는 high-watermark만큼만 쌓임).
+     * 그래도 송신 큐 상한을 넘어 보내지 못하면 응답 일부만 전달된 채로 두지 않도록 요청을 중단하고 Client A 연결을 에러 상태로 종료합니다.
+     * 
+     * @param send 전송 (완료 시 프레임 크기, 메트릭 기록용)
+     */
+    private Mono<Void> sendResponse(String clientBSessionId, SessionInfo clientA, String responseSessionId, 
+                                    Mono<Integer> send) {
+        return send
+            .doOnSuccess(bytes -> {
+                metrics.frameSent(ClientType.CLIENT_A, bytes);
+                logger.debug("Successfully routed response to Client A {} (sessionId: {})", 
+                    clientA.getSession().getId(), responseSessionId);
+            })
+            .doOnError(e -> {
+                metrics.sendError(ClientType.CLIENT_A);
+                logger.error("Error sending response to Client A {} (sessionId: {})", 
+                    clientA.getSession().getId(), responseSessionId, e);
+            })
+            .onErrorResume(e -> {
+                abandonRequest(clientBSessionId, clientA, responseSessionId);
+                closeWithError(clientA);
+                return Mono.empty();
+            })
+            .doOnCancel(() -> {
+                metrics.sendCancel(ClientType.CLIENT_A);
+                logger.warn("Response routing cancelled for Client A {} (sessionId: {})", 
+                    clientA.getSession().getId(), responseSessionId);
+            })
+            .then();
+    }
+    
+    /**
+     * 응답을 Client A로 보내지 못한 요청 중단 (Client B의 in-flight 수 반환)
+     * 요청을 보낸 Client A와 처리 중인 Client B가 모두 같을 때만 완료 처리하며,
+     * 이후 도착하는 Client B의 응답은 처리 중인 요청이 없으므로 버려짐
+     */
+    private void abandonRequest(String clientBSessionId, SessionInfo clientA, String requestSessionId) {
+        PendingRequest pending = requestSessionId != null ? inFlightRequests.get(clientA.getTenant(), requestSessionId) : null;
+        if (pending != null && pending.getClientBSessionId().equals(clientBSessionId) 
+                && pending.getClientASessionId().equals(clientA.getSession().getId())) {
+            logger.warn("Abandoning request {} from Client A {}: response could not be queued", 
+                requestSessionId, pending.getClientASessionId());
+            completeRequest(pending.getTenant(), requestSessionId);
+        }
+    }
+    
+    /**
+     * 응답을 전달하지 못한 Client A 연결 종료 (Client A는 끝나지 않은 응답을 실패로 처리하고 다시 연결)
+     * 연결 종료 처리(releaseRequests)에서 이 Client A의 나머지 요청도 정리됩니다.
+     */
+    private void closeWithError(SessionInfo clientA) {
+        if (!clientA.isActive()) {
+            return;
+        }
+        logger.warn("Closing Client A {}: response could not be delivered", clientA.getSession().getId());
+        clientA.getSession().close(CloseStatus.SERVICE_OVERLOAD.withReason("Response could not be delivered"))
+            .subscribe(null, e -> logger.debug("Error closing Client A {}: {}", clientA.getSession().getId(), e.toString()));
+    }
+    
+    /**
+     * 처리 중인 요청 완료 처리 (Client B의 in-flight 수 반환)
+     */
+    private void completeRequest(String tenant, String requestSessionId) {
+        if (requestSessionId == null) {
+            return;
+        }
+        releaseAgentSlot(inFlightRequests.complete(tenant, requestSessionId));
+    }
+    
+    private void releaseAgentSlot(PendingRequest pending) {
+        if (pending != null) {
+            SessionInfo clientB = sessionService.getClientB(pending.getClientBSessionId());
+            if (clientB != null) {
+                clientB.releaseInFlight();
+            }
+        }
+    }
+    
+    /**
+     * 응답 기한 초과 처리 (타이머 스레드에서 호출, 요청은 이미 테이블에서 제거됨)
+     * 이후 도착하는 Client B의 응답은 처리 중인 요청이 없으므로 버려짐
+     */
+    private void onRequestTimeout(PendingRequest pending) {
+        releaseAgentSlot(pending);
+        if (pending.isAccessLogSample()) {
+            logAccess(pending, 504);
+        }
+        logger.warn("Request {} from Client A {} timed out waiting for Client B {} ({} ms)", 
+            pending.getRequestSessionId(), pending.getClientASessionId(), 
+            pending.getClientBSessionId(), requestTimeoutMillis);
+        sendErrorResponse(pending.getTenant(), pending.getClientASessionId(), pending.getRequestSessionId(), 504, 
+            "Agent response timeout").subscribe();
+    }
+    
+    /**
+     * 연결 종료된 세션(Client A 또는 Client B)과 관련된 처리 중인 요청 정리
+     * Client B가 종료된 경우 해당 요청을 보낸 Client A에게 즉시 502 에러 응답하고 에이전트별 메트릭 제거
+     */
+    public void releaseRequests(String sessionId) {
+        metrics.removeAgent(sessionId);
+        for (PendingRequest pending : inFlightRequests.completeAll(sessionId)) {
+            releaseAgentSlot(pending);
+            if (pending.getClientBSessionId().equals(sessionId)) {
+                if (pending.isAccessLogSample()) {
+                    logAccess(pending, 502);
+                }
+                logger.warn("Client B {} disconnected with request {} from Client A {} in flight", 
+                    sessionId, pending.getRequestSessionId(), pending.getClientASessionId());
+                sendErrorResponse(pending.getTenant(), pending.getClientASessionId(), pending.getRequestSessionId(), 502, 
+                    "Agent disconnected").subscribe();
+            } else {
+                // 요청한 Client A가 종료된 경우 같은 요청을 기다리던 다른 Client A의 요청은 각자 전달
+                redispatchFollowers(pending.getTenant(), pending.getRequestSessionId());
+            }
+        }
+    }
+    
+    /**
+     * 샘플로 선택된 요청의 접근 로그 기록 (응답 시작, 기한 초과, Client B 연결 종료 시)
+     */
+    private void logAccess(PendingRequest pending, int statusCode) {
+        accessLog.record(new AccessRecord(System.currentTimeMillis(), pending.getRequestSessionId(), 
+            pending.getClientASessionId(), pending.getClientBSessionId(), pending.getUrl(), statusCode, 
+            System.nanoTime() - pending.getStartNanos()));
+    }
+    
+    /**
+     * 처리 중인 요청 수 조회
+     */
+    public int getPendingRequestCount() {
+        return inFlightRequests.size();
+    }
+    
+    /**
+     * 종료 시 남은 접근 로그 기록
+     */
+    @Override
+    public void destroy() {
+        accessLog.close();
+    }
+    
+    /**
+     * 요청 전송이 Client B의 송신 큐가 가져갈 때까지 기다릴지 여부
+     * 일반 Client A는 자기 요청만 보내므로 기다려서 Client A의 수신을 멈추고(흐름 제어),
+     * 여러 Client A의 요청을 함께 나르는 클러스터 링크는 Client B 하나가 잠시 느려도 다른 요청을 계속 받도록
+     * Client B의 송신 큐가 high-watermark 이하이면 큐에 넣을 때 진행
+     */
+    private boolean awaitsHandOff(String clientASessionId) {
+        SessionInfo clientA = sessionService.getClientA(clientASessionId);
+        return clientA == null || !clientA.isPeer();
+    }
+    
+    /**
+     * 수신 버퍼를 그대로 담은 프레임 전송 (payload 복사 없음)
+     * 프레임은 대상 세션의 송신 큐가 소유하며, 전송되면 Netty가 쓰기 후 해제하고 전송되지 못하면(큐 초과/세션 종료) 큐에서 해제
+     * 
+     * @param awaitHandOff true면 송신 큐가 가져갈 때, false면 송신 큐의 high-watermark 이하에서는 큐에 넣을 때 완료
+     * @return 완료 시 프레임 크기
+     */
+    private Mono<Integer> sendRetained(SessionInfo target, DataBuffer payload, FrameProtocol framing, 
+                                       boolean awaitHandOff) {
+        int bytes = payload.readableByteCount();
+        WebSocketMessage message = new WebSocketMessage(framing.frameType(), payload);
+        OutboundQueue outbound = sessionService.getOutbound(target.getSession().getId());
+        return (awaitHandOff ? outbound.send(message) : outbound.offer(message)).thenReturn(bytes);
+    }
+    
+    /**
+     * 수신 프레임을 그대로 전달할 수 없는지 여부
+     * 프레이밍 방식이 다르거나, 압축된 body를 받을 수 없는 대상이거나,
+     * 압축을 선택한 대상에게 압축하지 않는 클라이언트의 큰 프레임을 보내는 경우,
+     * 헤더 테이블을 사용하는 대상에게 헤더가 있는 프레임을 보내는 경우 디코딩 후 다시 인코딩합니다.
+     * (헤더 테이블을 사용하는 클라이언트가 보낸 프레임은 수신 시 디코딩되므로 여기로 오지 않음)
+     *
+     * @param source 프레임을 보낸 클라이언트 (이미 정리되었으면 null)
+     */
+    private boolean needsConversion(SessionInfo source, SessionInfo target, RelayMessage.MessageType type, 
+                                    DataBuffer payload, FrameProtocol framing) {
+        if (target.getProtocol() != framing) {
+            return true;
+        }
+        if (target.getOutboundHeaderTable() != null && type != RelayMessage.MessageType.BODY_CHUNK 
+                && type != RelayMessage.MessageType.END) {
+            return true;
+        }
+        BodyCompression sourceCompression = source != null ? source.getBodyCompression() : BodyCompression.NONE;
+        if (sourceCompression == target.getBodyCompression()) {
+            return false;
+        }
+        return sourceCompression == BodyCompression.GZIP || payload.readableByteCount() >= compressionMinBytes;
+    }
+    
+    /**
+     * 대상 클라이언트의 프레이밍 방식으로 메시지를 인코딩하여 송신 큐로 전송 (압축을 선택한 대상이면 body 압축)
+     * 헤더 테이블을 사용하는 대상에게 헤더가 있는 메시지를 보내면 송신 큐에 넣는 시점에 인코딩하여
+     * 테이블 갱신 순서가 전송 순서와 같도록 합니다.
+     * 
+     * @param awaitHandOff true면 송신 큐가 가져갈 때, false면 송신 큐의 high-watermark 이하에서는 큐에 넣을 때 완료
+     * @return 완료 시 프레임 크기
+     */
+    private Mono<Integer> sendMessage(SessionInfo target, RelayMessage message, boolean awaitHandOff) 
+            throws JsonProcessingException {
+        RelayMessage encoded = target.getBodyCompression() == BodyCompression.GZIP
+            ? BodyCompressor.compress(message, compressionMinBytes, compressionLevel) : message;
+        HeaderTable headerTable = target.getOutboundHeaderTable();
+        OutboundQueue outbound = sessionService.getOutbound(target.getSession().getId());
+        if (headerTable != null && encoded.getHeaders() != null) {
+            Function<HeaderTable, WebSocketMessage> encoder = table -> 
+                target.getSession().binaryMessage(factory -> BinaryFrameCodec.encode(encoded, factory, table));
+            return awaitHandOff ? outbound.send(headerTable, encoder) : outbound.offer(headerTable, encoder);
+        }
+        
+        WebSocketMessage wsMessage = target.getProtocol() == FrameProtocol.BINARY
+            ? target.getSession().binaryMessage(factory -> BinaryFrameCodec.encode(encoded, factory))
+            : target.getSession().textMessage(objectMapper.writeValueAsString(encoded));
+        int bytes = wsMessage.getPayload().readableByteCount();
+        return (awaitHandOff ? outbound.send(wsMessage) : outbound.offer(wsMessage)).thenReturn(bytes);
+    }
+    
+    /**
+     * 클러스터 링크 상태(AGENTS) 전송: 이 노드에 연결된 Client B 수를 상대 노드에 알림
+     * 
+     * @param peerClient 상대 노드에서 요청을 받는 클러스터 링크 (Client A로 등록된 링크)
+     */
+    public Mono<Void> sendAgentCount(SessionInfo peerClient, int agents) {
+        try {
+            RelayMessage status = new RelayMessage();
+            status.setType(RelayMessage.MessageType.AGENTS);
+            status.setBody(Integer.toString(agents));
+            
+            return sendMessage(peerClient, status, false)
+                .doOnSuccess(bytes -> metrics.frameSent(ClientType.CLIENT_A, bytes))
+                .doOnError(e -> {
+                    metrics.sendError(ClientType.CLIENT_A);
+                    logger.warn("Error sending agent count to peer {}: {}", peerClient.getPeer(), e.toString());
+                })
+                .then();
+        } catch (Exception e) {
+            logger.error("Error creating agent count message for peer {}", peerClient.getPeer(), e);
+            return Mono.empty();
+        }
+    }
+    
+    /**
+     * 요청 메시지의 캐시 조회 (캐시 비활성 또는 REQUEST가 아니면 null)
+     */
+    private CacheLookup lookupCache(String clientASessionId, RelayMessage message) {
+        if (message.getType() != RelayMessage.MessageType.REQUEST || cacheMaxBytes <= 0) {
+            return null;
+        }
+        CacheLookup cacheLookup = cacheOf(tenantOf(clientASessionId)).lookup(message);
+        if (cacheLookup != null) {
+            metrics.cacheLookup(cacheLookup.isHit());
+        }
+        return cacheLookup;
+    }
+    
+    private ResponseCache cacheOf(String tenant) {
+        return responseCaches.computeIfAbsent(tenant, t -> new ResponseCache(() -> cacheMaxBytes, () -> cacheMaxEntryBytes));
+    }
+    
+    /**
+     * 요청 병합 키 (다른 테넌트의 같은 요청과 병합되지 않도록 테넌트 포함, 병합할 수 없는 요청이면 null)
+     */
+    private String coalesceKeyOf(String clientASessionId, RelayMessage message) {
+        String key = RequestCoalescer.keyOf(message);
+        return key != null ? tenantOf(clientASessionId) + ' ' + key : null;
+    }
+    
+    /**
+     * Client A의 테넌트 (등록되지 않은 세션이면 기본 테넌트)
+     */
+    private String tenantOf(String clientASessionId) {
+        SessionInfo clientA = sessionService.getClientA(clientASessionId);
+        return clientA != null ? clientA.getTenant() : SessionInfo.DEFAULT_TENANT;
+    }
+    
+    /**
+     * 캐시된 응답을 Client A에게 전송 (Client B를 거치지 않음)
+     * 바이너리 프레이밍 Client A에게는 캐시의 body 버퍼에서 프레임을 바로 만들고,
+     * JSON 프레이밍이나 body 압축을 선택한 Client A에게는 메시지로 변환하여 인코딩합니다.
+     */
+    private Mono<Void> sendCachedResponse(String clientASessionId, String requestSessionId, CacheLookup cacheLookup) {
+        SessionInfo clientA = sessionService.getClientA(clientASessionId);
+        if (clientA == null || !clientA.isActive()) {
+            logger.warn("Cannot send cached response: Client A {} is not active (request sessionId: {})", 
+                clientASessionId, requestSessionId);
+            return Mono.empty();
+        }
+        
+        try {
+            logger.debug("Serving cached response to Client A {} (sessionId: {})", clientASessionId, requestSessionId);
+            
+            Mono<Integer> send;
+            if (clientA.getProtocol() == FrameProtocol.BINARY && clientA.getBodyCompression() != BodyCompression.GZIP) {
+                OutboundQueue outbound = sessionService.getOutbound(clientASessionId);
+                HeaderTable headerTable = clientA.getOutboundHeaderTable();
+                Function<HeaderTable, WebSocketMessage> encoder = table -> clientA.getSession().binaryMessage(
+                    factory -> cacheLookup.encodeResponse(requestSessionId, factory, table));
+                if (headerTable != null) {
+                    send = outbound.offer(headerTable, encoder);
+                } else {
+                    WebSocketMessage wsMessage = encoder.apply(null);
+                    int bytes = wsMessage.getPayload().readableByteCount();
+                    send = outbound.offer(wsMessage).thenReturn(bytes);
+                }
+            } else {
+                send = sendMessage(clientA, cacheLookup.response(requestSessionId), false);
+            }
+            return send
+                .doOnSuccess(bytes -> metrics.frameSent(ClientType.CLIENT_A, bytes))
+                .doOnError(e -> {
+                    metrics.sendError(ClientType.CLIENT_A);
+                    logger.error("Error sending cached response to Client A {} (sessionId: {})", 
+                        clientASessionId, requestSessionId, e);
+                })
+                .then();
+        } catch (Exception e) {
+            logger.error("Error creating cached response (sessionId: {})", requestSessionId, e);
+            return Mono.empty();
+        }
+    }
+    
     /**
      * 에러 응답 전송
      */
-    private Mono<Void> sendErrorResponse(String clientASessionId, String requestSessionId, String errorMessage) {
+    private Mono<Void> sendErrorResponse(String clientASessionId, String requestSessionId, int statusCode, String errorMessage) {
+        return sendErrorResponse(tenantOf(clientASessionId), clientASessionId, requestSessionId, statusCode, errorMessage);
+    }
+    
+    /**
+     * 에러 응답 전송 (Client A가 이미 종료되었을 수 있는 경우 요청의 테넌트를 함께 전달)
+     */
+    private Mono<Void> sendErrorResponse(String tenant, String clientASessionId, String requestSessionId, int statusCode, 
+                                         String errorMessage) {
+        if (requestSessionId != null && inFlightRequests.get(tenant, requestSessionId) == null) {
+            // 요청이 응답 없이 완료된 경우(응답 기한 초과, Client B 종료, 전송 실패) 병합된 요청에도 같은 에러 응답
+            for (RequestCoalescer.Follower follower : coalescer.complete(tenant, requestSessionId)) {
+                sendErrorResponse(follower.clientASessionId(), follower.request().getSessionId(), 
+                    statusCode, errorMessage).subscribe();
+            }
+        }
+        
         SessionInfo clientA = sessionService.getClientA(clientASessionId);
         if (clientA == null || !clientA.isActive()) {
             logger.warn("Cannot send error response: Client A {} is not active (request sessionId: {})", 
@@ -133,32 +968,82 @@ public class MessageRoutingService {
             RelayMessage errorResponse = new RelayMessage();
             errorResponse.setType(RelayMessage.MessageType.RESPONSE);
             errorResponse.setSessionId(requestSessionId); // 원래 요청의 sessionId 포함
-            errorResponse.setStatusCode(500);
+            errorResponse.setStatusCode(statusCode);
             errorResponse.setError(errorMessage);
             
-            String jsonMessage = objectMapper.writeValueAsString(errorResponse);
-            WebSocketMessage wsMessage = clientA.getSession().textMessage(jsonMessage);
-            
-            if (wsMessage == null) {
-                logger.error("Failed to create error response message for Client A {} (request sessionId: {})", 
-                    clientASessionId, requestSessionId);
-                return Mono.empty();
-            }
-            
-            logger.info("Sending error response to Client A {} (sessionId: {}, error: {})", 
+            logger.debug("Sending error response to Client A {} (sessionId: {}, error: {})", 
                 clientASessionId, requestSessionId, errorMessage);
             
-            return clientA.getSession().send(Mono.just(wsMessage))
-                .doOnSuccess(v -> logger.debug("Error response sent to Client A {} (sessionId: {})", 
-                    clientASessionId, requestSessionId))
-                .doOnError(e -> logger.error("Error sending error response to Client A {} (sessionId: {})", 
-                    clientASessionId, requestSessionId, e));
+            return sendMessage(clientA, errorResponse, false)
+                .doOnSuccess(bytes -> {
+                    metrics.frameSent(ClientType.CLIENT_A, bytes);
+                    logger.debug("Error response sent to Client A {} (sessionId: {})", 
+                        clientASessionId, requestSessionId);
+                })
+                .doOnError(e -> {
+                    metrics.sendError(ClientType.CLIENT_A);
+                    logger.error("Error sending error response to Client A {} (sessionId: {})", 
+                        clientASessionId, requestSessionId, e);
+                })
+                // 전송 대상이 이미 종료된 경우 등 (호출자는 결과를 기다리지 않음)
+                .onErrorResume(e -> Mono.empty())
+                .then();
         } catch (Exception e) {
             logger.error("Error creating error response (sessionId: {})", requestSessionId, e);
             return Mono.empty();
         }
     }
     
+    /**
+     * 프레임 버퍼를 RelayMessage로 디코딩 (JSON TEXT 또는 바이너리 프레임, gzip body는 압축 해제)
+     * buffer의 해제는 호출자 책임입니다.
+     * 
+     * @return 디코딩된 메시지, 형식이 잘못된 경우 null
+     */
+    public RelayMessage decodeMessage(DataBuffer payload, FrameProtocol framing) {
+        return decodeMessage(payload, framing, null);
+    }
+    
+    /**
+     * 헤더 테이블을 사용하는 연결에서 받은 프레임 디코딩 (수신 순서대로 호출해야 함)
+     * 
+     * @param headerTable 보낸 연결의 수신 헤더 테이블, 사용하지 않으면 null
+     * @return 디코딩된 메시지, 형식이 잘못된 경우 null
+     */
+    public RelayMessage decodeMessage(DataBuffer payload, FrameProtocol framing, HeaderTable headerTable) {
+        int length = payload.readableByteCount();
+        RelayMessage message;
+        if (framing == FrameProtocol.JSON) {
+            message = parseMessage(payload.toString(StandardCharsets.UTF_8));
+        } else {
+            try {
+                message = BinaryFrameCodec.decode(payload, headerTable);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid binary frame (length: {}): {}", length, e.getMessage());
+                return null;
+            }
+        }
+        if (message == null) {
+            return null;
+        }
+        
+        try {
+            return BodyCompressor.decompress(message);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid compressed body (sessionId: {}, length: {}): {}", 
+                message.getSessionId(), length, e.getMessage());
+            return null;
+        }
+    }
+    
+    private RelayMessage decodeAndRelease(DataBuffer payload, FrameProtocol framing) {
+        try {
+            return decodeMessage(payload, framing);
+        } finally {
+            DataBufferUtils.release(payload);
+        }
+    }
+    
     /**
      * JSON 메시지 파싱
      * 
@@ -174,18 +1059,7 @@ public class MessageRoutingService {
         }
         
         try {
-            // 먼저 JSON을 Map으로 파싱하여 type 필드 확인
-            @SuppressWarnings("unchecked")
-            java.util.Map<String, Object> rawMessage = objectMapper.readValue(json, java.util.Map.class);
-            
-            // CONNECT 타입이 오면 에러 (CONNECT는 사용하지 않음)
-            String typeStr = (String) rawMessage.get("type");
-            if ("CONNECT".equalsIgnoreCase(typeStr)) {
-                logger.error("CONNECT message type is not supported. Client A should convert HTTPS requests to regular REQUEST messages. Received JSON: {}", 
-                    json.length() > 200 ? json.substring(0, 200) + "..." : json);
-                return null;
-            }
-            
+            // 단일 패스 파싱: RelayMessageDeserializer가 type 필드를 읽는 즉시 CONNECT/알 수 없는 타입을 거부
             RelayMessage message = objectMapper.readValue(json, RelayMessage.class);
             
             // method가 CONNECT인 경우 경고 (Client A에서 변환해야 함)
@@ -197,10 +1071,15 @@ public class MessageRoutingService {
             return message;
         } catch (com.fasterxml.jackson.databind.exc.InvalidFormatException e) {
             // enum 파싱 에러인 경우 더 자세한 로그
-            if (e.getMessage() != null && e.getMessage().contains("MessageType")) {
-                logger.error("Invalid message type in JSON (length: {}): {}. Supported types: REQUEST, RESPONSE, PING, PONG", 
-                    json.length(), 
+            if (e.getTargetType() == RelayMessage.MessageType.class && "CONNECT".equalsIgnoreCase(String.valueOf(e.getValue()))) {
+                // CONNECT 타입이 오면 에러 (CONNECT는 사용하지 않음)
+                logger.error("CONNECT message type is not supported. Client A should convert HTTPS requests to regular REQUEST messages. Received JSON: {}", 
                     json.length() > 200 ? json.substring(0, 200) + "..." : json);
+            } else if (e.getTargetType() == RelayMessage.MessageType.class) {
+                logger.error("Invalid message type in JSON (length: {}): {}. Supported types: {}", 
+                    json.length(), 
+                    json.length() > 200 ? json.substring(0, 200) + "..." : json, 
+                    java.util.Arrays.toString(RelayMessage.MessageType.values()));
             } else {
                 logger.error("Error parsing message (length: {}): {}", 
                     json.length(), 
@@ -214,5 +1093,156 @@ public class MessageRoutingService {
             return null;
         }
     }
+    
+    /**
+     * 메시지 envelope(type, sessionId)만 스캔
+     * 본문(body, headers 등)은 역직렬화하지 않고 건너뛰되 객체 끝까지 읽어, 잘리거나 뒤에 다른 내용이 붙은 프레임과
+     * type/sessionId가 두 번 나오는 프레임은 거부합니다 (전달받은 쪽이 다르게 해석하지 않도록).
+     * CONNECT 및 알 수 없는 타입은 parseMessage와 동일하게 거부(null 반환)합니다.
+     */
+    public RelayEnvelope parseEnvelope(String json) {
+        if (json == null || json.isBlank()) {
+            logger.warn("Empty message received, cannot parse");
+            return null;
+        }
+        
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return readEnvelope(parser);
+        } catch (Exception e) {
+            logger.error("Error scanning message envelope (length: {}): {}", 
+                json.length(), 
+                json.length() > 200 ? json.substring(0, 200) + "..." : json, e);
+            return null;
+        }
+    }
+    
+    /**
+     * 프레임 버퍼에서 envelope(type, sessionId)만 스캔
+     * 버퍼의 readable 영역을 ByteBuffer 뷰로 읽으므로 payload를 String/byte[]로 복사하지 않으며,
+     * 버퍼의 read position도 변경하지 않습니다.
+     */
+    public RelayEnvelope parseEnvelope(DataBuffer payload) {
+        if (payload == null || payload.readableByteCount() == 0) {
+            logger.warn("Empty message received, cannot parse");
+            return null;
+        }
+        
+        try (DataBuffer.ByteBufferIterator buffers = payload.readableByteBuffers();
+             JsonParser parser = objectMapper.getFactory().createParser(asInputStream(buffers))) {
+            return readEnvelope(parser);
+        } catch (Exception e) {
+            logger.error("Error scanning message envelope (length: {})", payload.readableByteCount(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * 프레임 버퍼에서 envelope(type, sessionId)만 스캔 (JSON TEXT 또는 바이너리 프레임)
+     * 버퍼의 read position은 변경하지 않습니다.
+     */
+    public RelayEnvelope parseEnvelope(DataBuffer payload, FrameProtocol framing) {
+        if (framing == FrameProtocol.JSON) {
+            return parseEnvelope(payload);
+        }
+        
+        try {
+            return BinaryFrameCodec.readEnvelope(payload);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid binary frame (length: {}): {}", payload.readableByteCount(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 요청 프레임에서 대상 URL만 스캔 (에이전트 선택용, 버퍼의 read position은 변경하지 않음)
+     *
+     * @return url 필드, 없거나 읽을 수 없으면 null
+     */
+    public String parseTargetUrl(DataBuffer payload, FrameProtocol framing) {
+        try {
+            if (framing == FrameProtocol.BINARY) {
+                return BinaryFrameCodec.readUrl(payload);
+            }
+            try (DataBuffer.ByteBufferIterator buffers = payload.readableByteBuffers();
+                 JsonParser parser = objectMapper.getFactory().createParser(asInputStream(buffers))) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if ("url".equals(field)) {
+                        return value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+        } catch (Exception e) {
+            logger.debug("Could not read target url from request frame: {}", e.toString());
+            return null;
+        }
+    }
+    
+    private static InputStream asInputStream(DataBuffer.ByteBufferIterator buffers) {
+        List<InputStream> streams = new ArrayList<>();
+        buffers.forEachRemaining(buffer -> streams.add(new ByteBufferBackedInputStream(buffer)));
+        return streams.size() == 1 ? streams.get(0) : new SequenceInputStream(Collections.enumeration(streams));
+    }
+    
+    private RelayEnvelope readEnvelope(JsonParser parser) throws java.io.IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Message must be a JSON object");
+        }
+        
+        String typeText = null;
+        String sessionId = null;
+        boolean typeFound = false;
+        boolean sessionIdFound = false;
+        
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("type".equals(field)) {
+                if (typeFound) {
+                    throw new JsonParseException(parser, "Duplicate field: type");
+                }
+                typeText = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                typeFound = true;
+            } else if ("sessionId".equals(field)) {
+                if (sessionIdFound) {
+                    throw new JsonParseException(parser, "Duplicate field: sessionId");
+                }
+                sessionId = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                sessionIdFound = true;
+            } else {
+                // body 등 나머지 필드는 문자열로 만들지 않고 건너뜀
+                parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Truncated message");
+        }
+        if (parser.nextToken() != null) {
+            throw new JsonParseException(parser, "Unexpected content after message");
+        }
+        
+        if (typeText == null) {
+            return new RelayEnvelope(null, sessionId);
+        }
+        if ("CONNECT".equalsIgnoreCase(typeText)) {
+            logger.error("CONNECT message type is not supported. Client A should convert HTTPS requests to regular REQUEST messages. (sessionId: {})", 
+                sessionId);
+            return null;
+        }
+        try {
+            return new RelayEnvelope(RelayMessage.MessageType.valueOf(typeText), sessionId);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid message type in envelope: {}. Supported types: {}", 
+                typeText.length() > 50 ? typeText.substring(0, 50) + "..." : typeText, 
+                java.util.Arrays.toString(RelayMessage.MessageType.values()));
+            return null;
+        }
+    }
 }
-
@@ -0,0 +1,335 @@
+package com.example.proxyrelay.service;
+
+import com.example.proxyrelay.codec.HeaderTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 세션별 송신 큐
+ * 세션마다 session.send(flux)를 하나만 유지하고, 여러 라우팅 경로에서 보내는 메시지를 이 큐로 모아 순서대로 전송합니다.
+ * Reactor Netty는 하나의 send 스트림에 들어온 프레임을 모아서 flush하므로 메시지마다 send 파이프라인을 만들 때보다 쓰기 비용이 적습니다.
+ *
+ * 메시지별 send()는 전송 스트림이 프레임을 가져가면 완료되므로, 상대 세션이 느리면 완료가 늦어져
+ * 수신 파이프라인의 demand도 멈춥니다 (한 클라이언트의 요청만 나르는 연결의 흐름 제어).
+ * offer()는 전송 대기 payload가 high-watermark 이하이면 큐에 넣을 때 바로 완료되어, 여러 요청을 함께 나르는 연결
+ * (Client B의 응답, 클러스터 링크)이 잠시 느린 세션 하나 때문에 다른 요청의 프레임까지 멈추지 않도록 하고,
+ * high-watermark를 넘으면 send()처럼 전송 스트림이 가져갈 때 완료되어 보낸 쪽 연결의 수신을 멈춥니다
+ * (느린 세션 앞에서 relay에 쌓이는 양을 high-watermark로 제한하는 흐름 제어).
+ * 큐는 메시지 수와 payload 바이트 수 상한이 있으며, 어느 한쪽이라도 넘으면 메시지를 버리고 에러로 완료합니다
+ * (느린 세션이 메모리를 계속 점유하지 않도록, 큰 프레임 몇 개로도 상한에 도달).
+ * 종료된 세션에 보내는 메시지도 버리고 에러로 완료하여, 호출자가 전송된 것으로 처리하지 않고 바로 실패를 응답하도록 합니다.
+ *
+ * 여러 스레드가 같은 세션에 보내므로 큐에 넣기(sink emit)는 잠금으로 직렬화합니다. sink는 동시 emit을 재시도하도록
+ * FAIL_NON_SERIALIZED로 거부하는데, 잠금 없이 재시도하면 헤더 테이블 잠금을 쥔 채 회전하거나 종료 신호를 놓칠 수 있기 때문입니다.
+ * 가상 스레드 실행 모드에서 carrier 스레드를 고정하지 않도록 synchronized 대신 ReentrantLock을 사용합니다.
+ */
+public class OutboundQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboundQueue.class);
+    
+    // 세션별 송신 큐 기본 용량
+    public static final int DEFAULT_CAPACITY = 1024;
+    
+    // 세션별 전송 대기 payload 바이트 수 기본 상한
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    
+    // offer()가 큐에 넣을 때 바로 완료하는 전송 대기 payload 바이트 수 기본 상한
+    public static final long DEFAULT_HIGH_WATERMARK = 1024 * 1024;
+    
+    /**
+     * 이미 제거된 세션의 송신 큐 (메시지를 받지 않고 버림)
+     */
+    public static final OutboundQueue CLOSED = new OutboundQueue(null, 8);
+    
+    static {
+        // 전송 스트림을 시작하지 않고 종료된 상태로 둠
+        CLOSED.started.set(true);
+        CLOSED.closed = true;
+        CLOSED.terminated.tryEmitEmpty();
+    }
+    
+    private final WebSocketSession session;
+    private final int capacity;
+    private final long maxBytes;
+    private final long highWatermark;
+    private final Sinks.Many<Outbound<?>> sink;
+    private final Sinks.Empty<Void> terminated = Sinks.empty();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final ReentrantLock emitLock = new ReentrantLock();
+    // 큐에 들어갔지만 전송 스트림이 아직 가져가지 않은 payload 바이트 수
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private volatile boolean closed;
+    
+    /**
+     * @param capacity 전송 대기 메시지 수 상한 (2의 거듭제곱으로 올림, 최소 8)
+     */
+    public OutboundQueue(WebSocketSession session, int capacity) {
+        this(session, capacity, DEFAULT_MAX_BYTES, DEFAULT_HIGH_WATERMARK);
+    }
+    
+    /**
+     * @param capacity 전송 대기 메시지 수 상한 (2의 거듭제곱으로 올림, 최소 8)
+     * @param maxBytes 전송 대기 payload 바이트 수 상한 (큐가 비어 있으면 이보다 큰 메시지도 하나는 받음)
+     * @param highWatermark offer()가 큐에 넣을 때 바로 완료하는 전송 대기 payload 바이트 수 상한
+     */
+    public OutboundQueue(WebSocketSession session, int capacity, long maxBytes, long highWatermark) {
+        this.session = session;
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.highWatermark = highWatermark;
+        this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<Outbound<?>>get(capacity).get());
+    }
+    
+    /**
+     * 메시지 전송 예약
+     * 메시지의 payload는 이 큐가 소유하며, 전송되면 Netty가 쓰기 후 해제하고 전송되지 못하면 여기서 해제합니다.
+     *
+     * @return 전송 스트림이 메시지를 가져가면 완료, 큐가 가득 차거나 세션이 종료된 경우 메시지를 버리고 에러
+     */
+    public Mono<Void> send(WebSocketMessage message) {
+        return submit(message, true);
+    }
+    
+    /**
+     * 전송 대기 payload가 high-watermark 이하이면 전송 스트림이 가져가기를 기다리지 않는 메시지 전송 예약
+     * (payload 소유권은 send(WebSocketMessage)와 동일)
+     *
+     * @return 이 메시지까지의 전송 대기 payload가 high-watermark 이하이면 큐에 넣을 때, 넘으면 전송 스트림이 가져갈 때 완료,
+     *         나머지는 send(WebSocketMessage)와 동일
+     */
+    public Mono<Void> offer(WebSocketMessage message) {
+        return submit(message, false);
+    }
+    
+    /**
+     * 송신 헤더 테이블을 참조하는 메시지를 큐에 넣는 시점에 인코딩하여 전송 예약
+     * 테이블은 이 큐의 세션에만 쓰이므로 인코딩과 큐 추가를 큐의 잠금으로 함께 직렬화하여 테이블 갱신 순서가 전송 순서와 같으며,
+     * 큐에 넣지 못한 메시지가 예약한 테이블 항목은 반영하지 않습니다 (수신 측 테이블과 어긋나지 않도록).
+     *
+     * @param encoder 메시지 인코딩 (항목 예약만 하고 commit하지 않음)
+     * @return 전송 스트림이 메시지를 가져가면 프레임 크기(바이트)로 완료, 나머지는 send(WebSocketMessage)와 동일
+     */
+    public Mono<Integer> send(HeaderTable headerTable, Function<HeaderTable, WebSocketMessage> encoder) {
+        return submit(headerTable, encoder, true);
+    }
+    
+    /**
+     * 전송 대기 payload가 high-watermark 이하이면 전송 스트림이 가져가기를 기다리지 않는 send(HeaderTable, Function)
+     *
+     * @return 완료 시점은 offer(WebSocketMessage)와 동일하며 프레임 크기(바이트)로 완료, 나머지는 send(WebSocketMessage)와 동일
+     */
+    public Mono<Integer> offer(HeaderTable headerTable, Function<HeaderTable, WebSocketMessage> encoder) {
+        return submit(headerTable, encoder, false);
+    }
+    
+    private Mono<Void> submit(WebSocketMessage message, boolean awaitHandOff) {
+        return Mono.create(monoSink -> {
+            Outbound<Void> outbound = new Outbound<>(message, monoSink, null, message.getPayload().readableByteCount(), 
+                awaitHandOff);
+            boolean queued;
+            emitLock.lock();
+            try {
+                queued = enqueue(outbound);
+            } finally {
+                emitLock.unlock();
+            }
+            if (queued) {
+                outbound.queued();
+            }
+        });
+    }
+    
+    private Mono<Integer> submit(HeaderTable headerTable, Function<HeaderTable, WebSocketMessage> encoder, 
+                                 boolean awaitHandOff) {
+        return Mono.create(monoSink -> {
+            Outbound<Integer> outbound;
+            boolean queued;
+            emitLock.lock();
+            try {
+                WebSocketMessage message;
+                try {
+                    message = encoder.apply(headerTable);
+                } catch (RuntimeException e) {
+                    headerTable.rollback();
+                    monoSink.error(e);
+                    return;
+                }
+                int bytes = message.getPayload().readableByteCount();
+                outbound = new Outbound<>(message, monoSink, bytes, bytes, awaitHandOff);
+                queued = enqueue(outbound);
+                if (queued) {
+                    headerTable.commit();
+                } else {
+                    headerTable.rollback();
+                }
+            } finally {
+                emitLock.unlock();
+            }
+            if (queued) {
+                // 완료 신호는 잠금 밖에서 (완료 후 이어지는 전송이 다른 큐의 잠금을 잡더라도 잠금이 중첩되지 않도록)
+                outbound.queued();
+            }
+        });
+    }
+    
+    /**
+     * 큐에 넣기 (emitLock 안에서 호출하므로 다른 스레드와 동시에 emit하지 않음)
+     *
+     * @return 전송 스트림에 들어갔으면 true, 버려졌으면 false
+     */
+    private boolean enqueue(Outbound<?> outbound) {
+        start();
+        if (closed) {
+            outbound.discard();
+            return false;
+        }
+        
+        // 바이트 수는 전송 스트림이 가져갈 때만 줄어들므로(잠금 밖), 잠금 안에서 확인한 뒤 늘리면 상한을 넘지 않음
+        long queued = queuedBytes.get();
+        if (queued > 0 && queued + outbound.bytes > maxBytes) {
+            logger.warn("Outbound queue full for session: {} ({} bytes queued, max: {}), dropping message", 
+                session.getId(), queued, maxBytes);
+            outbound.fail(new IllegalStateException("Outbound queue full (max bytes: " + maxBytes + ")"));
+            return false;
+        }
+        
+        // emit 중에 전송 스트림이 바로 가져갈 수 있으므로 먼저 늘리고 완료 시점을 정함
+        if (queuedBytes.addAndGet(outbound.bytes) > highWatermark) {
+            outbound.awaitHandOff = true;
+        }
+        Sinks.EmitResult result = sink.tryEmitNext(outbound);
+        if (result.isSuccess()) {
+            return true;
+        }
+        queuedBytes.addAndGet(-outbound.bytes);
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            logger.warn("Outbound queue full for session: {} (capacity: {}), dropping message", session.getId(), capacity);
+            outbound.fail(new IllegalStateException("Outbound queue full (capacity: " + capacity + ")"));
+        } else {
+            outbound.discard();
+        }
+        return false;
+    }
+    
+    /**
+     * 전송 스트림 시작 (첫 전송 시 한 번만)
+     */
+    private void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        
+        // 클래스 리터럴은 타입 인자를 가질 수 없으므로 Outbound<?>로 한 번만 변환
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Class<Outbound<?>> outboundType = (Class) Outbound.class;
+        session.send(sink.asFlux()
+                .map(outbound -> {
+                    queuedBytes.addAndGet(-outbound.bytes);
+                    return outbound.handOff();
+                })
+                .doOnDiscard(outboundType, outbound -> {
+                    queuedBytes.addAndGet(-outbound.bytes);
+                    outbound.drop();
+                }))
+            .doFinally(signal -> {
+                closed = true;
+                terminated.tryEmitEmpty();
+            })
+            .subscribe(null, e -> logger.debug("Outbound stream for session {} terminated: {}",
+                session.getId(), e.toString()));
+    }
+    
+    /**
+     * 더 이상 전송하지 않음 (대기 중인 메시지는 모두 전송한 뒤 전송 스트림 종료)
+     *
+     * @return 전송 스트림이 종료되면 완료 (전송한 적이 없으면 즉시 완료)
+     */
+    public Mono<Void> close() {
+        emitLock.lock();
+        try {
+            // 큐에 넣는 스레드와 직렬화되므로 FAIL_NON_SERIALIZED로 종료 신호가 버려지지 않음
+            sink.tryEmitComplete();
+        } finally {
+            emitLock.unlock();
+        }
+        return started.get() ? terminated.asMono() : Mono.empty();
+    }
+    
+    /**
+     * 전송 대기 메시지와 완료 신호
+     *
+     * @param <T> 완료 값 타입 (값이 null이면 값 없이 완료)
+     */
+    private static final class Outbound<T> {
+        
+        private final WebSocketMessage message;
+        private final MonoSink<T> completion;
+        private final T result;
+        // payload 바이트 수 (큐의 바이트 상한 계산용)
+        private final int bytes;
+        // true면 전송 스트림이 가져갈 때, false면 큐에 넣을 때 완료 (high-watermark를 넘으면 큐에 넣기 전에 true로 바꿈)
+        private boolean awaitHandOff;
+        
+        Outbound(WebSocketMessage message, MonoSink<T> completion, T result, int bytes, boolean awaitHandOff) {
+            this.message = message;
+            this.completion = completion;
+            this.result = result;
+            this.bytes = bytes;
+            this.awaitHandOff = awaitHandOff;
+        }
+        
+        /**
+         * 큐에 들어감
+         */
+        void queued() {
+            if (!awaitHandOff) {
+                completion.success(result);
+            }
+        }
+        
+        /**
+         * 전송 스트림이 가져감 (이후 payload 해제는 Netty 책임)
+         */
+        WebSocketMessage handOff() {
+            if (awaitHandOff) {
+                completion.success(result);
+            }
+            return message;
+        }
+        
+        /**
+         * 큐에 넣지 않고 버림 (세션 종료)
+         */
+        void discard() {
+            fail(new IllegalStateException("Session closed"));
+        }
+        
+        /**
+         * 큐에 있던 메시지를 전송하지 않고 버림 (전송 스트림 종료, 이미 완료 신호를 보낸 메시지는 해제만)
+         */
+        void drop() {
+            if (awaitHandOff) {
+                discard();
+            } else {
+                DataBufferUtils.release(message.getPayload());
+            }
+        }
+        
+        void fail(Throwable error) {
+            DataBufferUtils.release(message.getPayload());
+            completion.error(error);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.proxyrelay.service;
+
+import com.example.proxyrelay.dto.RelayMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 동일한 GET 요청 병합 (single-flight)
+ * 같은 요청(method, url, headers)이 처리 중이면 새 요청은 Client B로 보내지 않고 처리 중인 요청(leader)을 기다리며,
+ * leader의 응답이 오면 각 요청의 sessionId로 바꾸어 함께 응답합니다.
+ *
+ * leader가 처리 중인 요청으로 등록된 뒤에만 병합하므로 leader의 응답 기한, 502/504 응답도 기다리던 요청에 그대로 적용됩니다.
+ */
+public class RequestCoalescer {
+    
+    // 요청 키 → 처리 중인 leader
+    private final ConcurrentMap<String, Flight> flightsByKey = new ConcurrentHashMap<>();
+    
+    // leader 요청 (테넌트, sessionId) → 처리 중인 leader
+    private final ConcurrentMap<RequestKey, Flight> flightsByLeader = new ConcurrentHashMap<>();
+    
+    /**
+     * 병합할 수 있는 요청의 키 (body 없는 GET/HEAD REQUEST만)
+     *
+     * @return 키, 병합할 수 없는 요청이면 null
+     */
+    public static String keyOf(RelayMessage request) {
+        if (request.getType() != RelayMessage.MessageType.REQUEST || request.getMethod() == null
+                || request.getUrl() == null || (request.getBody() != null && !request.getBody().isEmpty())) {
+            return null;
+        }
+        String method = request.getMethod().toUpperCase(Locale.ROOT);
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return null;
+        }
+        
+        StringBuilder key = new StringBuilder(method).append(' ').append(request.getUrl());
+        if (request.getHeaders() != null) {
+            Map<String, String> headers = new TreeMap<>();
+            request.getHeaders().forEach((name, value) -> {
+                if (name != null) {
+                    headers.put(name.toLowerCase(Locale.ROOT), value);
+                }
+            });
+            headers.forEach((name, value) -> key.append('\n').append(name).append(':').append(value));
+        }
+        return key.toString();
+    }
+    
+    /**
+     * 같은 키의 leader가 처리 중이면 기다리는 요청으로 추가
+     *
+     * @return 추가되었으면 true (Client B로 보내지 않음), leader가 없으면 false
+     */
+    public boolean join(String key, String clientASessionId, RelayMessage request) {
+        Flight flight = flightsByKey.get(key);
+        return flight != null && flight.add(new Follower(clientASessionId, request));
+    }
+    
+    /**
+     * 처리 중인 요청으로 등록된 요청을 leader로 등록 (같은 키의 leader가 이미 있으면 등록하지 않음)
+     */
+    public void lead(String key, String tenant, String requestSessionId) {
+        Flight flight = new Flight(key);
+        if (flightsByKey.putIfAbsent(key, flight) == null) {
+            flightsByLeader.put(new RequestKey(tenant, requestSessionId), flight);
+        }
+    }
+    
+    /**
+     * leader 완료 처리
+     *
+     * @return 기다리던 요청 목록 (leader가 아니면 빈 목록)
+     */
+    public List<Follower> complete(String tenant, String requestSessionId) {
+        Flight flight = flightsByLeader.remove(new RequestKey(tenant, requestSessionId));
+        if (flight == null) {
+            return Collections.emptyList();
+        }
+        flightsByKey.remove(flight.key, flight);
+        return flight.close();
+    }
+    
+    /**
+     * 응답 메시지를 기다리던 요청의 sessionId로 복사
+     */
+    public static RelayMessage withSessionId(RelayMessage response, String sessionId) {
+        RelayMessage copy = response.copy();
+        copy.setSessionId(sessionId);
+        return copy;
+    }
+    
+    /**
+     * leader의 응답을 기다리는 요청
+     */
+    public record Follower(String clientASessionId, RelayMessage request) {
+    }
+    
+    private static class Flight {
+        
+        private final String key;
+        private final List<Follower> followers = new ArrayList<>();
+        private boolean closed;
+        
+        Flight(String key) {
+            this.key = key;
+        }
+        
+        synchronized boolean add(Follower follower) {
+            if (closed) {
+                return false;
+            }
+            followers.add(follower);
+            return true;
+        }
+        
+        synchronized List<Follower> close() {
+            closed = true;
+            return followers;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.proxyrelay.service;
+
+/**
+ * 처리 중인 요청의 키
+ * 요청 sessionId는 Client A가 정하므로, 테넌트가 다르면 같은 sessionId라도 다른 요청으로 취급합니다.
+ */
+record RequestKey(String tenant, String requestSessionId) {
+}
@@ -1,17 +1,33 @@
 package com.example.proxyrelay.service;
 
 import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.FrameProtocol;
 import com.example.proxyrelay.dto.SessionInfo;
+import com.example.proxyrelay.selection.HashRing;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 세션 관리 서비스
  * Client A (외부 프록시)와 Client B (내부 에이전트)의 매핑 관리
+ * 여러 Client A가 하나의 Client B에 매핑될 수 있음 (N:1)
+ *
+ * 매핑은 양방향 인덱스(A → B, B → {A})와 매핑된 Client A가 없는 Client B 풀로 관리하여
+ * 조회와 연결/종료 처리를 전체 세션 스캔 없이 수행합니다.
+ * Client B는 테넌트별 풀로 나누어 관리하므로, Client A에 맞는 Client B를 찾을 때 다른 테넌트의 세션은 보지 않습니다.
+ * 인덱스 변경(등록/매핑/제거)은 indexLock으로 직렬화하고, 조회는 잠금 없이 수행합니다.
  */
 @Service
 public class SessionService {
@@ -22,36 +38,191 @@ public class SessionService {
     // Client B 세션 저장 (내부 에이전트)
     private final ConcurrentMap<String, SessionInfo> clientBSessions = new ConcurrentHashMap<>();
     
-    // 세션 ID로 Client A와 Client B 매핑
+    // 테넌트 → Client B 풀 (클러스터 링크 제외)
+    private final ConcurrentMap<String, AgentPool> agentPools = new ConcurrentHashMap<>();
+    
+    // 클러스터 링크 (등록 순서 유지, indexLock으로 보호)
+    private final Map<String, SessionInfo> peerSessions = new LinkedHashMap<>();
+    
+    // 클러스터 링크 스냅샷: 상대 노드로 요청을 보내는 링크(Client B)와 상대 노드에서 요청을 받는 링크(Client A)
+    private volatile List<SessionInfo> peerLinks = List.of();
+    private volatile List<SessionInfo> peerClients = List.of();
+    
+    // Client B 또는 클러스터 링크가 등록/제거될 때 호출 (클러스터 노드 간 Client B 수 공유)
+    private final List<Runnable> topologyListeners = new CopyOnWriteArrayList<>();
+    
+    // 세션 ID로 Client A와 Client B 매핑 (Client A → Client B)
     private final ConcurrentMap<String, String> sessionMapping = new ConcurrentHashMap<>();
     
+    // 역방향 매핑 (Client B → 매핑된 Client A 집합)
+    private final ConcurrentMap<String, Set<String>> reverseMapping = new ConcurrentHashMap<>();
+    
+    private final Object indexLock = new Object();
+    
+    // 세션 ID → 그 세션으로 보내는 모든 메시지가 거치는 송신 큐 (등록 시 생성, 제거 시 삭제)
+    private final ConcurrentMap<String, OutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+    
+    // 세션별 송신 큐 용량 (가득 차면 새 메시지 전송 실패)
+    @Value("${relay.outbound.queue-capacity:1024}")
+    private int outboundQueueCapacity = OutboundQueue.DEFAULT_CAPACITY;
+    
+    // 세션별 송신 큐의 전송 대기 payload 바이트 수 상한 (넘으면 새 메시지 전송 실패)
+    @Value("${relay.outbound.queue-max-bytes:16777216}")
+    private long outboundQueueMaxBytes = OutboundQueue.DEFAULT_MAX_BYTES;
+    
+    // 여러 요청을 나르는 연결이 보낸 메시지를 큐에 넣자마자 완료하는 전송 대기 payload 바이트 수 상한
+    // (넘으면 상대 송신 큐가 가져갈 때까지 보낸 연결의 수신을 멈춤)
+    @Value("${relay.outbound.high-watermark-bytes:1048576}")
+    private long outboundHighWatermarkBytes = OutboundQueue.DEFAULT_HIGH_WATERMARK;
+    
     /**
      * 세션 등록
      */
-    public void registerSession(WebSocketSession session, ClientType clientType, String accessToken) {
+    public SessionInfo registerSession(WebSocketSession session, ClientType clientType, String accessToken) {
+        return registerSession(session, clientType, accessToken, FrameProtocol.JSON);
+    }
+    
+    /**
+     * 세션 등록 (프레이밍 방식 지정)
+     *
+     * @return 등록된 세션 정보
+     */
+    public SessionInfo registerSession(WebSocketSession session, ClientType clientType, String accessToken, FrameProtocol protocol) {
+        return registerSession(session, clientType, accessToken, protocol, null);
+    }
+    
+    /**
+     * 세션 등록 (클러스터 링크 지정, 기본 테넌트)
+     *
+     * @param peer 클러스터 링크의 상대 relay 노드, 일반 클라이언트는 null
+     * @return 등록된 세션 정보
+     */
+    public SessionInfo registerSession(WebSocketSession session, ClientType clientType, String accessToken, 
+                                       FrameProtocol protocol, String peer) {
+        return registerSession(session, clientType, accessToken, protocol, peer, SessionInfo.DEFAULT_TENANT);
+    }
+    
+    /**
+     * 세션 등록 (테넌트 지정)
+     *
+     * @param peer 클러스터 링크의 상대 relay 노드, 일반 클라이언트는 null
+     * @param tenant Access Token의 테넌트 (클러스터 링크는 기본 테넌트)
+     * @return 등록된 세션 정보
+     */
+    public SessionInfo registerSession(WebSocketSession session, ClientType clientType, String accessToken, 
+                                       FrameProtocol protocol, String peer, String tenant) {
         String sessionId = session.getId();
-        SessionInfo sessionInfo = new SessionInfo(session, clientType, accessToken);
+        SessionInfo sessionInfo = new SessionInfo(session, clientType, accessToken, protocol);
+        sessionInfo.setPeer(peer);
+        sessionInfo.setTenant(tenant);
+        outboundQueues.put(sessionId, new OutboundQueue(session, outboundQueueCapacity, outboundQueueMaxBytes, 
+            outboundHighWatermarkBytes));
         
-        if (clientType == ClientType.CLIENT_A) {
+        if (clientType == ClientType.CLIENT_A && peer == null) {
             clientASessions.put(sessionId, sessionInfo);
-        } else {
-            clientBSessions.put(sessionId, sessionInfo);
+            return sessionInfo;
+        }
+        
+        synchronized (indexLock) {
+            if (clientType == ClientType.CLIENT_A) {
+                clientASessions.put(sessionId, sessionInfo);
+            } else {
+                clientBSessions.put(sessionId, sessionInfo);
+            }
+            if (peer != null) {
+                peerSessions.put(sessionId, sessionInfo);
+                refreshPeerSnapshots();
+            } else {
+                AgentPool pool = agentPools.computeIfAbsent(tenant, t -> new AgentPool());
+                pool.agents.put(sessionId, sessionInfo);
+                if (!reverseMapping.containsKey(sessionId)) {
+                    pool.free.add(sessionId);
+                }
+                pool.refresh();
+            }
         }
+        fireTopologyChanged();
+        return sessionInfo;
     }
     
     /**
      * 세션 제거
      */
     public void removeSession(String sessionId) {
-        SessionInfo sessionInfo = clientASessions.remove(sessionId);
-        if (sessionInfo == null) {
-            sessionInfo = clientBSessions.remove(sessionId);
+        outboundQueues.remove(sessionId);
+        boolean topologyChanged = false;
+        synchronized (indexLock) {
+            SessionInfo sessionInfo = clientASessions.remove(sessionId);
+            if (sessionInfo == null) {
+                sessionInfo = clientBSessions.remove(sessionId);
+            }
+            if (sessionInfo != null && sessionInfo.isPeer()) {
+                peerSessions.remove(sessionId);
+                refreshPeerSnapshots();
+                topologyChanged = true;
+            } else if (sessionInfo != null && sessionInfo.getClientType() == ClientType.CLIENT_B) {
+                AgentPool pool = agentPools.get(sessionInfo.getTenant());
+                if (pool != null) {
+                    pool.agents.remove(sessionId);
+                    pool.free.remove(sessionId);
+                    pool.refresh();
+                    if (pool.agents.isEmpty()) {
+                        agentPools.remove(sessionInfo.getTenant());
+                    }
+                }
+                topologyChanged = true;
+            }
+            
+            // Client A로서의 매핑 제거
+            unmapClientA(sessionId);
+            
+            // Client B로서의 매핑 제거 (매핑된 Client A는 다음 요청 시 다시 매핑됨)
+            Set<String> mappedClientAs = reverseMapping.remove(sessionId);
+            if (mappedClientAs != null) {
+                for (String clientASessionId : mappedClientAs) {
+                    sessionMapping.remove(clientASessionId, sessionId);
+                }
+            }
+        }
+        if (topologyChanged) {
+            fireTopologyChanged();
         }
-        
-        // 매핑 제거
-        sessionMapping.entrySet().removeIf(entry -> 
-            entry.getKey().equals(sessionId) || entry.getValue().equals(sessionId)
-        );
+    }
+    
+    /**
+     * 세션으로 메시지를 보낼 때 사용할 송신 큐
+     * 
+     * @return 등록되지 않았거나 이미 제거된 세션이면 메시지를 받지 않는 닫힌 큐
+     */
+    public OutboundQueue getOutbound(String sessionId) {
+        OutboundQueue outbound = outboundQueues.get(sessionId);
+        return outbound != null ? outbound : OutboundQueue.CLOSED;
+    }
+    
+    /**
+     * 클러스터 링크 스냅샷 갱신 (indexLock 안에서 호출)
+     */
+    private void refreshPeerSnapshots() {
+        List<SessionInfo> links = new ArrayList<>();
+        List<SessionInfo> clients = new ArrayList<>();
+        for (SessionInfo peer : peerSessions.values()) {
+            (peer.getClientType() == ClientType.CLIENT_B ? links : clients).add(peer);
+        }
+        peerLinks = List.copyOf(links);
+        peerClients = List.copyOf(clients);
+    }
+    
+    private void fireTopologyChanged() {
+        for (Runnable listener : topologyListeners) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Client B 또는 클러스터 링크의 등록/제거 알림 등록 (잠금 밖에서 호출됨)
+     */
+    public void addTopologyListener(Runnable listener) {
+        topologyListeners.add(listener);
     }
     
     /**
@@ -68,11 +239,115 @@ public class SessionService {
         return clientBSessions.get(sessionId);
     }
     
+    /**
+     * 기본 테넌트에 등록된 Client B 목록 (클러스터 링크로 다른 노드와 공유하는 Client B)
+     */
+    public List<SessionInfo> getClientBs() {
+        return getClientBs(SessionInfo.DEFAULT_TENANT);
+    }
+    
+    /**
+     * 테넌트에 등록된 Client B 목록 (연결 종료 중인 세션이 포함될 수 있음, 클러스터 링크 제외, 수정 불가)
+     */
+    public List<SessionInfo> getClientBs(String tenant) {
+        return getHashRing(tenant).agents();
+    }
+    
+    /**
+     * 테넌트에 등록된 Client B의 consistent-hash 링 (Client B 등록/제거 시 새로 만듦)
+     * 에이전트 선택 시 목록과 함께 전달하며, 호스트 해싱 선택은 이 링으로 최소한의 호스트만 옮겨 배치합니다.
+     */
+    public HashRing getHashRing(String tenant) {
+        AgentPool pool = agentPools.get(tenant);
+        return pool != null ? pool.snapshot : HashRing.of(List.of());
+    }
+    
+    /**
+     * 상대 노드에서 요청을 받는 클러스터 링크 목록 (Client A로 등록된 링크)
+     */
+    public List<SessionInfo> getPeerClients() {
+        return peerClients;
+    }
+    
+    /**
+     * Client B가 연결된 다른 relay 노드로의 클러스터 링크 중 처리 중인 요청이 가장 적은 링크
+     *
+     * @return 클러스터 링크, 없으면 null
+     */
+    public SessionInfo findPeerLink() {
+        SessionInfo least = null;
+        for (SessionInfo link : peerLinks) {
+            if (link.getRemoteAgents() > 0 && link.isActive()
+                    && (least == null || link.getInFlightRequests() < least.getInFlightRequests())) {
+                least = link;
+            }
+        }
+        return least;
+    }
+    
     /**
      * 세션 매핑 생성 (Client A ↔ Client B)
+     * Client A가 이미 다른 Client B에 매핑되어 있으면 기존 매핑을 대체
      */
     public void mapSessions(String clientASessionId, String clientBSessionId) {
-        sessionMapping.put(clientASessionId, clientBSessionId);
+        synchronized (indexLock) {
+            unmapClientA(clientASessionId);
+            sessionMapping.put(clientASessionId, clientBSessionId);
+            reverseMapping.computeIfAbsent(clientBSessionId, id -> ConcurrentHashMap.newKeySet())
+                .add(clientASessionId);
+            AgentPool pool = poolOf(clientBSessionId);
+            if (pool != null) {
+                pool.free.remove(clientBSessionId);
+            }
+        }
+    }
+    
+    /**
+     * 등록된 Client A를 같은 테넌트에서 가장 여유 있는 Client B에 매핑 (등록되지 않았으면 기본 테넌트)
+     *
+     * @return 매핑된 Client B, 활성 Client B가 없으면 null
+     */
+    public SessionInfo assignClientB(String clientASessionId) {
+        SessionInfo clientA = clientASessions.get(clientASessionId);
+        return assignClientB(clientASessionId, clientA != null ? clientA.getTenant() : SessionInfo.DEFAULT_TENANT);
+    }
+    
+    /**
+     * Client A를 테넌트에서 가장 여유 있는 Client B에 매핑 (조회와 매핑을 원자적으로 수행)
+     *
+     * @return 매핑된 Client B, 테넌트에 활성 Client B가 없으면 null
+     */
+    public SessionInfo assignClientB(String clientASessionId, String tenant) {
+        synchronized (indexLock) {
+            SessionInfo clientB = findAvailableClientB(tenant);
+            if (clientB != null) {
+                mapSessions(clientASessionId, clientB.getSession().getId());
+            }
+            return clientB;
+        }
+    }
+    
+    /**
+     * Client A의 기존 매핑 제거 (indexLock 안에서 호출)
+     * 마지막 Client A가 빠진 Client B는 다시 여유 풀로 반환
+     */
+    private void unmapClientA(String clientASessionId) {
+        String clientBSessionId = sessionMapping.remove(clientASessionId);
+        if (clientBSessionId == null) {
+            return;
+        }
+        
+        Set<String> mappedClientAs = reverseMapping.get(clientBSessionId);
+        if (mappedClientAs != null) {
+            mappedClientAs.remove(clientASessionId);
+            if (mappedClientAs.isEmpty()) {
+                reverseMapping.remove(clientBSessionId);
+                AgentPool pool = poolOf(clientBSessionId);
+                if (pool != null) {
+                    pool.free.add(clientBSessionId);
+                }
+            }
+        }
     }
     
     /**
@@ -87,30 +362,63 @@ public class SessionService {
     }
     
     /**
-     * Client B의 세션 ID로 매핑된 Client A 세션 조회
+     * Client B의 세션 ID로 매핑된 Client A 세션 조회 (여러 개인 경우 그중 하나)
+     * 응답 라우팅은 요청 sessionId 기준으로 MessageRoutingService에서 수행
      */
     public SessionInfo getMappedClientA(String clientBSessionId) {
-        return sessionMapping.entrySet().stream()
-            .filter(entry -> entry.getValue().equals(clientBSessionId))
-            .map(entry -> clientASessions.get(entry.getKey()))
-            .findFirst()
-            .orElse(null);
+        Set<String> mappedClientAs = reverseMapping.get(clientBSessionId);
+        if (mappedClientAs == null) {
+            return null;
+        }
+        for (String clientASessionId : mappedClientAs) {
+            SessionInfo clientA = clientASessions.get(clientASessionId);
+            if (clientA != null) {
+                return clientA;
+            }
+        }
+        return null;
     }
     
     /**
-     * 사용 가능한 Client B 세션 찾기 (매핑되지 않은 첫 번째 활성 세션 반환)
+     * 기본 테넌트에서 사용 가능한 Client B 세션 찾기
      */
     public SessionInfo findAvailableClientB() {
-        return clientBSessions.values().stream()
-            .filter(SessionInfo::isActive)
-            .filter(session -> {
-                // 이미 매핑된 Client B인지 확인
-                String sessionId = session.getSession().getId();
-                return sessionMapping.values().stream()
-                    .noneMatch(mappedBId -> mappedBId.equals(sessionId));
-            })
-            .findFirst()
-            .orElse(null);
+        return findAvailableClientB(SessionInfo.DEFAULT_TENANT);
+    }
+    
+    /**
+     * 테넌트에서 사용 가능한 Client B 세션 찾기 (매핑된 Client A가 가장 적은 활성 세션 반환)
+     * Client B 하나가 여러 Client A의 요청을 함께 처리하므로 이미 매핑된 세션도 대상이 됨
+     * 매핑되지 않은 Client B가 있으면 여유 풀에서 바로 꺼내고, 없으면 테넌트의 Client B 수만큼만 확인
+     */
+    public SessionInfo findAvailableClientB(String tenant) {
+        synchronized (indexLock) {
+            AgentPool pool = agentPools.get(tenant);
+            if (pool == null) {
+                return null;
+            }
+            for (String clientBSessionId : pool.free) {
+                SessionInfo clientB = pool.agents.get(clientBSessionId);
+                if (clientB != null && clientB.isActive()) {
+                    return clientB;
+                }
+            }
+            
+            SessionInfo leastMapped = null;
+            int leastMappedCount = Integer.MAX_VALUE;
+            for (SessionInfo clientB : pool.snapshot.agents()) {
+                if (!clientB.isActive()) {
+                    continue;
+                }
+                Set<String> mappedClientAs = reverseMapping.get(clientB.getSession().getId());
+                int mappedCount = mappedClientAs != null ? mappedClientAs.size() : 0;
+                if (mappedCount < leastMappedCount) {
+                    leastMapped = clientB;
+                    leastMappedCount = mappedCount;
+                }
+            }
+            return leastMapped;
+        }
     }
     
     /**
@@ -126,17 +434,40 @@ public class SessionService {
     
     /**
      * 활성 세션 수 조회
+     * 세션은 연결 종료 시 제거되므로 등록된 세션 수를 그대로 반환 (메트릭 게이지에서 세션 순회 없이 조회)
      */
     public int getActiveClientACount() {
-        return (int) clientASessions.values().stream()
-            .filter(SessionInfo::isActive)
-            .count();
+        return clientASessions.size();
     }
     
     public int getActiveClientBCount() {
-        return (int) clientBSessions.values().stream()
-            .filter(SessionInfo::isActive)
-            .count();
+        return clientBSessions.size();
+    }
+    
+    /**
+     * Client B 세션이 속한 풀 (indexLock 안에서 호출, 클러스터 링크나 등록되지 않은 세션이면 null)
+     */
+    private AgentPool poolOf(String clientBSessionId) {
+        SessionInfo clientB = clientBSessions.get(clientBSessionId);
+        return clientB != null && !clientB.isPeer() ? agentPools.get(clientB.getTenant()) : null;
+    }
+    
+    /**
+     * 테넌트 하나의 Client B 풀 (agents/free는 indexLock으로 보호, snapshot은 잠금 없이 조회)
+     */
+    private static final class AgentPool {
+        
+        // 등록된 Client B (등록 순서 유지)
+        final Map<String, SessionInfo> agents = new LinkedHashMap<>();
+        
+        // 매핑된 Client A가 없는 Client B
+        final Set<String> free = new LinkedHashSet<>();
+        
+        // 요청별 에이전트 선택용 스냅샷 (등록/제거 시 교체, 호스트 해싱 선택은 스냅샷의 consistent-hash 링 사용)
+        volatile HashRing snapshot = HashRing.of(List.of());
+        
+        void refresh() {
+            snapshot = HashRing.of(new ArrayList<>(agents.values()));
+        }
     }
 }
-
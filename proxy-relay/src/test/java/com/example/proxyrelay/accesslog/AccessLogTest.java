@@ -0,0 +1,74 @@
+package com.example.proxyrelay.accesslog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AccessLog 테스트
+ * 샘플링 비율과 쓰기 스레드의 한 줄 JSON 출력을 테스트합니다.
+ */
+class AccessLogTest {
+    
+    /**
+     * 검증: 샘플링 비율이 0이면 선택하지 않고, 1이면 항상 선택하며, 그 사이면 일부만 선택해야 함
+     * 목적: sample-rate 설정 확인 (요청마다 설정값을 읽음)
+     */
+    @Test
+    void sample_Rate_SelectsMatchingFraction() {
+        double[] rate = {0.0};
+        AccessLog accessLog = new AccessLog(() -> rate[0], () -> 16, () -> "");
+        
+        assertEquals(0, countSampled(accessLog, 1000));
+        rate[0] = 1.0;
+        assertEquals(1000, countSampled(accessLog, 1000));
+        rate[0] = 0.5;
+        int sampled = countSampled(accessLog, 1000);
+        assertTrue(sampled > 350 && sampled < 650, "sampled: " + sampled);
+    }
+    
+    /**
+     * 검증: 기록은 종료 시 파일에 한 줄 JSON으로 모두 쓰여야 하며, 특수 문자는 이스케이프되고 종료 후 기록은 버려진 수로 집계되어야 함
+     * 목적: 비동기 쓰기 스레드의 출력 형식과 종료 처리 확인
+     */
+    @Test
+    void record_ThenClose_WritesEscapedJsonLines(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("logs/access.log");
+        AccessLog accessLog = new AccessLog(() -> 1.0, () -> 16, file::toString);
+        
+        accessLog.record(new AccessRecord(0L, "req-1", "a-1", "b-1", "http://internal/api?q=\"x\"\\y", 200, 1_234_567));
+        accessLog.record(new AccessRecord(0L, "req-2", "a-1", "b-1", null, 0, 5_000));
+        accessLog.close();
+        accessLog.record(new AccessRecord(0L, "req-3", "a-1", "b-1", null, 200, 0));
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("1970-01-01T00:00:00Z", first.get("time").asText());
+        assertEquals("http://internal/api?q=\"x\"\\y", first.get("url").asText());
+        assertEquals(200, first.get("status").asInt());
+        assertEquals(1.234, first.get("latencyMs").asDouble());
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertTrue(second.get("url").isNull());
+        assertEquals(0.005, second.get("latencyMs").asDouble());
+        assertEquals(1, accessLog.getDropped());
+    }
+    
+    private static int countSampled(AccessLog accessLog, int requests) {
+        int sampled = 0;
+        for (int i = 0; i < requests; i++) {
+            if (accessLog.sample()) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+}
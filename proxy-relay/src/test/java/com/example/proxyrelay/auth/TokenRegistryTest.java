@@ -0,0 +1,94 @@
+package com.example.proxyrelay.auth;
+
+import com.example.proxyrelay.dto.SessionInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenRegistry 테스트
+ * 토큰 파일의 테넌트 조회, 잘못된 줄 처리와 파일 변경 반영을 테스트합니다.
+ */
+class TokenRegistryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private long now = 1_000_000_000L;
+    
+    /**
+     * 검증: 파일의 해시와 일치하는 토큰은 그 테넌트로, relay.access-token은 기본 테넌트로 조회되고 그 외 토큰은 null이어야 함
+     * 목적: 해시 기반 토큰 조회와 주석/잘못된 줄 무시 확인
+     */
+    @Test
+    void lookup_TokensFile_ResolvesTenants() throws Exception {
+        Path file = tempDir.resolve("tokens");
+        Files.writeString(file, String.join("\n",
+            "# tenant sha256",
+            "team-a " + sha256Hex("token-a1") + "  # 첫 번째 토큰",
+            "team-a sha256:" + sha256Hex("token-a2").toUpperCase(),
+            "team-b " + sha256Hex("token-b"),
+            "team-c not-a-hash",
+            "team-d"));
+        TokenRegistry registry = new TokenRegistry(() -> "cluster-token", file::toString, () -> now);
+        
+        assertEquals("team-a", registry.lookup("token-a1"));
+        assertEquals("team-a", registry.lookup("token-a2"));
+        assertEquals("team-b", registry.lookup("token-b"));
+        assertEquals(SessionInfo.DEFAULT_TENANT, registry.lookup("cluster-token"));
+        assertNull(registry.lookup("not-a-hash"));
+        assertNull(registry.lookup(sha256Hex("token-b")));
+        assertNull(registry.lookup(""));
+        assertNull(registry.lookup(null));
+    }
+    
+    /**
+     * 검증: 파일이 바뀌면 확인 주기(1초)가 지난 뒤 다시 읽어, 폐기된 토큰은 거부되어야 함
+     * 목적: 재시작 없는 토큰 추가/폐기 확인
+     */
+    @Test
+    void lookup_FileChanged_ReloadsAfterCheckInterval() throws Exception {
+        Path file = tempDir.resolve("tokens");
+        Files.writeString(file, "team-a " + sha256Hex("token-a") + "\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+        TokenRegistry registry = new TokenRegistry(() -> "", file::toString, () -> now);
+        assertEquals("team-a", registry.lookup("token-a"));
+        
+        Files.writeString(file, "team-b " + sha256Hex("token-b") + "\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        assertEquals("team-a", registry.lookup("token-a"));
+        
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertNull(registry.lookup("token-a"));
+        assertEquals("team-b", registry.lookup("token-b"));
+    }
+    
+    /**
+     * 검증: 파일을 읽지 못하게 되면 이전에 읽은 토큰을 유지해야 함
+     * 목적: 파일 교체 중 일시적인 오류로 모든 연결이 거부되지 않는지 확인
+     */
+    @Test
+    void lookup_FileRemoved_KeepsPreviousTokens() throws Exception {
+        Path file = tempDir.resolve("tokens");
+        Files.writeString(file, "team-a " + sha256Hex("token-a") + "\n");
+        TokenRegistry registry = new TokenRegistry(() -> "", file::toString, () -> now);
+        assertEquals("team-a", registry.lookup("token-a"));
+        
+        Files.delete(file);
+        now += TimeUnit.SECONDS.toNanos(2);
+        assertEquals("team-a", registry.lookup("token-a"));
+    }
+    
+    private static String sha256Hex(String token) {
+        return HexFormat.of().formatHex(TokenRegistry.sha256(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.proxyrelay.cache;
+
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.dto.RelayMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GET 응답 캐시 테스트
+ * Cache-Control/ETag/Vary 처리와 W-TinyLFU 제거 정책을 테스트합니다.
+ */
+class ResponseCacheTest {
+    
+    private final ResponseCache cache = new ResponseCache(() -> 1 << 20, () -> 1 << 16);
+    
+    /**
+     * 검증: max-age가 있는 200 응답은 저장되고, 같은 GET 요청은 Client B 없이 같은 body와 Age 헤더로 응답되어야 함
+     * 목적: 캐시 적중 경로 확인
+     */
+    @Test
+    void lookup_FreshResponseStored_ReturnsHit() {
+        CacheLookup miss = cache.lookup(get("http://internal/app.js", Map.of()));
+        assertFalse(miss.isHit());
+        assertNull(cache.complete(miss, response(200, "console.log(1)", Map.of("Cache-Control", "max-age=60"))));
+        
+        CacheLookup hit = cache.lookup(get("http://internal/app.js", Map.of()));
+        assertTrue(hit.isHit());
+        RelayMessage cached = hit.response("req-2");
+        assertEquals("req-2", cached.getSessionId());
+        assertEquals(200, cached.getStatusCode());
+        assertEquals("console.log(1)", cached.getBody());
+        assertEquals("0", cached.getHeaders().get("Age"));
+    }
+    
+    /**
+     * 검증: 캐시 적중 응답을 바이너리 프레임으로 여러 번 인코딩해도 디코딩하면 저장한 응답과 같은 body여야 함
+     * 목적: body를 힙 문자열로 변환하지 않고 캐시 버퍼에서 만든 프레임이 메시지 경로와 같은지 확인 (텍스트/base64 body)
+     */
+    @Test
+    void encodeResponse_Hit_MatchesCachedMessage() {
+        String binary = Base64.getEncoder().encodeToString(new byte[] {(byte) 0x89, 'P', 'N', 'G', 0, (byte) 0xFF});
+        RelayMessage image = response(200, binary, Map.of("Cache-Control", "max-age=60"));
+        image.setBodyEncoding(RelayMessage.BODY_ENCODING_BASE64);
+        cache.complete(cache.lookup(get("http://internal/logo.png", Map.of())), image);
+        cache.complete(cache.lookup(get("http://internal/app.js", Map.of())),
+            response(200, "console.log('한글')", Map.of("Cache-Control", "max-age=60")));
+        
+        for (String url : new String[] {"http://internal/logo.png", "http://internal/app.js"}) {
+            CacheLookup hit = cache.lookup(get(url, Map.of()));
+            RelayMessage expected = hit.response("req-2");
+            for (int i = 0; i < 2; i++) {
+                RelayMessage decoded = BinaryFrameCodec.decode(
+                    hit.encodeResponse("req-2", DefaultDataBufferFactory.sharedInstance, null));
+                assertEquals("req-2", decoded.getSessionId());
+                assertEquals(200, decoded.getStatusCode());
+                assertEquals(expected.getBody(), decoded.getBody());
+                assertEquals(expected.getBodyEncoding(), decoded.getBodyEncoding());
+                assertEquals("0", decoded.getHeaders().get("Age"));
+            }
+        }
+        assertEquals(binary, cache.lookup(get("http://internal/logo.png", Map.of())).response("req-3").getBody());
+    }
+    
+    /**
+     * 검증: no-store, private 응답과 인증된 요청의 응답(public/s-maxage 없음)은 저장되지 않아야 함
+     * 목적: 공유 캐시에 저장하면 안 되는 응답 확인
+     */
+    @Test
+    void complete_NotStorableResponses_AreNotCached() {
+        cache.complete(cache.lookup(get("http://internal/a", Map.of())),
+            response(200, "a", Map.of("Cache-Control", "no-store, max-age=60")));
+        cache.complete(cache.lookup(get("http://internal/b", Map.of())),
+            response(200, "b", Map.of("cache-control", "private, max-age=60")));
+        cache.complete(cache.lookup(get("http://internal/c", Map.of("Authorization", "Bearer x"))),
+            response(200, "c", Map.of("Cache-Control", "max-age=60")));
+        cache.complete(cache.lookup(get("http://internal/d", Map.of())), response(200, "d", Map.of()));
+        
+        assertEquals(0, cache.size());
+        assertNull(cache.lookup(get("http://internal/a", Map.of("Cache-Control", "no-store"))));
+    }
+    
+    /**
+     * 검증: Set-Cookie가 있는 응답은 max-age/public이 있어도 저장되지 않고, 같은 요청은 다시 Client B로 전달되어야 함
+     * 목적: 한 클라이언트의 세션 쿠키가 다른 클라이언트에게 재생되지 않는지 확인
+     */
+    @Test
+    void complete_SetCookieResponse_IsNotCached() {
+        cache.complete(cache.lookup(get("http://internal/login", Map.of())),
+            response(200, "ok", Map.of("Cache-Control", "public, max-age=60", "Set-Cookie", "sid=abc")));
+        cache.complete(cache.lookup(get("http://internal/home", Map.of())),
+            response(200, "home", Map.of("Cache-Control", "max-age=60", "set-cookie", "sid=def", "ETag", "\"v1\"")));
+        
+        assertEquals(0, cache.size());
+        assertFalse(cache.lookup(get("http://internal/login", Map.of())).isHit());
+        assertFalse(cache.lookup(get("http://internal/home", Map.of())).isHit());
+    }
+    
+    /**
+     * 검증: Vary에 나열된 요청 헤더 값이 다르면 다른 응답으로 취급되어야 함
+     * 목적: 캐시 키에 Vary 헤더 값이 포함되는지 확인
+     */
+    @Test
+    void lookup_VaryHeader_KeysOnRequestHeaderValue() {
+        cache.complete(cache.lookup(get("http://internal/doc", Map.of("Accept-Language", "ko"))),
+            response(200, "안녕", Map.of("Cache-Control", "max-age=60", "Vary", "Accept-Language")));
+        
+        assertFalse(cache.lookup(get("http://internal/doc", Map.of("Accept-Language", "en"))).isHit());
+        CacheLookup hit = cache.lookup(get("http://internal/doc", Map.of("accept-language", "ko")));
+        assertTrue(hit.isHit());
+        assertEquals("안녕", hit.response("req-1").getBody());
+    }
+    
+    /**
+     * 검증: 신선하지 않은 ETag 응답은 If-None-Match로 재검증하고, 304를 받으면 캐시된 body로 200 응답해야 함
+     * 목적: ETag 재검증 확인
+     */
+    @Test
+    void complete_NotModified_ServesRevalidatedEntry() {
+        cache.complete(cache.lookup(get("http://internal/img.png", Map.of())),
+            response(200, "png", Map.of("Cache-Control", "no-cache", "ETag", "\"v1\"")));
+        
+        CacheLookup revalidation = cache.lookup(get("http://internal/img.png", Map.of("Accept", "image/*")));
+        assertFalse(revalidation.isHit());
+        assertTrue(revalidation.isRevalidation());
+        RelayMessage conditional = revalidation.revalidationRequest(get("http://internal/img.png", Map.of("Accept", "image/*")));
+        assertEquals("\"v1\"", conditional.getHeaders().get("If-None-Match"));
+        assertEquals("image/*", conditional.getHeaders().get("Accept"));
+        
+        RelayMessage notModified = response(304, null, Map.of("ETag", "\"v1\""));
+        notModified.setSessionId("req-3");
+        RelayMessage served = cache.complete(revalidation, notModified);
+        assertEquals("req-3", served.getSessionId());
+        assertEquals(200, served.getStatusCode());
+        assertEquals("png", served.getBody());
+    }
+    
+    /**
+     * 검증: 캐시가 가득 찬 상태에서 한 번씩만 요청되는 응답들이 자주 요청되는 응답을 밀어내지 않아야 함
+     * 목적: TinyLFU 진입 정책 확인 (LRU였다면 밀려남)
+     */
+    @Test
+    void complete_ScanOfOneOffResponses_KeepsFrequentEntry() {
+        ResponseCache small = new ResponseCache(() -> 20_000, () -> 10_000);
+        String body = "x".repeat(1000);
+        for (int i = 0; i < 5; i++) {
+            small.lookup(get("http://internal/hot", Map.of()));
+        }
+        small.complete(small.lookup(get("http://internal/hot", Map.of())),
+            response(200, body, Map.of("Cache-Control", "max-age=60")));
+        
+        for (int i = 0; i < 100; i++) {
+            String url = "http://internal/cold-" + i;
+            small.complete(small.lookup(get(url, Map.of())), response(200, body, Map.of("Cache-Control", "max-age=60")));
+        }
+        
+        assertTrue(small.getWeightedSize() <= 20_000);
+        assertTrue(small.lookup(get("http://internal/hot", Map.of())).isHit());
+    }
+    
+    /**
+     * 검증: 같은 URL에 GET/HEAD 외의 요청이 오면 캐시된 응답이 제거되어야 함
+     * 목적: 상태 변경 요청 후 오래된 응답을 제공하지 않는지 확인
+     */
+    @Test
+    void lookup_UnsafeMethod_InvalidatesUrl() {
+        cache.complete(cache.lookup(get("http://internal/item", Map.of())),
+            response(200, "v1", Map.of("Cache-Control", "max-age=60")));
+        
+        RelayMessage post = get("http://internal/item", Map.of());
+        post.setMethod("POST");
+        assertNull(cache.lookup(post));
+        
+        assertFalse(cache.lookup(get("http://internal/item", Map.of())).isHit());
+        assertEquals(0, cache.size());
+    }
+    
+    private static RelayMessage get(String url, Map<String, String> headers) {
+        RelayMessage request = new RelayMessage();
+        request.setType(RelayMessage.MessageType.REQUEST);
+        request.setSessionId("req-1");
+        request.setMethod("GET");
+        request.setUrl(url);
+        request.setHeaders(headers);
+        return request;
+    }
+    
+    private static RelayMessage response(int statusCode, String body, Map<String, String> headers) {
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-1");
+        response.setStatusCode(statusCode);
+        response.setBody(body);
+        response.setHeaders(headers);
+        return response;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.proxyrelay.cluster;
+
+import com.example.proxyrelay.ProxyRelayApplication;
+import com.example.proxyrelay.dto.RelayMessage;
+import com.example.proxyrelay.service.SessionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 클러스터 모드 통합 테스트
+ * localhost에서 relay 노드 두 개를 띄우고, 서로 다른 노드에 연결된 Client A와 Client B 사이의 요청/응답 전달을 테스트합니다.
+ */
+class ClusterRelayTest {
+    
+    private static final String TOKEN = "default-token-change-in-production";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final List<Disposable> connections = new ArrayList<>();
+    
+    @AfterEach
+    void tearDown() {
+        connections.forEach(Disposable::dispose);
+        // 링크를 연결한 노드부터 종료 (상대 노드 종료 후 재연결 시도 방지)
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+    }
+    
+    /**
+     * 검증: 노드 1의 Client A가 보낸 요청이 노드 2의 Client B로 전달되고, 응답이 노드 1의 Client A로 돌아와야 함
+     * 목적: 클러스터 링크를 통한 노드 간 전달과 Client B 수 공유(AGENTS) 확인
+     */
+    @Test
+    void request_ClientAAndClientBOnDifferentNodes_RoutedThroughClusterLink() throws Exception {
+        // Given - 노드 2에 Client B, 노드 1은 노드 2로 링크 연결
+        ConfigurableApplicationContext node2 = startNode("node-2", "");
+        int port2 = port(node2);
+        ConfigurableApplicationContext node1 = startNode("node-1", "ws://localhost:" + port2 + "/relay");
+        
+        connections.add(client.execute(URI.create("ws://localhost:" + port2 + "/relay?type=B&token=" + TOKEN), session ->
+                session.send(session.receive()
+                    .map(WebSocketMessage::getPayloadAsText)
+                    .map(this::toResponse)
+                    .map(session::textMessage)))
+            .subscribe());
+        
+        SessionService sessionService1 = node1.getBean(SessionService.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (sessionService1.findPeerLink() == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Cluster link did not report node 2 agents");
+            Thread.sleep(50);
+        }
+        
+        // When - 노드 1에 Client A 연결 후 요청
+        Sinks.One<String> response = Sinks.one();
+        String request = "{\"type\":\"REQUEST\",\"sessionId\":\"req-1\",\"method\":\"GET\",\"url\":\"http://internal/api\"}";
+        connections.add(client.execute(URI.create("ws://localhost:" + port(node1) + "/relay?type=A&token=" + TOKEN), session ->
+                session.send(Mono.just(session.textMessage(request)))
+                    .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText))
+                    .doOnNext(response::tryEmitValue)
+                    .then())
+            .subscribe());
+        
+        // Then
+        RelayMessage relayed = objectMapper.readValue(response.asMono().block(Duration.ofSeconds(10)), RelayMessage.class);
+        assertEquals(RelayMessage.MessageType.RESPONSE, relayed.getType());
+        assertEquals("req-1", relayed.getSessionId());
+        assertEquals(200, relayed.getStatusCode());
+        assertEquals("GET http://internal/api", relayed.getBody());
+    }
+    
+    private String toResponse(String requestJson) {
+        try {
+            RelayMessage request = objectMapper.readValue(requestJson, RelayMessage.class);
+            RelayMessage response = new RelayMessage();
+            response.setType(RelayMessage.MessageType.RESPONSE);
+            response.setSessionId(request.getSessionId());
+            response.setStatusCode(200);
+            response.setBody(request.getMethod() + " " + request.getUrl());
+            return objectMapper.writeValueAsString(response);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private ConfigurableApplicationContext startNode(String nodeId, String peers) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ProxyRelayApplication.class)
+            .properties(
+                "server.port=0",
+                "server.shutdown=immediate",
+                "relay.cluster.enabled=true",
+                "relay.cluster.secret=cluster-test-secret",
+                "relay.cluster.node-id=" + nodeId,
+                "relay.cluster.peers=" + peers,
+                "relay.cluster.reconnect-delay-ms=100")
+            .run();
+        nodes.add(context);
+        return context;
+    }
+    
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+}
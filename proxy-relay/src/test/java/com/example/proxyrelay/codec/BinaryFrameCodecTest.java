@@ -0,0 +1,199 @@
+package com.example.proxyrelay.codec;
+
+import com.example.proxyrelay.dto.RelayEnvelope;
+import com.example.proxyrelay.dto.RelayMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BinaryFrameCodec 테스트
+ * 바이너리 프레임 인코딩/디코딩 및 envelope 스캔을 테스트합니다.
+ */
+class BinaryFrameCodecTest {
+    
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    
+    /**
+     * 검증: 인코딩한 프레임을 디코딩하면 모든 필드가 원래 값과 같아야 함
+     * 목적: 바이너리 프레임 포맷의 왕복 변환 확인
+     */
+    @Test
+    void encodeDecode_AllFields_RoundTrips() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "text/plain; charset=utf-8");
+        headers.put("X-Trace", "한글-값");
+        
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.RESPONSE);
+        message.setSessionId("req-1");
+        message.setStatusCode(404);
+        message.setHeaders(headers);
+        message.setBody("not found");
+        
+        RelayMessage decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(message, bufferFactory));
+        
+        assertEquals(RelayMessage.MessageType.RESPONSE, decoded.getType());
+        assertEquals("req-1", decoded.getSessionId());
+        assertNull(decoded.getMethod());
+        assertNull(decoded.getUrl());
+        assertNull(decoded.getError());
+        assertEquals(404, decoded.getStatusCode());
+        assertEquals(headers, decoded.getHeaders());
+        assertEquals("not found", decoded.getBody());
+        assertNull(decoded.getBodyEncoding());
+    }
+    
+    /**
+     * 검증: UTF-8이 아닌 body는 base64로 변환되고, 다시 인코딩하면 원본 바이트가 복원되어야 함
+     * 목적: JSON 클라이언트와의 변환 시 바이너리 body 손실 방지 확인
+     */
+    @Test
+    void decode_NonUtf8Body_UsesBase64Encoding() {
+        byte[] body = {(byte) 0x89, 'P', 'N', 'G', 0x00, (byte) 0xFF};
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.RESPONSE);
+        message.setSessionId("req-1");
+        message.setBody(Base64.getEncoder().encodeToString(body));
+        message.setBodyEncoding(RelayMessage.BODY_ENCODING_BASE64);
+        
+        DataBuffer frame = BinaryFrameCodec.encode(message, bufferFactory);
+        RelayMessage decoded = BinaryFrameCodec.decode(frame);
+        
+        assertEquals(RelayMessage.BODY_ENCODING_BASE64, decoded.getBodyEncoding());
+        assertArrayEquals(body, Base64.getDecoder().decode(decoded.getBody()));
+    }
+    
+    /**
+     * 검증: envelope 스캔은 type과 sessionId를 읽고 read position을 바꾸지 않아야 함
+     * 목적: 스캔 후 같은 버퍼를 그대로 전달할 수 있는지 확인
+     */
+    @Test
+    void readEnvelope_ValidFrame_DoesNotConsumeBuffer() {
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.REQUEST);
+        message.setSessionId("req-1");
+        message.setBody("payload");
+        DataBuffer frame = BinaryFrameCodec.encode(message, bufferFactory);
+        int readable = frame.readableByteCount();
+        
+        RelayEnvelope envelope = BinaryFrameCodec.readEnvelope(frame);
+        
+        assertEquals(RelayMessage.MessageType.REQUEST, envelope.getType());
+        assertEquals("req-1", envelope.getSessionId());
+        assertEquals(readable, frame.readableByteCount());
+    }
+    
+    /**
+     * 검증: URL 스캔은 sessionId와 method를 건너뛰고 url을 읽으며 read position을 바꾸지 않아야 함
+     * 목적: 에이전트 선택 시 바이너리 요청 프레임을 디코딩하지 않고 대상 호스트를 알 수 있는지 확인
+     */
+    @Test
+    void readUrl_RequestFrame_ReadsUrlWithoutConsumingBuffer() {
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.REQUEST);
+        message.setSessionId("req-1");
+        message.setMethod("GET");
+        message.setUrl("https://internal-api.company.com/api/data");
+        DataBuffer frame = BinaryFrameCodec.encode(message, bufferFactory);
+        int readable = frame.readableByteCount();
+        
+        assertEquals("https://internal-api.company.com/api/data", BinaryFrameCodec.readUrl(frame));
+        assertEquals(readable, frame.readableByteCount());
+        
+        message.setUrl(null);
+        assertNull(BinaryFrameCodec.readUrl(BinaryFrameCodec.encode(message, bufferFactory)));
+    }
+    
+    /**
+     * 검증: relay 바이너리 프레임이 아닌 데이터는 IllegalArgumentException으로 거부되어야 함
+     * 목적: 잘못된 프레임 처리 확인
+     */
+    @Test
+    void decode_InvalidFrame_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> BinaryFrameCodec.decode(bufferFactory.wrap("{\"type\":\"PING\"}".getBytes())));
+        assertThrows(IllegalArgumentException.class,
+            () -> BinaryFrameCodec.readEnvelope(bufferFactory.wrap(new byte[] {0x52, 1})));
+    }
+    
+    /**
+     * 검증: 헤더 테이블을 사용하면 두 번째 프레임부터 같은 헤더가 인덱스로 전송되어 프레임이 작아지고,
+     * 수신 측 테이블로 원래 헤더가 복원되어야 함
+     * 목적: 반복되는 헤더 압축과 송신/수신 테이블 동기화 확인
+     */
+    @Test
+    void encodeDecode_HeaderTable_RepeatedHeadersSentAsIndices() {
+        HeaderTable encoder = new HeaderTable(HeaderTable.DEFAULT_SIZE);
+        HeaderTable decoder = new HeaderTable(HeaderTable.DEFAULT_SIZE);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
+        headers.put("Accept", "text/html,application/xhtml+xml");
+        headers.put("Cookie", "session=abc123; theme=dark");
+        
+        int[] sizes = new int[3];
+        for (int i = 0; i < 3; i++) {
+            Map<String, String> requestHeaders = new LinkedHashMap<>(headers);
+            requestHeaders.put("X-Request-Id", "id-" + i);
+            RelayMessage message = new RelayMessage();
+            message.setType(RelayMessage.MessageType.REQUEST);
+            message.setSessionId("req-" + i);
+            message.setMethod("GET");
+            message.setUrl("http://internal/page");
+            message.setHeaders(requestHeaders);
+            
+            DataBuffer frame = BinaryFrameCodec.encode(message, bufferFactory, encoder);
+            encoder.commit();
+            sizes[i] = frame.readableByteCount();
+            
+            RelayMessage decoded = BinaryFrameCodec.decode(frame, decoder);
+            assertEquals(requestHeaders, decoded.getHeaders());
+        }
+        
+        assertTrue(sizes[1] < sizes[0] / 2);
+        assertEquals(sizes[1], sizes[2]);
+        assertEquals(encoder.getSize(), decoder.getSize());
+        assertEquals(encoder.getEntryCount(), decoder.getEntryCount());
+    }
+    
+    /**
+     * 검증: 테이블 크기를 넘으면 오래된 항목이 제거되고, 송신하지 않은 프레임의 항목(rollback)은 반영되지 않아야 하며,
+     * 양쪽 테이블이 계속 같은 헤더를 복원해야 함
+     * 목적: 항목 제거와 전송 실패 시에도 테이블이 어긋나지 않는지 확인
+     */
+    @Test
+    void encodeDecode_HeaderTableEvictionAndRollback_StaysInSync() {
+        HeaderTable encoder = new HeaderTable(128);
+        HeaderTable decoder = new HeaderTable(128);
+        
+        for (int i = 0; i < 20; i++) {
+            RelayMessage message = new RelayMessage();
+            message.setType(RelayMessage.MessageType.RESPONSE);
+            message.setSessionId("req-" + i);
+            message.setHeaders(Map.of("Content-Type", "text/plain", "ETag", "\"v" + (i % 3) + "\""));
+            
+            DataBuffer frame = BinaryFrameCodec.encode(message, bufferFactory, encoder);
+            if (i % 5 == 4) {
+                // 송신 큐에 넣지 못한 프레임
+                encoder.rollback();
+                continue;
+            }
+            encoder.commit();
+            assertEquals(message.getHeaders(), BinaryFrameCodec.decode(frame, decoder).getHeaders());
+            assertTrue(decoder.getSize() <= 128);
+        }
+        assertEquals(encoder.getSize(), decoder.getSize());
+        
+        RelayMessage indexed = new RelayMessage();
+        indexed.setType(RelayMessage.MessageType.RESPONSE);
+        indexed.setHeaders(Map.of("Content-Type", "text/plain"));
+        DataBuffer frame = BinaryFrameCodec.encode(indexed, bufferFactory, encoder);
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame));
+    }
+}
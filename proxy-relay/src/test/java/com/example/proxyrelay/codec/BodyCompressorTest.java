@@ -0,0 +1,87 @@
+package com.example.proxyrelay.codec;
+
+import com.example.proxyrelay.dto.RelayMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BodyCompressor 테스트
+ * body gzip 압축/해제와 바이너리 프레임의 gzip flag를 테스트합니다.
+ */
+class BodyCompressorTest {
+    
+    /**
+     * 검증: 기준 크기 이상의 body는 gzip으로 압축되고, 바이너리 프레임을 거쳐 압축을 풀면 원래 body가 복원되어야 함
+     * 목적: 압축 body의 왕복 변환 확인 (원본 메시지는 변경되지 않음)
+     */
+    @Test
+    void compress_LargeTextBody_RoundTripsThroughBinaryFrame() {
+        RelayMessage message = response("{\"items\":[" + "{\"name\":\"한글\",\"value\":1},".repeat(200) + "]}");
+        
+        RelayMessage compressed = BodyCompressor.compress(message, 1024, 6);
+        
+        assertNotSame(message, compressed);
+        assertNull(message.getBodyEncoding());
+        assertEquals(RelayMessage.BODY_ENCODING_GZIP, compressed.getBodyEncoding());
+        assertTrue(Base64.getDecoder().decode(compressed.getBody()).length < message.getBody().length() / 4);
+        
+        RelayMessage decoded = BinaryFrameCodec.decode(
+            BinaryFrameCodec.encode(compressed, DefaultDataBufferFactory.sharedInstance));
+        assertEquals(RelayMessage.BODY_ENCODING_GZIP, decoded.getBodyEncoding());
+        
+        RelayMessage restored = BodyCompressor.decompress(decoded);
+        assertEquals(message.getBody(), restored.getBody());
+        assertNull(restored.getBodyEncoding());
+        assertEquals("req-1", restored.getSessionId());
+    }
+    
+    /**
+     * 검증: 기준 크기 미만이거나 압축해도 작아지지 않는 body는 원본 메시지를 그대로 반환해야 함
+     * 목적: 작은 body에 압축 비용을 쓰지 않는지 확인
+     */
+    @Test
+    void compress_SmallOrIncompressibleBody_ReturnsOriginal() {
+        RelayMessage small = response("ok");
+        assertSame(small, BodyCompressor.compress(small, 1024, 6));
+        
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        RelayMessage binary = response(Base64.getEncoder().encodeToString(random));
+        binary.setBodyEncoding(RelayMessage.BODY_ENCODING_BASE64);
+        assertSame(binary, BodyCompressor.compress(binary, 1024, 6));
+    }
+    
+    /**
+     * 검증: 압축을 풀었을 때 UTF-8이 아닌 body는 base64로 표시되고, 손상된 gzip body는 IllegalArgumentException이 발생해야 함
+     * 목적: 바이너리 body 보존과 잘못된 입력 거부 확인
+     */
+    @Test
+    void decompress_BinaryOrCorruptBody_HandledSafely() {
+        byte[] png = new byte[2048];
+        png[0] = (byte) 0x89;
+        RelayMessage binary = response(Base64.getEncoder().encodeToString(png));
+        binary.setBodyEncoding(RelayMessage.BODY_ENCODING_BASE64);
+        
+        RelayMessage restored = BodyCompressor.decompress(BodyCompressor.compress(binary, 1024, 1));
+        assertEquals(RelayMessage.BODY_ENCODING_BASE64, restored.getBodyEncoding());
+        assertArrayEquals(png, Base64.getDecoder().decode(restored.getBody()));
+        
+        RelayMessage corrupt = response(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}));
+        corrupt.setBodyEncoding(RelayMessage.BODY_ENCODING_GZIP);
+        assertThrows(IllegalArgumentException.class, () -> BodyCompressor.decompress(corrupt));
+    }
+    
+    private static RelayMessage response(String body) {
+        RelayMessage message = new RelayMessage();
+        message.setType(RelayMessage.MessageType.RESPONSE);
+        message.setSessionId("req-1");
+        message.setStatusCode(200);
+        message.setBody(body);
+        return message;
+    }
+}
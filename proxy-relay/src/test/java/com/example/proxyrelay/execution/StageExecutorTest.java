@@ -0,0 +1,81 @@
+package com.example.proxyrelay.execution;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StageExecutor 테스트
+ * 실행 모드별 처리 단계 실행 스레드와 실행 전 취소 처리를 테스트합니다.
+ */
+class StageExecutorTest {
+    
+    /**
+     * 검증: EVENT_LOOP은 처리 단계를 그대로 반환하고, VIRTUAL_THREADS는 처리 단계를 가상 스레드에서 수신 순서대로 호출해야 함
+     * 목적: 블로킹 처리 단계가 이벤트 루프 밖에서 실행되는지 확인
+     */
+    @Test
+    void wrap_VirtualThreads_RunsStageOnVirtualThreadInOrder() {
+        Function<Integer, Mono<Void>> stage = frame -> Mono.empty();
+        StageExecutor eventLoop = new StageExecutor(ExecutionMode.EVENT_LOOP);
+        assertSame(stage, eventLoop.wrap(stage));
+        assertFalse(eventLoop.isOffloading());
+        
+        StageExecutor executor = new StageExecutor(ExecutionMode.VIRTUAL_THREADS);
+        try {
+            List<Integer> handled = new CopyOnWriteArrayList<>();
+            List<Boolean> virtual = new CopyOnWriteArrayList<>();
+            Function<Integer, Mono<Void>> blocking = frame -> {
+                virtual.add(Thread.currentThread().isVirtual());
+                handled.add(frame);
+                return Mono.empty();
+            };
+            
+            StepVerifier.create(Flux.range(1, 5).concatMap(executor.wrap(blocking)))
+                .verifyComplete();
+            
+            assertEquals(List.of(1, 2, 3, 4, 5), handled);
+            assertFalse(virtual.contains(false));
+        } finally {
+            executor.dispose();
+        }
+        assertTrue(executor.isDisposed());
+    }
+    
+    /**
+     * 검증: 처리 단계가 실행되기 전에 취소되면 처리 단계는 호출되지 않고 프레임이 discard hook으로 전달되어야 함
+     * 목적: 연결 종료 시 retain된 수신 버퍼 누수 방지 확인
+     */
+    @Test
+    void wrap_CancelledBeforeStageRuns_DiscardsFrame() {
+        // 작업을 실행하지 않고 쌓아두는 스케줄러 (취소 후 실행)
+        List<Runnable> tasks = new CopyOnWriteArrayList<>();
+        StageExecutor executor = new StageExecutor(ExecutionMode.VIRTUAL_THREADS, Schedulers.fromExecutor(tasks::add), false);
+        List<String> handled = new CopyOnWriteArrayList<>();
+        List<Object> discarded = new CopyOnWriteArrayList<>();
+        Function<String, Mono<Void>> stage = frame -> {
+            handled.add(frame);
+            return Mono.empty();
+        };
+        
+        Disposable subscription = executor.wrap(stage).apply("frame-1")
+            .doOnDiscard(String.class, discarded::add)
+            .subscribe();
+        assertEquals(1, tasks.size());
+        
+        subscription.dispose();
+        tasks.forEach(Runnable::run);
+        
+        assertEquals(List.of(), handled);
+        assertEquals(List.of("frame-1"), discarded);
+    }
+}
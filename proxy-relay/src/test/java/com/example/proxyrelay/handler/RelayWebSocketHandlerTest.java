@@ -1,13 +1,24 @@
 package com.example.proxyrelay.handler;
 
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.config.JacksonConfig;
 import com.example.proxyrelay.dto.ClientType;
 import com.example.proxyrelay.dto.RelayMessage;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.ratelimit.RateLimiter;
 import com.example.proxyrelay.service.AuthService;
 import com.example.proxyrelay.service.MessageRoutingService;
 import com.example.proxyrelay.service.SessionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.socket.CloseStatus;
@@ -16,12 +27,19 @@ import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +58,7 @@ class RelayWebSocketHandlerTest {
     private SessionService sessionService;
     private AuthService authService;
     private MessageRoutingService messageRoutingService;
+    private RateLimiter rateLimiter;
     private WebSocketSession mockSession;
     private ObjectMapper objectMapper;
     private Principal mockPrincipal;
@@ -50,8 +69,12 @@ class RelayWebSocketHandlerTest {
         authService = new AuthService();
         // @Value가 테스트에서 작동하지 않으므로 ReflectionTestUtils로 설정
         ReflectionTestUtils.setField(authService, "validAccessToken", "default-token-change-in-production");
-        messageRoutingService = new MessageRoutingService(sessionService);
-        handler = new RelayWebSocketHandler(sessionService, authService, messageRoutingService);
+        RelayMetrics metrics = new RelayMetrics(new SimpleMeterRegistry(), sessionService);
+        ObjectMapper relayObjectMapper = JacksonConfig.createObjectMapper();
+        messageRoutingService = new MessageRoutingService(sessionService, metrics, relayObjectMapper);
+        rateLimiter = new RateLimiter();
+        handler = new RelayWebSocketHandler(sessionService, authService, messageRoutingService, metrics, relayObjectMapper,
+            rateLimiter);
         objectMapper = new ObjectMapper();
         
         mockSession = mock(WebSocketSession.class);
@@ -70,6 +93,14 @@ class RelayWebSocketHandlerTest {
         return new HandshakeInfo(uri, headers, Mono.just(mockPrincipal), null);
     }
     
+    /**
+     * 수신 TEXT 프레임 생성 헬퍼 메서드
+     */
+    private WebSocketMessage textMessage(String json) {
+        return new WebSocketMessage(WebSocketMessage.Type.TEXT, 
+            DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8)));
+    }
+    
     /**
      * 검증: 유효한 토큰과 클라이언트 타입으로 연결 시 세션이 등록되어야 함
      * 목적: 정상적인 WebSocket 연결이 성공적으로 처리되는지 확인
@@ -117,6 +148,76 @@ class RelayWebSocketHandlerTest {
         ));
     }
     
+    /**
+     * 검증: 연결 수 상한에 도달하면 새 연결은 1013(SERVICE_OVERLOAD)으로 종료되고, 끝난 연결은 연결 수에서 빠져야 함
+     * 목적: 전체 연결 수 제한과 연결 종료 시 반환 확인
+     */
+    @Test
+    void handle_MaxConnectionsReached_ClosesWithServiceOverload() throws Exception {
+        // Given
+        rateLimiter.setMaxConnections(1);
+        URI uri = new URI("ws://localhost:8080/relay?type=B&token=default-token-change-in-production");
+        when(mockSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(uri, new HttpHeaders()));
+        when(mockSession.receive()).thenReturn(Flux.empty());
+        when(mockSession.send(any())).thenReturn(Mono.empty());
+        when(mockSession.close(any(CloseStatus.class))).thenReturn(Mono.empty());
+        
+        // When: 첫 연결은 처리되고 수신이 끝나면 연결 수 반환
+        StepVerifier.create(handler.handle(mockSession))
+            .verifyComplete();
+        assertEquals(0, rateLimiter.getConnections());
+        
+        // 다른 연결이 상한을 채운 상태에서 새 연결
+        assertTrue(rateLimiter.tryAcquireConnection());
+        StepVerifier.create(handler.handle(mockSession))
+            .verifyComplete();
+        
+        // Then
+        verify(mockSession, times(1)).close(argThat(status -> 
+            status.getCode() == CloseStatus.SERVICE_OVERLOAD.getCode()
+        ));
+        assertEquals(1, rateLimiter.getConnections());
+    }
+    
+    /**
+     * 검증: peer= 로 연결해도 클러스터 비밀 값이 없거나 틀리면 링크로 등록되지 않고 1008로 종료되어야 함
+     * 목적: Access Token만 가진 클라이언트가 클러스터 링크로 위장하여 연결 수/속도 제한을 피할 수 없는지 확인
+     */
+    @Test
+    void handle_PeerWithoutClusterSecret_ClosesWithPolicyViolation() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(authService, "clusterSecret", "cluster-secret");
+        rateLimiter.setMaxConnections(1);
+        assertTrue(rateLimiter.tryAcquireConnection());
+        URI uri = new URI("ws://localhost:8080/relay?type=A&token=default-token-change-in-production&peer=x");
+        HttpHeaders wrongSecret = new HttpHeaders();
+        wrongSecret.set(AuthService.CLUSTER_SECRET_HEADER, "guess");
+        when(mockSession.close(any(CloseStatus.class))).thenReturn(Mono.empty());
+        
+        // When
+        when(mockSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(uri, new HttpHeaders()));
+        StepVerifier.create(handler.handle(mockSession))
+            .verifyComplete();
+        when(mockSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(uri, wrongSecret));
+        StepVerifier.create(handler.handle(mockSession))
+            .verifyComplete();
+        
+        // Then
+        verify(mockSession, times(2)).close(argThat(status -> 
+            status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()
+        ));
+        assertNull(sessionService.getClientA("test-session-1"));
+        
+        // 비밀 값이 맞으면 연결 수 상한과 관계없이 클러스터 링크로 등록
+        HttpHeaders validSecret = new HttpHeaders();
+        validSecret.set(AuthService.CLUSTER_SECRET_HEADER, "cluster-secret");
+        when(mockSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(uri, validSecret));
+        when(mockSession.receive()).thenReturn(Flux.never());
+        when(mockSession.send(any())).thenReturn(Mono.never());
+        handler.handle(mockSession).subscribe();
+        assertTrue(sessionService.getClientA("test-session-1").isPeer());
+    }
+    
     /**
      * 검증: 토큰 없이 연결 시도 시 연결이 거부되어야 함
      * 목적: 토큰이 필수임을 확인하고 인증 없이 접근 차단 확인
@@ -178,7 +279,7 @@ class RelayWebSocketHandlerTest {
         // 따라서 receive()를 never()로 설정하여 연결을 유지
         when(mockSession.receive()).thenReturn(Flux.never());
         when(mockSession.send(any())).thenReturn(Mono.empty());
-        when(mockSession.textMessage(anyString())).thenReturn(mock(WebSocketMessage.class));
+        when(mockSession.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
         
         // When - 비동기로 시작
         handler.handle(mockSession).subscribe();
@@ -202,7 +303,7 @@ class RelayWebSocketHandlerTest {
         // receive()를 never()로 설정하여 연결 유지 (doFinally 방지)
         when(mockSession.receive()).thenReturn(Flux.never());
         when(mockSession.send(any())).thenReturn(Mono.empty());
-        when(mockSession.textMessage(anyString())).thenReturn(mock(WebSocketMessage.class));
+        when(mockSession.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
         
         // When
         handler.handle(mockSession).subscribe();
@@ -229,7 +330,7 @@ class RelayWebSocketHandlerTest {
         when(mockSessionB.getHandshakeInfo()).thenReturn(handshakeInfoB);
         when(mockSessionB.receive()).thenReturn(Flux.never()); // 연결 유지
         when(mockSessionB.send(any())).thenReturn(Mono.empty());
-        when(mockSessionB.textMessage(anyString())).thenReturn(mock(WebSocketMessage.class));
+        when(mockSessionB.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
         
         // Client B 먼저 연결
         handler.handle(mockSessionB).subscribe();
@@ -246,8 +347,7 @@ class RelayWebSocketHandlerTest {
         requestMessage.setUrl("http://internal/api");
         
         String requestJson = objectMapper.writeValueAsString(requestMessage);
-        WebSocketMessage wsMessage = mock(WebSocketMessage.class);
-        when(wsMessage.getPayloadAsText()).thenReturn(requestJson);
+        WebSocketMessage wsMessage = textMessage(requestJson);
         
         // Client A 연결 (메시지는 200ms 후에 보냄)
         when(mockSession.receive()).thenReturn(
@@ -258,7 +358,7 @@ class RelayWebSocketHandlerTest {
             )
         );
         when(mockSession.send(any())).thenReturn(Mono.empty());
-        when(mockSession.textMessage(anyString())).thenReturn(mock(WebSocketMessage.class));
+        when(mockSession.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
         
         handler.handle(mockSession).subscribe();
         Thread.sleep(100); // 매핑 대기
@@ -283,7 +383,7 @@ class RelayWebSocketHandlerTest {
         when(mockSession.getHandshakeInfo()).thenReturn(handshakeInfo);
         
         when(mockSession.send(any())).thenReturn(Mono.empty());
-        when(mockSession.textMessage(anyString())).thenReturn(mock(WebSocketMessage.class));
+        when(mockSession.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
         when(mockSession.close(any())).thenReturn(Mono.empty());
         
         // When
@@ -313,8 +413,7 @@ class RelayWebSocketHandlerTest {
         RelayMessage pingMessage = new RelayMessage();
         pingMessage.setType(RelayMessage.MessageType.PING);
         String pingJson = objectMapper.writeValueAsString(pingMessage);
-        WebSocketMessage wsMessage = mock(WebSocketMessage.class);
-        when(wsMessage.getPayloadAsText()).thenReturn(pingJson);
+        WebSocketMessage wsMessage = textMessage(pingJson);
         
         WebSocketMessage pongMessage = mock(WebSocketMessage.class);
         when(mockSession.textMessage(anyString())).thenReturn(pongMessage);
@@ -327,5 +426,309 @@ class RelayWebSocketHandlerTest {
         // Then - PONG 응답 전송 확인
         verify(mockSession, atLeastOnce()).send(any());
     }
+    
+    /**
+     * 검증: PING마다 세션의 프레이밍 방식에 맞는 PONG 프레임이 전송되어야 함 (JSON/바이너리)
+     * 목적: 미리 직렬화한 PONG payload가 PING마다 재사용되어도 올바른 프레임인지 확인
+     */
+    @Test
+    void handle_PingMessages_RespondWithPreSerializedPong() throws Exception {
+        // Given
+        URI uri = new URI("ws://localhost:8080/relay?type=B&proto=bin&token=default-token-change-in-production");
+        when(mockSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(uri, new HttpHeaders()));
+        when(mockSession.bufferFactory()).thenReturn(DefaultDataBufferFactory.sharedInstance);
+        
+        RelayMessage ping = new RelayMessage();
+        ping.setType(RelayMessage.MessageType.PING);
+        WebSocketMessage jsonPing = textMessage(objectMapper.writeValueAsString(ping));
+        WebSocketMessage binaryPing = new WebSocketMessage(WebSocketMessage.Type.BINARY, 
+            BinaryFrameCodec.encode(ping, DefaultDataBufferFactory.sharedInstance));
+        when(mockSession.receive()).thenReturn(Flux.just(binaryPing, binaryPing));
+        
+        List<WebSocketMessage> sent = new CopyOnWriteArrayList<>();
+        when(mockSession.send(any())).thenAnswer(invocation -> 
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0)).doOnNext(sent::add).then());
+        
+        // When
+        handler.handle(mockSession).block();
+        
+        // Then - 두 PING 모두 같은 내용의 바이너리 PONG으로 응답
+        assertEquals(2, sent.size());
+        for (WebSocketMessage pong : sent) {
+            assertEquals(WebSocketMessage.Type.BINARY, pong.getType());
+            assertEquals(RelayMessage.MessageType.PONG, BinaryFrameCodec.decode(pong.getPayload()).getType());
+        }
+        
+        // JSON 세션은 TEXT PONG으로 응답
+        sent.clear();
+        WebSocketSession jsonSession = mock(WebSocketSession.class);
+        when(jsonSession.getId()).thenReturn("test-session-2");
+        when(jsonSession.isOpen()).thenReturn(true);
+        when(jsonSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(
+            new URI("ws://localhost:8080/relay?type=B&token=default-token-change-in-production"), new HttpHeaders()));
+        when(jsonSession.bufferFactory()).thenReturn(DefaultDataBufferFactory.sharedInstance);
+        when(jsonSession.receive()).thenReturn(Flux.just(jsonPing));
+        when(jsonSession.send(any())).thenAnswer(invocation -> 
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0)).doOnNext(sent::add).then());
+        
+        handler.handle(jsonSession).block();
+        
+        assertEquals(1, sent.size());
+        assertEquals(WebSocketMessage.Type.TEXT, sent.get(0).getType());
+        assertEquals(RelayMessage.MessageType.PONG, 
+            objectMapper.readValue(sent.get(0).getPayloadAsText(), RelayMessage.class).getType());
+    }
+    
+    /**
+     * 검증: pass-through 수신 프레임 버퍼는 처리 후 relay가 잡은 참조를 모두 해제해야 함
+     * 목적: 전달 대상이 없는 응답 프레임에서 Netty 버퍼 누수가 없는지 확인 (테스트는 paranoid 누수 감지로 실행)
+     */
+    @Test
+    void handle_PassThroughResponseWithoutClientA_ReleasesInboundBuffer() throws Exception {
+        // Given
+        URI uri = new URI("ws://localhost:8080/relay?type=B&token=default-token-change-in-production");
+        HandshakeInfo handshakeInfo = createHandshakeInfo(uri, new HttpHeaders());
+        when(mockSession.getHandshakeInfo()).thenReturn(handshakeInfo);
+        
+        byte[] json = "{\"type\":\"RESPONSE\",\"sessionId\":\"req-1\",\"statusCode\":200}".getBytes(StandardCharsets.UTF_8);
+        NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        NettyDataBuffer payload = bufferFactory.allocateBuffer(json.length);
+        payload.write(json);
+        when(mockSession.receive()).thenReturn(Flux.just(new WebSocketMessage(WebSocketMessage.Type.TEXT, payload)));
+        
+        // When
+        handler.handle(mockSession).block();
+        
+        // Then - 수신 측(Netty) 참조 1개만 남아 있어야 함
+        assertEquals(1, payload.getNativeBuffer().refCnt());
+        DataBufferUtils.release(payload);
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+    }
+    
+    /**
+     * 검증: Client B의 스트리밍 응답 조각은 Client A 전송이 느려도 송신 큐가 high-watermark 이하이면 큐에 넣고 계속 읽으며,
+     * 순서대로 전달되어야 함
+     * 목적: body를 재조립하지 않는 조각 단위 전달과 잠시 느린 Client A가 Client B 연결의 읽기를 바로 멈추지 않는지 확인
+     */
+    @Test
+    void handle_StreamingResponse_ForwardsChunksInOrderToSlowClientA() throws Exception {
+        // Given - Client A를 등록하고 Client B(test-session-1)로 스트리밍 요청(req-1)을 보낸 상태
+        registerClientB();
+        SlowClientA clientA = registerSlowClientA("session-a-1");
+        startStreamingRequest("session-a-1", "req-1");
+        
+        AtomicInteger emitted = new AtomicInteger();
+        when(mockSession.receive()).thenReturn(Flux.just(
+                textMessage("{\"type\":\"RESPONSE_START\",\"sessionId\":\"req-1\",\"statusCode\":200}"),
+                textMessage("{\"type\":\"BODY_CHUNK\",\"sessionId\":\"req-1\",\"body\":\"part-1\"}"),
+                textMessage("{\"type\":\"BODY_CHUNK\",\"sessionId\":\"req-1\",\"body\":\"part-2\"}"),
+                textMessage("{\"type\":\"END\",\"sessionId\":\"req-1\"}"))
+            .doOnNext(message -> emitted.incrementAndGet()));
+        
+        // When - 첫 조각 쓰기가 끝나지 않은 상태에서 Client B의 프레임을 모두 읽음
+        handler.handle(mockSession).block(Duration.ofSeconds(5));
+        
+        // Then - 쓰는 중인 1개만 전달되고 나머지는 Client A의 송신 큐에서 대기
+        assertEquals(4, emitted.get());
+        assertEquals(1, clientA.forwarded().size());
+        
+        clientA.gate().tryEmitEmpty();
+        assertEquals(4, clientA.forwarded().size());
+        assertTrue(clientA.forwarded().get(0).contains("RESPONSE_START"));
+        assertTrue(clientA.forwarded().get(1).contains("part-1"));
+        assertTrue(clientA.forwarded().get(2).contains("part-2"));
+        assertTrue(clientA.forwarded().get(3).contains("END"));
+    }
+    
+    /**
+     * 검증: Client A가 멈춰 송신 큐가 high-watermark를 넘으면 Client B 연결의 읽기가 멈추고,
+     * Client A가 다시 쓰기 시작하면 응답 조각이 빠짐없이 순서대로 전달되어야 함
+     * 목적: 느린 Client A 앞에서 relay에 응답을 쌓지 않고 Client B의 전송 속도를 조절하는지 확인 (end-to-end 흐름 제어)
+     */
+    @Test
+    void handle_SlowClientAAboveHighWatermark_StopsReadingClientB() throws Exception {
+        // Given - high-watermark 1KiB (조각 약 18개), 동시 처리 4, prefetch 2
+        ReflectionTestUtils.setField(sessionService, "outboundHighWatermarkBytes", 1024L);
+        ReflectionTestUtils.setField(handler, "receiveConcurrency", 4);
+        ReflectionTestUtils.setField(handler, "receivePrefetch", 2);
+        registerClientB();
+        SlowClientA clientA = registerSlowClientA("session-a-1");
+        startStreamingRequest("session-a-1", "req-1");
+        
+        int chunks = 10_000;
+        AtomicInteger emitted = new AtomicInteger();
+        when(mockSession.receive()).thenReturn(streamingResponse("req-1", chunks)
+            .doOnNext(message -> emitted.incrementAndGet()));
+        
+        // When - Client A의 첫 프레임 쓰기가 끝나지 않은 상태
+        CompletableFuture<Void> handled = handler.handle(mockSession).toFuture();
+        
+        // Then - high-watermark와 동시 처리/prefetch 수만큼만 읽고 멈춤
+        assertFalse(handled.isDone());
+        assertTrue(emitted.get() < 40, "Emitted: " + emitted.get());
+        assertEquals(1, messageRoutingService.getPendingRequestCount());
+        
+        // 쓰기가 재개되면 나머지를 읽어 모든 조각을 순서대로 전달
+        clientA.gate().tryEmitEmpty();
+        handled.get(10, TimeUnit.SECONDS);
+        List<String> forwarded = clientA.forwarded();
+        assertEquals(chunks + 2, forwarded.size());
+        assertTrue(forwarded.get(0).contains("RESPONSE_START"));
+        for (int i = 1; i <= chunks; i++) {
+            assertTrue(forwarded.get(i).contains("\"part-" + i + "\""), "Chunk out of order at " + i);
+        }
+        assertTrue(forwarded.get(chunks + 1).contains("END"));
+        assertEquals(0, messageRoutingService.getPendingRequestCount());
+    }
+    
+    /**
+     * 검증: Client A의 송신 큐가 바이트 상한을 넘어 응답을 보내지 못하면 요청이 중단되고 Client A 연결은 1013 상태로 종료되며,
+     * Client B 연결은 에러 없이 끝까지 읽혀야 함
+     * 목적: 중간에 끊긴 응답을 Client A가 끝난 응답으로 오인하지 않도록 종료 신호를 보내는지 확인
+     */
+    @Test
+    void handle_SlowClientAQueueOverflow_ClosesClientAWithError() throws Exception {
+        // Given - 바이트 상한이 high-watermark와 같아 Client B의 읽기를 멈추기 전에 상한에 도달
+        ReflectionTestUtils.setField(sessionService, "outboundQueueMaxBytes", 1024L);
+        ReflectionTestUtils.setField(sessionService, "outboundHighWatermarkBytes", 1024L);
+        registerClientB();
+        SlowClientA clientA = registerSlowClientA("session-a-1");
+        startStreamingRequest("session-a-1", "req-1");
+        
+        int chunks = 1_000;
+        AtomicInteger emitted = new AtomicInteger();
+        AtomicInteger pendingAtEnd = new AtomicInteger(-1);
+        when(mockSession.receive()).thenReturn(streamingResponse("req-1", chunks)
+            .doOnNext(message -> emitted.incrementAndGet())
+            .doOnComplete(() -> pendingAtEnd.set(messageRoutingService.getPendingRequestCount())));
+        
+        // When
+        handler.handle(mockSession).block(Duration.ofSeconds(10));
+        
+        // Then - Client B의 프레임은 모두 읽히고, 요청은 중단되며 Client A 연결은 한 번만 종료됨
+        assertEquals(chunks + 2, emitted.get());
+        assertEquals(0, pendingAtEnd.get());
+        verify(clientA.session(), times(1))
+            .close(argThat(status -> status.getCode() == CloseStatus.SERVICE_OVERLOAD.getCode()));
+        
+        // 큐에 들어갔던 앞부분만 순서대로 전달되고 END는 전달되지 않음
+        clientA.gate().tryEmitEmpty();
+        List<String> forwarded = clientA.forwarded();
+        assertTrue(forwarded.size() > 1 && forwarded.size() < chunks, "Forwarded: " + forwarded.size());
+        assertTrue(forwarded.get(0).contains("RESPONSE_START"));
+        for (int i = 1; i < forwarded.size(); i++) {
+            assertTrue(forwarded.get(i).contains("\"part-" + i + "\""), "Chunk out of order at " + i);
+        }
+    }
+    
+    /**
+     * 검증: 한 Client B가 두 Client A에게 응답할 때 한 Client A가 멈춰 있어도 그 송신 큐가 high-watermark 이하이면
+     * 다른 Client A는 응답 조각을 모두 순서대로 받고, 멈춘 Client A도 다시 쓰기 시작하면 응답 전체를 받아야 함
+     * 목적: 잠시 느린 Client A 하나가 공유 Client B 연결의 다른 요청을 막지 않는지 확인 (head-of-line blocking)
+     */
+    @Test
+    void handle_TwoClientAsOneStalledBelowHighWatermark_OtherReceivesFullResponse() throws Exception {
+        // Given - Client A 1은 쓰기가 끝나지 않고 Client A 2는 바로 씀
+        registerClientB();
+        SlowClientA stalled = registerSlowClientA("session-a-1");
+        startStreamingRequest("session-a-1", "req-1");
+        
+        WebSocketSession mockSessionA2 = mock(WebSocketSession.class);
+        when(mockSessionA2.getId()).thenReturn("session-a-2");
+        when(mockSessionA2.isOpen()).thenReturn(true);
+        when(mockSessionA2.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
+        List<String> received = new CopyOnWriteArrayList<>();
+        when(mockSessionA2.send(any())).thenAnswer(invocation -> {
+            Publisher<WebSocketMessage> messages = invocation.getArgument(0);
+            return Flux.from(messages).doOnNext(message -> received.add(message.getPayloadAsText())).then();
+        });
+        sessionService.registerSession(mockSessionA2, ClientType.CLIENT_A, "default-token-change-in-production");
+        sessionService.mapSessions("session-a-2", "test-session-1");
+        startStreamingRequest("session-a-2", "req-2");
+        
+        // Client A 1의 짧은 응답 다음에 Client A 2의 긴 응답을 수신
+        int chunks = 1_000;
+        AtomicInteger pendingAtEnd = new AtomicInteger(-1);
+        when(mockSession.receive()).thenReturn(Flux.concat(streamingResponse("req-1", 10), streamingResponse("req-2", chunks))
+            .doOnComplete(() -> pendingAtEnd.set(messageRoutingService.getPendingRequestCount())));
+        
+        // When
+        handler.handle(mockSession).block(Duration.ofSeconds(10));
+        
+        // Then - Client A 2는 응답 전체를 순서대로 받고, Client A 1의 응답은 송신 큐에서 대기
+        assertEquals(chunks + 2, received.size());
+        assertTrue(received.get(0).contains("RESPONSE_START"));
+        for (int i = 1; i <= chunks; i++) {
+            assertTrue(received.get(i).contains("\"part-" + i + "\""), "Chunk out of order at " + i);
+        }
+        assertTrue(received.get(chunks + 1).contains("END"));
+        assertEquals(1, stalled.forwarded().size());
+        assertEquals(0, pendingAtEnd.get());
+        
+        stalled.gate().tryEmitEmpty();
+        assertEquals(12, stalled.forwarded().size());
+        assertTrue(stalled.forwarded().get(11).contains("END"));
+    }
+    
+    /**
+     * 첫 프레임 쓰기가 gate가 열릴 때까지 끝나지 않는 느린 Client A
+     */
+    private record SlowClientA(WebSocketSession session, Sinks.Empty<Void> gate, List<String> forwarded) {
+    }
+    
+    private void registerClientB() throws Exception {
+        sessionService.registerSession(mockSession, ClientType.CLIENT_B, "default-token-change-in-production");
+        when(mockSession.textMessage(anyString())).thenAnswer(invocation -> textMessage(invocation.getArgument(0)));
+        // 요청을 모두 바로 씀
+        when(mockSession.send(any())).thenAnswer(invocation -> 
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0)).then());
+        URI uri = new URI("ws://localhost:8080/relay?type=B&token=default-token-change-in-production");
+        when(mockSession.getHandshakeInfo()).thenReturn(createHandshakeInfo(uri, new HttpHeaders()));
+    }
+    
+    private SlowClientA registerSlowClientA(String sessionId) {
+        WebSocketSession mockSessionA = mock(WebSocketSession.class);
+        when(mockSessionA.getId()).thenReturn(sessionId);
+        when(mockSessionA.isOpen()).thenReturn(true);
+        when(mockSessionA.close(any())).thenReturn(Mono.empty());
+        SlowClientA clientA = new SlowClientA(mockSessionA, Sinks.empty(), new CopyOnWriteArrayList<>());
+        // 전송 스트림은 프레임을 하나씩 가져감
+        when(mockSessionA.send(any())).thenAnswer(invocation -> {
+            Publisher<WebSocketMessage> messages = invocation.getArgument(0);
+            return Flux.from(messages)
+                .concatMap(message -> {
+                    clientA.forwarded().add(message.getPayloadAsText());
+                    return clientA.gate().asMono();
+                }, 0)
+                .then();
+        });
+        sessionService.registerSession(mockSessionA, ClientType.CLIENT_A, "default-token-change-in-production");
+        sessionService.mapSessions(sessionId, "test-session-1");
+        return clientA;
+    }
+    
+    private void startStreamingRequest(String clientASessionId, String requestSessionId) {
+        RelayMessage requestStart = new RelayMessage();
+        requestStart.setType(RelayMessage.MessageType.REQUEST_START);
+        requestStart.setSessionId(requestSessionId);
+        messageRoutingService.routeRequestToAgent(clientASessionId, requestStart).block();
+    }
+    
+    /**
+     * Client B의 스트리밍 응답 (demand가 있는 만큼만 조각을 생성, 소켓 읽기에 해당)
+     */
+    private Flux<WebSocketMessage> streamingResponse(String requestSessionId, int chunks) {
+        return Flux.range(0, chunks + 2)
+            .map(i -> {
+                if (i == 0) {
+                    return textMessage("{\"type\":\"RESPONSE_START\",\"sessionId\":\"" + requestSessionId 
+                        + "\",\"statusCode\":200}");
+                }
+                if (i == chunks + 1) {
+                    return textMessage("{\"type\":\"END\",\"sessionId\":\"" + requestSessionId + "\"}");
+                }
+                return textMessage("{\"type\":\"BODY_CHUNK\",\"sessionId\":\"" + requestSessionId 
+                    + "\",\"body\":\"part-" + i + "\"}");
+            });
+    }
 }
-
@@ -1,10 +1,14 @@
 package com.example.proxyrelay.handler;
 
+import com.example.proxyrelay.config.JacksonConfig;
 import com.example.proxyrelay.dto.ClientType;
 import com.example.proxyrelay.dto.RelayMessage;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.ratelimit.RateLimiter;
 import com.example.proxyrelay.service.AuthService;
 import com.example.proxyrelay.service.MessageRoutingService;
 import com.example.proxyrelay.service.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpHeaders;
@@ -42,7 +46,10 @@ class RelayWebSocketHandlerUnitTest {
         handler = new RelayWebSocketHandler(
             mockSessionService,
             mockAuthService,
-            mockMessageRoutingService
+            mockMessageRoutingService,
+            new RelayMetrics(new SimpleMeterRegistry(), mockSessionService),
+            JacksonConfig.createObjectMapper(),
+            new RateLimiter()
         );
         
         mockSession = mock(WebSocketSession.class);
@@ -0,0 +1,50 @@
+package com.example.proxyrelay.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RateLimiter 테스트
+ * 같은 Access Token 세션들의 토큰별 버킷 공유와 마지막 세션 종료 시 버킷 제거를 테스트합니다.
+ */
+class RateLimiterTest {
+    
+    /**
+     * 검증: 같은 토큰의 세션들은 토큰별 요청 버킷을 함께 쓰고, 다른 토큰의 세션은 따로 써야 함
+     * 목적: 토큰별 한도가 세션 합계에 적용되는지 확인
+     */
+    @Test
+    void newSession_SameToken_SharesTokenBuckets() {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setTokenRequestsPerSecond(1);
+        
+        SessionRateLimit first = rateLimiter.newSession("token-1");
+        SessionRateLimit second = rateLimiter.newSession("token-1");
+        SessionRateLimit other = rateLimiter.newSession("token-2");
+        
+        assertTrue(first.tryAcquireRequest());
+        assertFalse(second.tryAcquireRequest());
+        assertTrue(other.tryAcquireRequest());
+        assertEquals(2, rateLimiter.getTrackedTokens());
+    }
+    
+    /**
+     * 검증: 토큰별 버킷은 그 토큰의 마지막 세션이 닫힐 때 제거되고, close를 여러 번 호출해도 한 번만 반영되어야 함
+     * 목적: 토큰이 교체되어도 지나간 토큰의 버킷이 남지 않는지 확인
+     */
+    @Test
+    void close_LastSessionOfToken_RemovesTokenBuckets() {
+        RateLimiter rateLimiter = new RateLimiter();
+        
+        SessionRateLimit first = rateLimiter.newSession("token-1");
+        SessionRateLimit second = rateLimiter.newSession("token-1");
+        
+        first.close();
+        first.close();
+        assertEquals(1, rateLimiter.getTrackedTokens());
+        
+        second.close();
+        assertEquals(0, rateLimiter.getTrackedTokens());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.proxyrelay.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBucket 테스트
+ * 버킷 크기, 시간에 따른 충전, 부족분 차감과 한도 변경 반영을 테스트합니다.
+ */
+class TokenBucketTest {
+    
+    private long now = 1_000_000_000L;
+    
+    /**
+     * 검증: 가득 찬 버킷에서는 rate × burstSeconds개까지 꺼낼 수 있고, 그 뒤에는 경과 시간만큼만 다시 꺼낼 수 있어야 함
+     * 목적: 버킷 크기와 충전 속도 확인
+     */
+    @Test
+    void tryAcquire_BurstThenRefill_AllowsRateOverTime() {
+        TokenBucket bucket = new TokenBucket(() -> 10, () -> 0.5, () -> now);
+        
+        assertEquals(5, acquireAll(bucket));
+        
+        now += TimeUnit.MILLISECONDS.toNanos(200);
+        assertEquals(2, acquireAll(bucket));
+        
+        // 오래 쉬어도 버킷 크기 이상은 쌓이지 않음
+        now += TimeUnit.SECONDS.toNanos(10);
+        assertEquals(5, acquireAll(bucket));
+    }
+    
+    /**
+     * 검증: consume은 토큰이 부족해도 꺼내고, 부족분이 채워질 때까지 isAvailable과 tryAcquire가 거부되어야 함
+     * 목적: 이미 받은 바이트를 기록한 뒤 다음 요청부터 제한하는 동작 확인
+     */
+    @Test
+    void consume_MoreThanAvailable_BlocksUntilDebtRefilled() {
+        TokenBucket bucket = new TokenBucket(() -> 1000, () -> 1, () -> now);
+        
+        bucket.consume(3000);
+        assertFalse(bucket.isAvailable());
+        assertFalse(bucket.tryAcquire(1));
+        
+        now += TimeUnit.SECONDS.toNanos(2);
+        assertFalse(bucket.isAvailable());
+        now += TimeUnit.MILLISECONDS.toNanos(1);
+        assertTrue(bucket.isAvailable());
+        assertTrue(bucket.tryAcquire(1));
+    }
+    
+    /**
+     * 검증: rate가 0이면 제한하지 않고, 실행 중에 바꾼 rate는 다음 호출부터 적용되어야 함
+     * 목적: 한도의 실행 중 변경 반영 확인
+     */
+    @Test
+    void tryAcquire_RateChanged_AppliesImmediately() {
+        double[] rate = {0};
+        TokenBucket bucket = new TokenBucket(() -> rate[0], () -> 1, () -> now);
+        
+        assertEquals(100, acquireAll(bucket));
+        bucket.consume(1_000_000);
+        assertTrue(bucket.isAvailable());
+        
+        rate[0] = 3;
+        assertEquals(3, acquireAll(bucket));
+    }
+    
+    /**
+     * 최대 100개까지 꺼낼 수 있는 만큼 꺼냄
+     */
+    private static int acquireAll(TokenBucket bucket) {
+        int acquired = 0;
+        while (acquired < 100 && bucket.tryAcquire(1)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.proxyrelay.selection;
+
+import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.SessionInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Client B 선택 전략 테스트
+ * 라운드로빈, 최소 in-flight, EWMA, 호스트 해싱 선택을 테스트합니다.
+ */
+class AgentSelectorTest {
+    
+    /**
+     * 검증: 라운드로빈은 Client B를 순서대로 선택하고 연결 종료된 세션은 건너뛰어야 함
+     * 목적: 요청이 활성 에이전트에 고르게 분배되는지 확인
+     */
+    @Test
+    void roundRobin_SkipsInactiveAgents() {
+        SessionInfo b1 = agent("b-1", true);
+        SessionInfo b2 = agent("b-2", false);
+        SessionInfo b3 = agent("b-3", true);
+        List<SessionInfo> agents = List.of(b1, b2, b3);
+        HashRing ring = HashRing.of(agents);
+        AgentSelector selector = new RoundRobinSelector();
+        
+        assertSame(b1, selector.select(agents, ring, () -> null));
+        assertSame(b3, selector.select(agents, ring, () -> null));
+        assertSame(b3, selector.select(agents, ring, () -> null));
+        assertSame(b1, selector.select(agents, ring, () -> null));
+        HashRing closed = HashRing.of(List.of(agent("b-4", false)));
+        assertNull(selector.select(closed.agents(), closed, () -> null));
+    }
+    
+    /**
+     * 검증: 처리 중인 요청이 가장 적은 활성 Client B가 선택되어야 함
+     * 목적: 바쁜 에이전트를 피하는지 확인
+     */
+    @Test
+    void leastInFlight_SelectsLeastBusyActiveAgent() {
+        SessionInfo busy = agent("b-1", true);
+        SessionInfo idleButClosed = agent("b-2", false);
+        SessionInfo light = agent("b-3", true);
+        busy.tryAcquireInFlight(10);
+        busy.tryAcquireInFlight(10);
+        light.tryAcquireInFlight(10);
+        
+        HashRing ring = HashRing.of(List.of(busy, idleButClosed, light));
+        
+        assertSame(light, new LeastInFlightSelector().select(ring.agents(), ring, () -> null));
+    }
+    
+    /**
+     * 검증: 두 Client B 중 응답 지연 시간 EWMA가 훨씬 큰 쪽은 선택되지 않아야 함
+     * 목적: 느린 백엔드 근처의 에이전트에 요청이 몰리지 않는지 확인
+     */
+    @Test
+    void ewma_PrefersLowerLatencyAgent() {
+        SessionInfo slow = agent("b-1", true);
+        SessionInfo fast = agent("b-2", true);
+        slow.recordLatency(TimeUnit.MILLISECONDS.toNanos(500));
+        fast.recordLatency(TimeUnit.MILLISECONDS.toNanos(5));
+        HashRing ring = HashRing.of(List.of(slow, fast));
+        AgentSelector selector = new EwmaLatencySelector();
+        
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast, selector.select(ring.agents(), ring, () -> null));
+        }
+    }
+    
+    /**
+     * 검증: 같은 호스트의 요청은 항상 같은 Client B로 가고, Client B가 빠지면 그 Client B의 호스트만 옮겨져야 함
+     * 목적: 호스트 해싱 선택의 고정성과 최소 재배치 확인
+     */
+    @Test
+    void hostHash_SameHostSameAgentAndMinimalRemapping() {
+        List<SessionInfo> agents = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            agents.add(agent("b-" + i, true));
+        }
+        AgentSelector selector = new HostHashSelector();
+        HashRing ring = HashRing.of(agents);
+        
+        Map<String, SessionInfo> before = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            String url = "https://host-" + i + ".internal:8443/api?q=" + i;
+            before.put(url, selector.select(ring.agents(), ring, () -> url));
+            assertSame(before.get(url), selector.select(ring.agents(), ring, () -> url.replace("/api", "/other")));
+        }
+        
+        SessionInfo removed = agents.remove(0);
+        HashRing shrunk = HashRing.of(agents);
+        for (Map.Entry<String, SessionInfo> entry : before.entrySet()) {
+            SessionInfo after = selector.select(shrunk.agents(), shrunk, entry::getKey);
+            if (entry.getValue() != removed) {
+                assertSame(entry.getValue(), after, "Host moved although its agent is still connected: " + entry.getKey());
+            }
+        }
+    }
+    
+    /**
+     * 검증: Client B가 추가되면 새 Client B로 옮겨지는 호스트 외에는 그대로이고, 호스트가 Client B들에 고르게 나뉘어야 함
+     * 목적: consistent-hash 링의 최소 재배치와 가상 노드 분산 확인
+     */
+    @Test
+    void hostHash_AgentAdded_MovesHostsOnlyToNewAgent() {
+        List<SessionInfo> agents = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            agents.add(agent("b-" + i, true));
+        }
+        AgentSelector selector = new HostHashSelector();
+        HashRing ring = HashRing.of(agents);
+        
+        Map<String, SessionInfo> before = new HashMap<>();
+        Map<SessionInfo, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String url = "https://host-" + i + ".internal/api";
+            SessionInfo selected = selector.select(ring.agents(), ring, () -> url);
+            before.put(url, selected);
+            counts.merge(selected, 1, Integer::sum);
+        }
+        for (SessionInfo agent : agents) {
+            int count = counts.getOrDefault(agent, 0);
+            assertTrue(count > 300 && count < 700, agent.getSession().getId() + ": " + count);
+        }
+        
+        SessionInfo added = agent("b-5", true);
+        agents.add(added);
+        HashRing grown = HashRing.of(agents);
+        int moved = 0;
+        for (Map.Entry<String, SessionInfo> entry : before.entrySet()) {
+            SessionInfo after = selector.select(grown.agents(), grown, entry::getKey);
+            if (after != entry.getValue()) {
+                assertSame(added, after, "Host moved between existing agents: " + entry.getKey());
+                moved++;
+            }
+        }
+        assertTrue(moved > 200 && moved < 600, "moved: " + moved);
+    }
+    
+    /**
+     * 검증: URL에서 호스트(포트 포함)만 소문자로 추출되어야 함
+     * 목적: 경로, 쿼리, 사용자 정보가 해싱에 영향을 주지 않는지 확인
+     */
+    @Test
+    void hostOf_ExtractsHostAndPort() {
+        assertEquals("internal-api.company.com", HostHashSelector.hostOf("https://Internal-API.company.com/api/data"));
+        assertEquals("backend:8080", HostHashSelector.hostOf("http://user:pw@backend:8080?x=1"));
+        assertEquals("backend", HostHashSelector.hostOf("backend/path"));
+        assertNull(HostHashSelector.hostOf("http:///path"));
+        assertNull(HostHashSelector.hostOf(null));
+    }
+    
+    private static SessionInfo agent(String id, boolean open) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(open);
+        return new SessionInfo(session, ClientType.CLIENT_B, "token");
+    }
+}
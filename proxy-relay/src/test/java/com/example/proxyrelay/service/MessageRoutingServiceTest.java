@@ -1,21 +1,46 @@
 package com.example.proxyrelay.service;
 
+import com.example.proxyrelay.codec.BinaryFrameCodec;
+import com.example.proxyrelay.config.JacksonConfig;
 import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.FrameProtocol;
+import com.example.proxyrelay.dto.RelayEnvelope;
 import com.example.proxyrelay.dto.RelayMessage;
 import com.example.proxyrelay.dto.SessionInfo;
+import com.example.proxyrelay.metrics.RelayMetrics;
+import com.example.proxyrelay.ratelimit.RateLimiter;
+import com.example.proxyrelay.selection.AgentSelectionStrategy;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -26,13 +51,16 @@ class MessageRoutingServiceTest {
     
     private MessageRoutingService messageRoutingService;
     private SessionService sessionService;
+    private SimpleMeterRegistry meterRegistry;
     private WebSocketSession mockSessionA;
     private WebSocketSession mockSessionB;
     
     @BeforeEach
     void setUp() {
         sessionService = new SessionService();
-        messageRoutingService = new MessageRoutingService(sessionService);
+        meterRegistry = new SimpleMeterRegistry();
+        messageRoutingService = new MessageRoutingService(sessionService, new RelayMetrics(meterRegistry, sessionService), 
+            JacksonConfig.createObjectMapper());
         
         mockSessionA = mock(WebSocketSession.class);
         mockSessionB = mock(WebSocketSession.class);
@@ -94,6 +122,245 @@ class MessageRoutingServiceTest {
         assertNull(message);
     }
     
+    /**
+     * 검증: headers, body, statusCode가 포함된 응답 메시지가 단일 패스로 모두 파싱되어야 함
+     * 목적: 커스텀 역직렬화가 모든 필드를 기존과 동일하게 채우는지 확인
+     */
+    @Test
+    void parseMessage_ResponseWithHeadersAndBody_ParsesAllFields() {
+        String json = """
+            {
+                "sessionId": "test-session",
+                "headers": {"Content-Type": "text/html", "X-Empty": null},
+                "body": "<html></html>",
+                "statusCode": 200,
+                "error": null,
+                "type": "RESPONSE"
+            }
+            """;
+        
+        RelayMessage message = messageRoutingService.parseMessage(json);
+        
+        assertNotNull(message);
+        assertEquals(RelayMessage.MessageType.RESPONSE, message.getType());
+        assertEquals("test-session", message.getSessionId());
+        assertEquals("text/html", message.getHeaders().get("Content-Type"));
+        assertTrue(message.getHeaders().containsKey("X-Empty"));
+        assertEquals("<html></html>", message.getBody());
+        assertEquals(200, message.getStatusCode());
+        assertNull(message.getError());
+    }
+    
+    /**
+     * 검증: type이 CONNECT인 메시지는 null을 반환해야 함
+     * 목적: CONNECT 메시지가 파싱 단계에서 거부되는지 확인
+     */
+    @Test
+    void parseMessage_ConnectType_ReturnsNull() {
+        String json = """
+            {"type": "CONNECT", "sessionId": "test-session", "url": "internal:443"}
+            """;
+        
+        assertNull(messageRoutingService.parseMessage(json));
+    }
+    
+    /**
+     * 검증: 정의되지 않은 type이나 알 수 없는 필드가 있으면 null을 반환해야 함
+     * 목적: 잘못된 메시지 타입/필드에 대한 기존 동작 유지 확인
+     */
+    @Test
+    void parseMessage_UnknownTypeOrField_ReturnsNull() {
+        assertNull(messageRoutingService.parseMessage("{\"type\": \"UPGRADE\"}"));
+        assertNull(messageRoutingService.parseMessage("{\"type\": \"REQUEST\", \"unknown\": 1}"));
+    }
+    
+    /**
+     * 검증: envelope 스캔은 본문 위치와 관계없이 type과 sessionId를 읽어야 함
+     * 목적: pass-through 라우팅에 필요한 헤더 필드만 추출되는지 확인
+     */
+    @Test
+    void parseEnvelope_BodyBeforeEnvelopeFields_ReadsTypeAndSessionId() {
+        String json = """
+            {"body": "{\\"nested\\": [1, 2, 3]}", "headers": {"A": "B"}, "type": "RESPONSE", "sessionId": "test-session", "statusCode": 200}
+            """;
+        
+        RelayEnvelope envelope = messageRoutingService.parseEnvelope(json);
+        
+        assertNotNull(envelope);
+        assertEquals(RelayMessage.MessageType.RESPONSE, envelope.getType());
+        assertEquals("test-session", envelope.getSessionId());
+    }
+    
+    /**
+     * 검증: envelope 스캔에서도 CONNECT, 알 수 없는 타입, 잘못된 JSON은 null을 반환해야 함
+     * 목적: pass-through 경로가 parseMessage와 동일하게 메시지를 거부하는지 확인
+     */
+    @Test
+    void parseEnvelope_InvalidMessages_ReturnsNull() {
+        assertNull(messageRoutingService.parseEnvelope("{\"type\": \"CONNECT\", \"sessionId\": \"s\"}"));
+        assertNull(messageRoutingService.parseEnvelope("{\"type\": \"UPGRADE\"}"));
+        assertNull(messageRoutingService.parseEnvelope("[1, 2]"));
+        assertNull(messageRoutingService.parseEnvelope(""));
+    }
+    
+    /**
+     * 검증: type/sessionId가 두 번 나오거나, 객체가 잘렸거나, 객체 뒤에 다른 내용이 있는 프레임은 null을 반환해야 함
+     * 목적: envelope 스캔과 전달받는 쪽의 전체 파싱이 같은 프레임을 다르게 해석하지 않는지 확인
+     */
+    @Test
+    void parseEnvelope_DuplicateFieldsOrMalformedTail_ReturnsNull() {
+        assertNull(messageRoutingService.parseEnvelope(
+            "{\"type\": \"RESPONSE\", \"sessionId\": \"a\", \"sessionId\": \"b\"}"));
+        assertNull(messageRoutingService.parseEnvelope(
+            "{\"type\": \"RESPONSE\", \"sessionId\": \"a\", \"body\": \"x\", \"type\": \"REQUEST\"}"));
+        assertNull(messageRoutingService.parseEnvelope("{\"type\": \"RESPONSE\", \"sessionId\": \"a\", \"body\": \"x"));
+        assertNull(messageRoutingService.parseEnvelope("{\"type\": \"RESPONSE\", \"sessionId\": \"a\"} {\"type\": \"PING\"}"));
+        assertNull(messageRoutingService.parseEnvelope("{\"type\": \"RESPONSE\", \"sessionId\": \"a\"}]"));
+        
+        // 같은 내용을 DataBuffer로 받아도 동일하게 거부
+        NettyDataBuffer payload = nettyBuffer("{\"type\": \"RESPONSE\", \"sessionId\": \"a\", \"body\": ");
+        assertNull(messageRoutingService.parseEnvelope(payload));
+        DataBufferUtils.release(payload);
+    }
+    
+    /**
+     * 검증: sessionId가 없는 스트리밍 요청 조각은 Client B로 전달되지 않아야 함
+     * 목적: relay가 조각마다 다른 sessionId를 생성해 스트림이 끊어지는 것을 방지하는지 확인
+     */
+    @Test
+    void routeRequestToAgent_StreamingChunkWithoutSessionId_IsIgnored() {
+        RelayMessage chunk = new RelayMessage();
+        chunk.setType(RelayMessage.MessageType.BODY_CHUNK);
+        chunk.setBody("part-1");
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", chunk))
+            .verifyComplete();
+        
+        assertNull(chunk.getSessionId());
+        verify(mockSessionB, never()).send(any());
+        verify(mockSessionA, never()).send(any());
+    }
+    
+    /**
+     * 검증: Client B가 바이너리 프레이밍이면 JSON 요청이 바이너리 프레임으로 변환되어 전달되어야 함
+     * 목적: 프레이밍 방식이 다른 클라이언트 간 변환 및 수신 버퍼 해제 확인
+     */
+    @Test
+    void forwardRequestToAgent_BinaryAgent_TranslatesJsonToBinaryFrame() {
+        WebSocketSession binarySessionB = mock(WebSocketSession.class);
+        when(binarySessionB.getId()).thenReturn("session-b-bin");
+        when(binarySessionB.isOpen()).thenReturn(true);
+        when(binarySessionB.binaryMessage(any())).thenAnswer(invocation -> {
+            Function<DataBufferFactory, DataBuffer> payloadFactory = invocation.getArgument(0);
+            return new WebSocketMessage(WebSocketMessage.Type.BINARY, 
+                payloadFactory.apply(DefaultDataBufferFactory.sharedInstance));
+        });
+        List<WebSocketMessage> sentMessages = new ArrayList<>();
+        when(binarySessionB.send(any())).thenAnswer(invocation -> {
+            Publisher<WebSocketMessage> messages = invocation.getArgument(0);
+            return Flux.from(messages).doOnNext(sentMessages::add).then();
+        });
+        sessionService.registerSession(binarySessionB, ClientType.CLIENT_B, "token", FrameProtocol.BINARY);
+        sessionService.mapSessions("session-a-1", "session-b-bin");
+        
+        NettyDataBuffer payload = nettyBuffer("{\"type\":\"REQUEST\",\"sessionId\":\"req-1\",\"method\":\"GET\",\"url\":\"http://internal/api\"}");
+        
+        StepVerifier.create(messageRoutingService.forwardRequestToAgent("session-a-1", new RelayEnvelope(RelayMessage.MessageType.REQUEST, "req-1"), payload, FrameProtocol.JSON))
+            .verifyComplete();
+        
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+        assertEquals(1, sentMessages.size());
+        assertEquals(WebSocketMessage.Type.BINARY, sentMessages.get(0).getType());
+        RelayMessage sent = BinaryFrameCodec.decode(sentMessages.get(0).getPayload());
+        assertEquals(RelayMessage.MessageType.REQUEST, sent.getType());
+        assertEquals("req-1", sent.getSessionId());
+        assertEquals("GET", sent.getMethod());
+        assertEquals("http://internal/api", sent.getUrl());
+    }
+    
+    /**
+     * 검증: zero-copy 전달 시 수신 버퍼가 복사 없이 그대로 Client B 프레임에 담기고, 전송 후 해제되어야 함
+     * 목적: payload가 힙으로 복사되지 않고 참조 카운트가 정확히 관리되는지 확인
+     */
+    @Test
+    void forwardRequestToAgent_DataBuffer_HandsOffSameBuffer() {
+        NettyDataBuffer payload = nettyBuffer("{\"type\":\"REQUEST\",\"sessionId\":\"req-1\"}");
+        List<WebSocketMessage> sentMessages = new ArrayList<>();
+        when(mockSessionB.send(any())).thenAnswer(invocation -> {
+            Publisher<WebSocketMessage> messages = invocation.getArgument(0);
+            // Netty 쓰기 이후 프레임 해제를 흉내냄
+            return Flux.from(messages)
+                .doOnNext(sentMessages::add)
+                .doOnNext(message -> DataBufferUtils.release(message.getPayload()))
+                .then();
+        });
+        
+        Mono<Void> result = messageRoutingService.forwardRequestToAgent("session-a-1", new RelayEnvelope(RelayMessage.MessageType.REQUEST, "req-1"), payload, FrameProtocol.JSON);
+        
+        StepVerifier.create(result)
+            .verifyComplete();
+        
+        assertEquals(1, sentMessages.size());
+        assertSame(payload, sentMessages.get(0).getPayload());
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+    }
+    
+    /**
+     * 검증: Client B 세션이 프레임을 가져가지 않으면 relay가 버퍼를 해제해야 함
+     * 목적: 전송 실패/세션 종료 시 버퍼 누수 방지 확인
+     */
+    @Test
+    void forwardRequestToAgent_DataBuffer_NotConsumed_ReleasesBuffer() {
+        NettyDataBuffer payload = nettyBuffer("{\"type\":\"REQUEST\",\"sessionId\":\"req-1\"}");
+        when(mockSessionB.send(any())).thenReturn(Mono.empty());
+        
+        StepVerifier.create(messageRoutingService.forwardRequestToAgent("session-a-1", new RelayEnvelope(RelayMessage.MessageType.REQUEST, "req-1"), payload, FrameProtocol.JSON))
+            .verifyComplete();
+        
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+    }
+    
+    /**
+     * 검증: 매핑된 Client A가 없으면 응답 버퍼를 해제하고 전송하지 않아야 함
+     * 목적: 전달 대상이 없는 경우의 버퍼 누수 방지 확인
+     */
+    @Test
+    void forwardResponseToClient_DataBuffer_NoMapping_ReleasesBuffer() {
+        sessionService.removeSession("session-a-1");
+        NettyDataBuffer payload = nettyBuffer("{\"type\":\"RESPONSE\",\"sessionId\":\"req-1\"}");
+        
+        StepVerifier.create(messageRoutingService.forwardResponseToClient("session-b-1", new RelayEnvelope(RelayMessage.MessageType.RESPONSE, "req-1"), payload, FrameProtocol.JSON))
+            .verifyComplete();
+        
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+        verify(mockSessionA, never()).send(any());
+    }
+    
+    /**
+     * 검증: 버퍼에서 envelope을 스캔해도 read position이 바뀌지 않아야 함
+     * 목적: 스캔 후 같은 버퍼를 그대로 전달할 수 있는지 확인
+     */
+    @Test
+    void parseEnvelope_DataBuffer_DoesNotConsumeBuffer() {
+        NettyDataBuffer payload = nettyBuffer("{\"type\":\"RESPONSE\",\"sessionId\":\"req-1\",\"body\":\"ok\"}");
+        int readable = payload.readableByteCount();
+        
+        RelayEnvelope envelope = messageRoutingService.parseEnvelope(payload);
+        
+        assertNotNull(envelope);
+        assertEquals(RelayMessage.MessageType.RESPONSE, envelope.getType());
+        assertEquals("req-1", envelope.getSessionId());
+        assertEquals(readable, payload.readableByteCount());
+        DataBufferUtils.release(payload);
+    }
+    
+    private NettyDataBuffer nettyBuffer(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        NettyDataBuffer buffer = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT).allocateBuffer(bytes.length);
+        buffer.write(bytes);
+        return buffer;
+    }
+    
     /**
      * 검증: Client A의 요청이 매핑된 Client B로 올바르게 전달되어야 함
      * 목적: 외부 프록시(Client A)에서 내부 에이전트(Client B)로의 메시지 라우팅 확인
@@ -160,8 +427,15 @@ class MessageRoutingServiceTest {
             return Mono.empty();
         });
         
+        when(mockSessionB.send(any())).thenReturn(Mono.empty());
+        RelayMessage request = new RelayMessage();
+        request.setType(RelayMessage.MessageType.REQUEST);
+        request.setSessionId("req-1");
+        messageRoutingService.routeRequestToAgent("session-a-1", request).block();
+        
         RelayMessage response = new RelayMessage();
         response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-1");
         response.setStatusCode(200);
         
         Mono<Void> result = messageRoutingService.routeResponseToClient("session-b-1", response);
@@ -191,5 +465,469 @@ class MessageRoutingServiceTest {
         
         verify(mockSessionA, never()).send(any());
     }
+    
+    /**
+     * 검증: 여러 Client A가 하나의 Client B를 공유할 때 응답은 요청 sessionId로 요청한 Client A에게만 전달되어야 함
+     * 목적: 요청 다중화 시 응답 라우팅 및 처리 완료 후 in-flight 수 반환 확인
+     */
+    @Test
+    void routeResponseToClient_SharedAgent_RoutesBySessionId() {
+        WebSocketSession mockSessionA2 = mock(WebSocketSession.class);
+        when(mockSessionA2.getId()).thenReturn("session-a-2");
+        when(mockSessionA2.isOpen()).thenReturn(true);
+        sessionService.registerSession(mockSessionA2, ClientType.CLIENT_A, "token");
+        sessionService.mapSessions("session-a-2", "session-b-1");
+        
+        List<String> sentToA1 = stubTextSession(mockSessionA);
+        List<String> sentToA2 = stubTextSession(mockSessionA2);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-2", request("req-2")))
+            .verifyComplete();
+        assertEquals(2, sentToB.size());
+        assertEquals(2, sessionService.getClientB("session-b-1").getInFlightRequests());
+        
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-2");
+        response.setStatusCode(200);
+        StepVerifier.create(messageRoutingService.routeResponseToClient("session-b-1", response))
+            .verifyComplete();
+        
+        assertTrue(sentToA1.isEmpty());
+        assertEquals(1, sentToA2.size());
+        assertTrue(sentToA2.get(0).contains("\"req-2\""));
+        assertEquals(1, sessionService.getClientB("session-b-1").getInFlightRequests());
+        assertEquals(1, messageRoutingService.getPendingRequestCount());
+    }
+    
+    /**
+     * 검증: 다른 테넌트의 Client A가 같은 요청 sessionId를 사용해도 둘 다 처리 중인 요청으로 등록되고,
+     * 응답은 각 테넌트의 Client B가 보낸 것만 그 테넌트의 Client A에게 전달되어야 함
+     * 목적: 클라이언트가 정하는 sessionId로 다른 테넌트의 요청을 거부하거나 응답을 가로채지 못하는지 확인
+     */
+    @Test
+    void routeResponseToClient_SameSessionIdInTwoTenants_RoutesWithinTenant() {
+        WebSocketSession tenantSessionA = mock(WebSocketSession.class);
+        WebSocketSession tenantSessionB = mock(WebSocketSession.class);
+        when(tenantSessionA.getId()).thenReturn("session-a-t");
+        when(tenantSessionB.getId()).thenReturn("session-b-t");
+        when(tenantSessionA.isOpen()).thenReturn(true);
+        when(tenantSessionB.isOpen()).thenReturn(true);
+        sessionService.registerSession(tenantSessionA, ClientType.CLIENT_A, "token-t", FrameProtocol.JSON, null, "team-t");
+        sessionService.registerSession(tenantSessionB, ClientType.CLIENT_B, "token-t", FrameProtocol.JSON, null, "team-t");
+        sessionService.mapSessions("session-a-t", "session-b-t");
+        
+        List<String> sentToA = stubTextSession(mockSessionA);
+        List<String> sentToTenantA = stubTextSession(tenantSessionA);
+        stubTextSession(mockSessionB);
+        stubTextSession(tenantSessionB);
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-t", request("req-1")))
+            .verifyComplete();
+        assertTrue(sentToTenantA.isEmpty(), "Same sessionId in another tenant must not be rejected: " + sentToTenantA);
+        assertEquals(2, messageRoutingService.getPendingRequestCount());
+        
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-1");
+        response.setStatusCode(200);
+        StepVerifier.create(messageRoutingService.routeResponseToClient("session-b-t", response))
+            .verifyComplete();
+        
+        assertTrue(sentToA.isEmpty());
+        assertEquals(1, sentToTenantA.size());
+        assertEquals(0, sessionService.getClientB("session-b-t").getInFlightRequests());
+        assertEquals(1, sessionService.getClientB("session-b-1").getInFlightRequests());
+        assertEquals(1, messageRoutingService.getPendingRequestCount());
+    }
+    
+    /**
+     * 검증: 요청/응답 전달 시 송신 프레임 수와 에이전트별 응답 지연 시간이 기록되고, 에이전트 연결 종료 시 지연 시간 Timer가 제거되어야 함
+     * 목적: 라우팅 경로의 메트릭 기록 확인
+     */
+    @Test
+    void routeResponseToClient_Response_RecordsMetrics() {
+        stubTextSession(mockSessionA);
+        stubTextSession(mockSessionB);
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        assertEquals(1.0, meterRegistry.get("relay.requests.in_flight").gauge().value());
+        
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-1");
+        response.setStatusCode(200);
+        StepVerifier.create(messageRoutingService.routeResponseToClient("session-b-1", response))
+            .verifyComplete();
+        
+        assertEquals(1.0, meterRegistry.get("relay.frames.sent").tag("client_type", "CLIENT_B").counter().count());
+        assertEquals(1.0, meterRegistry.get("relay.frames.sent").tag("client_type", "CLIENT_A").counter().count());
+        assertTrue(meterRegistry.get("relay.bytes.sent").tag("client_type", "CLIENT_A").counter().count() > 0);
+        assertEquals(1, meterRegistry.get("relay.request.latency").tag("agent", "session-b-1").timer().count());
+        assertEquals(0.0, meterRegistry.get("relay.requests.in_flight").gauge().value());
+        assertEquals(1.0, meterRegistry.get("relay.sessions.active").tag("client_type", "CLIENT_B").gauge().value());
+        
+        messageRoutingService.releaseRequests("session-b-1");
+        assertNull(meterRegistry.find("relay.request.latency").tag("agent", "session-b-1").timer());
+    }
+    
+    /**
+     * 검증: Client B의 in-flight 한도에 도달하면 새 요청은 전달되지 않고 503 에러 응답을 받으며 거부 메트릭에 집계되어야 함
+     * 목적: 에이전트별 동시 처리 요청 수 제한 확인
+     */
+    @Test
+    void routeRequestToAgent_MaxInFlightReached_RespondsAgentBusy() throws Exception {
+        ReflectionTestUtils.setField(messageRoutingService, "maxInFlightPerAgent", 1);
+        List<String> sentToA = stubTextSession(mockSessionA);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-2")))
+            .verifyComplete();
+        
+        assertEquals(1, sentToB.size());
+        assertEquals(1, sentToA.size());
+        RelayMessage error = new ObjectMapper().readValue(sentToA.get(0), RelayMessage.class);
+        assertEquals("req-2", error.getSessionId());
+        assertEquals(503, error.getStatusCode());
+        assertEquals(1.0, meterRegistry.get("relay.requests.rejected").tag("reason", "agent_busy").counter().count());
+    }
+    
+    /**
+     * 검증: Client A 세션의 초당 요청 수 한도를 넘은 요청은 Client B로 전달되지 않고 바로 429 에러 응답을 받아야 함
+     * 목적: 세션별 요청 속도 제한과 대기 없는 거부 확인
+     */
+    @Test
+    void routeRequestToAgent_SessionRateLimitExceeded_Responds429() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setSessionRequestsPerSecond(1);
+        sessionService.getClientA("session-a-1").setRateLimit(rateLimiter.newSession("token"));
+        List<String> sentToA = stubTextSession(mockSessionA);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-2")))
+            .verifyComplete();
+        
+        assertEquals(1, sentToB.size());
+        assertEquals(1, sentToA.size());
+        RelayMessage error = new ObjectMapper().readValue(sentToA.get(0), RelayMessage.class);
+        assertEquals("req-2", error.getSessionId());
+        assertEquals(429, error.getStatusCode());
+        assertEquals(1.0, meterRegistry.get("relay.requests.rate_limited").counter().count());
+        assertEquals(1, messageRoutingService.getPendingRequestCount());
+    }
+    
+    /**
+     * 검증: Client B 연결 종료 시 처리 중인 요청이 정리되고, Client A는 다른 Client B로 다시 매핑되어야 함
+     * 목적: 에이전트 교체 시 요청 다중화 상태가 남지 않는지 확인
+     */
+    @Test
+    void routeRequestToAgent_MappedAgentDisconnected_RemapsToAnotherAgent() {
+        stubTextSession(mockSessionA);
+        stubTextSession(mockSessionB);
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        
+        WebSocketSession mockSessionB2 = mock(WebSocketSession.class);
+        when(mockSessionB2.getId()).thenReturn("session-b-2");
+        when(mockSessionB2.isOpen()).thenReturn(true);
+        List<String> sentToB2 = stubTextSession(mockSessionB2);
+        sessionService.registerSession(mockSessionB2, ClientType.CLIENT_B, "token");
+        
+        messageRoutingService.releaseRequests("session-b-1");
+        sessionService.removeSession("session-b-1");
+        assertEquals(0, messageRoutingService.getPendingRequestCount());
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-2")))
+            .verifyComplete();
+        
+        assertEquals(1, sentToB2.size());
+        assertEquals("session-b-2", sessionService.getMappedClientB("session-a-1").getSession().getId());
+    }
+    
+    /**
+     * 검증: 처리 중인 요청이 있는 Client B가 연결 종료되면 Client A는 즉시 502 에러 응답을 받아야 함
+     * 목적: 에이전트 장애 시 Client A가 자체 타임아웃까지 기다리지 않는지 확인
+     */
+    @Test
+    void releaseRequests_AgentDisconnected_FailsInFlightRequestsWith502() throws Exception {
+        List<String> sentToA = stubTextSession(mockSessionA);
+        stubTextSession(mockSessionB);
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        
+        messageRoutingService.releaseRequests("session-b-1");
+        
+        assertEquals(1, sentToA.size());
+        RelayMessage error = new ObjectMapper().readValue(sentToA.get(0), RelayMessage.class);
+        assertEquals("req-1", error.getSessionId());
+        assertEquals(502, error.getStatusCode());
+        assertEquals(0, messageRoutingService.getPendingRequestCount());
+        assertEquals(0, sessionService.getClientB("session-b-1").getInFlightRequests());
+    }
+    
+    /**
+     * 검증: 전송 스트림이 이미 종료된 Client B로 보낸 요청은 처리 중인 요청으로 남지 않고 Client A가 바로 502 에러 응답을 받아야 함
+     * 목적: Client B 연결 정리(releaseRequests) 직전에 등록된 요청이 응답 기한까지 기다리지 않는지 확인
+     */
+    @Test
+    void routeRequestToAgent_AgentSendStreamClosed_FailsWith502() throws Exception {
+        List<String> sentToA = stubTextSession(mockSessionA);
+        stubTextSession(mockSessionB);
+        // 전송 스트림이 바로 종료되는 (연결이 끊기는 중인) Client B
+        doReturn(Mono.empty()).when(mockSessionB).send(any());
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        
+        assertEquals(0, messageRoutingService.getPendingRequestCount());
+        assertEquals(0, sessionService.getClientB("session-b-1").getInFlightRequests());
+        assertEquals(1, sentToA.size());
+        RelayMessage error = new ObjectMapper().readValue(sentToA.get(0), RelayMessage.class);
+        assertEquals("req-1", error.getSessionId());
+        assertEquals(502, error.getStatusCode());
+    }
+    
+    /**
+     * 검증: 응답 기한 내에 Client B가 응답하지 않으면 Client A는 504 에러 응답을 받고, 늦은 응답은 전달되지 않아야 함
+     * 목적: 타이머 기반 요청 기한 처리 확인
+     */
+    @Test
+    void routeRequestToAgent_NoResponseBeforeDeadline_FailsWith504() throws Exception {
+        ReflectionTestUtils.setField(messageRoutingService, "requestTimeoutMillis", 200L);
+        List<String> sentToA = java.util.Collections.synchronizedList(stubTextSession(mockSessionA));
+        stubTextSession(mockSessionB);
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sentToA.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        
+        assertEquals(0, messageRoutingService.getPendingRequestCount());
+        assertEquals(0, sessionService.getClientB("session-b-1").getInFlightRequests());
+        assertEquals(1, sentToA.size());
+        RelayMessage error = new ObjectMapper().readValue(sentToA.get(0), RelayMessage.class);
+        assertEquals(504, error.getStatusCode());
+        
+        // 기한 이후 도착한 응답은 버려짐
+        RelayMessage lateResponse = new RelayMessage();
+        lateResponse.setType(RelayMessage.MessageType.RESPONSE);
+        lateResponse.setSessionId("req-1");
+        lateResponse.setStatusCode(200);
+        StepVerifier.create(messageRoutingService.routeResponseToClient("session-b-1", lateResponse))
+            .verifyComplete();
+        assertEquals(1, sentToA.size());
+    }
+    
+    /**
+     * 검증: 요청별 선택 전략(ROUND_ROBIN)에서는 Client A의 매핑과 관계없이 요청이 Client B들에 번갈아 전달되어야 함
+     * 목적: relay.agent.selection 설정이 새 요청의 에이전트 선택에 적용되는지 확인
+     */
+    @Test
+    void routeRequestToAgent_RoundRobinSelection_SpreadsRequestsAcrossAgents() {
+        ReflectionTestUtils.setField(messageRoutingService, "agentSelection", AgentSelectionStrategy.ROUND_ROBIN);
+        stubTextSession(mockSessionA);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        WebSocketSession mockSessionB2 = mock(WebSocketSession.class);
+        when(mockSessionB2.getId()).thenReturn("session-b-2");
+        when(mockSessionB2.isOpen()).thenReturn(true);
+        List<String> sentToB2 = stubTextSession(mockSessionB2);
+        sessionService.registerSession(mockSessionB2, ClientType.CLIENT_B, "token");
+        
+        for (int i = 1; i <= 4; i++) {
+            StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-" + i)))
+                .verifyComplete();
+        }
+        
+        assertEquals(2, sentToB.size());
+        assertEquals(2, sentToB2.size());
+    }
+    
+    /**
+     * 검증: 캐시를 사용하면 같은 GET 요청의 두 번째 응답은 Client B에 요청을 보내지 않고 캐시에서 전달되어야 함
+     * 목적: relay.cache.max-bytes 설정 시 캐시 적중이 에이전트를 거치지 않는지 확인
+     */
+    @Test
+    void routeRequestToAgent_CachedGet_ServedWithoutAgent() throws Exception {
+        ReflectionTestUtils.setField(messageRoutingService, "cacheMaxBytes", 1L << 20);
+        List<String> sentToA = stubTextSession(mockSessionA);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-1");
+        response.setStatusCode(200);
+        response.setHeaders(java.util.Map.of("Cache-Control", "max-age=60"));
+        response.setBody("static");
+        StepVerifier.create(messageRoutingService.routeResponseToClient("session-b-1", response))
+            .verifyComplete();
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-2")))
+            .verifyComplete();
+        
+        assertEquals(1, sentToB.size());
+        assertEquals(2, sentToA.size());
+        RelayMessage cached = new ObjectMapper().readValue(sentToA.get(1), RelayMessage.class);
+        assertEquals("req-2", cached.getSessionId());
+        assertEquals(200, cached.getStatusCode());
+        assertEquals("static", cached.getBody());
+        assertEquals(1.0, meterRegistry.get("relay.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(0, messageRoutingService.getPendingRequestCount());
+    }
+    
+    /**
+     * 검증: 요청 병합을 사용하면 처리 중인 요청과 같은 GET 요청은 Client B로 보내지 않고, 응답이 각 요청의 sessionId로 전달되어야 함
+     * 목적: 동시에 들어온 같은 요청이 에이전트 요청 하나로 처리되는지 확인
+     */
+    @Test
+    void routeRequestToAgent_IdenticalConcurrentGets_CoalescedIntoOneAgentRequest() throws Exception {
+        ReflectionTestUtils.setField(messageRoutingService, "coalesceRequests", true);
+        WebSocketSession mockSessionA2 = mock(WebSocketSession.class);
+        when(mockSessionA2.getId()).thenReturn("session-a-2");
+        when(mockSessionA2.isOpen()).thenReturn(true);
+        sessionService.registerSession(mockSessionA2, ClientType.CLIENT_A, "token");
+        sessionService.mapSessions("session-a-2", "session-b-1");
+        List<String> sentToA1 = stubTextSession(mockSessionA);
+        List<String> sentToA2 = stubTextSession(mockSessionA2);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-2", request("req-2")))
+            .verifyComplete();
+        assertEquals(1, sentToB.size());
+        
+        RelayMessage response = new RelayMessage();
+        response.setType(RelayMessage.MessageType.RESPONSE);
+        response.setSessionId("req-1");
+        response.setStatusCode(200);
+        response.setBody("shared");
+        StepVerifier.create(messageRoutingService.routeResponseToClient("session-b-1", response))
+            .verifyComplete();
+        
+        ObjectMapper objectMapper = new ObjectMapper();
+        RelayMessage toA1 = objectMapper.readValue(sentToA1.get(0), RelayMessage.class);
+        RelayMessage toA2 = objectMapper.readValue(sentToA2.get(0), RelayMessage.class);
+        assertEquals("req-1", toA1.getSessionId());
+        assertEquals("req-2", toA2.getSessionId());
+        assertEquals("shared", toA2.getBody());
+        assertEquals(1.0, meterRegistry.get("relay.requests.coalesced").counter().count());
+        
+        // 완료 후 같은 요청은 다시 Client B로 전달
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-2", request("req-3")))
+            .verifyComplete();
+        assertEquals(2, sentToB.size());
+    }
+    
+    /**
+     * 검증: 병합된 요청의 Client B가 연결 종료되면 기다리던 요청도 각자의 sessionId로 502 에러 응답을 받아야 함
+     * 목적: leader 요청의 실패가 병합된 요청에 전달되는지 확인
+     */
+    @Test
+    void releaseRequests_CoalescedRequestAgentDisconnected_FailsAllWaitersWith502() throws Exception {
+        ReflectionTestUtils.setField(messageRoutingService, "coalesceRequests", true);
+        List<String> sentToA = stubTextSession(mockSessionA);
+        List<String> sentToB = stubTextSession(mockSessionB);
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-2")))
+            .verifyComplete();
+        
+        messageRoutingService.releaseRequests("session-b-1");
+        
+        assertEquals(1, sentToB.size());
+        assertEquals(2, sentToA.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String sent : sentToA) {
+            assertEquals(502, objectMapper.readValue(sent, RelayMessage.class).getStatusCode());
+        }
+        assertTrue(sentToA.get(0).contains("\"req-1\"") || sentToA.get(1).contains("\"req-1\""));
+        assertTrue(sentToA.get(0).contains("\"req-2\"") || sentToA.get(1).contains("\"req-2\""));
+    }
+    
+    /**
+     * 검증: pass-through 요청 프레임에서 대상 URL만 읽고 버퍼는 소비하지 않아야 함
+     * 목적: HOST_HASH 선택 시 요청 본문을 역직렬화하지 않고 대상 호스트를 알 수 있는지 확인
+     */
+    @Test
+    void parseTargetUrl_JsonFrame_ReadsUrlWithoutConsumingBuffer() {
+        DataBuffer payload = DefaultDataBufferFactory.sharedInstance.wrap(
+            "{\"type\":\"REQUEST\",\"sessionId\":\"req-1\",\"headers\":{\"Accept\":\"*/*\"},\"url\":\"http://internal/api\"}"
+                .getBytes(StandardCharsets.UTF_8));
+        int readable = payload.readableByteCount();
+        
+        assertEquals("http://internal/api", messageRoutingService.parseTargetUrl(payload, FrameProtocol.JSON));
+        assertEquals(readable, payload.readableByteCount());
+        assertNull(messageRoutingService.parseTargetUrl(
+            DefaultDataBufferFactory.sharedInstance.wrap("{\"type\":\"REQUEST\"}".getBytes(StandardCharsets.UTF_8)), 
+            FrameProtocol.JSON));
+    }
+    
+    /**
+     * 검증: 샘플로 선택된 요청은 pass-through 응답이어도 상태 코드와 URL이 접근 로그 파일에 한 줄 JSON으로 기록되어야 함
+     * 목적: 요청별 INFO 로그를 대신하는 샘플링 접근 로그 확인 (종료 시 남은 기록을 모두 씀)
+     */
+    @Test
+    void forwardResponseToClient_SampledRequest_WritesAccessLogLine(@TempDir Path tempDir) throws Exception {
+        Path accessLogFile = tempDir.resolve("access.log");
+        ReflectionTestUtils.setField(messageRoutingService, "accessLogSampleRate", 1.0);
+        ReflectionTestUtils.setField(messageRoutingService, "accessLogFile", accessLogFile.toString());
+        stubTextSession(mockSessionA);
+        stubTextSession(mockSessionB);
+        StepVerifier.create(messageRoutingService.routeRequestToAgent("session-a-1", request("req-1")))
+            .verifyComplete();
+        
+        DataBuffer response = DefaultDataBufferFactory.sharedInstance.wrap(
+            "{\"type\":\"RESPONSE\",\"sessionId\":\"req-1\",\"statusCode\":404,\"body\":\"missing\"}"
+                .getBytes(StandardCharsets.UTF_8));
+        StepVerifier.create(messageRoutingService.forwardResponseToClient("session-b-1", 
+                new RelayEnvelope(RelayMessage.MessageType.RESPONSE, "req-1"), response, FrameProtocol.JSON))
+            .verifyComplete();
+        messageRoutingService.destroy();
+        
+        List<String> lines = Files.readAllLines(accessLogFile);
+        assertEquals(1, lines.size());
+        JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("req-1", line.get("sessionId").asText());
+        assertEquals("session-a-1", line.get("clientA").asText());
+        assertEquals("session-b-1", line.get("clientB").asText());
+        assertEquals("http://internal/api", line.get("url").asText());
+        assertEquals(404, line.get("status").asInt());
+        assertTrue(line.get("latencyMs").isNumber());
+    }
+    
+    private RelayMessage request(String sessionId) {
+        RelayMessage request = new RelayMessage();
+        request.setType(RelayMessage.MessageType.REQUEST);
+        request.setSessionId(sessionId);
+        request.setMethod("GET");
+        request.setUrl("http://internal/api");
+        return request;
+    }
+    
+    /**
+     * TEXT 프레임 생성/전송을 실제 메시지로 처리하고 전송된 payload를 기록하는 mock 설정
+     */
+    private List<String> stubTextSession(WebSocketSession session) {
+        List<String> sent = new ArrayList<>();
+        when(session.textMessage(anyString())).thenAnswer(invocation -> new WebSocketMessage(WebSocketMessage.Type.TEXT, 
+            DefaultDataBufferFactory.sharedInstance.wrap(invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8))));
+        when(session.send(any())).thenAnswer(invocation -> {
+            Publisher<WebSocketMessage> messages = invocation.getArgument(0);
+            return Flux.from(messages).doOnNext(message -> sent.add(message.getPayloadAsText())).then();
+        });
+        return sent;
+    }
 }
-
@@ -0,0 +1,257 @@
+package com.example.proxyrelay.service;
+
+import com.example.proxyrelay.codec.HeaderTable;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * OutboundQueue 테스트
+ * 세션별 송신 큐의 전송 스트림 공유, 용량(메시지 수/바이트 수) 초과, 종료 처리를 테스트합니다.
+ */
+class OutboundQueueTest {
+    
+    private WebSocketSession mockSession;
+    private List<String> sent;
+    
+    @BeforeEach
+    void setUp() {
+        mockSession = mock(WebSocketSession.class);
+        when(mockSession.getId()).thenReturn("session-1");
+        sent = new CopyOnWriteArrayList<>();
+    }
+    
+    /**
+     * 검증: 여러 메시지를 보내도 session.send는 한 번만 호출되고 메시지는 보낸 순서대로 전송되어야 함
+     * 목적: 메시지마다 send 파이프라인을 만들지 않고 하나의 전송 스트림을 공유하는지 확인
+     */
+    @Test
+    void send_MultipleMessages_SharesSingleSendStream() {
+        when(mockSession.send(any())).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0))
+                .doOnNext(message -> sent.add(message.getPayloadAsText()))
+                .then());
+        OutboundQueue queue = new OutboundQueue(mockSession, 16);
+        
+        for (int i = 1; i <= 3; i++) {
+            StepVerifier.create(queue.send(textMessage("m" + i)))
+                .verifyComplete();
+        }
+        StepVerifier.create(queue.close())
+            .verifyComplete();
+        
+        verify(mockSession, times(1)).send(any());
+        assertEquals(List.of("m1", "m2", "m3"), sent);
+    }
+    
+    /**
+     * 검증: 상대 세션이 프레임을 가져가지 않아 큐가 가득 차면 새 메시지는 에러로 완료되고 payload가 해제되어야 함
+     * 목적: 느린 세션이 relay 메모리를 무한히 점유하지 않는지 확인
+     */
+    @Test
+    void send_QueueFull_FailsAndReleasesPayload() {
+        // 첫 프레임 쓰기가 끝나지 않는 느린 세션
+        Sinks.Empty<Void> gate = Sinks.empty();
+        when(mockSession.send(any())).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0))
+                .concatMap(message -> {
+                    sent.add(message.getPayloadAsText());
+                    return gate.asMono();
+                }, 0)
+                .then());
+        OutboundQueue queue = new OutboundQueue(mockSession, 8);
+        
+        // 1개는 전송 중, 8개는 큐에서 대기
+        for (int i = 1; i <= 9; i++) {
+            queue.send(textMessage("m" + i)).subscribe();
+        }
+        assertEquals(List.of("m1"), sent);
+        
+        NettyDataBuffer payload = nettyBuffer("m10");
+        StepVerifier.create(queue.send(new WebSocketMessage(WebSocketMessage.Type.TEXT, payload)))
+            .expectError(IllegalStateException.class)
+            .verify();
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+        
+        // 쓰기가 재개되면 대기 중인 메시지는 순서대로 전송됨
+        gate.tryEmitEmpty();
+        assertEquals(9, sent.size());
+        assertEquals("m9", sent.get(8));
+    }
+    
+    /**
+     * 검증: 전송 대기 payload가 바이트 상한을 넘게 되는 메시지는 메시지 수가 남아 있어도 에러로 완료되고 payload가 해제되어야 함
+     * 목적: 큰 프레임이 쌓여도 relay 메모리가 바이트 상한으로 제한되는지 확인
+     */
+    @Test
+    void send_QueuedBytesOverMax_FailsAndReleasesPayload() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        when(mockSession.send(any())).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0))
+                .concatMap(message -> {
+                    sent.add(message.getPayloadAsText());
+                    return gate.asMono();
+                }, 0)
+                .then());
+        OutboundQueue queue = new OutboundQueue(mockSession, 16, 10, 10);
+        
+        // m1은 전송 중(바이트 상한에서 제외), 4바이트 메시지 2개는 큐에서 대기 (8바이트)
+        for (String text : List.of("m1", "m002", "m003")) {
+            queue.send(textMessage(text)).subscribe();
+        }
+        NettyDataBuffer payload = nettyBuffer("m004");
+        StepVerifier.create(queue.send(new WebSocketMessage(WebSocketMessage.Type.TEXT, payload)))
+            .expectErrorMessage("Outbound queue full (max bytes: 10)")
+            .verify();
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+        
+        // 전송 스트림이 가져간 만큼 다시 받음
+        gate.tryEmitEmpty();
+        assertEquals(List.of("m1", "m002", "m003"), sent);
+        StepVerifier.create(queue.send(textMessage("m005")))
+            .verifyComplete();
+    }
+    
+    /**
+     * 검증: offer는 상대 세션이 프레임을 가져가지 않아도 큐에 들어가면 완료되고, 큐가 가득 차면 에러로 완료되어야 함
+     * 목적: 여러 요청을 나르는 연결이 느린 세션의 전송 완료를 기다리지 않는지 확인
+     */
+    @Test
+    void offer_SlowSession_CompletesWhenQueued() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        when(mockSession.send(any())).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0))
+                .concatMap(message -> {
+                    sent.add(message.getPayloadAsText());
+                    return gate.asMono();
+                }, 0)
+                .then());
+        OutboundQueue queue = new OutboundQueue(mockSession, 8);
+        
+        // 1개는 전송 중, 8개는 큐에서 대기
+        for (int i = 1; i <= 9; i++) {
+            StepVerifier.create(queue.offer(textMessage("m" + i)))
+                .verifyComplete();
+        }
+        StepVerifier.create(queue.offer(textMessage("m10")))
+            .expectError(IllegalStateException.class)
+            .verify();
+        
+        gate.tryEmitEmpty();
+        assertEquals(9, sent.size());
+        assertEquals("m9", sent.get(8));
+    }
+    
+    /**
+     * 검증: offer는 전송 대기 payload가 high-watermark를 넘게 되는 메시지부터 전송 스트림이 가져갈 때 완료되어야 함
+     * 목적: 여러 요청을 나르는 연결이 느린 세션 앞에서 high-watermark를 넘으면 수신을 멈추는지 확인 (흐름 제어)
+     */
+    @Test
+    void offer_AboveHighWatermark_CompletesOnHandOff() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        when(mockSession.send(any())).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0))
+                .concatMap(message -> {
+                    sent.add(message.getPayloadAsText());
+                    return gate.asMono();
+                }, 0)
+                .then());
+        OutboundQueue queue = new OutboundQueue(mockSession, 16, 1024, 8);
+        
+        // m1은 전송 중, 4바이트 메시지 2개까지는 high-watermark(8바이트) 이하
+        for (String text : List.of("m1", "m002", "m003")) {
+            StepVerifier.create(queue.offer(textMessage(text)))
+                .verifyComplete();
+        }
+        List<String> completed = new CopyOnWriteArrayList<>();
+        queue.offer(textMessage("m004")).subscribe(null, null, () -> completed.add("m004"));
+        assertEquals(List.of(), completed);
+        
+        gate.tryEmitEmpty();
+        assertEquals(List.of("m004"), completed);
+        assertEquals(List.of("m1", "m002", "m003", "m004"), sent);
+    }
+    
+    /**
+     * 검증: 전송 스트림이 종료된 세션에 보내는 메시지는 전송되지 않고 payload가 해제되며 에러로 완료되어야 함
+     * 목적: 연결 종료 후 전송 시 버퍼 누수 방지와 호출자가 전송된 것으로 처리하지 않는지 확인
+     */
+    @Test
+    void send_SessionClosed_FailsAndReleasesPayload() {
+        when(mockSession.send(any())).thenReturn(Mono.empty());
+        OutboundQueue queue = new OutboundQueue(mockSession, 16);
+        
+        NettyDataBuffer payload = nettyBuffer("m1");
+        StepVerifier.create(queue.send(new WebSocketMessage(WebSocketMessage.Type.TEXT, payload)))
+            .expectErrorMessage("Session closed")
+            .verify();
+        
+        assertEquals(0, payload.getNativeBuffer().refCnt());
+    }
+    
+    /**
+     * 검증: 헤더 테이블을 참조하는 메시지는 큐에 들어갈 때 테이블 항목이 반영되고,
+     * 큐가 가득 차 버려진 메시지가 예약한 항목은 반영되지 않아야 함
+     * 목적: 전송되지 않은 프레임 때문에 수신 측 테이블과 어긋나지 않는지 확인
+     */
+    @Test
+    void sendWithHeaderTable_QueueFull_RollsBackStagedEntries() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        when(mockSession.send(any())).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<WebSocketMessage>>getArgument(0))
+                .concatMap(message -> gate.asMono(), 0)
+                .then());
+        OutboundQueue queue = new OutboundQueue(mockSession, 8);
+        HeaderTable table = new HeaderTable(HeaderTable.DEFAULT_SIZE);
+        
+        StepVerifier.create(queue.send(table, t -> {
+                t.stage("Accept", "*/*");
+                return textMessage("m1");
+            }))
+            .expectNext(2)
+            .verifyComplete();
+        assertEquals(0, table.indexOf("Accept", "*/*"));
+        
+        for (int i = 2; i <= 9; i++) {
+            queue.send(textMessage("m" + i)).subscribe();
+        }
+        StepVerifier.create(queue.send(table, t -> {
+                t.stage("Cookie", "a=1");
+                return textMessage("m10");
+            }))
+            .expectError(IllegalStateException.class)
+            .verify();
+        assertEquals(-1, table.indexOf("Cookie", "a=1"));
+        assertEquals(1, table.getEntryCount());
+    }
+    
+    private static WebSocketMessage textMessage(String text) {
+        return new WebSocketMessage(WebSocketMessage.Type.TEXT,
+            DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static NettyDataBuffer nettyBuffer(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        NettyDataBuffer buffer = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT).allocateBuffer(bytes.length);
+        buffer.write(bytes);
+        return buffer;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.proxyrelay.service;
 
 import com.example.proxyrelay.dto.ClientType;
+import com.example.proxyrelay.dto.FrameProtocol;
 import com.example.proxyrelay.dto.SessionInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -133,6 +134,92 @@ class SessionServiceTest {
         assertEquals("session-a-2", available.getSession().getId());
     }
     
+    /**
+     * 검증: 모든 Client B가 이미 매핑되어 있어도 매핑된 Client A가 가장 적은 Client B가 반환되어야 함
+     * 목적: 여러 Client A가 Client B를 공유(N:1)하며 부하가 고르게 분산되는지 확인
+     */
+    @Test
+    void findAvailableClientB_AllAgentsMapped_ReturnsLeastMappedAgent() {
+        WebSocketSession sessionB2 = mock(WebSocketSession.class);
+        when(sessionB2.getId()).thenReturn("session-b-2");
+        when(sessionB2.isOpen()).thenReturn(true);
+        
+        sessionService.registerSession(mockSessionB, ClientType.CLIENT_B, "token");
+        sessionService.registerSession(sessionB2, ClientType.CLIENT_B, "token");
+        sessionService.mapSessions("session-a-1", "session-b-1");
+        sessionService.mapSessions("session-a-2", "session-b-1");
+        sessionService.mapSessions("session-a-3", "session-b-2");
+        
+        SessionInfo available = sessionService.findAvailableClientB();
+        assertNotNull(available);
+        assertEquals("session-b-2", available.getSession().getId());
+    }
+    
+    /**
+     * 검증: Client B 연결 종료 시 매핑된 모든 Client A의 매핑이 양방향으로 제거되어야 함
+     * 목적: 양방향 인덱스가 세션 제거 후에도 일관되게 유지되는지 확인
+     */
+    @Test
+    void removeSession_ClientB_UnmapsAllMappedClientAs() {
+        sessionService.registerSession(mockSessionB, ClientType.CLIENT_B, "token");
+        sessionService.mapSessions("session-a-1", "session-b-1");
+        sessionService.mapSessions("session-a-2", "session-b-1");
+        
+        sessionService.removeSession("session-b-1");
+        
+        assertNull(sessionService.getMappedClientB("session-a-1"));
+        assertNull(sessionService.getMappedClientB("session-a-2"));
+        assertNull(sessionService.getMappedClientA("session-b-1"));
+        assertNull(sessionService.findAvailableClientB());
+    }
+    
+    /**
+     * 검증: 매핑된 Client A가 모두 빠진 Client B는 다시 여유 Client B로 우선 배정되어야 함
+     * 목적: 여유 Client B 풀이 매핑/해제에 따라 올바르게 갱신되는지 확인
+     */
+    @Test
+    void assignClientB_ReleasedAgent_ReturnsToFreePool() {
+        WebSocketSession sessionB2 = mock(WebSocketSession.class);
+        when(sessionB2.getId()).thenReturn("session-b-2");
+        when(sessionB2.isOpen()).thenReturn(true);
+        sessionService.registerSession(mockSessionB, ClientType.CLIENT_B, "token");
+        sessionService.registerSession(sessionB2, ClientType.CLIENT_B, "token");
+        
+        SessionInfo first = sessionService.assignClientB("session-a-1");
+        SessionInfo second = sessionService.assignClientB("session-a-2");
+        assertNotEquals(first.getSession().getId(), second.getSession().getId());
+        
+        sessionService.removeSession("session-a-2");
+        SessionInfo third = sessionService.assignClientB("session-a-3");
+        
+        assertEquals(second.getSession().getId(), third.getSession().getId());
+        assertEquals(third.getSession().getId(), sessionService.getMappedClientB("session-a-3").getSession().getId());
+    }
+    
+    /**
+     * 검증: Client A는 같은 테넌트의 Client B에만 매핑되고, 테넌트별 Client B 목록에는 그 테넌트의 세션만 있어야 함
+     * 목적: 테넌트별 Client B 풀 분리 확인 (다른 테넌트의 여유 Client B를 배정하지 않음)
+     */
+    @Test
+    void assignClientB_OtherTenantAgentOnly_ReturnsNull() {
+        WebSocketSession sessionB2 = mock(WebSocketSession.class);
+        when(sessionB2.getId()).thenReturn("session-b-2");
+        when(sessionB2.isOpen()).thenReturn(true);
+        sessionService.registerSession(mockSessionB, ClientType.CLIENT_B, "token-a", FrameProtocol.JSON, null, "team-a");
+        sessionService.registerSession(sessionB2, ClientType.CLIENT_B, "token-b", FrameProtocol.JSON, null, "team-b");
+        
+        assertNull(sessionService.assignClientB("session-a-1", "team-c"));
+        assertNull(sessionService.findAvailableClientB());
+        assertEquals("session-b-2", sessionService.assignClientB("session-a-2", "team-b").getSession().getId());
+        assertEquals(1, sessionService.getClientBs("team-a").size());
+        assertEquals("session-b-1", sessionService.getClientBs("team-a").get(0).getSession().getId());
+        
+        sessionService.removeSession("session-b-2");
+        assertTrue(sessionService.getClientBs("team-b").isEmpty());
+        assertNull(sessionService.assignClientB("session-a-3", "team-b"));
+        assertNull(sessionService.getMappedClientB("session-a-2"));
+    }
+    
     /**
      * 검증: 활성 Client A 세션 수가 정확하게 카운트되어야 함
      * 목적: 통계 정보 제공을 위한 세션 수 집계 기능 확인